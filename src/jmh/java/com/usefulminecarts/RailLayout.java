@@ -0,0 +1,227 @@
+package com.usefulminecarts;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Synthetic rail layouts for the benchmarks.
+ *
+ * A layout is a list of rail blocks (id, rotation, switch state) plus sample cart
+ * positions along the route - four per block the route crosses, each with the direction
+ * the cart is travelling in, the way the physics tick would see them. toWorld() places the blocks
+ * in a VoxelRailWorld for the benchmarks that read the world.
+ */
+final class RailLayout {
+
+    enum Kind {
+        // 64 straight rails in a line
+        STRAIGHT,
+        // 32 corners turning left and right in turn (a diagonal zig-zag)
+        CORNER_CHAIN,
+        // 32 slopes climbing one block per block
+        SLOPE_STAIRCASE,
+        // A straight through a T-junction, plus a branch joining from the side
+        T_JUNCTION,
+        // One 2x2 switch footprint set straight, crossed north along its west column
+        SWITCH_STRAIGHT,
+        // The same footprint set left: in heading north, out heading east
+        SWITCH_LEFT
+    }
+
+    static final String STRAIGHT_ID = "Rail";
+    static final String CORNER_ID = "Rail_State_Definitions_Corner";
+    static final String T_ID = "Rail_State_Definitions_T";
+    static final String SLOPE_ID = "Rail_State_Definitions_Slope";
+    static final String SWITCH_ID = "UsefulMinecarts_Rail_Switch";
+
+    private static final double RAIL_HEIGHT = 0.1;
+    private static final double[] SAMPLE_OFFSETS = { 0.125, 0.375, 0.625, 0.875 };
+
+    final Kind kind;
+
+    // Rail blocks
+    final int[] blockX;
+    final int[] blockY;
+    final int[] blockZ;
+    final String[] blockIds;
+    final int[] rotations;
+    final String[] states;
+
+    // Samples: block under the cart, cart position and travel direction
+    final int[] sampleBlock;
+    final double[] sampleX;
+    final double[] sampleY;
+    final double[] sampleZ;
+    final double[] sampleDirX;
+    final double[] sampleDirZ;
+
+    private RailLayout(Kind kind, Builder b) {
+        this.kind = kind;
+        int blocks = b.blockIds.size();
+        blockX = new int[blocks];
+        blockY = new int[blocks];
+        blockZ = new int[blocks];
+        blockIds = new String[blocks];
+        rotations = new int[blocks];
+        states = new String[blocks];
+        for (int i = 0; i < blocks; i++) {
+            int[] pos = b.positions.get(i);
+            blockX[i] = pos[0];
+            blockY[i] = pos[1];
+            blockZ[i] = pos[2];
+            blockIds[i] = b.blockIds.get(i);
+            rotations[i] = b.rotations.get(i);
+            states[i] = b.states.get(i);
+        }
+
+        int samples = b.samples.size();
+        sampleBlock = new int[samples];
+        sampleX = new double[samples];
+        sampleY = new double[samples];
+        sampleZ = new double[samples];
+        sampleDirX = new double[samples];
+        sampleDirZ = new double[samples];
+        for (int i = 0; i < samples; i++) {
+            double[] s = b.samples.get(i);
+            sampleBlock[i] = (int) s[0];
+            sampleX[i] = s[1];
+            sampleY[i] = s[2];
+            sampleZ[i] = s[3];
+            sampleDirX[i] = s[4];
+            sampleDirZ[i] = s[5];
+        }
+    }
+
+    int blockCount() {
+        return blockIds.length;
+    }
+
+    int sampleCount() {
+        return sampleBlock.length;
+    }
+
+    /**
+     * Place the layout's blocks in a new in-memory world.
+     */
+    VoxelRailWorld toWorld() {
+        VoxelRailWorld world = new VoxelRailWorld();
+        for (int i = 0; i < blockCount(); i++) {
+            world.setBlock(blockX[i], blockY[i], blockZ[i], voxelKind(blockIds[i], states[i]), rotations[i]);
+        }
+        return world;
+    }
+
+    private static VoxelRailWorld.Kind voxelKind(String blockId, String state) {
+        switch (blockId) {
+            case CORNER_ID: return VoxelRailWorld.Kind.CORNER;
+            case T_ID: return VoxelRailWorld.Kind.T;
+            case SLOPE_ID: return VoxelRailWorld.Kind.SLOPE;
+            case SWITCH_ID: return "left".equals(state) ? VoxelRailWorld.Kind.SWITCH_LEFT : VoxelRailWorld.Kind.SWITCH;
+            default: return VoxelRailWorld.Kind.STRAIGHT;
+        }
+    }
+
+    static RailLayout create(Kind kind) {
+        Builder b = new Builder();
+        switch (kind) {
+            case STRAIGHT:
+                for (int z = 0; z < 64; z++) {
+                    b.rail(0, 0, z, STRAIGHT_ID, 0, null, 0, 1, 0);
+                }
+                break;
+
+            case CORNER_CHAIN: {
+                // Enter heading north, turn east, turn north again, ...
+                int x = 0, z = 0;
+                for (int i = 0; i < 32; i++) {
+                    if ((i & 1) == 0) {
+                        b.rail(x, 0, z, CORNER_ID, 0, null, 0, -1, 0);
+                        x++;
+                    } else {
+                        b.rail(x, 0, z, CORNER_ID, 2, null, 1, 0, 0);
+                        z--;
+                    }
+                }
+                break;
+            }
+
+            case SLOPE_STAIRCASE:
+                for (int i = 0; i < 32; i++) {
+                    b.rail(0, i, -i, SLOPE_ID, 0, null, 0, -1, 1);
+                }
+                break;
+
+            case T_JUNCTION:
+                // East-west main line through the junction at x = 8
+                for (int x = 0; x < 17; x++) {
+                    if (x == 8) {
+                        b.rail(x, 0, 0, T_ID, 0, null, 1, 0, 0);
+                    } else {
+                        b.rail(x, 0, 0, STRAIGHT_ID, 1, null, 1, 0, 0);
+                    }
+                }
+                // Branch coming up from the south into the same junction
+                for (int z = 8; z >= 1; z--) {
+                    b.rail(8, 0, z, STRAIGHT_ID, 0, null, 0, -1, 0);
+                }
+                b.rail(8, 0, 0, T_ID, 0, null, 0, -1, 0);
+                break;
+
+            case SWITCH_STRAIGHT:
+                // All four blocks of a footprint share one state; origin at (0, 0)
+                b.rail(0, 0, 1, SWITCH_ID, 0, "straight", 0, -1, 0);
+                b.rail(0, 0, 0, SWITCH_ID, 0, "straight", 0, -1, 0);
+                b.block(1, 0, 1, SWITCH_ID, 0, "straight");
+                b.block(1, 0, 0, SWITCH_ID, 0, "straight");
+                break;
+
+            case SWITCH_LEFT:
+                // Enters from the south, curves through the origin block and leaves east
+                b.rail(0, 0, 1, SWITCH_ID, 0, "left", 0, -1, 0);
+                b.rail(0, 0, 0, SWITCH_ID, 0, "left", 0.707, -0.707, 0);
+                b.rail(1, 0, 0, SWITCH_ID, 0, "left", 1, 0, 0);
+                b.block(1, 0, 1, SWITCH_ID, 0, "left");
+                break;
+        }
+        return new RailLayout(kind, b);
+    }
+
+    private static final class Builder {
+        final List<int[]> positions = new ArrayList<>();
+        final List<String> blockIds = new ArrayList<>();
+        final List<Integer> rotations = new ArrayList<>();
+        final List<String> states = new ArrayList<>();
+        final List<double[]> samples = new ArrayList<>();
+
+        /**
+         * Add a rail block and four samples of a cart crossing it in (dirX, dirZ),
+         * climbing rise blocks on the way.
+         */
+        void rail(int x, int y, int z, String blockId, int rotation, String state,
+                  double dirX, double dirZ, double rise) {
+            int block = blockIds.size();
+            block(x, y, z, blockId, rotation, state);
+
+            for (double t : SAMPLE_OFFSETS) {
+                samples.add(new double[] {
+                    block,
+                    x + 0.5 + dirX * (t - 0.5),
+                    y + RAIL_HEIGHT + rise * t,
+                    z + 0.5 + dirZ * (t - 0.5),
+                    dirX,
+                    dirZ
+                });
+            }
+        }
+
+        /**
+         * Add a block the route doesn't cross (no samples), e.g. the rest of a footprint.
+         */
+        void block(int x, int y, int z, String blockId, int rotation, String state) {
+            positions.add(new int[] { x, y, z });
+            blockIds.add(blockId);
+            rotations.add(rotation);
+            states.add(state);
+        }
+    }
+}
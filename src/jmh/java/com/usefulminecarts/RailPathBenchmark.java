@@ -0,0 +1,125 @@
+package com.usefulminecarts;
+
+import com.hypixel.hytale.protocol.RailPoint;
+import com.hypixel.hytale.protocol.Vector3f;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Path geometry used while following rails: snapping to a block's path, rotating
+ * path points and smoothing corner curves.
+ *
+ * One operation covers a whole layout - every sample (snapToPath, snapToPathInto) or every block
+ * (getRotatedPoints, generateSmoothCurvePoints) once. Run with ./gradlew jmh; the
+ * gc profiler adds gc.alloc.rate.norm, the bytes allocated per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RailPathBenchmark {
+
+    @Param({ "STRAIGHT", "CORNER_CHAIN", "SLOPE_STAIRCASE", "T_JUNCTION", "SWITCH_STRAIGHT", "SWITCH_LEFT" })
+    public RailLayout.Kind layout;
+
+    private RailLayout rails;
+
+    // Per block: the path a cart takes through it, and its raw rail points
+    // (entry, middle and exit, like a block's rail config)
+    private RailPathDefinition.RailPath[] paths;
+    private RailPoint[][] railPoints;
+    // Resolved up front for snapToPathInto, as a caller holding a descriptor would have them
+    private RailPathDefinition[] definitions;
+    private int[] stateIndices;
+    private final double[] snapResult = new double[RailPathRegistry.SNAP_RESULT_SIZE];
+
+    @Setup
+    public void setup() {
+        rails = RailLayout.create(layout);
+
+        int blocks = rails.blockCount();
+        paths = new RailPathDefinition.RailPath[blocks];
+        railPoints = new RailPoint[blocks][];
+        definitions = new RailPathDefinition[blocks];
+        stateIndices = new int[blocks];
+        for (int i = 0; i < blocks; i++) {
+            RailPathDefinition def = RailPathRegistry.getDefinition(rails.blockIds[i]);
+            definitions[i] = def;
+            stateIndices[i] = RailPathDefinition.stateIndex(rails.states[i]);
+            RailPathDefinition.RailPath path = null;
+            for (int edge = 0; edge < 4 && path == null; edge++) {
+                path = def.getDefaultPath(edge, rails.rotations[i]);
+            }
+            paths[i] = path;
+
+            List<RailPathDefinition.PathPoint> points = path.getRotatedPoints(rails.rotations[i]);
+            railPoints[i] = new RailPoint[] {
+                railPoint(points.get(0)),
+                railPoint(points.get(points.size() / 2)),
+                railPoint(points.get(points.size() - 1))
+            };
+        }
+    }
+
+    private static RailPoint railPoint(RailPathDefinition.PathPoint p) {
+        RailPoint point = new RailPoint();
+        point.point = new Vector3f((float) p.x, (float) p.y, (float) p.z);
+        return point;
+    }
+
+    @Benchmark
+    public void snapToPath(Blackhole bh) {
+        for (int i = 0; i < rails.sampleCount(); i++) {
+            int block = rails.sampleBlock[i];
+            bh.consume(RailPathRegistry.snapToPath(
+                rails.sampleX[i], rails.sampleY[i], rails.sampleZ[i],
+                rails.blockIds[block], rails.rotations[block],
+                rails.blockX[block], rails.blockY[block], rails.blockZ[block],
+                rails.sampleDirX[i], rails.sampleDirZ[i],
+                rails.states[block]));
+        }
+    }
+
+    @Benchmark
+    public void snapToPathInto(Blackhole bh) {
+        for (int i = 0; i < rails.sampleCount(); i++) {
+            int block = rails.sampleBlock[i];
+            bh.consume(RailPathRegistry.snapToPath(
+                rails.sampleX[i], rails.sampleY[i], rails.sampleZ[i],
+                definitions[block], rails.rotations[block],
+                rails.blockX[block], rails.blockY[block], rails.blockZ[block],
+                rails.sampleDirX[i], rails.sampleDirZ[i],
+                stateIndices[block], snapResult));
+        }
+        bh.consume(snapResult);
+    }
+
+    @Benchmark
+    public void getRotatedPoints(Blackhole bh) {
+        for (int i = 0; i < paths.length; i++) {
+            bh.consume(paths[i].getRotatedPoints(rails.rotations[i]));
+        }
+    }
+
+    @Benchmark
+    public void generateSmoothCurvePoints(Blackhole bh) {
+        for (int i = 0; i < railPoints.length; i++) {
+            bh.consume(RailCell.generateSmoothCurvePoints(railPoints[i], RailCell.CURVE_SMOOTHING_POINTS));
+        }
+    }
+}
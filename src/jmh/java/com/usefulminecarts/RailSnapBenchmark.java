@@ -0,0 +1,75 @@
+package com.usefulminecarts;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Snapping carts onto rails, read from a VoxelRailWorld instead of a live World.
+ *
+ * One operation snaps every sample of a layout once. The world's rail cells are
+ * compiled during setup, so this measures the steady state of the physics tick.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RailSnapBenchmark {
+
+    @Param({ "STRAIGHT", "CORNER_CHAIN", "SLOPE_STAIRCASE", "T_JUNCTION", "SWITCH_STRAIGHT", "SWITCH_LEFT" })
+    public RailLayout.Kind layout;
+
+    private RailLayout rails;
+    private VoxelRailWorld world;
+    private MinecartPhysicsSystem physics;
+    private final MinecartPhysicsSystem.RailSnap snap = new MinecartPhysicsSystem.RailSnap();
+
+    @Setup
+    public void setup() {
+        rails = RailLayout.create(layout);
+        world = rails.toWorld();
+        physics = new MinecartPhysicsSystem();
+
+        // Compile the cells up front
+        for (int i = 0; i < rails.sampleCount(); i++) {
+            physics.findBestRailSnapWithDirection(world,
+                rails.sampleX[i], rails.sampleY[i], rails.sampleZ[i],
+                (float) rails.sampleDirX[i], (float) rails.sampleDirZ[i], snap);
+        }
+    }
+
+    @Benchmark
+    public void findBestRailSnap(Blackhole bh) {
+        for (int i = 0; i < rails.sampleCount(); i++) {
+            bh.consume(physics.findBestRailSnapWithDirection(world,
+                rails.sampleX[i], rails.sampleY[i], rails.sampleZ[i],
+                (float) rails.sampleDirX[i], (float) rails.sampleDirZ[i], snap));
+            bh.consume(snap.distanceSq);
+        }
+    }
+
+    @Benchmark
+    public void snapToRailAt(Blackhole bh) {
+        for (int i = 0; i < rails.sampleCount(); i++) {
+            int block = rails.sampleBlock[i];
+            bh.consume(physics.snapToRailAt(world,
+                rails.sampleX[i], rails.sampleY[i], rails.sampleZ[i],
+                rails.blockX[block], rails.blockY[block], rails.blockZ[block],
+                rails.sampleDirX[i], rails.sampleDirZ[i], snap));
+            bh.consume(snap.distanceSq);
+        }
+    }
+}
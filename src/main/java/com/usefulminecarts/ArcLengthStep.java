@@ -0,0 +1,135 @@
+package com.usefulminecarts;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+/**
+ * One cart's arc-length physics step, split into read / compute / commit.
+ *
+ * The inputs are captured on the world thread (MinecartPhysicsSystem). integrate()
+ * only touches the cursor, config and the cached rail graph, so ParallelCartIntegrator
+ * can run it on a worker. The result is applied back on the world thread by
+ * MinecartPhysicsSystem.applyArcStep. The serial path simply runs the three back to back.
+ */
+final class ArcLengthStep {
+
+    // Tangent slope above which a track piece counts as a slope
+    static final double SLOPE_TANGENT_Y = 0.1;
+
+    // ---- Inputs (world thread)
+    Ref<EntityStore> cartRef;
+    CartPhysicsComponent physics;
+    int entityId;
+    boolean isMounted;
+    boolean riderWantsForward;
+    boolean riderWantsBackward;
+    // Rider's facing, only read when there is rider input
+    double playerFacingX;
+    double playerFacingZ = 1;
+    float dt;
+    double startVelocity;
+    // Cursor to move, and the cart's cursor it was copied from (parallel only)
+    TrackCursor cursor;
+    TrackCursor original;
+
+    // ---- Results
+    double velocity;
+    // Cart is standing still on flat rail - nothing moved
+    boolean stationary;
+    TrackCursor.Stop stop = TrackCursor.Stop.NONE;
+
+    // ---- Pipeline state (ParallelCartIntegrator)
+    boolean pending;
+    boolean needsSerial;
+
+    /**
+     * Apply the forces and move the cursor. Same force model as the spatial physics:
+     * slope gravity, friction, rider input, accelerators, max speed.
+     */
+    void integrate() {
+        stop = TrackCursor.Stop.NONE;
+        stationary = false;
+
+        // Direction lives in the cursor, velocity is a magnitude
+        double velocity = Math.abs(startVelocity);
+        boolean onSlope = Math.abs(cursor.ty) > SLOPE_TANGENT_Y;
+        RailCell cell = cursor.getCurrentCell();
+
+        // On slope with no velocity - start moving downhill
+        if (velocity < MinecartConfig.getMinSpeed() && onSlope) {
+            if (cursor.ty > 0) cursor.reverse();
+            velocity = MinecartConfig.getInitialPush();
+        }
+
+        // If stationary on flat rail with no rider input, stay put
+        if (velocity < MinecartConfig.getMinSpeed() && !onSlope
+                && !(isMounted && (riderWantsForward || riderWantsBackward))) {
+            this.velocity = velocity;
+            stationary = true;
+            return;
+        }
+
+        // Slope gravity from the tangent: ty < 0 is downhill in the travel direction
+        if (onSlope) {
+            double gravityAccel = MinecartConfig.getAcceleration() * Math.abs(cursor.ty) * dt;
+            if (cursor.ty < 0) {
+                velocity += gravityAccel * MinecartConfig.getSlopeBoost();
+            } else {
+                velocity -= gravityAccel * MinecartConfig.getUphillDrag();
+                // Stopped on the way up - roll back down
+                if (velocity < 0) {
+                    velocity = -velocity;
+                    cursor.reverse();
+                }
+            }
+        }
+
+        velocity *= MinecartConfig.getFriction();
+
+        // Rider input: W accelerates towards where the player faces, S brakes
+        if (isMounted && (riderWantsForward || riderWantsBackward)) {
+            double playerInputStrength = MinecartConfig.getPlayerInputStrength();
+            boolean playerFacingForward = playerFacingX * cursor.tx + playerFacingZ * cursor.tz >= 0;
+
+            if (velocity < MinecartConfig.getMinSpeed() && riderWantsForward) {
+                // Stationary - start moving the way the player faces
+                velocity = playerInputStrength * dt;
+                if (!playerFacingForward) cursor.reverse();
+            } else if (riderWantsForward) {
+                if (playerFacingForward) {
+                    velocity += playerInputStrength * dt;
+                } else {
+                    velocity -= playerInputStrength * dt;
+                    if (velocity < 0) {
+                        velocity = -velocity;
+                        cursor.reverse();
+                    }
+                }
+            } else {
+                velocity -= playerInputStrength * dt * 1.5; // Braking is stronger
+                if (velocity < 0) velocity = 0; // Don't reverse with S, just stop
+            }
+        }
+
+        // Accelerator under the cart (cells entered while moving are boosted by the cursor)
+        if (cell != null && cell.isAccelerator) {
+            velocity *= MinecartConfig.getAcceleratorBoost();
+            if (velocity < MinecartConfig.getMinSpeed()) {
+                velocity = MinecartConfig.getInitialPush() * 2.0;
+            }
+        }
+
+        velocity = Math.min(velocity, MinecartConfig.getMaxSpeed());
+        if (velocity < MinecartConfig.getMinSpeed() && !onSlope) {
+            velocity = 0;
+        }
+
+        // Move along the track in one go
+        stop = cursor.advance(velocity * dt);
+        velocity = Math.min(velocity * cursor.speedFactor, MinecartConfig.getMaxSpeed());
+        if (stop == TrackCursor.Stop.END_OF_TRACK) {
+            velocity = 0;
+        }
+        this.velocity = velocity;
+    }
+}
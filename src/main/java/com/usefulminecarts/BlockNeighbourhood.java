@@ -0,0 +1,84 @@
+package com.usefulminecarts;
+
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.chunk.WorldChunk;
+
+/**
+ * The few chunks one cart tick reads from, looked up once and then reused.
+ *
+ * Every block read of a live world (block type, rotation, the caches' chunk tokens) first
+ * finds the chunk by its index. A cart tick probes a handful of blocks around the cart,
+ * so nearly all of those land in the same one to four chunks. While a pass is open
+ * (WorldRailView.beginPass to endPass, around each cart tick) WorldRailView asks this
+ * for the chunk instead of the world, and blocks are read straight from it.
+ *
+ * Outside a pass nothing is kept - chunks can unload between ticks, so a chunk is never
+ * reused past the pass that looked it up. Only used from the world's thread.
+ */
+final class BlockNeighbourhood {
+
+    // A cart tick spans at most a 2x2 block of chunk columns
+    private static final int SLOTS = 4;
+
+    private final World world;
+    private final long[] indexes = new long[SLOTS];
+    private final WorldChunk[] chunks = new WorldChunk[SLOTS];
+    private int count;
+    // Slot to replace next once all are used (round robin)
+    private int next;
+    private boolean open;
+    // World chunk lookups during the current pass
+    private int lookups;
+
+    BlockNeighbourhood(World world) {
+        this.world = world;
+    }
+
+    void open() {
+        count = 0;
+        next = 0;
+        lookups = 0;
+        open = true;
+    }
+
+    /**
+     * Forget the pass's chunks.
+     * @return How many chunk lookups went to the world during the pass
+     */
+    int close() {
+        open = false;
+        for (int i = 0; i < count; i++) {
+            chunks[i] = null;
+        }
+        count = 0;
+        return lookups;
+    }
+
+    boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * Get a chunk by its index (ChunkUtil.indexChunkFromBlock), from the world the first
+     * time in this pass.
+     * @return The chunk, or null if it isn't in memory
+     */
+    WorldChunk chunk(long chunkIndex) {
+        for (int i = 0; i < count; i++) {
+            if (indexes[i] == chunkIndex) return chunks[i];
+        }
+
+        WorldChunk chunk = world.getChunkIfInMemory(chunkIndex);
+        lookups++;
+        int slot;
+        if (count < SLOTS) {
+            slot = count++;
+        } else {
+            slot = next;
+            next = (next + 1) % SLOTS;
+        }
+        indexes[slot] = chunkIndex;
+        chunks[slot] = chunk;
+        return chunk;
+    }
+}
@@ -0,0 +1,107 @@
+package com.usefulminecarts;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Java Flight Recorder events for the cart hot paths, so a continuous recording can line
+ * up slow cart ticks with GC pauses and world-thread stalls in JMC.
+ *
+ * Each event has its own enabled switch and threshold, set like any JFR event, e.g.
+ *   jcmd <pid> JFR.start settings=profile +com.usefulminecarts.CartTick#threshold=0ms
+ * or in a .jfc file. Callers check the static EventType first, so while an event is
+ * disabled (or nothing is recording) the hot path doesn't even allocate the event.
+ *
+ * Defaults: ExtendedSnapSearch records every search (0 ms). CartTick and
+ * MountMovementRewrite fire once per cart tick or rider packet, so they default to 1 ms
+ * and are in practice silent - a normal tick or rewrite takes microseconds. Lower their
+ * threshold (as above) to see them; they then record only what outlives the threshold.
+ */
+final class CartEvents {
+
+    private CartEvents() {
+    }
+
+    static final EventType CART_TICK = EventType.getEventType(CartTick.class);
+    static final EventType EXTENDED_SNAP_SEARCH = EventType.getEventType(ExtendedSnapSearch.class);
+    static final EventType MOUNT_MOVEMENT_REWRITE = EventType.getEventType(MountMovementRewrite.class);
+
+    @Name("com.usefulminecarts.CartTick")
+    @Label("Cart Physics Tick")
+    @Description("One MinecartPhysicsSystem tick of one cart")
+    @Category({"Useful Minecarts", "Physics"})
+    @Enabled(true)
+    @Threshold("1 ms")
+    @StackTrace(false)
+    static final class CartTick extends Event {
+        @Label("Entity Id")
+        int entityId;
+
+        @Label("Substeps")
+        @Description("Sweep steps taken by the spatial physics")
+        int substeps;
+
+        @Label("Blocks Crossed")
+        int blocksCrossed;
+
+        @Label("Snap Probes")
+        @Description("Blocks probed for a rail to snap to")
+        int snapProbes;
+
+        @Label("Snap Prediction Misses")
+        @Description("Sweep steps where the predicted next cell had no rail to snap to")
+        int snapPredictionMisses;
+
+        @Label("Chunk Lookups")
+        @Description("Chunks the tick looked up in the world (see BlockNeighbourhood)")
+        int chunkLookups;
+    }
+
+    @Name("com.usefulminecarts.ExtendedSnapSearch")
+    @Label("Extended Rail Snap Search")
+    @Description("No rail next to the cart, so findBestRailSnapWithDirection searched 5x4x5 blocks")
+    @Category({"Useful Minecarts", "Physics"})
+    @Enabled(true)
+    @Threshold("0 ms")
+    @StackTrace(false)
+    static final class ExtendedSnapSearch extends Event {
+        @Label("Block X")
+        int blockX;
+
+        @Label("Block Y")
+        int blockY;
+
+        @Label("Block Z")
+        int blockZ;
+
+        @Label("Found")
+        boolean found;
+    }
+
+    @Name("com.usefulminecarts.MountMovementRewrite")
+    @Label("Mount Movement Rewrite")
+    @Description("A rider's MountMovement packet rewritten to the physics position")
+    @Category({"Useful Minecarts", "Network"})
+    @Enabled(true)
+    @Threshold("1 ms")
+    @StackTrace(false)
+    static final class MountMovementRewrite extends Event {
+        @Label("Cart Id")
+        int cartId;
+
+        @Label("Direction")
+        @Description("Rider input read from the packet: 1 forward, -1 backward, 0 none")
+        int direction;
+
+        @Label("Correction")
+        @Description("Distance between the client's position and the physics position, in blocks")
+        double correction;
+    }
+}
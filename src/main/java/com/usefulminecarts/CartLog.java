@@ -0,0 +1,259 @@
+package com.usefulminecarts;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Diagnostic logging for the tick and packet paths, with a level per category that can
+ * be changed at runtime (/mc log).
+ *
+ * Callers check isEnabled() (or sample() for per-cart tick logging) before building the
+ * arguments, so a disabled message costs one array read:
+ *
+ *   if (CartLog.isEnabled(CartLog.Category.TRACK, CartLog.Level.INFO)) {
+ *       CartLog.log(CartLog.Category.TRACK, CartLog.Level.INFO, "[MinecartPhysics] Cart %d: ...", entityId);
+ *   }
+ *
+ * log() only queues the format string and arguments; a background thread formats and
+ * writes them. Arguments must not be changed after the call (pass values, not mutable
+ * objects). If the queue is full, messages are dropped and counted rather than blocking
+ * the tick.
+ */
+public final class CartLog {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    public enum Category {
+        // Per-cart physics state, bumps
+        PHYSICS,
+        // Junction, corner and dead-end decisions, bumpers, walls, end of track
+        TRACK,
+        // Rider input and positions (ClientMovementDebug), dismounts
+        RIDER,
+        // MountMovement / ClientMovement packet rewriting
+        PACKETS,
+        // MinecartMountInputBlocker
+        INPUT,
+        // Tied chicken placement (including item metadata dumps)
+        CHICKEN;
+
+        public static Category parse(String name) {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * Levels in increasing verbosity. DEBUG is per-tick output and goes through sample().
+     */
+    public enum Level {
+        OFF,
+        WARN,
+        INFO,
+        DEBUG;
+
+        public static Level parse(String name) {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    public static final Level DEFAULT_LEVEL = Level.WARN;
+    public static final int DEFAULT_SAMPLE_INTERVAL_MS = 200;
+    private static final int QUEUE_CAPACITY = 4096;
+
+    private static final Category[] CATEGORIES = Category.values();
+    private static final Level[] LEVELS = Level.values();
+    // Level ordinal per category (a plain array - a stale read just delays a toggle a little)
+    private static final int[] levels = new int[CATEGORIES.length];
+    static {
+        resetLevels();
+    }
+
+    // Per-cart sampling: only this cart (-1 = all carts), at most once per interval per category
+    private static volatile int sampledCart = -1;
+    private static volatile int sampleIntervalMs = DEFAULT_SAMPLE_INTERVAL_MS;
+    // (category << 32 | entity id) -> next time a sample is due
+    private static final Long2LongOpenHashMap nextSample = new Long2LongOpenHashMap();
+
+    private static final BlockingQueue<Entry> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private static final AtomicLong dropped = new AtomicLong();
+    private static volatile Thread appender;
+
+    private record Entry(Category category, Level level, String format, Object[] args) {
+    }
+
+    private CartLog() {
+    }
+
+    /**
+     * Whether messages of a category at a level are written.
+     */
+    public static boolean isEnabled(Category category, Level level) {
+        return level.ordinal() <= levels[category.ordinal()];
+    }
+
+    /**
+     * Whether to write this tick's DEBUG output for a cart: the category is at DEBUG, the
+     * cart passes the cart filter and its last sample was at least the interval ago.
+     */
+    public static boolean sample(Category category, int entityId) {
+        if (Level.DEBUG.ordinal() > levels[category.ordinal()]) return false;
+        int cart = sampledCart;
+        if (cart >= 0 && cart != entityId) return false;
+
+        long now = System.currentTimeMillis();
+        long key = (long) category.ordinal() << 32 | (entityId & 0xFFFFFFFFL);
+        synchronized (nextSample) {
+            if (now < nextSample.get(key)) return false;
+            nextSample.put(key, now + sampleIntervalMs);
+        }
+        return true;
+    }
+
+    /**
+     * Drop a removed cart's sampling state (CartRemovalSystem), so the map only holds
+     * carts that still exist.
+     */
+    public static void forgetCart(int entityId) {
+        synchronized (nextSample) {
+            if (nextSample.isEmpty()) return;
+            for (Category category : CATEGORIES) {
+                nextSample.remove((long) category.ordinal() << 32 | (entityId & 0xFFFFFFFFL));
+            }
+        }
+    }
+
+    /**
+     * Queue a message (String.format syntax) for the appender thread.
+     */
+    public static void log(Category category, Level level, String format, Object... args) {
+        if (!isEnabled(category, level)) return;
+        ensureAppender();
+        if (!queue.offer(new Entry(category, level, format, args))) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    public static Level getLevel(Category category) {
+        return LEVELS[levels[category.ordinal()]];
+    }
+
+    public static void setLevel(Category category, Level level) {
+        levels[category.ordinal()] = level.ordinal();
+    }
+
+    public static void setAllLevels(Level level) {
+        for (Category category : CATEGORIES) {
+            setLevel(category, level);
+        }
+    }
+
+    public static void resetLevels() {
+        setAllLevels(DEFAULT_LEVEL);
+    }
+
+    /**
+     * Restrict per-cart sampling to one cart.
+     * @param entityId The cart's network id, or -1 for all carts
+     */
+    public static void setSampledCart(int entityId) {
+        sampledCart = entityId;
+    }
+
+    public static int getSampledCart() {
+        return sampledCart;
+    }
+
+    public static void setSampleIntervalMs(int intervalMs) {
+        sampleIntervalMs = Math.max(0, intervalMs);
+    }
+
+    public static int getSampleIntervalMs() {
+        return sampleIntervalMs;
+    }
+
+    /**
+     * One line per category plus the sampling settings.
+     */
+    public static List<String> getStatus() {
+        List<String> lines = new ArrayList<>();
+        StringBuilder sb = new StringBuilder("Log levels:");
+        for (Category category : CATEGORIES) {
+            sb.append(' ').append(category.name().toLowerCase(Locale.ROOT)).append('=').append(getLevel(category));
+        }
+        lines.add(sb.toString());
+        lines.add(String.format("Sampling: %s, every %dms per cart, %d dropped",
+            sampledCart < 0 ? "all carts" : "cart " + sampledCart, sampleIntervalMs, dropped.get()));
+        return lines;
+    }
+
+    /**
+     * Write what is still queued and stop the appender (plugin shutdown).
+     */
+    public static synchronized void shutdown() {
+        if (appender == null) return;
+        appender.interrupt();
+        try {
+            appender.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        appender = null;
+        drain();
+        synchronized (nextSample) {
+            nextSample.clear();
+        }
+    }
+
+    private static void ensureAppender() {
+        if (appender != null) return;
+        synchronized (CartLog.class) {
+            if (appender != null) return;
+            Thread thread = new Thread(CartLog::runAppender, "UsefulMinecarts-Log");
+            thread.setDaemon(true);
+            thread.start();
+            appender = thread;
+        }
+    }
+
+    private static void runAppender() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Entry entry = queue.poll(1, TimeUnit.SECONDS);
+                if (entry != null) {
+                    write(entry);
+                }
+            }
+        } catch (InterruptedException e) {
+            // Shutting down - shutdown() drains the rest
+        }
+    }
+
+    private static void drain() {
+        Entry entry;
+        while ((entry = queue.poll()) != null) {
+            write(entry);
+        }
+    }
+
+    private static void write(Entry entry) {
+        String message;
+        try {
+            message = entry.args.length == 0 ? entry.format : String.format(entry.format, entry.args);
+        } catch (RuntimeException e) {
+            message = entry.format + " (bad log arguments: " + e.getMessage() + ")";
+        }
+        if (entry.level == Level.WARN) {
+            LOGGER.atWarning().log(message);
+        } else {
+            LOGGER.atInfo().log(message);
+        }
+    }
+}
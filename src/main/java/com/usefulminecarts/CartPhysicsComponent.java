@@ -0,0 +1,162 @@
+package com.usefulminecarts;
+
+import com.hypixel.hytale.codec.Codec;
+import com.hypixel.hytale.codec.KeyedCodec;
+import com.hypixel.hytale.codec.builder.BuilderCodec;
+import com.hypixel.hytale.component.Component;
+import com.hypixel.hytale.component.ComponentType;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Physics state of a minecart, stored on the cart entity itself.
+ *
+ * MinecartPhysicsSystem adds it the first time it ticks a cart and reads it
+ * straight from the archetype chunk afterwards. Speed, travel direction and
+ * facing are saved with the entity, so a cart that was rolling when the world
+ * was saved keeps rolling after a restart.
+ */
+public class CartPhysicsComponent implements Component<EntityStore> {
+
+    private static ComponentType<EntityStore, CartPhysicsComponent> COMPONENT_TYPE;
+
+    // Speed in blocks/s (a magnitude - the direction is worldDirX/Z)
+    double velocity;
+
+    // Horizontal direction the cart is travelling in, (0, 0) when it has none
+    double worldDirX;
+    double worldDirZ;
+
+    // Yaw the cart is facing, valid if hasFacingYaw
+    float facingYaw;
+    boolean hasFacingYaw;
+
+    // Position on the track graph in arc-length mode (not saved - rebuilt on attach)
+    TrackCursor trackCursor;
+    // Reused by parallel mode for this cart's queued step (not saved)
+    ArcLengthStep arcStep;
+
+    // Rail searches answered by the predicted next cell, and searches where it missed and
+    // the full neighbourhood search ran (not saved)
+    int snapPredictionHits;
+    int snapPredictionMisses;
+
+    // Sleep state (not saved - a loaded cart starts awake): consecutive idle ticks, and
+    // while asleep, the world and block CartSleepTracker has it indexed under
+    int idleTicks;
+    boolean asleep;
+    RailWorldView sleepView;
+    long sleepCell;
+
+    // Ticks left before a cart that found no rail may run the extended snap search
+    // again (saved, and kept by reset() - a derailed cart is reset every tick)
+    int extendedSearchBackoff;
+
+    // Codec for serialization (required for component registration)
+    public static final BuilderCodec<CartPhysicsComponent> CODEC = BuilderCodec.builder(
+        CartPhysicsComponent.class,
+        CartPhysicsComponent::new
+    )
+    .append(
+        new KeyedCodec<>("Velocity", Codec.DOUBLE),
+        (comp, value) -> comp.velocity = value,
+        comp -> comp.velocity
+    ).add()
+    .append(
+        new KeyedCodec<>("WorldDirX", Codec.DOUBLE),
+        (comp, value) -> comp.worldDirX = value,
+        comp -> comp.worldDirX
+    ).add()
+    .append(
+        new KeyedCodec<>("WorldDirZ", Codec.DOUBLE),
+        (comp, value) -> comp.worldDirZ = value,
+        comp -> comp.worldDirZ
+    ).add()
+    .append(
+        new KeyedCodec<>("FacingYaw", Codec.FLOAT),
+        (comp, value) -> comp.facingYaw = value,
+        comp -> comp.facingYaw
+    ).add()
+    .append(
+        new KeyedCodec<>("HasFacingYaw", Codec.BOOLEAN),
+        (comp, value) -> comp.hasFacingYaw = value,
+        comp -> comp.hasFacingYaw
+    ).add()
+    .append(
+        new KeyedCodec<>("ExtendedSearchBackoff", Codec.INTEGER),
+        (comp, value) -> comp.extendedSearchBackoff = value,
+        comp -> comp.extendedSearchBackoff
+    ).add()
+    .build();
+
+    public CartPhysicsComponent() {
+    }
+
+    public double getVelocity() {
+        return velocity;
+    }
+
+    public boolean hasWorldDirection() {
+        return worldDirX != 0 || worldDirZ != 0;
+    }
+
+    public void setWorldDirection(double dirX, double dirZ) {
+        this.worldDirX = dirX;
+        this.worldDirZ = dirZ;
+    }
+
+    public void reverseWorldDirection() {
+        this.worldDirX = -worldDirX;
+        this.worldDirZ = -worldDirZ;
+    }
+
+    public void clearWorldDirection() {
+        this.worldDirX = 0;
+        this.worldDirZ = 0;
+    }
+
+    public float getFacingYaw(float fallback) {
+        return hasFacingYaw ? facingYaw : fallback;
+    }
+
+    public void setFacingYaw(float yaw) {
+        this.facingYaw = yaw;
+        this.hasFacingYaw = true;
+    }
+
+    public void clearFacingYaw() {
+        this.hasFacingYaw = false;
+    }
+
+    /**
+     * Forget all motion (cart left the rails).
+     */
+    public void reset() {
+        velocity = 0;
+        clearWorldDirection();
+        clearFacingYaw();
+        trackCursor = null;
+    }
+
+    public static ComponentType<EntityStore, CartPhysicsComponent> getComponentType() {
+        return COMPONENT_TYPE;
+    }
+
+    public static void setComponentType(ComponentType<EntityStore, CartPhysicsComponent> type) {
+        COMPONENT_TYPE = type;
+    }
+
+    @Nonnull
+    @Override
+    public Component<EntityStore> clone() {
+        CartPhysicsComponent clone = new CartPhysicsComponent();
+        clone.velocity = this.velocity;
+        clone.worldDirX = this.worldDirX;
+        clone.worldDirZ = this.worldDirZ;
+        clone.facingYaw = this.facingYaw;
+        clone.hasFacingYaw = this.hasFacingYaw;
+        clone.extendedSearchBackoff = this.extendedSearchBackoff;
+        return clone;
+    }
+}
@@ -0,0 +1,65 @@
+package com.usefulminecarts;
+
+import com.hypixel.hytale.builtin.mounts.minecart.MinecartComponent;
+import com.hypixel.hytale.component.AddReason;
+import com.hypixel.hytale.component.CommandBuffer;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.RemoveReason;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.component.query.Query;
+import com.hypixel.hytale.component.system.RefSystem;
+import com.hypixel.hytale.server.core.modules.entity.tracker.NetworkId;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Keeps per-cart tracking in step with minecart entities being added and removed
+ * (destroyed, despawned or unloaded with its chunk).
+ *
+ * Some trackers are keyed by network id, and network ids are handed out again. Without
+ * this, a new cart that got a removed cart's id would start out with that cart's state.
+ * CartSleepTracker also counts the carts per world and drops removed sleepers from its
+ * block index.
+ */
+public class CartRemovalSystem extends RefSystem<EntityStore> {
+
+    private Query<EntityStore> query;
+
+    @Nonnull
+    @Override
+    public Query<EntityStore> getQuery() {
+        if (this.query == null) {
+            this.query = Query.and(MinecartComponent.getComponentType());
+        }
+        return this.query;
+    }
+
+    @Override
+    public void onEntityAdded(@Nonnull Ref<EntityStore> ref, @Nonnull AddReason reason,
+                              @Nonnull Store<EntityStore> store, @Nonnull CommandBuffer<EntityStore> commandBuffer) {
+        World world = store.getExternalData().getWorld();
+        if (world != null) {
+            CartSleepTracker.onCartAdded(WorldRailView.of(world));
+        }
+    }
+
+    @Override
+    public void onEntityRemove(@Nonnull Ref<EntityStore> ref, @Nonnull RemoveReason reason,
+                               @Nonnull Store<EntityStore> store, @Nonnull CommandBuffer<EntityStore> commandBuffer) {
+        World world = store.getExternalData().getWorld();
+        if (world != null) {
+            CartSleepTracker.forget(WorldRailView.of(world),
+                store.getComponent(ref, CartPhysicsComponent.getComponentType()));
+        }
+
+        NetworkId networkId = store.getComponent(ref, NetworkId.getComponentType());
+        if (networkId == null) return;
+        int cartEntityId = networkId.getId();
+        CartLog.forgetCart(cartEntityId);
+        if (world != null && StressTest.isRunning()) {
+            StressTest.onCartRemoved(world, cartEntityId);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.usefulminecarts;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Puts parked minecarts to sleep and wakes them again.
+ *
+ * A cart that has sat still on flat rail with no rider for a while is put to sleep
+ * and MinecartPhysicsSystem skips it entirely. The sleep flag and idle counter live on
+ * the cart's CartPhysicsComponent; this class only keeps, per world, which sleeping
+ * carts rest in which block, so they can be woken by:
+ * - a bump (MinecartPhysicsSystem.bumpCart)
+ * - a rider mounting (MinecartMountInteraction, CustomMinecartMount)
+ * - damage (ChestCartDeathSystem)
+ * - a block change next to them (RailBlockChangeSystem)
+ * - a moving cart entering their block
+ *
+ * Everything here runs on the world's thread. Carts integrated on ParallelCartIntegrator
+ * workers record the blocks they enter on their TrackCursor, and those are woken when the
+ * step is committed (MinecartPhysicsSystem.applyArcStep).
+ *
+ * Removed carts are dropped through CartRemovalSystem.
+ */
+public final class CartSleepTracker {
+
+    // Consecutive idle physics ticks before a cart goes to sleep
+    private static final int SLEEP_AFTER_IDLE_TICKS = 20;
+
+    private static final Map<RailWorldView, CartSleepTracker> trackers = new ConcurrentHashMap<>();
+
+    // Block (RailNetwork.packPos) -> carts sleeping in it
+    private final Long2ObjectOpenHashMap<ArrayList<CartPhysicsComponent>> sleepersByCell = new Long2ObjectOpenHashMap<>();
+    // Carts in this world, and how many of them are asleep (read by /mc status from
+    // the command thread, written only by the world thread)
+    private volatile int carts;
+    private volatile int sleeping;
+
+    private CartSleepTracker() {
+    }
+
+    /**
+     * Get the tracker for a world, creating it if needed.
+     */
+    static CartSleepTracker forView(RailWorldView view) {
+        return trackers.computeIfAbsent(view, v -> new CartSleepTracker());
+    }
+
+    /**
+     * Drop all trackers (plugin shutdown).
+     */
+    public static void clearAll() {
+        trackers.clear();
+    }
+
+    /**
+     * Drop the tracker for one world (the world was removed, see WorldRailView.onWorldRemoved).
+     */
+    static void remove(RailWorldView view) {
+        trackers.remove(view);
+    }
+
+    /**
+     * Count a cart entity that was added to a world (CartRemovalSystem).
+     */
+    static void onCartAdded(RailWorldView view) {
+        forView(view).carts++;
+    }
+
+    /**
+     * Record a physics tick where the cart sat still on flat rail with no rider.
+     * Puts the cart to sleep once it has been idle long enough.
+     */
+    static void markIdle(CartPhysicsComponent physics, RailWorldView view, double x, double y, double z) {
+        if (++physics.idleTicks >= SLEEP_AFTER_IDLE_TICKS) {
+            long cell = RailNetwork.packPos((int) Math.floor(x), (int) Math.floor(y), (int) Math.floor(z));
+            forView(view).sleep(physics, view, cell);
+        }
+    }
+
+    /**
+     * Record a physics tick where the cart moved or had input.
+     */
+    static void markActive(CartPhysicsComponent physics) {
+        physics.idleTicks = 0;
+    }
+
+    private void sleep(CartPhysicsComponent physics, RailWorldView view, long cell) {
+        physics.idleTicks = 0;
+        physics.asleep = true;
+        physics.sleepView = view;
+        physics.sleepCell = cell;
+        ArrayList<CartPhysicsComponent> cellSleepers = sleepersByCell.get(cell);
+        if (cellSleepers == null) {
+            cellSleepers = new ArrayList<>(2);
+            sleepersByCell.put(cell, cellSleepers);
+        }
+        cellSleepers.add(physics);
+        sleeping++;
+    }
+
+    /**
+     * Wake a cart so its physics runs again on the next tick.
+     * @param physics The cart's physics component (may be null - a cart that never ticked is awake)
+     */
+    public static void wake(CartPhysicsComponent physics) {
+        if (physics == null) return;
+        physics.idleTicks = 0;
+        if (!physics.asleep) return;
+
+        CartSleepTracker tracker = trackers.get(physics.sleepView);
+        physics.asleep = false;
+        physics.sleepView = null;
+        if (tracker == null) return;
+        ArrayList<CartPhysicsComponent> cellSleepers = tracker.sleepersByCell.get(physics.sleepCell);
+        if (cellSleepers == null || !cellSleepers.remove(physics)) return;
+        if (cellSleepers.isEmpty()) {
+            tracker.sleepersByCell.remove(physics.sleepCell);
+        }
+        tracker.sleeping--;
+    }
+
+    /**
+     * Drop a cart that was removed from a world (CartRemovalSystem).
+     * @param physics The cart's physics component, or null if it never ticked
+     */
+    static void forget(RailWorldView view, CartPhysicsComponent physics) {
+        wake(physics);
+        CartSleepTracker tracker = trackers.get(view);
+        if (tracker != null && tracker.carts > 0) {
+            tracker.carts--;
+        }
+    }
+
+    /**
+     * Wake every cart sleeping in a block (a moving cart entered it).
+     */
+    static void wakeAt(RailWorldView view, int blockX, int blockY, int blockZ) {
+        CartSleepTracker tracker = trackers.get(view);
+        if (tracker == null || tracker.sleeping == 0) return;
+        tracker.wakeCell(RailNetwork.packPos(blockX, blockY, blockZ));
+    }
+
+    /**
+     * Wake every cart sleeping in the blocks a track cursor entered (RailNetwork.packPos).
+     */
+    static void wakeAt(RailWorldView view, LongArrayList cells) {
+        if (cells.isEmpty()) return;
+        CartSleepTracker tracker = trackers.get(view);
+        if (tracker == null || tracker.sleeping == 0) return;
+        for (int i = 0; i < cells.size(); i++) {
+            tracker.wakeCell(cells.getLong(i));
+        }
+    }
+
+    /**
+     * Wake every cart sleeping in the 3x3x3 box around a changed block.
+     */
+    public static void wakeAround(RailWorldView view, int blockX, int blockY, int blockZ) {
+        CartSleepTracker tracker = trackers.get(view);
+        if (tracker == null || tracker.sleeping == 0) return;
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dz = -1; dz <= 1; dz++) {
+                    tracker.wakeCell(RailNetwork.packPos(blockX + dx, blockY + dy, blockZ + dz));
+                }
+            }
+        }
+    }
+
+    private void wakeCell(long cell) {
+        ArrayList<CartPhysicsComponent> cellSleepers = sleepersByCell.remove(cell);
+        if (cellSleepers == null) return;
+        for (int i = 0; i < cellSleepers.size(); i++) {
+            CartPhysicsComponent physics = cellSleepers.get(i);
+            physics.asleep = false;
+            physics.sleepView = null;
+        }
+        sleeping -= cellSleepers.size();
+    }
+
+    /**
+     * Number of sleeping carts, over all worlds.
+     */
+    public static int getSleepingCount() {
+        int count = 0;
+        for (CartSleepTracker tracker : trackers.values()) {
+            count += tracker.sleeping;
+        }
+        return count;
+    }
+
+    /**
+     * Number of carts that aren't asleep, over all worlds.
+     */
+    public static int getAwakeCount() {
+        int count = 0;
+        for (CartSleepTracker tracker : trackers.values()) {
+            count += Math.max(0, tracker.carts - tracker.sleeping);
+        }
+        return count;
+    }
+}
@@ -95,6 +95,18 @@ public class ChestCartDeathSystem extends DamageEventSystem {
             @Nonnull Store<EntityStore> store,
             @Nonnull CommandBuffer<EntityStore> commandBuffer,
             @Nonnull Damage damage
+    ) {
+        long start = System.nanoTime();
+        handleDamage(index, archetypeChunk, store, commandBuffer, damage);
+        TickTimings.record(TickTimings.Phase.CHEST_CART_DEATH, start);
+    }
+
+    private void handleDamage(
+            int index,
+            @Nonnull ArchetypeChunk<EntityStore> archetypeChunk,
+            @Nonnull Store<EntityStore> store,
+            @Nonnull CommandBuffer<EntityStore> commandBuffer,
+            @Nonnull Damage damage
     ) {
         // Get minecart component
         MinecartComponent minecart = (MinecartComponent) archetypeChunk.getComponent(
@@ -106,6 +118,9 @@ public class ChestCartDeathSystem extends DamageEventSystem {
             damage.getAmount()
         );
 
+        // Any hit wakes a sleeping cart so its physics picks up whatever happens next
+        CartSleepTracker.wake(store.getComponent(archetypeChunk.getReferenceTo(index), CartPhysicsComponent.getComponentType()));
+
         // Skip if no damage
         if (damage.getAmount() <= 0) return;
 
@@ -150,7 +165,12 @@ public class ChestCartDeathSystem extends DamageEventSystem {
                 double dz = cartPos.z - playerPos.z;
                 float awayYaw = (float) Math.toDegrees(Math.atan2(-dx, dz));
 
-                MinecartPhysicsSystem.bumpCart(networkId.getId(), awayYaw, 5.0);
+                CartPhysicsComponent physics = archetypeChunk.getComponent(index, CartPhysicsComponent.getComponentType());
+                if (physics == null) {
+                    physics = new CartPhysicsComponent();
+                    commandBuffer.addComponent(cartRef, CartPhysicsComponent.getComponentType(), physics);
+                }
+                MinecartPhysicsSystem.bumpCart(physics, networkId.getId(), awayYaw, 5.0);
                 return;
             }
         }
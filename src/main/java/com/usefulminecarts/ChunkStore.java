@@ -0,0 +1,127 @@
+package com.usefulminecarts;
+
+import com.hypixel.hytale.math.util.ChunkUtil;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Per-chunk storage shared by the per-world rail caches (RailCellCache, RailOccupancy,
+ * RailOrientationTable, SwitchFootprintIndex, TrackFeatureIndex).
+ *
+ * Each chunk column gets one data object, created on first use. The entry remembers the
+ * chunk it was made for (the view's chunk token), so once the chunk was unloaded and
+ * loaded again the old data is thrown away on the next lookup.
+ *
+ * Entries of unloaded chunks are dropped when the store grows past a limit. The limit
+ * is then set to twice what survived, so the O(n) prune runs once per doubling rather
+ * than on every new chunk once a world has many loaded.
+ *
+ * Also has the chunk-local key packing, so every cache masks coordinates the same way
+ * (chunk columns are up to 32 blocks wide).
+ *
+ * Not thread-safe: owned by one world's thread, like the caches that use it.
+ */
+final class ChunkStore<T> {
+
+    // Chunks kept before the first prune
+    private static final int MIN_PRUNE_AT = 256;
+
+    // Blocks in one 16-block-high section of a chunk column
+    static final int SECTION_BLOCKS = 32 * 32 * 16;
+
+    private static final class Entry<T> {
+        final Object chunk;
+        final T data;
+
+        Entry(Object chunk, T data) {
+            this.chunk = chunk;
+            this.data = data;
+        }
+    }
+
+    private final RailWorldView view;
+    private final Supplier<T> factory;
+    private final Long2ObjectOpenHashMap<Entry<T>> chunks = new Long2ObjectOpenHashMap<>();
+    private int pruneAt = MIN_PRUNE_AT;
+
+    /**
+     * @param factory Makes the data for a chunk seen for the first time (or again after a reload)
+     */
+    ChunkStore(RailWorldView view, Supplier<T> factory) {
+        this.view = view;
+        this.factory = factory;
+    }
+
+    /**
+     * Get the data of the chunk column holding a block, creating it if needed.
+     * @return The data, or null if the chunk isn't loaded
+     */
+    T get(int blockX, int blockZ) {
+        long chunkIndex = ChunkUtil.indexChunkFromBlock(blockX, blockZ);
+        Object chunk = view.getChunkIfInMemory(chunkIndex);
+        if (chunk == null) return null;
+
+        Entry<T> entry = chunks.get(chunkIndex);
+        if (entry == null || entry.chunk != chunk) {
+            if (entry == null && chunks.size() >= pruneAt) {
+                pruneUnloadedChunks();
+            }
+            entry = new Entry<>(chunk, factory.get());
+            chunks.put(chunkIndex, entry);
+        }
+        return entry.data;
+    }
+
+    /**
+     * Get the data of the chunk column holding a block without reading the world
+     * (invalidation, and lookups while a cache is frozen).
+     * @return The data, or null if none was created (or the chunk may have been replaced)
+     */
+    T getIfPresent(int blockX, int blockZ) {
+        Entry<T> entry = chunks.get(ChunkUtil.indexChunkFromBlock(blockX, blockZ));
+        return entry != null ? entry.data : null;
+    }
+
+    private void pruneUnloadedChunks() {
+        var it = chunks.long2ObjectEntrySet().fastIterator();
+        while (it.hasNext()) {
+            var e = it.next();
+            if (view.getChunkIfInMemory(e.getLongKey()) != e.getValue().chunk) {
+                it.remove();
+            }
+        }
+        pruneAt = Math.max(MIN_PRUNE_AT, chunks.size() * 2);
+    }
+
+    void clear() {
+        chunks.clear();
+        pruneAt = MIN_PRUNE_AT;
+    }
+
+    /**
+     * Add up a count over every chunk's data, for diagnostics.
+     */
+    int sum(ToIntFunction<T> count) {
+        int total = 0;
+        for (Entry<T> entry : chunks.values()) {
+            total += count.applyAsInt(entry.data);
+        }
+        return total;
+    }
+
+    /**
+     * Key of a block within its chunk column (x and z in the low 10 bits, y above).
+     */
+    static int packLocal(int blockX, int blockY, int blockZ) {
+        return (blockY << 10) | ((blockZ & 31) << 5) | (blockX & 31);
+    }
+
+    /**
+     * Index of a block within its 16-block-high section (0 to SECTION_BLOCKS - 1).
+     */
+    static int sectionIndex(int blockX, int blockY, int blockZ) {
+        return packLocal(blockX, blockY & 15, blockZ);
+    }
+}
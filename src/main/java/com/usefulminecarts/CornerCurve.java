@@ -0,0 +1,298 @@
+package com.usefulminecarts;
+
+import com.hypixel.hytale.protocol.RailPoint;
+
+/**
+ * A corner's quadratic Bezier, sampled once at equal arc-length spacing.
+ *
+ * Corners have the same shape for a given block type and rotation, so the table is built
+ * when the RailBlockDescriptor is (see getCornerCurve) and shared by every cell of that
+ * type. Equal spacing means equal-length segments, so a cart covers the same distance
+ * per segment through the whole corner, and a distance along the curve maps straight to
+ * a sample index. Each sample also has its unit tangent and curvature (1 / radius).
+ *
+ * Points are block-local ([0, 1] for a single block), like the rail points they come from.
+ * A grid over the block holds the nearest segment per cell, so a closest-point query is a
+ * grid read plus a projection onto one or two segments.
+ */
+public final class CornerCurve {
+
+    // Same resolution as the old per-cell smoothing
+    static final int POINT_COUNT = RailCell.CURVE_SMOOTHING_POINTS + 2;
+
+    // Bezier steps used to measure arc length while building
+    private static final int MEASURE_STEPS = 256;
+
+    // Nearest-segment grid: GRID x GRID cells over [GRID_MIN, GRID_MIN + GRID_SPAN] on X and Z
+    private static final int GRID = 32;
+    private static final double GRID_MIN = -0.25;
+    private static final double GRID_SPAN = 1.5;
+
+    // Turn tables for entering a block at one edge and leaving at another through its centre
+    private static final CornerCurve[] TURNS = new CornerCurve[16];
+    static {
+        for (int from = 0; from < 4; from++) {
+            for (int to = 0; to < 4; to++) {
+                if (from == to) continue;
+                TURNS[from * 4 + to] = new CornerCurve(
+                    edgeX(from), 0, edgeZ(from), 0.5, 0, 0.5, edgeX(to), 0, edgeZ(to), POINT_COUNT);
+            }
+        }
+    }
+
+    // Samples: xyz triples, unit tangents (xyz) and curvature per sample
+    private final double[] points;
+    private final double[] tangents;
+    private final double[] curvature;
+    private final int pointCount;
+    private final double length;
+    private final double spacing;
+    private final double maxCurvature;
+    // Nearest segment per grid cell (row = Z, column = X)
+    private final byte[] nearestSegment;
+
+    private CornerCurve(double sx, double sy, double sz, double cx, double cy, double cz,
+                        double ex, double ey, double ez, int pointCount) {
+        this.pointCount = pointCount;
+
+        // Arc length at each measuring step
+        double[] arc = new double[MEASURE_STEPS + 1];
+        double prevX = sx, prevY = sy, prevZ = sz;
+        for (int i = 1; i <= MEASURE_STEPS; i++) {
+            double t = (double) i / MEASURE_STEPS;
+            double x = bezier(sx, cx, ex, t), y = bezier(sy, cy, ey, t), z = bezier(sz, cz, ez, t);
+            double dx = x - prevX, dy = y - prevY, dz = z - prevZ;
+            arc[i] = arc[i - 1] + Math.sqrt(dx * dx + dy * dy + dz * dz);
+            prevX = x;
+            prevY = y;
+            prevZ = z;
+        }
+        this.length = arc[MEASURE_STEPS];
+        this.spacing = length / (pointCount - 1);
+
+        // Sample at equal arc length: find t for each target distance in the measured table
+        points = new double[pointCount * 3];
+        tangents = new double[pointCount * 3];
+        curvature = new double[pointCount];
+        double maxK = 0;
+        int step = 0;
+        for (int i = 0; i < pointCount; i++) {
+            double target = spacing * i;
+            while (step < MEASURE_STEPS - 1 && arc[step + 1] < target) step++;
+            double span = arc[step + 1] - arc[step];
+            double frac = span > 0 ? Math.max(0, Math.min(1, (target - arc[step]) / span)) : 0;
+            double t = (step + frac) / MEASURE_STEPS;
+            if (i == pointCount - 1) t = 1;
+
+            points[i * 3] = bezier(sx, cx, ex, t);
+            points[i * 3 + 1] = bezier(sy, cy, ey, t);
+            points[i * 3 + 2] = bezier(sz, cz, ez, t);
+
+            // B'(t) = 2(1-t)(P1-P0) + 2t(P2-P1), B''(t) = 2(P2 - 2P1 + P0)
+            double d1x = 2 * (1 - t) * (cx - sx) + 2 * t * (ex - cx);
+            double d1y = 2 * (1 - t) * (cy - sy) + 2 * t * (ey - cy);
+            double d1z = 2 * (1 - t) * (cz - sz) + 2 * t * (ez - cz);
+            double d2x = 2 * (ex - 2 * cx + sx);
+            double d2y = 2 * (ey - 2 * cy + sy);
+            double d2z = 2 * (ez - 2 * cz + sz);
+            double speed = Math.sqrt(d1x * d1x + d1y * d1y + d1z * d1z);
+            if (speed > 1e-9) {
+                tangents[i * 3] = d1x / speed;
+                tangents[i * 3 + 1] = d1y / speed;
+                tangents[i * 3 + 2] = d1z / speed;
+                // |B' x B''| / |B'|^3
+                double kx = d1y * d2z - d1z * d2y;
+                double ky = d1z * d2x - d1x * d2z;
+                double kz = d1x * d2y - d1y * d2x;
+                curvature[i] = Math.sqrt(kx * kx + ky * ky + kz * kz) / (speed * speed * speed);
+                maxK = Math.max(maxK, curvature[i]);
+            }
+        }
+        this.maxCurvature = maxK;
+
+        // Nearest segment (horizontal distance) for the centre of each grid cell
+        nearestSegment = new byte[GRID * GRID];
+        double cell = GRID_SPAN / GRID;
+        for (int gz = 0; gz < GRID; gz++) {
+            for (int gx = 0; gx < GRID; gx++) {
+                double px = GRID_MIN + (gx + 0.5) * cell;
+                double pz = GRID_MIN + (gz + 0.5) * cell;
+                int best = 0;
+                double bestDistSq = Double.MAX_VALUE;
+                for (int seg = 0; seg < pointCount - 1; seg++) {
+                    double distSq = segmentDistSq(seg, px, pz);
+                    if (distSq < bestDistSq) {
+                        bestDistSq = distSq;
+                        best = seg;
+                    }
+                }
+                nearestSegment[gz * GRID + gx] = (byte) best;
+            }
+        }
+    }
+
+    /**
+     * Build the table for a corner's rail points, using the same control point the
+     * physics always smoothed with: the middle point (2 points give a straight line).
+     * @return The curve, or null if there are fewer than 2 points
+     */
+    static CornerCurve fromRailPoints(RailPoint[] points) {
+        if (points == null || points.length < 2) return null;
+        RailPoint start = points[0];
+        RailPoint end = points[points.length - 1];
+        if (points.length == 2) {
+            return new CornerCurve(start.point.x, start.point.y, start.point.z,
+                (start.point.x + end.point.x) * 0.5, (start.point.y + end.point.y) * 0.5, (start.point.z + end.point.z) * 0.5,
+                end.point.x, end.point.y, end.point.z, POINT_COUNT);
+        }
+        RailPoint corner = points[points.length / 2];
+        return new CornerCurve(start.point.x, start.point.y, start.point.z,
+            corner.point.x, corner.point.y, corner.point.z,
+            end.point.x, end.point.y, end.point.z, POINT_COUNT);
+    }
+
+    /**
+     * The turn from one block edge to another through the block centre, at height 0
+     * (T-junction turns). Built once for every pair of edges.
+     * @return The curve, or null if both edges are the same
+     */
+    static CornerCurve turn(int fromEdge, int toEdge) {
+        return TURNS[(fromEdge & 3) * 4 + (toEdge & 3)];
+    }
+
+    public int getPointCount() {
+        return pointCount;
+    }
+
+    /**
+     * Sample points as xyz triples. Shared, never modify.
+     */
+    double[] getPoints() {
+        return points;
+    }
+
+    public double getLength() {
+        return length;
+    }
+
+    /**
+     * Arc length between neighbouring samples.
+     */
+    public double getSpacing() {
+        return spacing;
+    }
+
+    public double getCurvature(int sample) {
+        return curvature[sample];
+    }
+
+    public double getMaxCurvature() {
+        return maxCurvature;
+    }
+
+    /**
+     * Segment (sample i to i + 1) containing a distance along the curve.
+     */
+    public int segmentAt(double distance) {
+        int seg = (int) (distance / spacing);
+        return Math.max(0, Math.min(pointCount - 2, seg));
+    }
+
+    /**
+     * Position and tangent at a distance along the curve (clamped to the ends).
+     * @param out Receives x, y, z, tangent x, tangent y, tangent z (6 values)
+     */
+    public void sampleAt(double distance, double[] out) {
+        int seg = segmentAt(distance);
+        double t = Math.max(0, Math.min(1, distance / spacing - seg));
+        int a = seg * 3, b = a + 3;
+        for (int k = 0; k < 3; k++) {
+            out[k] = points[a + k] + (points[b + k] - points[a + k]) * t;
+        }
+        double tx = points[b] - points[a], ty = points[b + 1] - points[a + 1], tz = points[b + 2] - points[a + 2];
+        double len = Math.sqrt(tx * tx + ty * ty + tz * tz);
+        if (len > 0) {
+            out[3] = tx / len;
+            out[4] = ty / len;
+            out[5] = tz / len;
+        } else {
+            out[3] = tangents[a];
+            out[4] = tangents[a + 1];
+            out[5] = tangents[a + 2];
+        }
+    }
+
+    /**
+     * Curvature at a distance along the curve, interpolated between samples.
+     */
+    public double curvatureAt(double distance) {
+        int seg = segmentAt(distance);
+        double t = Math.max(0, Math.min(1, distance / spacing - seg));
+        return curvature[seg] + (curvature[seg + 1] - curvature[seg]) * t;
+    }
+
+    /**
+     * Segment nearest to a block-local position (horizontal distance), from the grid.
+     * Positions off the grid use its nearest border cell.
+     */
+    public int nearestSegment(double localX, double localZ) {
+        int gx = (int) Math.floor((localX - GRID_MIN) / GRID_SPAN * GRID);
+        int gz = (int) Math.floor((localZ - GRID_MIN) / GRID_SPAN * GRID);
+        gx = Math.max(0, Math.min(GRID - 1, gx));
+        gz = Math.max(0, Math.min(GRID - 1, gz));
+        return nearestSegment[gz * GRID + gx];
+    }
+
+    /**
+     * Distance along the curve of the point closest to a block-local position
+     * (horizontal distance): the grid's segment and its neighbours, projected.
+     */
+    public double closestDistance(double localX, double localZ) {
+        int guess = nearestSegment(localX, localZ);
+        double bestDistSq = Double.MAX_VALUE;
+        double best = 0;
+        for (int seg = Math.max(0, guess - 1); seg <= Math.min(pointCount - 2, guess + 1); seg++) {
+            double t = segmentParam(seg, localX, localZ);
+            int a = seg * 3, b = a + 3;
+            double cx = points[a] + (points[b] - points[a]) * t;
+            double cz = points[a + 2] + (points[b + 2] - points[a + 2]) * t;
+            double distSq = (cx - localX) * (cx - localX) + (cz - localZ) * (cz - localZ);
+            if (distSq < bestDistSq) {
+                bestDistSq = distSq;
+                best = (seg + t) * spacing;
+            }
+        }
+        return best;
+    }
+
+    private double segmentDistSq(int seg, double px, double pz) {
+        double t = segmentParam(seg, px, pz);
+        int a = seg * 3, b = a + 3;
+        double cx = points[a] + (points[b] - points[a]) * t;
+        double cz = points[a + 2] + (points[b + 2] - points[a + 2]) * t;
+        return (cx - px) * (cx - px) + (cz - pz) * (cz - pz);
+    }
+
+    // Projection of a position onto a segment (horizontal), clamped to [0, 1]
+    private double segmentParam(int seg, double px, double pz) {
+        int a = seg * 3, b = a + 3;
+        double dx = points[b] - points[a], dz = points[b + 2] - points[a + 2];
+        double lenSq = dx * dx + dz * dz;
+        if (lenSq < 1e-12) return 0;
+        return Math.max(0, Math.min(1, ((px - points[a]) * dx + (pz - points[a + 2]) * dz) / lenSq));
+    }
+
+    private static double bezier(double p0, double p1, double p2, double t) {
+        double u = 1 - t;
+        return u * u * p0 + 2 * u * t * p1 + t * t * p2;
+    }
+
+    // Block-local midpoint of an edge
+    private static double edgeX(int edge) {
+        return edge == RailCell.EDGE_WEST ? 0.0 : edge == RailCell.EDGE_EAST ? 1.0 : 0.5;
+    }
+
+    private static double edgeZ(int edge) {
+        return edge == RailCell.EDGE_NORTH ? 0.0 : edge == RailCell.EDGE_SOUTH ? 1.0 : 0.5;
+    }
+}
@@ -132,6 +132,7 @@ public class CustomMinecartMount extends SimpleInstantInteraction {
             MountMovementPacketFilter.onMount(cartEntityId);
             MinecartMountInputBlocker.onMount(cartEntityId);
             MinecartRiderTracker.setRider(cartEntityId, playerEntity);
+            CartSleepTracker.wake(commandBuffer.getComponent(targetEntity, CartPhysicsComponent.getComponentType()));
             CustomMinecartRidingSystem.updateCartPosition(cartEntityId, minecartPos.x, minecartPos.y, minecartPos.z);
             CustomMinecartRidingSystem.markJustMounted(cartEntityId);
 
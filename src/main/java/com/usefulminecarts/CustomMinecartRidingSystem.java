@@ -126,6 +126,18 @@ public class CustomMinecartRidingSystem extends EntityTickingSystem<EntityStore>
             @Nonnull ArchetypeChunk<EntityStore> archetypeChunk,
             @Nonnull Store<EntityStore> store,
             @Nonnull CommandBuffer<EntityStore> commandBuffer
+    ) {
+        long start = System.nanoTime();
+        tickRider(dt, index, archetypeChunk, store, commandBuffer);
+        TickTimings.record(TickTimings.Phase.RIDING, start);
+    }
+
+    private void tickRider(
+            float dt,
+            int index,
+            @Nonnull ArchetypeChunk<EntityStore> archetypeChunk,
+            @Nonnull Store<EntityStore> store,
+            @Nonnull CommandBuffer<EntityStore> commandBuffer
     ) {
         tickCounter++;
 
@@ -8,6 +8,8 @@ import com.hypixel.hytale.server.core.command.system.arguments.system.OptionalAr
 import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
 import com.hypixel.hytale.server.core.entity.UUIDComponent;
 import com.hypixel.hytale.server.core.entity.entities.Player;
+import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
+import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.component.Ref;
 import com.hypixel.hytale.component.Store;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
@@ -44,8 +46,14 @@ public class MinecartCommands extends AbstractCommand {
         this.addSubCommand(new InitialPushCommand());
         this.addSubCommand(new RotationCommand());
         this.addSubCommand(new RiderVelCommand());
+        this.addSubCommand(new ArcModeCommand());
+        this.addSubCommand(new ParallelCommand());
         this.addSubCommand(new PathVisCommand());
         this.addSubCommand(new PathInfoCommand());
+        this.addSubCommand(new AllocProbeCommand());
+        this.addSubCommand(new PerfCommand());
+        this.addSubCommand(new StressCommand());
+        this.addSubCommand(new LogCommand());
     }
 
     @Nullable
@@ -67,10 +75,16 @@ public class MinecartCommands extends AbstractCommand {
         context.sendMessage(Message.raw("/mc initialpush [val] - Starting velocity"));
         context.sendMessage(Message.raw("/mc rotation [val] - Rotation smoothing"));
         context.sendMessage(Message.raw("/mc ridervel [val] - Rider gravity counter"));
+        context.sendMessage(Message.raw("/mc arcmode [on|off] - Ride track segments by arc length"));
+        context.sendMessage(Message.raw("/mc parallel [on|off] - Integrate riderless carts in parallel (arc mode)"));
         context.sendMessage(Message.raw(""));
         context.sendMessage(Message.raw("Debug:"));
         context.sendMessage(Message.raw("/mc pathvis - Toggle path visualization"));
         context.sendMessage(Message.raw("/mc pathinfo - Show path info for target rail"));
+        context.sendMessage(Message.raw("/mc allocprobe [ticks] - Measure bytes allocated per cart tick"));
+        context.sendMessage(Message.raw("/mc perf [reset] - Tick time per system and physics phase"));
+        context.sendMessage(Message.raw("/mc stress <carts|status|clear> [loop|flat] - Build a test loop and load it with carts"));
+        context.sendMessage(Message.raw("/mc log [category|all|cart|interval|reset] [value] - Diagnostic log levels and sampling"));
         return CompletableFuture.completedFuture(null);
     }
 
@@ -86,6 +100,8 @@ public class MinecartCommands extends AbstractCommand {
         @Override
         protected CompletableFuture<Void> execute(@Nonnull CommandContext context) {
             context.sendMessage(Message.raw(MinecartConfig.getStatus()));
+            context.sendMessage(Message.raw(String.format("Carts: %d awake, %d sleeping",
+                CartSleepTracker.getAwakeCount(), CartSleepTracker.getSleepingCount())));
             return CompletableFuture.completedFuture(null);
         }
     }
@@ -432,6 +448,299 @@ public class MinecartCommands extends AbstractCommand {
         }
     }
 
+    public static class ArcModeCommand extends AbstractCommand {
+        private final OptionalArg<String> valueArg;
+
+        public ArcModeCommand() {
+            super("arcmode", "Toggle arc-length track following (on/off)");
+            this.addAliases("arc");
+            this.valueArg = this.withOptionalArg("value", "on or off", ArgTypes.STRING);
+        }
+
+        @Nullable
+        @Override
+        protected CompletableFuture<Void> execute(@Nonnull CommandContext context) {
+            String valueStr = this.valueArg.get(context);
+            if (valueStr == null) {
+                context.sendMessage(Message.raw("Arc-length mode: " + (MinecartConfig.isArcLengthMode() ? "ON" : "OFF")));
+                context.sendMessage(Message.raw("Usage: /mc arcmode <on|off>"));
+            } else if (valueStr.equalsIgnoreCase("on") || valueStr.equalsIgnoreCase("true")) {
+                MinecartConfig.setArcLengthMode(true);
+                context.sendMessage(Message.raw("Arc-length mode ENABLED"));
+            } else if (valueStr.equalsIgnoreCase("off") || valueStr.equalsIgnoreCase("false")) {
+                MinecartConfig.setArcLengthMode(false);
+                context.sendMessage(Message.raw("Arc-length mode DISABLED"));
+            } else {
+                context.sendMessage(Message.raw("Invalid value. Use on or off."));
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    public static class AllocProbeCommand extends AbstractCommand {
+        private final OptionalArg<String> valueArg;
+
+        public AllocProbeCommand() {
+            super("allocprobe", "Measure bytes allocated per cart physics tick");
+            this.addAliases("alloc");
+            this.valueArg = this.withOptionalArg("ticks", "Cart ticks to measure, or 'status'", ArgTypes.STRING);
+        }
+
+        @Nullable
+        @Override
+        protected CompletableFuture<Void> execute(@Nonnull CommandContext context) {
+            if (!TickAllocationProbe.isSupported()) {
+                context.sendMessage(Message.raw("This JVM can't measure per-thread allocations"));
+                return CompletableFuture.completedFuture(null);
+            }
+
+            String valueStr = this.valueArg.get(context);
+            if (valueStr != null && valueStr.equalsIgnoreCase("status")) {
+                context.sendMessage(Message.raw(TickAllocationProbe.getReport()));
+                return CompletableFuture.completedFuture(null);
+            }
+
+            int ticks = TickAllocationProbe.DEFAULT_TICKS;
+            if (valueStr != null) {
+                try {
+                    ticks = Integer.parseInt(valueStr);
+                } catch (NumberFormatException e) {
+                    context.sendMessage(Message.raw("Invalid number: " + valueStr));
+                    return CompletableFuture.completedFuture(null);
+                }
+            }
+
+            if (TickAllocationProbe.start(ticks)) {
+                context.sendMessage(Message.raw("Measuring the next " + ticks + " cart ticks. Use /mc allocprobe status for the result."));
+            } else {
+                context.sendMessage(Message.raw(TickAllocationProbe.getReport()));
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    public static class PerfCommand extends AbstractCommand {
+        private final OptionalArg<String> valueArg;
+
+        public PerfCommand() {
+            super("perf", "Show tick time per system and physics phase");
+            this.valueArg = this.withOptionalArg("action", "'reset' to start a new measurement", ArgTypes.STRING);
+        }
+
+        @Nullable
+        @Override
+        protected CompletableFuture<Void> execute(@Nonnull CommandContext context) {
+            String valueStr = this.valueArg.get(context);
+            if (valueStr != null && valueStr.equalsIgnoreCase("reset")) {
+                TickTimings.reset();
+                context.sendMessage(Message.raw("Tick timings reset"));
+            } else if (valueStr != null) {
+                context.sendMessage(Message.raw("Usage: /mc perf [reset]"));
+            } else {
+                for (String line : TickTimings.getReport()) {
+                    context.sendMessage(Message.raw(line));
+                }
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    public static class StressCommand extends AbstractCommand {
+        private final OptionalArg<String> valueArg;
+        private final OptionalArg<String> layoutArg;
+
+        public StressCommand() {
+            super("stress", "Build a test loop next to you and run N carts on it");
+            this.valueArg = this.withOptionalArg("carts", "Number of carts, 'status' or 'clear'", ArgTypes.STRING);
+            this.layoutArg = this.withOptionalArg("layout", "loop (default) or flat", ArgTypes.STRING);
+        }
+
+        @Nullable
+        @Override
+        protected CompletableFuture<Void> execute(@Nonnull CommandContext context) {
+            String valueStr = this.valueArg.get(context);
+            if (valueStr == null) {
+                context.sendMessage(Message.raw("Usage: /mc stress <carts> [loop|flat], /mc stress status, /mc stress clear"));
+                return CompletableFuture.completedFuture(null);
+            }
+            // A test belongs to the world it was built in, so status and clear go by the player's world
+            World senderWorld = context.sender() instanceof Player sender ? sender.getWorld() : null;
+            if (valueStr.equalsIgnoreCase("status")) {
+                context.sendMessage(Message.raw(StressTest.getReport(senderWorld)));
+                return CompletableFuture.completedFuture(null);
+            }
+            if (valueStr.equalsIgnoreCase("clear")) {
+                if (senderWorld == null || !StressTest.hasTest(senderWorld)) {
+                    context.sendMessage(Message.raw("No stress test to clear in your world"));
+                    return CompletableFuture.completedFuture(null);
+                }
+                return CompletableFuture.runAsync(() -> context.sendMessage(Message.raw(StressTest.clear(senderWorld))), senderWorld);
+            }
+
+            int carts;
+            try {
+                carts = Integer.parseInt(valueStr);
+            } catch (NumberFormatException e) {
+                context.sendMessage(Message.raw("Invalid number: " + valueStr));
+                return CompletableFuture.completedFuture(null);
+            }
+            if (carts < 1 || carts > StressTest.MAX_CARTS) {
+                context.sendMessage(Message.raw("Carts must be between 1 and " + StressTest.MAX_CARTS));
+                return CompletableFuture.completedFuture(null);
+            }
+
+            StressTest.Layout layout = StressTest.Layout.LOOP;
+            String layoutStr = this.layoutArg.get(context);
+            if (layoutStr != null) {
+                try {
+                    layout = StressTest.Layout.parse(layoutStr);
+                } catch (IllegalArgumentException e) {
+                    context.sendMessage(Message.raw("Unknown layout: " + layoutStr + " (use loop or flat)"));
+                    return CompletableFuture.completedFuture(null);
+                }
+            }
+
+            if (!(context.sender() instanceof Player player)) {
+                context.sendMessage(Message.raw("Run this in game - the track is built next to you"));
+                return CompletableFuture.completedFuture(null);
+            }
+
+            StressTest.Layout chosenLayout = layout;
+            return CompletableFuture.runAsync(() -> {
+                Ref<EntityStore> ref = player.getReference();
+                if (ref == null || !ref.isValid()) {
+                    context.sendMessage(Message.raw("Could not get player reference"));
+                    return;
+                }
+                Store<EntityStore> store = ref.getStore();
+                TransformComponent transform = store.getComponent(ref, TransformComponent.getComponentType());
+                if (transform == null) {
+                    context.sendMessage(Message.raw("Could not get player position"));
+                    return;
+                }
+
+                // Track starts two blocks east of the player, at their feet
+                int x = (int) Math.floor(transform.getPosition().x) + 2;
+                int y = (int) Math.floor(transform.getPosition().y);
+                int z = (int) Math.floor(transform.getPosition().z);
+                context.sendMessage(Message.raw(StressTest.start(player.getWorld(), x, y, z, carts, chosenLayout)));
+            }, player.getWorld());
+        }
+    }
+
+    public static class LogCommand extends AbstractCommand {
+        private final OptionalArg<String> targetArg;
+        private final OptionalArg<String> valueArg;
+
+        public LogCommand() {
+            super("log", "Set diagnostic log levels and per-cart sampling");
+            this.targetArg = this.withOptionalArg("target", "A category, 'all', 'cart', 'interval' or 'reset'", ArgTypes.STRING);
+            this.valueArg = this.withOptionalArg("value", "off/warn/info/debug, a cart id or 'all', or milliseconds", ArgTypes.STRING);
+        }
+
+        @Nullable
+        @Override
+        protected CompletableFuture<Void> execute(@Nonnull CommandContext context) {
+            String target = this.targetArg.get(context);
+            String valueStr = this.valueArg.get(context);
+            if (target == null) {
+                for (String line : CartLog.getStatus()) {
+                    context.sendMessage(Message.raw(line));
+                }
+                return CompletableFuture.completedFuture(null);
+            }
+
+            if (target.equalsIgnoreCase("reset")) {
+                CartLog.resetLevels();
+                CartLog.setSampledCart(-1);
+                CartLog.setSampleIntervalMs(CartLog.DEFAULT_SAMPLE_INTERVAL_MS);
+                context.sendMessage(Message.raw("Log levels reset to " + CartLog.DEFAULT_LEVEL));
+                return CompletableFuture.completedFuture(null);
+            }
+            if (valueStr == null) {
+                context.sendMessage(Message.raw("Usage: /mc log <category|all> <off|warn|info|debug>, /mc log cart <id|all>, /mc log interval <ms>, /mc log reset"));
+                return CompletableFuture.completedFuture(null);
+            }
+
+            if (target.equalsIgnoreCase("cart")) {
+                if (valueStr.equalsIgnoreCase("all")) {
+                    CartLog.setSampledCart(-1);
+                    context.sendMessage(Message.raw("Sampling all carts"));
+                    return CompletableFuture.completedFuture(null);
+                }
+                try {
+                    int cartId = Integer.parseInt(valueStr);
+                    CartLog.setSampledCart(cartId);
+                    context.sendMessage(Message.raw("Sampling cart " + cartId + " only"));
+                } catch (NumberFormatException e) {
+                    context.sendMessage(Message.raw("Invalid cart id: " + valueStr));
+                }
+                return CompletableFuture.completedFuture(null);
+            }
+
+            if (target.equalsIgnoreCase("interval")) {
+                try {
+                    int intervalMs = Integer.parseInt(valueStr);
+                    CartLog.setSampleIntervalMs(intervalMs);
+                    context.sendMessage(Message.raw("Sampling each cart every " + CartLog.getSampleIntervalMs() + "ms"));
+                } catch (NumberFormatException e) {
+                    context.sendMessage(Message.raw("Invalid number: " + valueStr));
+                }
+                return CompletableFuture.completedFuture(null);
+            }
+
+            CartLog.Level level;
+            try {
+                level = CartLog.Level.parse(valueStr);
+            } catch (IllegalArgumentException e) {
+                context.sendMessage(Message.raw("Unknown level: " + valueStr + " (use off, warn, info or debug)"));
+                return CompletableFuture.completedFuture(null);
+            }
+            if (target.equalsIgnoreCase("all")) {
+                CartLog.setAllLevels(level);
+                context.sendMessage(Message.raw("All log categories set to " + level));
+                return CompletableFuture.completedFuture(null);
+            }
+            try {
+                CartLog.Category category = CartLog.Category.parse(target);
+                CartLog.setLevel(category, level);
+                context.sendMessage(Message.raw("Log category " + category + " set to " + level));
+            } catch (IllegalArgumentException e) {
+                context.sendMessage(Message.raw("Unknown category: " + target + " (use physics, track, rider, packets, input, chicken or all)"));
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    public static class ParallelCommand extends AbstractCommand {
+        private final OptionalArg<String> valueArg;
+
+        public ParallelCommand() {
+            super("parallel", "Toggle parallel integration of riderless carts (on/off)");
+            this.valueArg = this.withOptionalArg("value", "on or off", ArgTypes.STRING);
+        }
+
+        @Nullable
+        @Override
+        protected CompletableFuture<Void> execute(@Nonnull CommandContext context) {
+            String valueStr = this.valueArg.get(context);
+            if (valueStr == null) {
+                context.sendMessage(Message.raw("Parallel physics: " + (MinecartConfig.isParallelPhysics() ? "ON" : "OFF")
+                    + (MinecartConfig.isArcLengthMode() ? "" : " (only used in arc-length mode)")));
+                context.sendMessage(Message.raw("Usage: /mc parallel <on|off>"));
+            } else if (valueStr.equalsIgnoreCase("on") || valueStr.equalsIgnoreCase("true")) {
+                MinecartConfig.setParallelPhysics(true);
+                context.sendMessage(Message.raw("Parallel physics ENABLED"));
+            } else if (valueStr.equalsIgnoreCase("off") || valueStr.equalsIgnoreCase("false")) {
+                MinecartConfig.setParallelPhysics(false);
+                context.sendMessage(Message.raw("Parallel physics DISABLED"));
+            } else {
+                context.sendMessage(Message.raw("Invalid value. Use on or off."));
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
     public static class PathVisCommand extends AbstractCommand {
         public PathVisCommand() {
             super("pathvis", "Toggle rail path visualization");
@@ -510,7 +819,7 @@ public class MinecartCommands extends AbstractCommand {
                     return;
                 }
 
-                String info = RailPathVisualizer.getPathInfoForBlock(world, targetPos.x, targetPos.y, targetPos.z);
+                String info = RailPathVisualizer.getPathInfoForBlock(WorldRailView.of(world), targetPos.x, targetPos.y, targetPos.z);
                 for (String line : info.split("\n")) {
                     context.sendMessage(Message.raw(line));
                 }
@@ -30,6 +30,8 @@ public class MinecartConfig {
     private static double rotationSmoothing = 0.15;  // How quickly cart rotates to match direction (0-1)
     private static double acceleratorBoost = 1.05;     // Speed multiplier when passing over accelerator rails (e.g., 1.2 = 20% faster)
     private static double playerInputStrength = 3.0;   // How much momentum player W/S keys add (blocks/s²)
+    private static boolean arcLengthMode = false;      // Carts ride track segments by arc length instead of re-snapping each step
+    private static boolean parallelPhysics = false;    // Integrate riderless arc-length carts on a worker pool
 
     // Getters
     public static double getMaxSpeed() { return maxSpeed; }
@@ -43,6 +45,8 @@ public class MinecartConfig {
     public static double getRotationSmoothing() { return rotationSmoothing; }
     public static double getAcceleratorBoost() { return acceleratorBoost; }
     public static double getPlayerInputStrength() { return playerInputStrength; }
+    public static boolean isArcLengthMode() { return arcLengthMode; }
+    public static boolean isParallelPhysics() { return parallelPhysics; }
 
     // Setters with validation
     public static boolean setMaxSpeed(double value) {
@@ -122,6 +126,16 @@ public class MinecartConfig {
         return true;
     }
 
+    public static void setArcLengthMode(boolean value) {
+        arcLengthMode = value;
+        save();
+    }
+
+    public static void setParallelPhysics(boolean value) {
+        parallelPhysics = value;
+        save();
+    }
+
     /**
      * Reset all values to defaults.
      */
@@ -137,6 +151,8 @@ public class MinecartConfig {
         rotationSmoothing = 0.15;
         acceleratorBoost = 1.2;
         playerInputStrength = 3.0;
+        arcLengthMode = false;
+        parallelPhysics = false;
         save();
     }
 
@@ -156,9 +172,12 @@ public class MinecartConfig {
             "  initialPush: %.2f\n" +
             "  rotationSmoothing: %.2f\n" +
             "  acceleratorBoost: %.2fx multiplier\n" +
-            "  playerInputStrength: %.2f blocks/s²",
+            "  playerInputStrength: %.2f blocks/s²\n" +
+            "  arcLengthMode: %b\n" +
+            "  parallelPhysics: %b",
             maxSpeed, acceleration, friction, cornerFriction,
-            minSpeed, slopeBoost, uphillDrag, initialPush, rotationSmoothing, acceleratorBoost, playerInputStrength
+            minSpeed, slopeBoost, uphillDrag, initialPush, rotationSmoothing, acceleratorBoost, playerInputStrength,
+            arcLengthMode, parallelPhysics
         );
     }
 
@@ -187,6 +206,8 @@ public class MinecartConfig {
             rotationSmoothing = Double.parseDouble(props.getProperty("rotationSmoothing", "0.15"));
             acceleratorBoost = Double.parseDouble(props.getProperty("acceleratorBoost", "1.2"));
             playerInputStrength = Double.parseDouble(props.getProperty("playerInputStrength", "3.0"));
+            arcLengthMode = Boolean.parseBoolean(props.getProperty("arcLengthMode", "false"));
+            parallelPhysics = Boolean.parseBoolean(props.getProperty("parallelPhysics", "false"));
 
             LOGGER.atInfo().log("[MinecartConfig] Loaded config from file");
         } catch (Exception e) {
@@ -217,6 +238,8 @@ public class MinecartConfig {
             props.setProperty("rotationSmoothing", String.valueOf(rotationSmoothing));
             props.setProperty("acceleratorBoost", String.valueOf(acceleratorBoost));
             props.setProperty("playerInputStrength", String.valueOf(playerInputStrength));
+            props.setProperty("arcLengthMode", String.valueOf(arcLengthMode));
+            props.setProperty("parallelPhysics", String.valueOf(parallelPhysics));
 
             try (OutputStream out = Files.newOutputStream(configPath)) {
                 props.store(out, "UsefulMinecarts Physics Configuration");
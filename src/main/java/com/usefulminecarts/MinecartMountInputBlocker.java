@@ -17,12 +17,12 @@ import com.hypixel.hytale.protocol.MovementStates;
 import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
 import com.hypixel.hytale.server.core.modules.entity.player.PlayerInput;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 
 import javax.annotation.Nonnull;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Intercepts player input BEFORE the vanilla HandleMountInput system runs.
@@ -41,21 +41,23 @@ public class MinecartMountInputBlocker extends EntityTickingSystem<EntityStore>
 
     private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
 
+    // All maps are primitive-keyed (the physics tick reads them for every cart) and each
+    // is guarded by its own lock.
     // Rider input: cart entity ID -> direction (1 = forward, -1 = backward, 0 = none)
-    private static final Map<Integer, Integer> RIDER_INPUT = new ConcurrentHashMap<>();
+    private static final Int2IntOpenHashMap RIDER_INPUT = new Int2IntOpenHashMap();
 
     // Track carts that just had a player mount - ignore position-based input for a few ticks
     // This prevents false backward detection when mounting from a different position
-    private static final Map<Integer, Integer> MOUNT_GRACE_PERIOD = new ConcurrentHashMap<>();
+    private static final Int2IntOpenHashMap MOUNT_GRACE_PERIOD = new Int2IntOpenHashMap();
     private static final int GRACE_PERIOD_TICKS = 15; // ~0.5 seconds at 30fps
 
     // Track the CLIENT's last known position (from AbsoluteMovement in input queue)
     // This is the actual client position, not the server position we set
-    private static final Map<Integer, double[]> CLIENT_POSITIONS = new ConcurrentHashMap<>();
+    private static final Int2ObjectOpenHashMap<double[]> CLIENT_POSITIONS = new Int2ObjectOpenHashMap<>();
 
     // Track the CLIENT's last known rotation (body yaw from SetBody, head pitch from SetHead)
     // Format: [bodyYaw, headYaw, headPitch]
-    private static final Map<Integer, float[]> CLIENT_ROTATIONS = new ConcurrentHashMap<>();
+    private static final Int2ObjectOpenHashMap<float[]> CLIENT_ROTATIONS = new Int2ObjectOpenHashMap<>();
 
     // Run BEFORE HandleMountInput so we clear the queue before it processes movement
     private static final Set<Dependency<EntityStore>> DEPENDENCIES = Set.of(
@@ -65,8 +67,6 @@ public class MinecartMountInputBlocker extends EntityTickingSystem<EntityStore>
     @Nonnull
     private final Query<EntityStore> query;
 
-    private static int tickCount = 0;
-
     public MinecartMountInputBlocker() {
         this.query = Query.and(
             CustomMinecartRiderComponent.getComponentType(),
@@ -95,9 +95,18 @@ public class MinecartMountInputBlocker extends EntityTickingSystem<EntityStore>
             @Nonnull Store<EntityStore> store,
             @Nonnull CommandBuffer<EntityStore> commandBuffer
     ) {
-        tickCount++;
-        boolean shouldLog = (tickCount % 60 == 0);
+        long start = System.nanoTime();
+        tickInput(dt, index, archetypeChunk, store, commandBuffer);
+        TickTimings.record(TickTimings.Phase.MOUNT_INPUT, start);
+    }
 
+    private void tickInput(
+            float dt,
+            int index,
+            @Nonnull ArchetypeChunk<EntityStore> archetypeChunk,
+            @Nonnull Store<EntityStore> store,
+            @Nonnull CommandBuffer<EntityStore> commandBuffer
+    ) {
         // Skip processing if plugin is shutting down to avoid race conditions
         if (UsefulMinecartsPlugin.isShuttingDown()) {
             return;
@@ -118,12 +127,15 @@ public class MinecartMountInputBlocker extends EntityTickingSystem<EntityStore>
         int cartEntityId = riderComp.getMinecartEntityId();
 
         // Check and update grace period (ignore position-based input right after mounting)
-        Integer graceTicksLeft = MOUNT_GRACE_PERIOD.get(cartEntityId);
-        boolean inGracePeriod = (graceTicksLeft != null && graceTicksLeft > 0);
-        if (inGracePeriod) {
-            MOUNT_GRACE_PERIOD.put(cartEntityId, graceTicksLeft - 1);
-            if (graceTicksLeft <= 1) {
-                MOUNT_GRACE_PERIOD.remove(cartEntityId);
+        boolean inGracePeriod;
+        synchronized (MOUNT_GRACE_PERIOD) {
+            int graceTicksLeft = MOUNT_GRACE_PERIOD.get(cartEntityId);
+            inGracePeriod = graceTicksLeft > 0;
+            if (inGracePeriod) {
+                MOUNT_GRACE_PERIOD.put(cartEntityId, graceTicksLeft - 1);
+                if (graceTicksLeft <= 1) {
+                    MOUNT_GRACE_PERIOD.remove(cartEntityId);
+                }
             }
         }
 
@@ -131,6 +143,8 @@ public class MinecartMountInputBlocker extends EntityTickingSystem<EntityStore>
             index, PlayerInput.getComponentType()
         );
         if (playerInput == null) return;
+        // Sampled once the tick is known to get this far, so skipped ticks don't use up samples
+        boolean shouldLog = CartLog.sample(CartLog.Category.INPUT, cartEntityId);
 
         List<PlayerInput.InputUpdate> queue = playerInput.getMovementUpdateQueue();
         int queueSize = queue.size();
@@ -170,7 +184,7 @@ public class MinecartMountInputBlocker extends EntityTickingSystem<EntityStore>
             Vector3d cartPos = CustomMinecartRidingSystem.cartPositions.get(cartEntityId);
             if (cartPos != null) {
                 // Get previous client position to detect CHANGE in desired position
-                double[] prevClientPos = CLIENT_POSITIONS.get(cartEntityId);
+                double[] prevClientPos = getClientPosition(cartEntityId);
 
                 if (prevClientPos != null) {
                     // Calculate delta from PREVIOUS client position to CURRENT client position
@@ -205,7 +219,7 @@ public class MinecartMountInputBlocker extends EntityTickingSystem<EntityStore>
                         // If |dot| < 0.5, player is mostly strafing (A/D) - ignore for cart movement
 
                         if (shouldLog) {
-                            LOGGER.atInfo().log("[InputDebug] cart %d: dx=%.3f dz=%.3f dist=%.3f playerYaw=%.2f dot=%.3f dir=%d",
+                            CartLog.log(CartLog.Category.INPUT, CartLog.Level.DEBUG, "[InputDebug] cart %d: dx=%.3f dz=%.3f dist=%.3f playerYaw=%.2f dot=%.3f dir=%d",
                                 cartEntityId, dx, dz, dist, playerYaw, dot, direction);
                         }
                     }
@@ -215,37 +229,43 @@ public class MinecartMountInputBlocker extends EntityTickingSystem<EntityStore>
 
         // Only store non-zero input (don't overwrite with 0 every tick)
         if (direction != 0) {
-            RIDER_INPUT.put(cartEntityId, direction);
+            synchronized (RIDER_INPUT) {
+                RIDER_INPUT.put(cartEntityId, direction);
+            }
         }
 
         // Store the client's position for drift detection
         // This is the ACTUAL client position, not the server position
         if (!Double.isNaN(lastAbsX)) {
-            CLIENT_POSITIONS.put(cartEntityId, new double[]{lastAbsX, lastAbsY, lastAbsZ});
+            synchronized (CLIENT_POSITIONS) {
+                CLIENT_POSITIONS.put(cartEntityId, new double[]{lastAbsX, lastAbsY, lastAbsZ});
+            }
         }
 
         // Store the client's rotation for use in teleports (preserves camera direction)
         if (!Float.isNaN(lastHeadYaw) || !Float.isNaN(lastHeadPitch) || !Float.isNaN(lastBodyYaw)) {
-            float[] existing = CLIENT_ROTATIONS.get(cartEntityId);
+            float[] existing = getClientRotation(cartEntityId);
             float bodyYaw = !Float.isNaN(lastBodyYaw) ? lastBodyYaw : (existing != null ? existing[0] : 0f);
             float headYaw = !Float.isNaN(lastHeadYaw) ? lastHeadYaw : (existing != null ? existing[1] : 0f);
             float headPitch = !Float.isNaN(lastHeadPitch) ? lastHeadPitch : (existing != null ? existing[2] : 0f);
-            CLIENT_ROTATIONS.put(cartEntityId, new float[]{bodyYaw, headYaw, headPitch});
+            synchronized (CLIENT_ROTATIONS) {
+                CLIENT_ROTATIONS.put(cartEntityId, new float[]{bodyYaw, headYaw, headPitch});
+            }
         }
 
         MovementStateReader movementState = new MovementStateReader(queue);
-        if (movementState.isWalking() || movementState.isGliding()) {
-            LOGGER.atInfo().log("[MinecartMountInputBlocker] cart %d: player is WALKING", cartEntityId);
+        if (shouldLog && (movementState.isWalking() || movementState.isGliding())) {
+            CartLog.log(CartLog.Category.INPUT, CartLog.Level.DEBUG, "[MinecartMountInputBlocker] cart %d: player is WALKING", cartEntityId);
         }
-        if (movementState.isCrouching()) {
-            LOGGER.atInfo().log("[MinecartMountInputBlocker] cart %d: player is CROUCHING", cartEntityId);
+        if (shouldLog && movementState.isCrouching()) {
+            CartLog.log(CartLog.Category.INPUT, CartLog.Level.DEBUG, "[MinecartMountInputBlocker] cart %d: player is CROUCHING", cartEntityId);
         }
 
         // Clear the entire queue - HandleMountInput will have nothing to process
         queue.clear();
 
         if (shouldLog && (queueSize > 0 || direction != 0)) {
-            LOGGER.atInfo().log("[ClientMovementDebug] INPUT_BLOCKER: cart %d, cleared %d entries, direction=%d, clientPos=(%.2f, %.2f, %.2f)",
+            CartLog.log(CartLog.Category.INPUT, CartLog.Level.DEBUG, "[ClientMovementDebug] INPUT_BLOCKER: cart %d, cleared %d entries, direction=%d, clientPos=(%.2f, %.2f, %.2f)",
                 cartEntityId, queueSize, direction,
                 Double.isNaN(lastAbsX) ? 0.0 : lastAbsX,
                 Double.isNaN(lastAbsY) ? 0.0 : lastAbsY,
@@ -258,26 +278,37 @@ public class MinecartMountInputBlocker extends EntityTickingSystem<EntityStore>
      * @return 1 for forward, -1 for backward, 0 for no input
      */
     public static int consumeRiderInput(int cartEntityId) {
-        Integer dir = RIDER_INPUT.remove(cartEntityId);
-        return dir != null ? dir : 0;
+        synchronized (RIDER_INPUT) {
+            // Missing entries read as the default 0
+            return RIDER_INPUT.remove(cartEntityId);
+        }
     }
 
     /**
      * Peek at the rider input direction without consuming.
      */
     public static int peekRiderInput(int cartEntityId) {
-        Integer dir = RIDER_INPUT.get(cartEntityId);
-        return dir != null ? dir : 0;
+        synchronized (RIDER_INPUT) {
+            return RIDER_INPUT.get(cartEntityId);
+        }
     }
 
     /**
      * Clear input for a cart (on dismount/destroy).
      */
     public static void clearInput(int cartEntityId) {
-        RIDER_INPUT.remove(cartEntityId);
-        MOUNT_GRACE_PERIOD.remove(cartEntityId);
-        CLIENT_POSITIONS.remove(cartEntityId);
-        CLIENT_ROTATIONS.remove(cartEntityId);
+        synchronized (RIDER_INPUT) {
+            RIDER_INPUT.remove(cartEntityId);
+        }
+        synchronized (MOUNT_GRACE_PERIOD) {
+            MOUNT_GRACE_PERIOD.remove(cartEntityId);
+        }
+        synchronized (CLIENT_POSITIONS) {
+            CLIENT_POSITIONS.remove(cartEntityId);
+        }
+        synchronized (CLIENT_ROTATIONS) {
+            CLIENT_ROTATIONS.remove(cartEntityId);
+        }
     }
 
     /**
@@ -285,10 +316,18 @@ public class MinecartMountInputBlocker extends EntityTickingSystem<EntityStore>
      * This prevents the system from accessing stale entity references during server shutdown.
      */
     public static void clearAll() {
-        RIDER_INPUT.clear();
-        MOUNT_GRACE_PERIOD.clear();
-        CLIENT_POSITIONS.clear();
-        CLIENT_ROTATIONS.clear();
+        synchronized (RIDER_INPUT) {
+            RIDER_INPUT.clear();
+        }
+        synchronized (MOUNT_GRACE_PERIOD) {
+            MOUNT_GRACE_PERIOD.clear();
+        }
+        synchronized (CLIENT_POSITIONS) {
+            CLIENT_POSITIONS.clear();
+        }
+        synchronized (CLIENT_ROTATIONS) {
+            CLIENT_ROTATIONS.clear();
+        }
     }
 
     /**
@@ -297,7 +336,9 @@ public class MinecartMountInputBlocker extends EntityTickingSystem<EntityStore>
      * @return [x, y, z] or null if no position data available
      */
     public static double[] getClientPosition(int cartEntityId) {
-        return CLIENT_POSITIONS.get(cartEntityId);
+        synchronized (CLIENT_POSITIONS) {
+            return CLIENT_POSITIONS.get(cartEntityId);
+        }
     }
 
     /**
@@ -306,7 +347,9 @@ public class MinecartMountInputBlocker extends EntityTickingSystem<EntityStore>
      * @return [bodyYaw, headYaw, headPitch] or null if no rotation data available
      */
     public static float[] getClientRotation(int cartEntityId) {
-        return CLIENT_ROTATIONS.get(cartEntityId);
+        synchronized (CLIENT_ROTATIONS) {
+            return CLIENT_ROTATIONS.get(cartEntityId);
+        }
     }
 
     /**
@@ -314,8 +357,14 @@ public class MinecartMountInputBlocker extends EntityTickingSystem<EntityStore>
      * position-based input detection (prevents false backward from mount position).
      */
     public static void onMount(int cartEntityId) {
-        MOUNT_GRACE_PERIOD.put(cartEntityId, GRACE_PERIOD_TICKS);
-        RIDER_INPUT.remove(cartEntityId); // Clear any stale input
-        LOGGER.atInfo().log("[MinecartMountInputBlocker] Started grace period for cart %d (%d ticks)", cartEntityId, GRACE_PERIOD_TICKS);
+        synchronized (MOUNT_GRACE_PERIOD) {
+            MOUNT_GRACE_PERIOD.put(cartEntityId, GRACE_PERIOD_TICKS);
+        }
+        synchronized (RIDER_INPUT) {
+            RIDER_INPUT.remove(cartEntityId); // Clear any stale input
+        }
+        if (CartLog.isEnabled(CartLog.Category.INPUT, CartLog.Level.INFO)) {
+            CartLog.log(CartLog.Category.INPUT, CartLog.Level.INFO, "[MinecartMountInputBlocker] Started grace period for cart %d (%d ticks)", cartEntityId, GRACE_PERIOD_TICKS);
+        }
     }
 }
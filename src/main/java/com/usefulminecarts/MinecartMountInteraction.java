@@ -109,6 +109,7 @@ public class MinecartMountInteraction extends SimpleInstantInteraction {
         NetworkId cartNetworkId = commandBuffer.getComponent(targetEntity, NetworkId.getComponentType());
         if (cartNetworkId != null) {
             MinecartRiderTracker.setRider(cartNetworkId.getId(), playerEntity);
+            CartSleepTracker.wake(commandBuffer.getComponent(targetEntity, CartPhysicsComponent.getComponentType()));
             LOGGER.atInfo().log("[MinecartMount] Added rider tracking for cart %d", cartNetworkId.getId());
         }
 
@@ -15,22 +15,15 @@ import com.hypixel.hytale.component.dependency.SystemDependency;
 import com.hypixel.hytale.component.query.Query;
 import com.hypixel.hytale.component.system.tick.EntityTickingSystem;
 import com.hypixel.hytale.logger.HytaleLogger;
-import com.hypixel.hytale.math.util.ChunkUtil;
 import com.hypixel.hytale.math.vector.Vector3d;
 import com.hypixel.hytale.math.vector.Vector3f;
-import com.hypixel.hytale.protocol.RailConfig;
-import com.hypixel.hytale.protocol.RailPoint;
-import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
 import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
 import com.hypixel.hytale.server.core.modules.entity.tracker.NetworkId;
 import com.hypixel.hytale.server.core.universe.world.World;
-import com.hypixel.hytale.server.core.universe.world.chunk.WorldChunk;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
 import javax.annotation.Nonnull;
 
@@ -50,25 +43,84 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
     private static final int EDGE_SOUTH = 2;  // +Z direction (towards positive Z)
     private static final int EDGE_NORTH = 3;  // -Z direction (towards negative Z)
 
-    // Stores signed velocity (positive = rail's positive direction, negative = backward)
-    private static final Map<Integer, Double> minecartVelocities = new ConcurrentHashMap<>();
-    // Stores the facing yaw for tracking (used for cleanup)
-    private static final Map<Integer, Float> minecartFacingYaw = new ConcurrentHashMap<>();
-    // Stores the world movement direction (actual direction cart is traveling, persisted across ticks)
-    private static final Map<Integer, double[]> minecartWorldDirection = new ConcurrentHashMap<>();
+    // Block sweep: how far past a boundary a step ends, the shortest step taken,
+    // and a cap on steps per tick (max speed covers far fewer blocks than this)
+    private static final double BOUNDARY_EPSILON = 0.001;
+    private static final double MIN_SWEEP_STEP = 0.01;
+    private static final int MAX_SWEEP_STEPS = 64;
 
-    private int tickCount = 0;
+    // Snap distance penalty for corner segments perpendicular to the incoming direction
+    private static final double MISALIGNED_PENALTY = 5.0;
+
+    // Furthest (squared) a predicted next-cell snap may be from the cart, the same
+    // "still on it" distance the full search accepts the current block's rail at
+    private static final double PREDICTED_SNAP_MAX_DIST_SQ = 0.25;
+
+    // Ticks a cart that found no rail at all skips the extended snap search for
+    // (it still checks the blocks right next to it)
+    private static final int EXTENDED_SEARCH_BACKOFF_TICKS = 10;
+
+    /**
+     * Scratch state of one cart tick, reused so a tick allocates nothing.
+     *
+     * The system is a single instance ticked by every world's thread, so this can't live
+     * in fields of the system: each thread has its own (see SCRATCH), fetched once in
+     * tick() and passed down.
+     */
+    static final class TickScratch {
+        // The tick's starting snap, the snap the sweep is on, the latest step's snap,
+        // and the working probe used inside findBestRailSnapWithDirection
+        final RailSnap tickSnap = new RailSnap();
+        final RailSnap sweepSnap = new RailSnap();
+        final RailSnap stepSnap = new RailSnap();
+        final RailSnap probeSnap = new RailSnap();
+        // Reusable step for serial arc-length ticks
+        final ArcLengthStep arcStep = new ArcLengthStep();
+
+        // What the current tick did, for the CartTick flight recorder event
+        int entityId;
+        int substeps;
+        int blocksCrossed;
+        int snapProbes;
+        int snapPredictionMisses;
+        int chunkLookups;
+        // Whether snapToRailAt found a rail cell since findBestRailSnapWithDirection started
+        boolean probeFoundCell;
+        // View whose pass the current tick opened (ended after the tick, see BlockNeighbourhood)
+        RailWorldView rails;
+
+        void reset() {
+            entityId = -1;
+            substeps = 0;
+            blocksCrossed = 0;
+            snapProbes = 0;
+            snapPredictionMisses = 0;
+            chunkLookups = 0;
+        }
+    }
+
+    private static final ThreadLocal<TickScratch> SCRATCH = ThreadLocal.withInitial(TickScratch::new);
+
+    /**
+     * Get the calling thread's tick scratch (for ticks driven outside tick(), e.g. tests).
+     */
+    static TickScratch scratch() {
+        return SCRATCH.get();
+    }
 
     /**
      * Give a minecart a push in a direction derived from the player's yaw.
      * Called by MinecartBumpInteraction when a player crouch-clicks a cart.
      *
+     * @param physics   The cart's physics component
      * @param entityId  The cart's network entity ID
      * @param playerYaw The player's facing yaw in degrees
      * @param strength  Push strength in blocks/s
      */
-    public static void bumpCart(int entityId, float playerYaw, double strength) {
-        LOGGER.atInfo().log("[MinecartPhysics] bumpCart called: entityId=%d, yaw=%.1f, strength=%.1f", entityId, playerYaw, strength);
+    public static void bumpCart(CartPhysicsComponent physics, int entityId, float playerYaw, double strength) {
+        if (CartLog.isEnabled(CartLog.Category.PHYSICS, CartLog.Level.INFO)) {
+            CartLog.log(CartLog.Category.PHYSICS, CartLog.Level.INFO, "[MinecartPhysics] bumpCart called: entityId=%d, yaw=%.1f, strength=%.1f", entityId, playerYaw, strength);
+        }
 
         // Convert yaw to world direction (yaw 0 = +Z/south, 90 = -X/west, etc.)
         double yawRad = Math.toRadians(playerYaw);
@@ -82,14 +134,16 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
             dirZ /= len;
         }
 
-        LOGGER.atInfo().log("[MinecartPhysics] Bump direction: dirX=%.3f, dirZ=%.3f", dirX, dirZ);
+        if (CartLog.isEnabled(CartLog.Category.PHYSICS, CartLog.Level.INFO)) {
+            CartLog.log(CartLog.Category.PHYSICS, CartLog.Level.INFO, "[MinecartPhysics] Bump direction: dirX=%.3f, dirZ=%.3f", dirX, dirZ);
+        }
 
         // Set world direction and velocity
-        minecartWorldDirection.put(entityId, new double[]{dirX, dirZ});
-        minecartVelocities.put(entityId, strength);
-
-        double checkVel = minecartVelocities.getOrDefault(entityId, -1.0);
-        LOGGER.atInfo().log("[MinecartPhysics] Velocity after bump: %.3f (expected %.3f)", checkVel, strength);
+        physics.setWorldDirection(dirX, dirZ);
+        physics.velocity = strength;
+        // Re-attach in the bump direction on the next tick (arc-length mode)
+        physics.trackCursor = null;
+        CartSleepTracker.wake(physics);
     }
 
     // Helper: Get entry edge from world movement direction
@@ -105,6 +159,23 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
         }
     }
 
+    // Helper: Distance along a horizontal direction to the next X or Z block boundary (DDA step)
+    private static double distanceToNextBoundary(double x, double z, double dirX, double dirZ) {
+        double toX = Double.MAX_VALUE;
+        double toZ = Double.MAX_VALUE;
+        if (dirX > 1e-6) {
+            toX = (Math.floor(x) + 1.0 - x) / dirX;
+        } else if (dirX < -1e-6) {
+            toX = (x - Math.floor(x)) / -dirX;
+        }
+        if (dirZ > 1e-6) {
+            toZ = (Math.floor(z) + 1.0 - z) / dirZ;
+        } else if (dirZ < -1e-6) {
+            toZ = (z - Math.floor(z)) / -dirZ;
+        }
+        return Math.min(toX, toZ);
+    }
+
     // Helper: Get opposite edge
     private int getOppositeEdge(int edge) {
         switch (edge) {
@@ -118,13 +189,19 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
 
     // Helper: Get world direction for an edge (direction TO exit through that edge)
     // NORTH = -Z, SOUTH = +Z
-    private double[] getEdgeDirection(int edge) {
+    private static double getEdgeDirX(int edge) {
+        switch (edge) {
+            case EDGE_WEST: return -1;  // Exit west = move -X
+            case EDGE_EAST: return 1;   // Exit east = move +X
+            default: return 0;
+        }
+    }
+
+    private static double getEdgeDirZ(int edge) {
         switch (edge) {
-            case EDGE_WEST: return new double[]{-1, 0};   // Exit west = move -X
-            case EDGE_EAST: return new double[]{1, 0};    // Exit east = move +X
-            case EDGE_SOUTH: return new double[]{0, 1};   // Exit south = move +Z
-            case EDGE_NORTH: return new double[]{0, -1};  // Exit north = move -Z
-            default: return new double[]{0, 0};
+            case EDGE_SOUTH: return 1;  // Exit south = move +Z
+            case EDGE_NORTH: return -1; // Exit north = move -Z
+            default: return 0;
         }
     }
 
@@ -152,7 +229,7 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
 
     // Helper: Check if there's a rail in the direction of an edge from a snap position
     // NORTH = -Z, SOUTH = +Z
-    private boolean hasRailInDirection(World world, RailSnap snap, int edge) {
+    private boolean hasRailInDirection(RailWorldView rails, RailSnap snap, int edge) {
         int dx = 0, dz = 0;
         switch (edge) {
             case EDGE_WEST: dx = -1; break;
@@ -160,9 +237,7 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
             case EDGE_SOUTH: dz = 1; break;   // South = +Z
             case EDGE_NORTH: dz = -1; break;  // North = -Z
         }
-        return hasRailAt(world, snap.blockX + dx, snap.blockY, snap.blockZ + dz)
-            || hasRailAt(world, snap.blockX + dx, snap.blockY - 1, snap.blockZ + dz)
-            || hasRailAt(world, snap.blockX + dx, snap.blockY + 1, snap.blockZ + dz);
+        return hasRailNear(rails, snap.blockX + dx, snap.blockY, snap.blockZ + dz);
     }
 
     // Helper: Get edge name for logging
@@ -176,77 +251,20 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
         }
     }
 
-    // Helper: Determine which edge a rail point is at based on block-local coordinates (0-1 range)
-    // NORTH = -Z, SOUTH = +Z
-    // x ≈ 0 → WEST (-X edge), x ≈ 1 → EAST (+X edge)
-    // z ≈ 0 → NORTH (-Z edge), z ≈ 1 → SOUTH (+Z edge)
-    private int getEdgeFromPoint(float x, float z) {
-        // Check which coordinate is closest to an edge (0 or 1)
-        float distWest = x;           // distance to x=0 (WEST edge, -X side)
-        float distEast = 1.0f - x;    // distance to x=1 (EAST edge, +X side)
-        float distNorth = z;          // distance to z=0 (NORTH edge, -Z side)
-        float distSouth = 1.0f - z;   // distance to z=1 (SOUTH edge, +Z side)
-
-        // Find the minimum distance to determine which edge
-        float minDist = Math.min(Math.min(distWest, distEast), Math.min(distNorth, distSouth));
-
-        if (minDist == distWest) return EDGE_WEST;
-        if (minDist == distEast) return EDGE_EAST;
-        if (minDist == distNorth) return EDGE_NORTH;
-        return EDGE_SOUTH;
-    }
-
     /**
      * Check if there's a bumper block at the given position and return the edge it blocks.
-     * Bumpers are rotatable blocks that reverse cart direction.
-     *
-     * Rotation mapping (default model faces NORTH, placed at south end of track):
-     * - rot 0: blocks SOUTH edge (carts moving +Z hit it and reverse to -Z)
-     * - rot 1: blocks WEST edge (carts moving -X hit it and reverse to +X)
-     * - rot 2: blocks NORTH edge (carts moving -Z hit it and reverse to +Z)
-     * - rot 3: blocks EAST edge (carts moving +X hit it and reverse to -X)
+     * Bumpers are rotatable blocks that reverse cart direction. The blocked edge comes
+     * from the world's TrackFeatureIndex (see TrackFeatureIndex.bumperBlockedEdge).
      *
      * @return The edge that the bumper blocks, or -1 if no bumper at this position
      */
-    private int checkForBumper(World world, int x, int y, int z) {
-        BlockType blockType = world.getBlockType(x, y, z);
-        if (blockType == null) return -1;
-
-        String blockTypeName = blockType.toString();
-        if (blockTypeName == null) return -1;
-
-        // Extract block ID for checking
-        String blockId = "";
-        int idStart = blockTypeName.indexOf("id=");
-        if (idStart >= 0) {
-            idStart += 3;
-            int idEnd = blockTypeName.indexOf(",", idStart);
-            if (idEnd < 0) idEnd = blockTypeName.indexOf("}", idStart);
-            if (idEnd > idStart) {
-                blockId = blockTypeName.substring(idStart, idEnd).trim();
-            }
-        }
-
-        if (!blockId.contains("Cart_Bumper") && !blockTypeName.contains("Cart_Bumper")) {
-            return -1;
-        }
-
-        // Get rotation index
-        int rotationIndex = world.getBlockRotationIndex(x, y, z);
-
-        LOGGER.atInfo().log("[MinecartPhysics] Found bumper at (%d,%d,%d), blockId=%s, rotation=%d",
-            x, y, z, blockId, rotationIndex);
-
-        // Map rotation to blocked edge
-        // Default (rot 0): bumper wall faces north, blocks carts moving south (+Z)
-        // The bumper is placed at the END of a track, facing the incoming carts
-        switch (rotationIndex % 4) {
-            case 0: return EDGE_SOUTH;  // Wall faces north, blocks +Z movement
-            case 1: return EDGE_EAST;   // Wall faces west, blocks +X movement
-            case 2: return EDGE_NORTH;  // Wall faces south, blocks -Z movement
-            case 3: return EDGE_WEST;   // Wall faces east, blocks -X movement
-            default: return -1;
+    private int checkForBumper(RailWorldView rails, int x, int y, int z) {
+        int blockedEdge = TrackFeatureIndex.forView(rails).getBumperEdge(x, y, z);
+        if (blockedEdge >= 0 && CartLog.isEnabled(CartLog.Category.TRACK, CartLog.Level.DEBUG)) {
+            CartLog.log(CartLog.Category.TRACK, CartLog.Level.DEBUG, "[MinecartPhysics] Found bumper at (%d,%d,%d), blocked edge=%d",
+                x, y, z, blockedEdge);
         }
+        return blockedEdge;
     }
 
     /**
@@ -264,31 +282,9 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
      * Check if a block is solid (would stop a minecart).
      * Returns true if the block exists and is not air/transparent/rail.
      */
-    private boolean isSolidBlock(World world, int x, int y, int z) {
-        BlockType blockType = world.getBlockType(x, y, z);
-        if (blockType == null) return false;
-
-        String blockTypeName = blockType.toString();
-        if (blockTypeName == null) return false;
-
-        // Check if it's air or empty
-        if (blockTypeName.contains("Air") || blockTypeName.contains("Empty")) {
-            return false;
-        }
-
-        // Check if it's a rail (rails are not solid obstacles)
-        RailConfig railConfig = blockType.getRailConfig(0);
-        if (railConfig != null && railConfig.points != null && railConfig.points.length >= 2) {
-            return false; // It's a rail, not a solid block
-        }
-
-        // Check if it's a bumper (handled separately)
-        if (blockTypeName.contains("Cart_Bumper")) {
-            return false; // Bumpers are handled by the bumper logic
-        }
-
-        // Any other block with content is considered solid
-        return true;
+    private boolean isSolidBlock(RailWorldView rails, int x, int y, int z) {
+        // Air/empty, rails and bumpers (handled by the bumper logic) are not obstacles
+        return RailOccupancy.forView(rails).blocksCart(x, y, z);
     }
 
     /**
@@ -304,8 +300,9 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
         }
     }
 
-    @Nonnull
-    private final Query<EntityStore> query;
+    // Built on first getQuery() rather than in the constructor, so the system (and its rail
+    // snapping) can be created without a running server, e.g. by the benchmarks
+    private Query<EntityStore> query;
 
     // Run BEFORE HandleMountInput so our physics position is calculated first
     // MountMovement packets are blocked by MountMovementPacketFilter at the network level
@@ -313,7 +310,6 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
     private final Set<Dependency<EntityStore>> dependencies;
 
     public MinecartPhysicsSystem() {
-        this.query = Query.and(MinecartComponent.getComponentType());
         this.dependencies = Set.of(
             new SystemDependency<>(Order.BEFORE, MountSystems.HandleMountInput.class, OrderPriority.CLOSEST)
         );
@@ -323,6 +319,9 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
     @Nonnull
     @Override
     public Query<EntityStore> getQuery() {
+        if (this.query == null) {
+            this.query = Query.and(MinecartComponent.getComponentType());
+        }
         return this.query;
     }
 
@@ -340,7 +339,54 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
             @Nonnull Store<EntityStore> store,
             @Nonnull CommandBuffer<EntityStore> commandBuffer
     ) {
-        tickCount++;
+        long start = System.nanoTime();
+        CartEvents.CartTick event = null;
+        if (CartEvents.CART_TICK.isEnabled()) {
+            event = new CartEvents.CartTick();
+            event.begin();
+        }
+        TickScratch scratch = SCRATCH.get();
+        scratch.reset();
+
+        try {
+            if (!TickAllocationProbe.isRunning()) {
+                tickCart(scratch, dt, index, archetypeChunk, store, commandBuffer);
+            } else {
+                long allocatedBefore = TickAllocationProbe.begin();
+                tickCart(scratch, dt, index, archetypeChunk, store, commandBuffer);
+                TickAllocationProbe.end(allocatedBefore);
+            }
+        } finally {
+            if (scratch.rails != null) {
+                scratch.chunkLookups = scratch.rails.endPass();
+                scratch.rails = null;
+            }
+        }
+
+        TickTimings.record(TickTimings.Phase.PHYSICS, start);
+        if (StressTest.isRunning()) {
+            StressTest.onCartTick(store.getExternalData().getWorld(), scratch.entityId);
+        }
+        if (event != null && event.shouldCommit()) {
+            event.entityId = scratch.entityId;
+            event.substeps = scratch.substeps;
+            event.blocksCrossed = scratch.blocksCrossed;
+            event.snapProbes = scratch.snapProbes;
+            event.snapPredictionMisses = scratch.snapPredictionMisses;
+            event.chunkLookups = scratch.chunkLookups;
+            event.commit();
+        }
+    }
+
+    private void tickCart(
+            TickScratch scratch,
+            float dt,
+            int index,
+            ArchetypeChunk<EntityStore> archetypeChunk,
+            Store<EntityStore> store,
+            CommandBuffer<EntityStore> commandBuffer
+    ) {
+        long phaseStart = System.nanoTime();
 
         // Skip processing if plugin is shutting down to avoid race conditions
         if (UsefulMinecartsPlugin.isShuttingDown()) {
@@ -354,11 +400,34 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
             return;
         }
 
-        boolean shouldLog = (tickCount % 4 == 0);
-
         NetworkId networkId = store.getComponent(minecartRef, NetworkId.getComponentType());
         if (networkId == null) return;
         int entityId = networkId.getId();
+        scratch.entityId = entityId;
+
+        // Per-tick diagnostics, sampled per cart (see /mc log)
+        boolean shouldLog = CartLog.sample(CartLog.Category.PHYSICS, entityId);
+        boolean logRider = CartLog.sample(CartLog.Category.RIDER, entityId);
+
+        CartPhysicsComponent physics = archetypeChunk.getComponent(index, CartPhysicsComponent.getComponentType());
+
+        // Sleeping carts (parked, no rider) skip physics until something wakes them.
+        // The mount interactions normally wake the cart; the vanilla mount component is
+        // checked as well in case the cart was mounted some other way.
+        if (physics != null && physics.asleep) {
+            MountedByComponent sleeperMount = store.getComponent(minecartRef, MountedByComponent.getComponentType());
+            if (sleeperMount == null || sleeperMount.getPassengers().isEmpty()) {
+                return;
+            }
+            CartSleepTracker.wake(physics);
+        }
+        // Only carts whose physics actually runs (see /mc timings)
+        TickTimings.countCartTick();
+
+        if (physics == null) {
+            physics = new CartPhysicsComponent();
+            commandBuffer.addComponent(minecartRef, CartPhysicsComponent.getComponentType(), physics);
+        }
 
         // Check if cart is mounted - check both vanilla MountedByComponent AND our custom tracker
         MountedByComponent mountedBy = store.getComponent(minecartRef, MountedByComponent.getComponentType());
@@ -394,7 +463,7 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
                 float playerYaw = (clientRot != null) ? clientRot[1] : 0f; // headYaw
 
                 // Get cart's current facing yaw
-                float cartYaw = minecartFacingYaw.getOrDefault(entityId, 0f);
+                float cartYaw = physics.getFacingYaw(0f);
 
                 // Calculate if player is facing same direction as cart or opposite
                 // Player look direction
@@ -420,49 +489,120 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
                     if (blockerInput < 0) riderWantsForward = true;
                 }
 
-                if (shouldLog) {
-                    LOGGER.atInfo().log("[ClientMovementDebug] INPUT cart %d: blockerInput=%d, playerYaw=%.2f, cartYaw=%.2f, facingDot=%.2f, samedir=%b, forward=%b, backward=%b",
+                if (logRider) {
+                    CartLog.log(CartLog.Category.RIDER, CartLog.Level.DEBUG, "[ClientMovementDebug] INPUT cart %d: blockerInput=%d, playerYaw=%.2f, cartYaw=%.2f, facingDot=%.2f, samedir=%b, forward=%b, backward=%b",
                         entityId, blockerInput, playerYaw, cartYaw, facingDot, facingSameDirection, riderWantsForward, riderWantsBackward);
                 }
             }
         }
 
+        // Rider's facing, for turning their input into a push along the rail
+        double riderFacingX = 0, riderFacingZ = 1; // Default: facing +Z
+        if (isMounted && (riderWantsForward || riderWantsBackward) && riderRef != null && riderRef.isValid()) {
+            TransformComponent riderTransform = store.getComponent(riderRef, TransformComponent.getComponentType());
+            if (riderTransform != null) {
+                float playerYaw = riderTransform.getRotation().getYaw();
+                // Convert yaw to direction vector (yaw 0 = +Z, yaw PI/2 = +X)
+                riderFacingX = Math.sin(playerYaw);
+                riderFacingZ = Math.cos(playerYaw);
+            }
+        }
+
+        phaseStart = TickTimings.record(TickTimings.Phase.PHYSICS_INPUT, phaseStart);
+
         TransformComponent transform = commandBuffer.getComponent(minecartRef, TransformComponent.getComponentType());
         if (transform == null) return;
 
         Vector3d position = transform.getPosition();
-        Vector3f rotation = transform.getRotation();
 
         // [ClientMovementDebug] Log the position at the START of physics tick
         // This tells us if something overwrote the position between ticks
-        if (shouldLog && isMounted) {
-            LOGGER.atInfo().log("[ClientMovementDebug] PHYSICS_START cart %d: pos=(%.2f, %.2f, %.2f), mounted=%b, forward=%b, backward=%b, packetMomentum=%d",
+        if (logRider && isMounted) {
+            CartLog.log(CartLog.Category.RIDER, CartLog.Level.DEBUG, "[ClientMovementDebug] PHYSICS_START cart %d: pos=(%.2f, %.2f, %.2f), mounted=%b, forward=%b, backward=%b, packetMomentum=%d",
                 entityId, position.x, position.y, position.z, isMounted, riderWantsForward, riderWantsBackward,
                 MountMovementPacketFilter.getMomentumDirection(entityId));
         }
 
         World world = store.getExternalData().getWorld();
         if (world == null) return;
+        RailWorldView rails = WorldRailView.of(world);
+        // Every read from here on goes through the few chunks around the cart
+        rails.beginPass();
+        scratch.rails = rails;
+
+        // A parallel step from an earlier tick that hasn't been committed yet has to land
+        // before this tick reads the cart again
+        if (physics.arcStep != null && physics.arcStep.pending) {
+            ParallelCartIntegrator.flush(world);
+        }
+
+        // Arc-length mode: ride the track graph directly. Falls through to the spatial
+        // physics below when the cart can't be attached to a segment (e.g. it is on a
+        // junction, or off the rails).
+        if (MinecartConfig.isArcLengthMode()) {
+            if (!isMounted && MinecartConfig.isParallelPhysics()) {
+                if (queueArcStep(physics, minecartRef, entityId, world, rails, store, transform, dt)) {
+                    cleanupDismountedRider(entityId, store);
+                    TickTimings.record(TickTimings.Phase.PHYSICS_ARC_STEP, phaseStart);
+                    return;
+                }
+            } else if (tickArcLength(scratch, physics, entityId, rails, transform, isMounted,
+                    riderWantsForward, riderWantsBackward, riderFacingX, riderFacingZ, dt, shouldLog)) {
+                cleanupDismountedRider(entityId, store);
+                TickTimings.record(TickTimings.Phase.PHYSICS_ARC_STEP, phaseStart);
+                return;
+            }
+            // Fell through to the spatial physics
+            phaseStart = System.nanoTime();
+        } else {
+            physics.trackCursor = null;
+        }
+
+        if (moveOnRails(scratch, rails, physics, entityId, transform, isMounted, riderWantsForward, riderWantsBackward,
+                riderFacingX, riderFacingZ, dt, phaseStart, shouldLog, logRider)) {
+            cleanupDismountedRider(entityId, store);
+        }
+    }
+
+    /**
+     * Spatial physics tick: snap the cart to the rail under it, apply slope gravity,
+     * friction, rider input and accelerators, then sweep it block by block along the track.
+     * Reads nothing from the ECS - the caller passes in the rider's input and facing - so
+     * it runs the same against a VoxelRailWorld (see TickAllocationTest).
+     *
+     * @param riderFacingX Rider's facing, with riderFacingZ (a unit vector); only used with rider input
+     * @param phaseStart When the tick's current timing phase started (System.nanoTime)
+     * @return False if the cart wasn't moved: there is no rail under it, or it sat still
+     */
+    boolean moveOnRails(TickScratch scratch, RailWorldView rails, CartPhysicsComponent physics, int entityId,
+                        TransformComponent transform, boolean isMounted, boolean riderWantsForward, boolean riderWantsBackward,
+                        double riderFacingX, double riderFacingZ, float dt, long phaseStart,
+                        boolean shouldLog, boolean logRider) {
+        Vector3d position = transform.getPosition();
+        Vector3f rotation = transform.getRotation();
 
         // Use persisted direction for initial snap to avoid T-junction perpendicular segment issues
         // Without this, the initial snap could pull the cart to a perpendicular segment and reset position
-        double[] persistedDirForSnap = minecartWorldDirection.get(entityId);
-        float snapDirX = 0, snapDirZ = 0;
-        if (persistedDirForSnap != null) {
-            snapDirX = (float) persistedDirForSnap[0];
-            snapDirZ = (float) persistedDirForSnap[1];
-        }
-        RailSnap snap = findBestRailSnapWithDirection(world, position, snapDirX, snapDirZ);
-        if (snap == null) {
-            minecartVelocities.remove(entityId);
-            minecartFacingYaw.remove(entityId);
-            minecartWorldDirection.remove(entityId);
-            return;
+        // A cart that was off the rails recently only looks next to itself until its
+        // back-off runs out, instead of searching 5x4x5 blocks every tick
+        RailSnap snap = scratch.tickSnap;
+        boolean allowExtendedSearch = physics.extendedSearchBackoff == 0;
+        if (!allowExtendedSearch) {
+            physics.extendedSearchBackoff--;
+        }
+        if (!findBestRailSnapWithDirection(scratch, rails, position.x, position.y, position.z,
+                (float) physics.worldDirX, (float) physics.worldDirZ, allowExtendedSearch, snap)) {
+            physics.reset();
+            if (allowExtendedSearch) {
+                physics.extendedSearchBackoff = EXTENDED_SEARCH_BACKOFF_TICKS;
+            }
+            return false;
         }
+        physics.extendedSearchBackoff = 0;
+        TickTimings.record(TickTimings.Phase.PHYSICS_SNAP, phaseStart);
 
         // Get signed velocity (positive = rail's positive direction, negative = backward)
-        double velocity = minecartVelocities.getOrDefault(entityId, 0.0);
-        float facingYaw = minecartFacingYaw.getOrDefault(entityId, rotation.getYaw());
+        double velocity = physics.velocity;
 
         // On slope with no velocity - start moving downhill
         if (Math.abs(velocity) < MinecartConfig.getMinSpeed() && snap.isSlope) {
@@ -473,17 +613,24 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
         // If stationary on flat rail with no rider input, stay put
         if (Math.abs(velocity) < MinecartConfig.getMinSpeed() && !snap.isSlope
                 && !(isMounted && (riderWantsForward || riderWantsBackward))) {
-            transform.setPosition(new Vector3d(snap.x, snap.y, snap.z));
-            MountMovementPacketFilter.updatePhysicsState(entityId, snap.x, snap.y, snap.z,
-                rotation.getYaw(), rotation.getPitch(), 0f);
-            if (shouldLog && isMounted) {
+            setCartPosition(transform, snap.x, snap.y, snap.z);
+            if (isMounted) {
+                MountMovementPacketFilter.updatePhysicsState(entityId, snap.x, snap.y, snap.z,
+                    rotation.getYaw(), rotation.getPitch(), 0f);
+                CartSleepTracker.markActive(physics);
+            } else {
+                CartSleepTracker.markIdle(physics, rails, snap.x, snap.y, snap.z);
+            }
+            if (logRider && isMounted) {
                 Vector3d afterPos = transform.getPosition();
-                LOGGER.atInfo().log("[ClientMovementDebug] PHYSICS_STATIONARY cart %d: setPosition called with (%.2f, %.2f, %.2f), getPosition after=(%.2f, %.2f, %.2f)",
+                CartLog.log(CartLog.Category.RIDER, CartLog.Level.DEBUG, "[ClientMovementDebug] PHYSICS_STATIONARY cart %d: setPosition called with (%.2f, %.2f, %.2f), getPosition after=(%.2f, %.2f, %.2f)",
                     entityId, snap.x, snap.y, snap.z, afterPos.x, afterPos.y, afterPos.z);
             }
-            return;
+            return false;
         }
 
+        CartSleepTracker.markActive(physics);
+
         // Apply gravity on slopes
         // Must determine uphill vs downhill from world direction, not velocity sign
         // (velocity is always positive magnitude, direction is tracked separately)
@@ -494,10 +641,7 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
             // The slope's "positive" direction has dirY < 0 (going down)
             // horizDot > 0: cart moving in slope's positive direction = downhill
             // horizDot < 0: cart moving opposite = uphill
-            double horizDot = 0;
-            if (persistedDirForSnap != null) {
-                horizDot = persistedDirForSnap[0] * snap.dirX + persistedDirForSnap[1] * snap.dirZ;
-            }
+            double horizDot = physics.worldDirX * snap.dirX + physics.worldDirZ * snap.dirZ;
 
             boolean goingDownhill = horizDot >= 0;
 
@@ -512,11 +656,7 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
                 if (velocity < 0) {
                     velocity = Math.abs(velocity);
                     // Reverse the persisted direction
-                    if (persistedDirForSnap != null) {
-                        persistedDirForSnap[0] = -persistedDirForSnap[0];
-                        persistedDirForSnap[1] = -persistedDirForSnap[1];
-                        minecartWorldDirection.put(entityId, persistedDirForSnap);
-                    }
+                    physics.reverseWorldDirection();
                 }
             }
         }
@@ -529,18 +669,8 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
         if (isMounted && (riderWantsForward || riderWantsBackward)) {
             double playerInputStrength = MinecartConfig.getPlayerInputStrength();
 
-            // Get player facing direction
-            double playerFacingX = 0, playerFacingZ = 1; // Default: facing +Z
-            if (riderRef != null && riderRef.isValid()) {
-                TransformComponent riderTransform = store.getComponent(riderRef, TransformComponent.getComponentType());
-                if (riderTransform != null) {
-                    Vector3f riderRot = riderTransform.getRotation();
-                    float playerYaw = riderRot.getYaw();
-                    // Convert yaw to direction vector (yaw 0 = +Z, yaw PI/2 = +X)
-                    playerFacingX = Math.sin(playerYaw);
-                    playerFacingZ = Math.cos(playerYaw);
-                }
-            }
+            // Player facing direction
+            double playerFacingX = riderFacingX, playerFacingZ = riderFacingZ;
 
             // Round player facing to nearest cardinal direction along the rail
             // Rail direction from snap tells us which axis the rail is on
@@ -564,12 +694,11 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
             if (Math.abs(velocity) < MinecartConfig.getMinSpeed() && riderWantsForward) {
                 // Cart is stationary - start moving in player's facing direction
                 velocity = playerInputStrength * dt;
-                persistedDirForSnap = new double[]{playerFacingX, playerFacingZ};
-                minecartWorldDirection.put(entityId, persistedDirForSnap);
-            } else if (persistedDirForSnap != null) {
+                physics.setWorldDirection(playerFacingX, playerFacingZ);
+            } else if (physics.hasWorldDirection()) {
                 // Cart is moving - check if player wants to accelerate or brake
-                double cartDirX = persistedDirForSnap[0];
-                double cartDirZ = persistedDirForSnap[1];
+                double cartDirX = physics.worldDirX;
+                double cartDirZ = physics.worldDirZ;
 
                 // Dot product to determine if player is facing same direction as cart
                 double facingDot = playerFacingX * cartDirX + playerFacingZ * cartDirZ;
@@ -586,9 +715,7 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
                         if (velocity < 0) {
                             // Reversed direction
                             velocity = Math.abs(velocity);
-                            persistedDirForSnap[0] = -persistedDirForSnap[0];
-                            persistedDirForSnap[1] = -persistedDirForSnap[1];
-                            minecartWorldDirection.put(entityId, persistedDirForSnap);
+                            physics.reverseWorldDirection();
                         }
                     }
                 } else if (riderWantsBackward) {
@@ -622,26 +749,31 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
             velocity = 0;
         }
 
-        minecartVelocities.put(entityId, velocity);
+        physics.velocity = velocity;
 
         // Movement distance (can be negative for backward motion)
         double totalMoveDistance = velocity * dt;
 
-        // Limit movement per step to prevent skipping rails at high speeds
-        // Max 0.4 blocks per step ensures we don't skip corner entry points
-        double maxStepSize = 0.4;
-        int numSteps = Math.max(1, (int) Math.ceil(Math.abs(totalMoveDistance) / maxStepSize));
-        double stepDistance = totalMoveDistance / numSteps;
+        // Movement is swept block by block (DDA): each step ends just past the next
+        // block boundary, or where the move ends. Obstacle checks only run when a
+        // boundary is crossed, so cost scales with blocks crossed, not with speed.
+        double remainingDistance = Math.abs(totalMoveDistance);
+        int numSteps = 0;
+        // Block whose boundary checks already ran (snapping can pull the cart back
+        // onto the boundary, which must not trigger the same checks twice)
+        int checkedBlockX = Integer.MIN_VALUE;
+        int checkedBlockZ = Integer.MIN_VALUE;
 
         double newX = snap.x;
         double newY = snap.y;
         double newZ = snap.z;
-        RailSnap currentSnap = snap;
-        RailSnap newSnap = null;
+        RailSnap currentSnap = scratch.sweepSnap;
+        currentSnap.copyFrom(snap);
+        RailSnap newSnap = scratch.stepSnap;
+        boolean hasNewSnap = false;
 
         // Track world-space movement direction (actual direction cart is moving)
         // This MUST be persisted across ticks to handle rails with opposite segment directions
-        double[] persistedDir = minecartWorldDirection.get(entityId);
         double worldMoveX, worldMoveZ;
 
         // For switches, use segment direction directly to follow curves
@@ -656,10 +788,10 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
                 worldMoveX /= len;
                 worldMoveZ /= len;
             }
-        } else if (persistedDir != null) {
+        } else if (physics.hasWorldDirection()) {
             // Use persisted direction from previous tick
-            worldMoveX = persistedDir[0];
-            worldMoveZ = persistedDir[1];
+            worldMoveX = physics.worldDirX;
+            worldMoveZ = physics.worldDirZ;
             // Round to cardinal direction to avoid drift
             if (Math.abs(worldMoveX) > Math.abs(worldMoveZ)) {
                 worldMoveX = Math.signum(worldMoveX);
@@ -696,19 +828,22 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
                 worldMoveZ = 0;
             }
             // Initialize persisted direction
-            minecartWorldDirection.put(entityId, new double[]{worldMoveX, worldMoveZ});
+            physics.setWorldDirection(worldMoveX, worldMoveZ);
         }
 
         // Ensure velocity is positive (magnitude only) - direction is tracked by worldMove
         // This prevents oscillation issues when crossing rails with different segment orientations
         if (velocity < 0) {
             velocity = Math.abs(velocity);
-            minecartVelocities.put(entityId, velocity);
+            physics.velocity = velocity;
         }
 
         // Track if we hit a bumper (to preserve velocity after break)
         boolean hitBumper = false;
 
+        // Bumper/solid checks are timed on their own, separately from the rest of the sweep
+        long obstacleStart = System.nanoTime();
+
         // PRE-CHECK: Verify cart isn't heading directly into a wall in the next block
         // This catches cases where rail points extend close to block boundaries
         {
@@ -720,11 +855,9 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
 
             // Only check if we're looking at a different block
             if (aheadBlockX != currentBlockX || aheadBlockZ != currentBlockZ) {
-                boolean aheadHasRail = hasRailAt(world, aheadBlockX, aheadBlockY, aheadBlockZ)
-                                    || hasRailAt(world, aheadBlockX, aheadBlockY + 1, aheadBlockZ)
-                                    || hasRailAt(world, aheadBlockX, aheadBlockY - 1, aheadBlockZ);
+                boolean aheadHasRail = hasRailNear(rails, aheadBlockX, aheadBlockY, aheadBlockZ);
 
-                if (!aheadHasRail && isSolidBlock(world, aheadBlockX, aheadBlockY, aheadBlockZ)) {
+                if (!aheadHasRail && isSolidBlock(rails, aheadBlockX, aheadBlockY, aheadBlockZ)) {
                     // Wall detected ahead - clamp position to safe distance from wall
                     double safeOffset = 0.45;
 
@@ -739,24 +872,35 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
                         newZ = Math.max(newZ, aheadBlockZ + 1.0 + safeOffset);
                     }
 
-                    LOGGER.atInfo().log("[MinecartPhysics] Cart %d: Pre-check found wall at (%d,%d,%d), clamped to (%.2f, %.2f)",
-                        entityId, aheadBlockX, aheadBlockY, aheadBlockZ, newX, newZ);
+                    if (CartLog.isEnabled(CartLog.Category.TRACK, CartLog.Level.INFO)) {
+                        CartLog.log(CartLog.Category.TRACK, CartLog.Level.INFO, "[MinecartPhysics] Cart %d: Pre-check found wall at (%d,%d,%d), clamped to (%.2f, %.2f)",
+                            entityId, aheadBlockX, aheadBlockY, aheadBlockZ, newX, newZ);
+                    }
 
                     velocity = 0;
-                    minecartVelocities.put(entityId, velocity);
+                    physics.velocity = velocity;
                 }
             }
         }
 
-        // Sub-step movement to follow rails properly at high speeds
-        for (int step = 0; step < numSteps; step++) {
+        long sweepStart = System.nanoTime();
+        long obstacleNanos = sweepStart - obstacleStart;
+        long sweepObstacleNanos = 0;
+
+        // Sweep through the blocks the cart enters (at least one step so it re-snaps)
+        while ((remainingDistance > 0 || numSteps == 0) && numSteps < MAX_SWEEP_STEPS) {
+            numSteps++;
+            double stepDistance = Math.min(remainingDistance,
+                Math.max(distanceToNextBoundary(newX, newZ, worldMoveX, worldMoveZ) + BOUNDARY_EPSILON, MIN_SWEEP_STEP));
+            remainingDistance -= stepDistance;
+
             // Move one step using WORLD direction (not rail segment direction)
             // This prevents oscillation when crossing rails with opposite segment orientations
             // For slopes, we still need the Y component from the rail
-            double stepMoveX = worldMoveX * Math.abs(stepDistance);
-            double stepMoveZ = worldMoveZ * Math.abs(stepDistance);
+            double stepMoveX = worldMoveX * stepDistance;
+            double stepMoveZ = worldMoveZ * stepDistance;
             // Y movement comes from the rail's slope (if any)
-            double stepMoveY = currentSnap.dirY * Math.abs(stepDistance);
+            double stepMoveY = currentSnap.dirY * stepDistance;
             // If moving against the slope direction, negate Y
             double horizDot = worldMoveX * currentSnap.dirX + worldMoveZ * currentSnap.dirZ;
             if (horizDot < 0 && currentSnap.isSlope) {
@@ -777,14 +921,21 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
             int stepBlockY = (int) Math.floor(stepY);
             int stepBlockZ = (int) Math.floor(stepZ);
 
-            boolean crossingBlockBoundary = (stepBlockX != currentBlockX || stepBlockZ != currentBlockZ);
+            boolean crossingBlockBoundary = (stepBlockX != currentBlockX || stepBlockZ != currentBlockZ)
+                && (stepBlockX != checkedBlockX || stepBlockZ != checkedBlockZ);
 
             if (crossingBlockBoundary) {
+                obstacleStart = System.nanoTime();
+                scratch.blocksCrossed++;
+                checkedBlockX = stepBlockX;
+                checkedBlockZ = stepBlockZ;
+                CartSleepTracker.wakeAt(rails, stepBlockX, stepBlockY, stepBlockZ);
+
                 // Check the block we're about to enter for obstacles BEFORE moving
                 int cartMovementEdge = getMovementEdge(worldMoveX, worldMoveZ);
 
                 // Check for bumper in the block we're entering
-                int bumperBlockedEdge = checkForBumper(world, stepBlockX, stepBlockY, stepBlockZ);
+                int bumperBlockedEdge = checkForBumper(rails, stepBlockX, stepBlockY, stepBlockZ);
 
                 if (bumperBlockedEdge >= 0 && bumperBlockedEdge == cartMovementEdge) {
                     // Cart is about to hit a bumper - stop at edge and reverse!
@@ -810,30 +961,31 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
                     // Reverse direction
                     worldMoveX = -worldMoveX;
                     worldMoveZ = -worldMoveZ;
-                    minecartWorldDirection.put(entityId, new double[]{worldMoveX, worldMoveZ});
+                    physics.setWorldDirection(worldMoveX, worldMoveZ);
 
                     // Keep velocity high - only small friction on bounce
                     velocity *= 0.95;
-                    minecartVelocities.put(entityId, velocity);
+                    physics.velocity = velocity;
 
-                    LOGGER.atInfo().log("[MinecartPhysics] Cart %d: Hit bumper at (%d,%d,%d), reversing at edge (%.2f, %.2f), vel=%.2f",
-                        entityId, stepBlockX, stepBlockY, stepBlockZ, newX, newZ, velocity);
+                    if (CartLog.isEnabled(CartLog.Category.TRACK, CartLog.Level.INFO)) {
+                        CartLog.log(CartLog.Category.TRACK, CartLog.Level.INFO, "[MinecartPhysics] Cart %d: Hit bumper at (%d,%d,%d), reversing at edge (%.2f, %.2f), vel=%.2f",
+                            entityId, stepBlockX, stepBlockY, stepBlockZ, newX, newZ, velocity);
+                    }
 
                     // Mark that we hit a bumper (to preserve velocity after break)
                     hitBumper = true;
 
                     // Break out of step loop - let next tick continue with reversed direction
                     // This ensures clean state for the next movement calculation
+                    sweepObstacleNanos += System.nanoTime() - obstacleStart;
                     break;
                 }
 
                 // Check for solid block collision - but only if there's no rail at that position
                 // This prevents false collisions with support blocks under rails (especially at slope transitions)
-                boolean hasRailAtStep = hasRailAt(world, stepBlockX, stepBlockY, stepBlockZ)
-                                     || hasRailAt(world, stepBlockX, stepBlockY + 1, stepBlockZ)
-                                     || hasRailAt(world, stepBlockX, stepBlockY - 1, stepBlockZ);
+                boolean hasRailAtStep = hasRailNear(rails, stepBlockX, stepBlockY, stepBlockZ);
 
-                if (!hasRailAtStep && isSolidBlock(world, stepBlockX, stepBlockY, stepBlockZ)) {
+                if (!hasRailAtStep && isSolidBlock(rails, stepBlockX, stepBlockY, stepBlockZ)) {
                     // Position cart at a safe distance from the wall (not just at the edge)
                     // Use a larger offset so the cart model doesn't visually clip into the wall
                     double edgeX = newX;
@@ -854,29 +1006,47 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
                     newX = edgeX;
                     newZ = edgeZ;
 
-                    LOGGER.atInfo().log("[MinecartPhysics] Cart %d: Hit solid block at (%d,%d,%d), stopping at edge (%.2f, %.2f)",
-                        entityId, stepBlockX, stepBlockY, stepBlockZ, newX, newZ);
+                    if (CartLog.isEnabled(CartLog.Category.TRACK, CartLog.Level.INFO)) {
+                        CartLog.log(CartLog.Category.TRACK, CartLog.Level.INFO, "[MinecartPhysics] Cart %d: Hit solid block at (%d,%d,%d), stopping at edge (%.2f, %.2f)",
+                            entityId, stepBlockX, stepBlockY, stepBlockZ, newX, newZ);
+                    }
 
                     velocity = 0;
-                    minecartVelocities.put(entityId, velocity);
+                    physics.velocity = velocity;
+                    sweepObstacleNanos += System.nanoTime() - obstacleStart;
                     break;
                 }
+                sweepObstacleNanos += System.nanoTime() - obstacleStart;
             }
 
             // Use world movement direction for rail search
             float moveDirX = (float) worldMoveX;
             float moveDirZ = (float) worldMoveZ;
 
-            // Find rail at new position
-            Vector3d stepPos = new Vector3d(stepX, stepY, stepZ);
-            newSnap = findBestRailSnapWithDirection(world, stepPos, moveDirX, moveDirZ);
+            // Find rail at new position: the cell the current rail leads into first,
+            // the full neighbourhood search only if that misses
+            hasNewSnap = findPredictedRailSnap(scratch, rails, currentSnap, stepX, stepY, stepZ, moveDirX, moveDirZ, newSnap);
+            if (hasNewSnap) {
+                physics.snapPredictionHits++;
+            } else {
+                physics.snapPredictionMisses++;
+                scratch.snapPredictionMisses++;
+                if (CartLog.sample(CartLog.Category.TRACK, entityId)) {
+                    CartLog.log(CartLog.Category.TRACK, CartLog.Level.DEBUG, "[MinecartPhysics] Cart %d: Snap prediction missed leaving (%d,%d,%d) at (%.2f,%.2f,%.2f), %d of %d missed",
+                        entityId, currentSnap.blockX, currentSnap.blockY, currentSnap.blockZ, stepX, stepY, stepZ,
+                        physics.snapPredictionMisses, physics.snapPredictionHits + physics.snapPredictionMisses);
+                }
+                hasNewSnap = findBestRailSnapWithDirection(scratch, rails, stepX, stepY, stepZ, moveDirX, moveDirZ, true, newSnap);
+            }
 
-            if (newSnap == null) {
+            if (!hasNewSnap) {
                 // No rail found - end of track, stop at current position
-                LOGGER.atInfo().log("[MinecartPhysics] Cart %d: End of track at (%.2f,%.2f,%.2f)",
-                    entityId, stepX, stepY, stepZ);
+                if (CartLog.isEnabled(CartLog.Category.TRACK, CartLog.Level.INFO)) {
+                    CartLog.log(CartLog.Category.TRACK, CartLog.Level.INFO, "[MinecartPhysics] Cart %d: End of track at (%.2f,%.2f,%.2f)",
+                        entityId, stepX, stepY, stepZ);
+                }
                 velocity = 0;
-                minecartVelocities.put(entityId, velocity);
+                physics.velocity = velocity;
                 break;
             }
 
@@ -888,11 +1058,9 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
 
             // Check if snap position is in a different block that's solid (not the rail block itself)
             if ((snapBlockX != newSnap.blockX || snapBlockZ != newSnap.blockZ)) {
-                boolean snapHasRail = hasRailAt(world, snapBlockX, snapBlockY, snapBlockZ)
-                                   || hasRailAt(world, snapBlockX, snapBlockY + 1, snapBlockZ)
-                                   || hasRailAt(world, snapBlockX, snapBlockY - 1, snapBlockZ);
+                boolean snapHasRail = hasRailNear(rails, snapBlockX, snapBlockY, snapBlockZ);
 
-                if (!snapHasRail && isSolidBlock(world, snapBlockX, snapBlockY, snapBlockZ)) {
+                if (!snapHasRail && isSolidBlock(rails, snapBlockX, snapBlockY, snapBlockZ)) {
                     // Snap position would be inside a solid block - stop at safe distance
                     double safeOffset = 0.45;
                     double safeX = newX;
@@ -913,19 +1081,21 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
                     newX = safeX;
                     newZ = safeZ;
 
-                    LOGGER.atInfo().log("[MinecartPhysics] Cart %d: Snap would enter solid block at (%d,%d,%d), stopping at safe pos (%.2f, %.2f)",
-                        entityId, snapBlockX, snapBlockY, snapBlockZ, newX, newZ);
+                    if (CartLog.isEnabled(CartLog.Category.TRACK, CartLog.Level.INFO)) {
+                        CartLog.log(CartLog.Category.TRACK, CartLog.Level.INFO, "[MinecartPhysics] Cart %d: Snap would enter solid block at (%d,%d,%d), stopping at safe pos (%.2f, %.2f)",
+                            entityId, snapBlockX, snapBlockY, snapBlockZ, newX, newZ);
+                    }
 
                     velocity = 0;
-                    minecartVelocities.put(entityId, velocity);
+                    physics.velocity = velocity;
                     break;
                 }
             }
 
             // Apply accelerator boost when entering an accelerator rail block (multiplier)
-            if (newSnap.isAccelerator && (currentSnap == null || newSnap.blockX != currentSnap.blockX || newSnap.blockZ != currentSnap.blockZ)) {
+            if (newSnap.isAccelerator && (newSnap.blockX != currentSnap.blockX || newSnap.blockZ != currentSnap.blockZ)) {
                 velocity *= MinecartConfig.getAcceleratorBoost();
-                minecartVelocities.put(entityId, velocity);
+                physics.velocity = velocity;
             }
 
             // For straight rails: maintain current world movement direction (already aligned at tick start)
@@ -947,24 +1117,28 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
 
                     // IMPORTANT: If we're already moving towards a connected edge, just continue through!
                     // This handles the case where we've already turned and are exiting the corner.
-                    if (newSnap.connectedEdges[movementExitEdge] && hasRailInDirection(world, newSnap, movementExitEdge)) {
+                    if (newSnap.connectedEdges[movementExitEdge] && hasRailInDirection(rails, newSnap, movementExitEdge)) {
                         // Already moving towards a valid exit - continue without re-computing
-                        LOGGER.atInfo().log("[MinecartPhysics] Cart %d: Continuing through %s at (%d,%d,%d) towards %s",
-                            entityId, newSnap.isCorner ? "Corner" : "T-junction",
-                            newSnap.blockX, newSnap.blockY, newSnap.blockZ, getEdgeName(movementExitEdge));
+                        if (CartLog.isEnabled(CartLog.Category.TRACK, CartLog.Level.DEBUG)) {
+                            CartLog.log(CartLog.Category.TRACK, CartLog.Level.DEBUG, "[MinecartPhysics] Cart %d: Continuing through %s at (%d,%d,%d) towards %s",
+                                entityId, newSnap.isCorner ? "Corner" : "T-junction",
+                                newSnap.blockX, newSnap.blockY, newSnap.blockZ, getEdgeName(movementExitEdge));
+                        }
                         // Use step position to continue through
                         newX = stepX;
                         newY = newSnap.y;
                         newZ = stepZ;
-                        currentSnap = newSnap;
+                        currentSnap.copyFrom(newSnap);
                         continue;
                     }
 
-                    LOGGER.atInfo().log("[MinecartPhysics] Cart %d: Entering %s at (%d,%d,%d), entry from %s, edges: W=%b E=%b S=%b N=%b",
-                        entityId, newSnap.isTJunction ? "T-junction" : "Corner",
-                        newSnap.blockX, newSnap.blockY, newSnap.blockZ, getEdgeName(entryEdge),
-                        newSnap.connectedEdges[EDGE_WEST], newSnap.connectedEdges[EDGE_EAST],
-                        newSnap.connectedEdges[EDGE_SOUTH], newSnap.connectedEdges[EDGE_NORTH]);
+                    if (CartLog.isEnabled(CartLog.Category.TRACK, CartLog.Level.DEBUG)) {
+                        CartLog.log(CartLog.Category.TRACK, CartLog.Level.DEBUG, "[MinecartPhysics] Cart %d: Entering %s at (%d,%d,%d), entry from %s, edges: W=%b E=%b S=%b N=%b",
+                            entityId, newSnap.isTJunction ? "T-junction" : "Corner",
+                            newSnap.blockX, newSnap.blockY, newSnap.blockZ, getEdgeName(entryEdge),
+                            newSnap.connectedEdges[EDGE_WEST], newSnap.connectedEdges[EDGE_EAST],
+                            newSnap.connectedEdges[EDGE_SOUTH], newSnap.connectedEdges[EDGE_NORTH]);
+                    }
 
                     if (newSnap.isTJunction) {
                         // T-junction: try straight first, then right, then left
@@ -973,46 +1147,53 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
                         int leftEdge = turnLeft(straightEdge);
 
                         // Check straight first (using actual rail connectivity)
-                        if (newSnap.connectedEdges[straightEdge] && hasRailInDirection(world, newSnap, straightEdge)) {
+                        if (newSnap.connectedEdges[straightEdge] && hasRailInDirection(rails, newSnap, straightEdge)) {
                             exitEdge = straightEdge;
-                            LOGGER.atInfo().log("[MinecartPhysics] Cart %d: T-junction going STRAIGHT to %s",
-                                entityId, getEdgeName(exitEdge));
-                        } else if (newSnap.connectedEdges[rightEdge] && hasRailInDirection(world, newSnap, rightEdge)) {
+                            if (CartLog.isEnabled(CartLog.Category.TRACK, CartLog.Level.DEBUG)) {
+                                CartLog.log(CartLog.Category.TRACK, CartLog.Level.DEBUG, "[MinecartPhysics] Cart %d: T-junction going STRAIGHT to %s",
+                                    entityId, getEdgeName(exitEdge));
+                            }
+                        } else if (newSnap.connectedEdges[rightEdge] && hasRailInDirection(rails, newSnap, rightEdge)) {
                             exitEdge = rightEdge;
                             velocity *= MinecartConfig.getCornerFriction();  // Apply friction for turn
-                            LOGGER.atInfo().log("[MinecartPhysics] Cart %d: T-junction turning RIGHT to %s",
-                                entityId, getEdgeName(exitEdge));
-                        } else if (newSnap.connectedEdges[leftEdge] && hasRailInDirection(world, newSnap, leftEdge)) {
+                            if (CartLog.isEnabled(CartLog.Category.TRACK, CartLog.Level.DEBUG)) {
+                                CartLog.log(CartLog.Category.TRACK, CartLog.Level.DEBUG, "[MinecartPhysics] Cart %d: T-junction turning RIGHT to %s",
+                                    entityId, getEdgeName(exitEdge));
+                            }
+                        } else if (newSnap.connectedEdges[leftEdge] && hasRailInDirection(rails, newSnap, leftEdge)) {
                             exitEdge = leftEdge;
                             velocity *= MinecartConfig.getCornerFriction();  // Apply friction for turn
-                            LOGGER.atInfo().log("[MinecartPhysics] Cart %d: T-junction turning LEFT to %s",
-                                entityId, getEdgeName(exitEdge));
+                            if (CartLog.isEnabled(CartLog.Category.TRACK, CartLog.Level.DEBUG)) {
+                                CartLog.log(CartLog.Category.TRACK, CartLog.Level.DEBUG, "[MinecartPhysics] Cart %d: T-junction turning LEFT to %s",
+                                    entityId, getEdgeName(exitEdge));
+                            }
                         }
                     } else {
                         // Corner: exit through the edge that's connected but isn't our entry
                         for (int edge = 0; edge < 4; edge++) {
-                            if (newSnap.connectedEdges[edge] && edge != entryEdge && hasRailInDirection(world, newSnap, edge)) {
+                            if (newSnap.connectedEdges[edge] && edge != entryEdge && hasRailInDirection(rails, newSnap, edge)) {
                                 exitEdge = edge;
                                 break;
                             }
                         }
                         velocity *= MinecartConfig.getCornerFriction();  // Always apply friction for corners
                         if (exitEdge >= 0) {
-                            LOGGER.atInfo().log("[MinecartPhysics] Cart %d: Corner exit to %s",
-                                entityId, getEdgeName(exitEdge));
+                            if (CartLog.isEnabled(CartLog.Category.TRACK, CartLog.Level.DEBUG)) {
+                                CartLog.log(CartLog.Category.TRACK, CartLog.Level.DEBUG, "[MinecartPhysics] Cart %d: Corner exit to %s",
+                                    entityId, getEdgeName(exitEdge));
+                            }
                         }
                     }
 
                     if (exitEdge >= 0) {
                         // Valid exit found - update direction
-                        double[] exitDir = getEdgeDirection(exitEdge);
-                        worldMoveX = exitDir[0];
-                        worldMoveZ = exitDir[1];
+                        worldMoveX = getEdgeDirX(exitEdge);
+                        worldMoveZ = getEdgeDirZ(exitEdge);
 
                         // Keep velocity as magnitude
                         velocity = Math.abs(velocity);
-                        minecartVelocities.put(entityId, velocity);
-                        minecartWorldDirection.put(entityId, new double[]{worldMoveX, worldMoveZ});
+                        physics.velocity = velocity;
+                        physics.setWorldDirection(worldMoveX, worldMoveZ);
 
                         // When turning at a corner, snap to center and CONTINUE stepping in new direction
                         // This allows smooth movement through corners instead of teleporting
@@ -1021,26 +1202,32 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
                             newX = newSnap.blockX + 0.5;
                             newY = newSnap.y;
                             newZ = newSnap.blockZ + 0.5;
-                            currentSnap = newSnap;
-                            LOGGER.atInfo().log("[MinecartPhysics] Cart %d: Turning at corner to %s, continuing from center (%.2f, %.2f, %.2f)",
-                                entityId, getEdgeName(exitEdge), newX, newY, newZ);
+                            currentSnap.copyFrom(newSnap);
+                            if (CartLog.isEnabled(CartLog.Category.TRACK, CartLog.Level.DEBUG)) {
+                                CartLog.log(CartLog.Category.TRACK, CartLog.Level.DEBUG, "[MinecartPhysics] Cart %d: Turning at corner to %s, continuing from center (%.2f, %.2f, %.2f)",
+                                    entityId, getEdgeName(exitEdge), newX, newY, newZ);
+                            }
                             continue;  // Continue stepping in new direction instead of breaking
                         }
                         // Going straight through junction - use step position, NOT snap position
                         // This prevents the cart from getting stuck at the junction center
-                        LOGGER.atInfo().log("[MinecartPhysics] Cart %d: Going STRAIGHT through %s, using step position (%.2f, %.2f, %.2f)",
-                            entityId, newSnap.isTJunction ? "T-junction" : "corner", stepX, stepY, stepZ);
+                        if (CartLog.isEnabled(CartLog.Category.TRACK, CartLog.Level.DEBUG)) {
+                            CartLog.log(CartLog.Category.TRACK, CartLog.Level.DEBUG, "[MinecartPhysics] Cart %d: Going STRAIGHT through %s, using step position (%.2f, %.2f, %.2f)",
+                                entityId, newSnap.isTJunction ? "T-junction" : "corner", stepX, stepY, stepZ);
+                        }
                         newX = stepX;
                         newY = newSnap.y;  // Keep Y from snap for proper rail height
                         newZ = stepZ;
-                        currentSnap = newSnap;
+                        currentSnap.copyFrom(newSnap);
                         continue;  // Continue to next step without overwriting with snap position
                     } else {
                         // No valid exit - dead end
-                        LOGGER.atInfo().log("[MinecartPhysics] Cart %d: DEAD END at (%d,%d,%d) - no valid exit",
-                            entityId, newSnap.blockX, newSnap.blockY, newSnap.blockZ);
+                        if (CartLog.isEnabled(CartLog.Category.TRACK, CartLog.Level.INFO)) {
+                            CartLog.log(CartLog.Category.TRACK, CartLog.Level.INFO, "[MinecartPhysics] Cart %d: DEAD END at (%d,%d,%d) - no valid exit",
+                                entityId, newSnap.blockX, newSnap.blockY, newSnap.blockZ);
+                        }
                         velocity = 0;
-                        minecartVelocities.put(entityId, velocity);
+                        physics.velocity = velocity;
                         break;
                     }
                 } else {
@@ -1057,7 +1244,7 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
                     }
 
                     // Check if there's a rail in the cart's current direction
-                    boolean hasRailAhead = hasRailInDirection(world, newSnap, currentMoveEdge);
+                    boolean hasRailAhead = hasRailInDirection(rails, newSnap, currentMoveEdge);
 
                     if (!hasRailAhead) {
                         // No rail ahead in current direction - check if we need to turn
@@ -1083,8 +1270,8 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
                                 negEdge = positiveDirZ > 0 ? EDGE_NORTH : EDGE_SOUTH;
                             }
 
-                            boolean hasPosRail = hasRailInDirection(world, newSnap, posEdge);
-                            boolean hasNegRail = hasRailInDirection(world, newSnap, negEdge);
+                            boolean hasPosRail = hasRailInDirection(rails, newSnap, posEdge);
+                            boolean hasNegRail = hasRailInDirection(rails, newSnap, negEdge);
 
                             // Choose direction: prefer the one with a rail, else positive direction
                             if (hasPosRail && !hasNegRail) {
@@ -1100,9 +1287,11 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
                             } else {
                                 // No rails in either direction - dead end, stop
                                 velocity = 0;
-                                minecartVelocities.put(entityId, velocity);
-                                LOGGER.atInfo().log("[MinecartPhysics] Cart %d: Dead end - no rail ahead or to sides",
-                                    entityId);
+                                physics.velocity = velocity;
+                                if (CartLog.isEnabled(CartLog.Category.TRACK, CartLog.Level.INFO)) {
+                                    CartLog.log(CartLog.Category.TRACK, CartLog.Level.INFO, "[MinecartPhysics] Cart %d: Dead end - no rail ahead or to sides",
+                                        entityId);
+                                }
                                 break;
                             }
 
@@ -1115,16 +1304,18 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
                                 worldMoveZ = Math.signum(worldMoveZ);
                             }
 
-                            minecartWorldDirection.put(entityId, new double[]{worldMoveX, worldMoveZ});
-                            LOGGER.atInfo().log("[MinecartPhysics] Cart %d: No rail ahead, turning to follow rail: (%.1f, %.1f)",
-                                entityId, worldMoveX, worldMoveZ);
+                            physics.setWorldDirection(worldMoveX, worldMoveZ);
+                            if (CartLog.isEnabled(CartLog.Category.TRACK, CartLog.Level.DEBUG)) {
+                                CartLog.log(CartLog.Category.TRACK, CartLog.Level.DEBUG, "[MinecartPhysics] Cart %d: No rail ahead, turning to follow rail: (%.1f, %.1f)",
+                                    entityId, worldMoveX, worldMoveZ);
+                            }
                         }
                     }
 
                     // Keep velocity as magnitude
                     if (velocity < 0) {
                         velocity = Math.abs(velocity);
-                        minecartVelocities.put(entityId, velocity);
+                        physics.velocity = velocity;
                     }
                 }
             }
@@ -1133,7 +1324,7 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
             newX = newSnap.x;
             newY = newSnap.y;
             newZ = newSnap.z;
-            currentSnap = newSnap;
+            currentSnap.copyFrom(newSnap);
 
             // For switches, update worldMoveX/Z to follow the curve at each step
             if (newSnap.isSwitch) {
@@ -1147,25 +1338,30 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
             }
         }
 
-        if (newSnap == null && !hitBumper) {
+        long publishStart = System.nanoTime();
+        scratch.substeps = numSteps;
+        TickTimings.recordNanos(TickTimings.Phase.PHYSICS_SUBSTEPS, publishStart - sweepStart - sweepObstacleNanos);
+        TickTimings.recordNanos(TickTimings.Phase.PHYSICS_OBSTACLES, obstacleNanos + sweepObstacleNanos);
+
+        if (!hasNewSnap && !hitBumper) {
             // No rail found and didn't hit a bumper - stop at current position
             newX = snap.x;
             newY = snap.y;
             newZ = snap.z;
             velocity = 0;
-            minecartVelocities.put(entityId, velocity);
-            minecartWorldDirection.remove(entityId); // Clear direction when stopped
+            physics.velocity = velocity;
+            physics.clearWorldDirection(); // Clear direction when stopped
         }
 
         // Use the final snap from sub-stepping (or original if no movement)
-        RailSnap finalSnap = (newSnap != null) ? currentSnap : snap;
+        RailSnap finalSnap = hasNewSnap ? currentSnap : snap;
 
         // Update persisted world direction at end of tick (unless stopped)
         if (Math.abs(velocity) > MinecartConfig.getMinSpeed()) {
-            minecartWorldDirection.put(entityId, new double[]{worldMoveX, worldMoveZ});
+            physics.setWorldDirection(worldMoveX, worldMoveZ);
         } else {
             // Cart stopped - clear direction so it re-initializes on next push
-            minecartWorldDirection.remove(entityId);
+            physics.clearWorldDirection();
         }
 
         // Update rotation - instant snap to movement direction
@@ -1180,7 +1376,7 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
                 targetYaw = (float) Math.atan2(worldMoveX, worldMoveZ);
             }
             rotation.setYaw(targetYaw);
-            minecartFacingYaw.put(entityId, targetYaw);
+            physics.setFacingYaw(targetYaw);
 
             // Pitch based on slope
             float targetPitch = 0;
@@ -1198,64 +1394,318 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
         // Update cart position - use setPosition() to mark transform dirty for entity replication
         Vector3d beforePos = transform.getPosition();
         double beforeX = beforePos.x, beforeY = beforePos.y, beforeZ = beforePos.z;
-        transform.setPosition(new Vector3d(newX, newY, newZ));
+        setCartPosition(transform, newX, newY, newZ);
         Vector3d afterPos = transform.getPosition();
 
-        if (shouldLog && isMounted) {
-            LOGGER.atInfo().log("[ClientMovementDebug] PHYSICS_END cart %d: before=(%.2f, %.2f, %.2f) -> setPosition(%.2f, %.2f, %.2f) -> getPosition=(%.2f, %.2f, %.2f), sameObj=%b",
+        if (logRider && isMounted) {
+            CartLog.log(CartLog.Category.RIDER, CartLog.Level.DEBUG, "[ClientMovementDebug] PHYSICS_END cart %d: before=(%.2f, %.2f, %.2f) -> setPosition(%.2f, %.2f, %.2f) -> getPosition=(%.2f, %.2f, %.2f), sameObj=%b",
                 entityId, beforeX, beforeY, beforeZ, newX, newY, newZ,
                 afterPos.x, afterPos.y, afterPos.z, beforePos == afterPos);
         }
 
-        // Store physics state for the packet filter to inject into MountMovement packets
-        MountMovementPacketFilter.updatePhysicsState(entityId, newX, newY, newZ,
-            rotation.getYaw(), rotation.getPitch(), 0f);
-
-        // Update position for CustomMinecartRidingSystem (for our custom rider positioning)
-        CustomMinecartRidingSystem.updateCartPosition(entityId, newX, newY, newZ);
+        // Publish state for the rider side, which runs off the cart entity: the packet filter
+        // injects it into MountMovement packets, CustomMinecartRidingSystem positions the rider.
+        // Riderless carts have no one to read it.
+        if (isMounted) {
+            MountMovementPacketFilter.updatePhysicsState(entityId, newX, newY, newZ,
+                rotation.getYaw(), rotation.getPitch(), 0f);
+            CustomMinecartRidingSystem.updateCartPosition(entityId, newX, newY, newZ);
+        }
 
         // NOTE: We tried teleporting the CART entity to force rotation correction,
         // but this caused the mounted player's camera to drift (cart rotation was
         // being applied to player view). Instead, rely on MountMovementPacketFilter
         // to rewrite incoming packet rotation to our physics rotation.
 
-        // Clean up rider tracking if rider dismounted
-        if (MinecartRiderTracker.hasRider(entityId)) {
-            Ref<EntityStore> trackedRider = MinecartRiderTracker.getRider(entityId);
-            if (trackedRider == null || !trackedRider.isValid()) {
-                // Rider ref is invalid, clean up
+        TickTimings.record(TickTimings.Phase.PHYSICS_PUBLISH, publishStart);
+
+        if (shouldLog) {
+            CartLog.log(CartLog.Category.PHYSICS, CartLog.Level.DEBUG, "[MinecartPhysics] Cart %d: vel=%.2f, pos=(%.2f,%.2f,%.2f), railDir=(%.2f,%.2f,%.2f), block=(%d,%d,%d), slope=%b, steps=%d, mounted=%b",
+                entityId, velocity, newX, newY, newZ, finalSnap.dirX, finalSnap.dirY, finalSnap.dirZ,
+                finalSnap.blockX, finalSnap.blockY, finalSnap.blockZ, finalSnap.isSlope, numSteps, isMounted);
+        }
+        return true;
+    }
+
+    /**
+     * Clean up rider tracking if the rider dismounted.
+     */
+    private void cleanupDismountedRider(int entityId, Store<EntityStore> store) {
+        if (!MinecartRiderTracker.hasRider(entityId)) return;
+
+        Ref<EntityStore> trackedRider = MinecartRiderTracker.getRider(entityId);
+        if (trackedRider == null || !trackedRider.isValid()) {
+            // Rider ref is invalid, clean up
+            MinecartRiderTracker.removeRider(entityId);
+            CustomMinecartRidingSystem.removeCart(entityId);
+            MinecartMountInputBlocker.clearInput(entityId);
+            MountMovementPacketFilter.onDismount(entityId);
+        } else {
+            // Check if rider still has our custom component or vanilla mount
+            CustomMinecartRiderComponent customRider = store.getComponent(trackedRider, CustomMinecartRiderComponent.getComponentType());
+            MountedComponent vanillaRider = store.getComponent(trackedRider, MountedComponent.getComponentType());
+            if (customRider == null && vanillaRider == null) {
                 MinecartRiderTracker.removeRider(entityId);
                 CustomMinecartRidingSystem.removeCart(entityId);
                 MinecartMountInputBlocker.clearInput(entityId);
                 MountMovementPacketFilter.onDismount(entityId);
-            } else {
-                // Check if rider still has our custom component or vanilla mount
-                CustomMinecartRiderComponent customRider = store.getComponent(trackedRider, CustomMinecartRiderComponent.getComponentType());
-                MountedComponent vanillaRider = store.getComponent(trackedRider, MountedComponent.getComponentType());
-                if (customRider == null && vanillaRider == null) {
-                    MinecartRiderTracker.removeRider(entityId);
-                    CustomMinecartRidingSystem.removeCart(entityId);
-                    MinecartMountInputBlocker.clearInput(entityId);
-                    MountMovementPacketFilter.onDismount(entityId);
-                    LOGGER.atInfo().log("[MinecartPhysics] Rider dismounted from cart %d", entityId);
+                if (CartLog.isEnabled(CartLog.Category.RIDER, CartLog.Level.INFO)) {
+                    CartLog.log(CartLog.Category.RIDER, CartLog.Level.INFO, "[MinecartPhysics] Rider dismounted from cart %d", entityId);
                 }
             }
         }
+    }
+
+    /**
+     * Arc-length physics tick: the cart keeps (segment, s, direction) in a TrackCursor and
+     * moves s by v*dt in one go. No per-substep rail search and no cardinal rounding -
+     * junctions, switches and bumpers are handled by the cursor hopping between elements.
+     * Forces (slope gravity, friction, rider input, accelerators) match the spatial physics.
+     *
+     * @return False if the cart isn't on a segment, so the spatial physics should run instead
+     */
+    private boolean tickArcLength(TickScratch scratch, CartPhysicsComponent physics, int entityId, RailWorldView rails,
+                                  TransformComponent transform, boolean isMounted,
+                                  boolean riderWantsForward, boolean riderWantsBackward,
+                                  double riderFacingX, double riderFacingZ, float dt, boolean shouldLog) {
+        TrackCursor cursor = attachCursor(physics, rails, transform);
+        if (cursor == null) {
+            return false;
+        }
+
+        ArcLengthStep step = scratch.arcStep;
+        captureArcStep(step, physics, null, entityId, isMounted,
+            riderWantsForward, riderWantsBackward, riderFacingX, riderFacingZ, dt);
+        step.cursor = cursor;
+        step.integrate();
+        applyArcStep(step, rails, transform, shouldLog);
+        return true;
+    }
+
+    /**
+     * Get the cart's track cursor, attaching (or re-attaching after a bump / track change /
+     * teleport) by position. World thread only - attaching may build network elements.
+     * @return The cursor, or null if the cart isn't on a segment
+     */
+    private static TrackCursor attachCursor(CartPhysicsComponent physics, RailWorldView rails, TransformComponent transform) {
+        Vector3d position = transform.getPosition();
+        TrackCursor cursor = physics.trackCursor;
+        if (cursor != null && !cursor.isValidFor(rails, position.x, position.y, position.z)) {
+            cursor = null;
+        }
+        if (cursor == null) {
+            cursor = TrackCursor.attach(rails, position.x, position.y, position.z,
+                physics.worldDirX, physics.worldDirZ);
+            physics.trackCursor = cursor;
+        }
+        return cursor;
+    }
+
+    /**
+     * Read phase: copy everything integrate() needs out of the ECS.
+     */
+    private static void captureArcStep(ArcLengthStep step, CartPhysicsComponent physics, Ref<EntityStore> cartRef,
+                                       int entityId, boolean isMounted, boolean riderWantsForward,
+                                       boolean riderWantsBackward, double riderFacingX, double riderFacingZ,
+                                       float dt) {
+        step.cartRef = cartRef;
+        step.physics = physics;
+        step.entityId = entityId;
+        step.isMounted = isMounted;
+        step.riderWantsForward = riderWantsForward;
+        step.riderWantsBackward = riderWantsBackward;
+        step.dt = dt;
+        step.startVelocity = physics.velocity;
+        step.playerFacingX = riderFacingX;
+        step.playerFacingZ = riderFacingZ;
+    }
+
+    /**
+     * Commit phase: write an integrated step back to the cart. World thread only.
+     */
+    static void applyArcStep(ArcLengthStep step, RailWorldView rails, TransformComponent transform, boolean shouldLog) {
+        CartPhysicsComponent physics = step.physics;
+        TrackCursor cursor = step.cursor;
+        int entityId = step.entityId;
+        boolean isMounted = step.isMounted;
+        Vector3f rotation = transform.getRotation();
+        physics.trackCursor = cursor;
+
+        if (step.stationary) {
+            setCartPosition(transform, cursor.x, cursor.y, cursor.z);
+            if (isMounted) {
+                MountMovementPacketFilter.updatePhysicsState(entityId, cursor.x, cursor.y, cursor.z,
+                    rotation.getYaw(), rotation.getPitch(), 0f);
+                CartSleepTracker.markActive(physics);
+            } else {
+                CartSleepTracker.markIdle(physics, rails, cursor.x, cursor.y, cursor.z);
+            }
+            return;
+        }
+        CartSleepTracker.markActive(physics);
+        CartSleepTracker.wakeAt(rails, cursor.enteredCells);
+
+        double velocity = step.velocity;
+        switch (step.stop) {
+            case END_OF_TRACK:
+                if (CartLog.isEnabled(CartLog.Category.TRACK, CartLog.Level.INFO)) {
+                    CartLog.log(CartLog.Category.TRACK, CartLog.Level.INFO, "[MinecartPhysics] Cart %d: End of track at (%.2f,%.2f,%.2f)",
+                        entityId, cursor.x, cursor.y, cursor.z);
+                }
+                break;
+            case BUMPER:
+                if (CartLog.isEnabled(CartLog.Category.TRACK, CartLog.Level.INFO)) {
+                    CartLog.log(CartLog.Category.TRACK, CartLog.Level.INFO, "[MinecartPhysics] Cart %d: Hit bumper, reversing at (%.2f, %.2f), vel=%.2f",
+                        entityId, cursor.x, cursor.z, velocity);
+                }
+                break;
+            case DETACHED:
+                // The spatial physics takes over from here and re-attaches later
+                physics.trackCursor = null;
+                break;
+            default:
+                break;
+        }
+        physics.velocity = velocity;
+
+        // Keep the world direction in step so bumps, the spatial fallback and rider input agree
+        double horizLen = Math.sqrt(cursor.tx * cursor.tx + cursor.tz * cursor.tz);
+        if (velocity > MinecartConfig.getMinSpeed() && horizLen > 0.01) {
+            physics.setWorldDirection(cursor.tx / horizLen, cursor.tz / horizLen);
+
+            float targetYaw = (float) Math.atan2(cursor.tx, cursor.tz);
+            rotation.setYaw(targetYaw);
+            rotation.setPitch((float) Math.asin(Math.max(-1, Math.min(1, -cursor.ty))));
+            physics.setFacingYaw(targetYaw);
+        } else if (velocity <= MinecartConfig.getMinSpeed()) {
+            physics.clearWorldDirection();
+        }
+
+        setCartPosition(transform, cursor.x, cursor.y, cursor.z);
+        if (isMounted) {
+            MountMovementPacketFilter.updatePhysicsState(entityId, cursor.x, cursor.y, cursor.z,
+                rotation.getYaw(), rotation.getPitch(), 0f);
+            CustomMinecartRidingSystem.updateCartPosition(entityId, cursor.x, cursor.y, cursor.z);
+        }
 
         if (shouldLog) {
-            LOGGER.atInfo().log("[MinecartPhysics] Cart %d: vel=%.2f, pos=(%.2f,%.2f,%.2f), railDir=(%.2f,%.2f,%.2f), block=(%d,%d,%d), slope=%b, steps=%d, mounted=%b",
-                entityId, velocity, newX, newY, newZ, finalSnap.dirX, finalSnap.dirY, finalSnap.dirZ,
-                finalSnap.blockX, finalSnap.blockY, finalSnap.blockZ, finalSnap.isSlope, numSteps, isMounted);
+            CartLog.log(CartLog.Category.PHYSICS, CartLog.Level.DEBUG, "[MinecartPhysics] Cart %d (arc): vel=%.2f, seg=%d, s=%.2f/%.2f, dir=%d, pos=(%.2f,%.2f,%.2f), mounted=%b",
+                entityId, velocity, cursor.getSegmentId(), cursor.s, cursor.getLength(), cursor.direction,
+                cursor.x, cursor.y, cursor.z, isMounted);
+        }
+    }
+
+    /**
+     * Read phase of parallel mode: capture a riderless cart's step and queue it with
+     * ParallelCartIntegrator, which integrates and commits the whole batch later.
+     * @return False if the cart isn't on a segment, so the spatial physics should run instead
+     */
+    private static boolean queueArcStep(CartPhysicsComponent physics, Ref<EntityStore> cartRef, int entityId,
+                                        World world, RailWorldView rails, Store<EntityStore> store,
+                                        TransformComponent transform, float dt) {
+        TrackCursor cursor = attachCursor(physics, rails, transform);
+        if (cursor == null) {
+            return false;
+        }
+
+        ArcLengthStep step = physics.arcStep;
+        if (step == null) {
+            step = new ArcLengthStep();
+            physics.arcStep = step;
         }
+        captureArcStep(step, physics, cartRef, entityId, false, false, false, 0, 1, dt);
+        step.original = cursor;
+        step.cursor = cursor.copy();
+        ParallelCartIntegrator.submit(world, store, step);
+        return true;
     }
 
-    private RailSnap findBestRailSnapWithDirection(World world, Vector3d position, float prefDirX, float prefDirZ) {
-        int blockX = (int) Math.floor(position.x);
-        int blockY = (int) Math.floor(position.y);
-        int blockZ = (int) Math.floor(position.z);
+    /**
+     * Snap to the cell the current rail leads into: the same cell, or the neighbour behind
+     * the edge the step crossed if the rail connects through it - at the same height, one
+     * up or one down (slopes). On connected track this is the rail the full search would
+     * pick, for one to three probes instead of up to 27.
+     *
+     * @param from The snap the cart is on before the step
+     * @param out Receives the snap (must not be TickScratch.probeSnap)
+     * @return False if the prediction missed (out is then undefined) - use
+     *         findBestRailSnapWithDirection
+     */
+    private boolean findPredictedRailSnap(TickScratch scratch, RailWorldView rails, RailSnap from, double posX, double posY, double posZ,
+                                          float prefDirX, float prefDirZ, RailSnap out) {
+        int blockX = (int) Math.floor(posX);
+        int blockZ = (int) Math.floor(posZ);
+        int dx = blockX - from.blockX;
+        int dz = blockZ - from.blockZ;
+        if (dx != 0 || dz != 0) {
+            // Diagonal moves (cutting a corner) go through the full search
+            if (Math.abs(dx) + Math.abs(dz) != 1) return false;
+            int edge = dx > 0 ? EDGE_EAST : dx < 0 ? EDGE_WEST : dz > 0 ? EDGE_SOUTH : EDGE_NORTH;
+            if (!leadsThrough(from, edge)) return false;
+        }
+
+        double prefLen = Math.sqrt(prefDirX * prefDirX + prefDirZ * prefDirZ);
+        double prefNormX = prefLen > 0.01 ? prefDirX / prefLen : 0;
+        double prefNormZ = prefLen > 0.01 ? prefDirZ / prefLen : 0;
 
-        RailSnap bestSnap = null;
+        RailSnap snap = scratch.probeSnap;
+        for (int i = 0; i < 3; i++) {
+            // Same height first, then one up, then one down
+            int y = from.blockY + (i == 0 ? 0 : (i == 1 ? 1 : -1));
+            if (snapToRailAt(scratch, rails, posX, posY, posZ, blockX, y, blockZ, prefNormX, prefNormZ, snap)
+                    && snap.distanceSq <= PREDICTED_SNAP_MAX_DIST_SQ) {
+                out.copyFrom(snap);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether the rail of a snap continues through an edge. Slopes report no connected
+     * edges, so theirs come from the slope's direction.
+     */
+    private static boolean leadsThrough(RailSnap snap, int edge) {
+        if (snap.isSlope) {
+            boolean alongX = Math.abs(snap.dirX) > Math.abs(snap.dirZ);
+            return alongX == (edge == EDGE_EAST || edge == EDGE_WEST);
+        }
+        return snap.connectedEdges[edge];
+    }
+
+    /**
+     * Find the rail the cart should snap to near a position.
+     *
+     * @param out Receives the best snap (must not be TickScratch.probeSnap)
+     * @return False if there is no rail nearby (out is then undefined)
+     */
+    boolean findBestRailSnapWithDirection(RailWorldView rails, double posX, double posY, double posZ, float prefDirX, float prefDirZ, RailSnap out) {
+        return findBestRailSnapWithDirection(SCRATCH.get(), rails, posX, posY, posZ, prefDirX, prefDirZ, true, out);
+    }
+
+    /**
+     * Find the rail the cart should snap to near a position.
+     *
+     * @param allowExtendedSearch Whether to search 5x4x5 blocks if no rail is next to the position
+     * @param out Receives the best snap (must not be TickScratch.probeSnap)
+     * @return False if there is no rail nearby (out is then undefined)
+     */
+    private boolean findBestRailSnapWithDirection(TickScratch scratch, RailWorldView rails, double posX, double posY, double posZ,
+                                                  float prefDirX, float prefDirZ, boolean allowExtendedSearch, RailSnap out) {
+        int blockX = (int) Math.floor(posX);
+        int blockY = (int) Math.floor(posY);
+        int blockZ = (int) Math.floor(posZ);
+
+        // Another search from this block already found no rail in reach this tick
+        RailSearchMisses misses = RailSearchMisses.forView(rails);
+        if (misses.contains(blockX, blockY, blockZ)) {
+            return false;
+        }
+        scratch.probeFoundCell = false;
+
+        boolean found = false;
         double bestScore = Double.MAX_VALUE;
+        RailSnap snap = scratch.probeSnap;
 
         // Normalize preferred direction
         double prefLen = Math.sqrt(prefDirX * prefDirX + prefDirZ * prefDirZ);
@@ -1265,11 +1715,11 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
 
         // Track the current block's rail - but don't auto-return, let it compete in scoring
         // This allows proper corner entry checking
-        RailSnap currentBlockSnap = snapToRailAt(world, position, blockX, blockY, blockZ, prefNormX, prefNormZ);
-        if (currentBlockSnap != null && currentBlockSnap.distanceSq <= 0.25) {
+        if (snapToRailAt(scratch, rails, posX, posY, posZ, blockX, blockY, blockZ, prefNormX, prefNormZ, out)
+                && out.distanceSq <= 0.25) {
             // Very close to current block's rail (within 0.5 blocks) - likely still on it
             // Only return early if distance is very small
-            return currentBlockSnap;
+            return true;
         }
 
         // First search: Only immediately adjacent blocks (distance 1)
@@ -1277,14 +1727,14 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
         for (int dy = 1; dy >= -1; dy--) {
             for (int dx = -1; dx <= 1; dx++) {
                 for (int dz = -1; dz <= 1; dz++) {
-                    RailSnap snap = snapToRailAt(world, position, blockX + dx, blockY + dy, blockZ + dz, prefNormX, prefNormZ);
-                    if (snap != null && snap.distanceSq <= 1.5) {
+                    if (snapToRailAt(scratch, rails, posX, posY, posZ, blockX + dx, blockY + dy, blockZ + dz, prefNormX, prefNormZ, snap)
+                            && snap.distanceSq <= 1.5) {
                         double score = snap.distanceSq;
 
                         if (hasPreferredDir) {
                             // Penalize rails that are behind the cart
-                            double toBlockX = (snap.blockX + 0.5) - position.x;
-                            double toBlockZ = (snap.blockZ + 0.5) - position.z;
+                            double toBlockX = (snap.blockX + 0.5) - posX;
+                            double toBlockZ = (snap.blockZ + 0.5) - posZ;
                             double toBlockLen = Math.sqrt(toBlockX * toBlockX + toBlockZ * toBlockZ);
 
                             if (toBlockLen > 0.3) {
@@ -1314,7 +1764,8 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
 
                         if (score < bestScore) {
                             bestScore = score;
-                            bestSnap = snap;
+                            out.copyFrom(snap);
+                            found = true;
                         }
                     }
                 }
@@ -1322,27 +1773,35 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
         }
 
         // If found an adjacent rail, use it - don't search farther
-        if (bestSnap != null) {
-            return bestSnap;
+        if (found) {
+            return true;
+        }
+        if (!allowExtendedSearch) {
+            return false;
         }
 
         // Second search: Extended radius only if no adjacent rail found
+        CartEvents.ExtendedSnapSearch event = null;
+        if (CartEvents.EXTENDED_SNAP_SEARCH.isEnabled()) {
+            event = new CartEvents.ExtendedSnapSearch();
+            event.begin();
+        }
         for (int dy = 1; dy >= -2; dy--) {
             for (int dx = -2; dx <= 2; dx++) {
                 for (int dz = -2; dz <= 2; dz++) {
                     // Skip already-searched blocks
                     if (Math.abs(dx) <= 1 && Math.abs(dy) <= 1 && Math.abs(dz) <= 1) continue;
 
-                    RailSnap snap = snapToRailAt(world, position, blockX + dx, blockY + dy, blockZ + dz, prefNormX, prefNormZ);
-                    if (snap != null && snap.distanceSq <= 2.0) {
+                    if (snapToRailAt(scratch, rails, posX, posY, posZ, blockX + dx, blockY + dy, blockZ + dz, prefNormX, prefNormZ, snap)
+                            && snap.distanceSq <= 2.0) {
                         double score = snap.distanceSq;
 
                         // Heavy penalty for distant rails - prefer to stop rather than teleport
                         score += 5.0;
 
                         if (hasPreferredDir) {
-                            double toBlockX = (snap.blockX + 0.5) - position.x;
-                            double toBlockZ = (snap.blockZ + 0.5) - position.z;
+                            double toBlockX = (snap.blockX + 0.5) - posX;
+                            double toBlockZ = (snap.blockZ + 0.5) - posZ;
                             double toBlockLen = Math.sqrt(toBlockX * toBlockX + toBlockZ * toBlockZ);
 
                             if (toBlockLen > 0.3) {
@@ -1358,249 +1817,78 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
 
                         if (score < bestScore) {
                             bestScore = score;
-                            bestSnap = snap;
+                            out.copyFrom(snap);
+                            found = true;
                         }
                     }
                 }
             }
         }
 
-        return bestSnap;
+        if (event != null && event.shouldCommit()) {
+            event.blockX = blockX;
+            event.blockY = blockY;
+            event.blockZ = blockZ;
+            event.found = found;
+            event.commit();
+        }
+        // No rail anywhere in the box: the same for every cart searching from this block
+        if (!scratch.probeFoundCell) {
+            misses.add(blockX, blockY, blockZ);
+        }
+        return found;
     }
 
-    private RailSnap snapToRailAt(World world, Vector3d entityPos, int blockX, int blockY, int blockZ, double incomingDirX, double incomingDirZ) {
-        try {
-            BlockType blockType = world.getBlockType(blockX, blockY, blockZ);
-            if (blockType == null) return null;
-
-            long chunkIndex = ChunkUtil.indexChunkFromBlock(blockX, blockZ);
-            WorldChunk chunk = world.getChunkIfInMemory(chunkIndex);
-            if (chunk == null) return null;
-
-            int localX = blockX & 15;
-            int localZ = blockZ & 15;
-
-            // Get block rotation using World.getBlockRotationIndex (the proper API)
-            int rotationIndex = world.getBlockRotationIndex(blockX, blockY, blockZ);
-
-            // Extract block ID from toString (format: "BlockType{id=*Rail_State_Definitions_T, ...}")
-            // Block ID tells us the rail type: "_T" = T-junction, "_Corner" = corner, "Accel" = accelerator, else straight
-            String blockTypeName = blockType.toString();
-            String blockId = null;
-            boolean isTByName = false;
-            boolean isAccelByName = false;
-            boolean isSwitchByName = false;
-            boolean isSwitchLeft = false;
-            if (blockTypeName != null) {
-                int idStart = blockTypeName.indexOf("id=");
-                if (idStart >= 0) {
-                    idStart += 3; // Skip "id="
-                    int idEnd = blockTypeName.indexOf(",", idStart);
-                    if (idEnd < 0) idEnd = blockTypeName.indexOf("}", idStart);
-                    if (idEnd > idStart) {
-                        blockId = blockTypeName.substring(idStart, idEnd).trim();
-                        isTByName = blockId.endsWith("_T");
-                        isAccelByName = blockId.contains("Accel") || blockId.contains("_Rail_Accel");
-                        isSwitchByName = blockId.contains("Rail_Switch") || blockId.contains("_Switch");
-                        isSwitchLeft = blockId.contains("_Left") || blockId.contains("State_Definitions_Left");
-                    }
-                }
-            }
-
-            // Switch blocks are detected but handled through their rail points defined in JSON
-            // The rail points in the block definition guide the cart along the correct path
-
-            // For multi-block footprint blocks (like 2x2 switch), find the origin block
-            // The origin is the minimum X and Z that has the SAME block type (exact match)
-            // This prevents adjacent switches from being confused with each other
-            int originX = blockX;
-            int originZ = blockZ;
-            if (isSwitchByName) {
-                // Get the exact block type string for comparison
-                String currentBlockType = blockTypeName;
-
-                // Check -X direction for SAME block type (not just any switch)
-                BlockType checkXMinus = world.getBlockType(blockX - 1, blockY, blockZ);
-                if (checkXMinus != null) {
-                    String xMinusType = checkXMinus.toString();
-                    // Must be exact same switch type (e.g., both "Rail_Switch_Left" or both "Rail_Switch_Right")
-                    if (xMinusType != null && xMinusType.equals(currentBlockType)) {
-                        originX = blockX - 1;
-                    }
-                }
-                // Check -Z direction for SAME block type
-                BlockType checkZMinus = world.getBlockType(blockX, blockY, blockZ - 1);
-                if (checkZMinus != null) {
-                    String zMinusType = checkZMinus.toString();
-                    if (zMinusType != null && zMinusType.equals(currentBlockType)) {
-                        originZ = blockZ - 1;
-                    }
-                }
-                // Also check diagonal -X-Z if we found either (must also match)
-                if (originX != blockX || originZ != blockZ) {
-                    BlockType checkDiag = world.getBlockType(originX, blockY, originZ);
-                    if (checkDiag != null) {
-                        String diagType = checkDiag.toString();
-                        if (diagType == null || !diagType.equals(currentBlockType)) {
-                            // Diagonal doesn't match - reset to current block as origin
-                            originX = blockX;
-                            originZ = blockZ;
-                        }
-                    }
-                }
-//                LOGGER.atInfo().log("[SwitchDebug] Block at (%d,%d,%d), origin at (%d,%d,%d): id=%s, isLeft=%s, rotation=%d",
-//                    blockX, blockY, blockZ, originX, blockY, originZ, blockId, isSwitchLeft, rotationIndex);
-            }
-
-            // Rotation correction for 2x2 footprint switches.
-            // The engine rotates rail points around (0.5, 0.5) (single-block center),
-            // but 2x2 footprints need rotation around (1.0, 1.0) (footprint center).
-            // This uniform offset compensates for the difference.
-            double switchRotCorrX = 0, switchRotCorrZ = 0;
-            if (isSwitchByName && rotationIndex > 0) {
-                switch (rotationIndex % 4) {
-                    case 1: switchRotCorrZ = 1.0; break;
-                    case 2: switchRotCorrX = 1.0; switchRotCorrZ = 1.0; break;
-                    case 3: switchRotCorrX = 1.0; break;
-                }
-            }
-
-            RailConfig railConfig = blockType.getRailConfig(rotationIndex);
-            if (railConfig == null || railConfig.points == null || railConfig.points.length < 2) {
-                for (int rot = 0; rot < 4; rot++) {
-                    railConfig = blockType.getRailConfig(rot);
-                    if (railConfig != null && railConfig.points != null && railConfig.points.length >= 2) {
-                        break;
-                    }
-                }
-            }
-
-            if (railConfig == null || railConfig.points == null || railConfig.points.length < 2) {
-//                if (isSwitchByName) {
-//                    LOGGER.atWarning().log("[SwitchDebug] No valid rail config for switch at (%d,%d,%d)", blockX, blockY, blockZ);
-//                }
-                return null;
-            }
+    /**
+     * Snap a position onto the rail in one block.
+     *
+     * @param out Receives the snap
+     * @return False if there is no rail to snap to (out is left untouched)
+     */
+    boolean snapToRailAt(RailWorldView rails, double entityX, double entityY, double entityZ, int blockX, int blockY, int blockZ, double incomingDirX, double incomingDirZ, RailSnap out) {
+        return snapToRailAt(SCRATCH.get(), rails, entityX, entityY, entityZ, blockX, blockY, blockZ, incomingDirX, incomingDirZ, out);
+    }
 
-            RailPoint[] points = railConfig.points;
-
-            // Debug: log rail points for switch blocks
-//            if (isSwitchByName && points.length > 0) {
-//                StringBuilder sb = new StringBuilder();
-//                sb.append("[SwitchDebug] Rail points (").append(points.length).append("): ");
-//                for (int i = 0; i < points.length; i++) {
-//                    RailPoint p = points[i];
-//                    sb.append(String.format("(%.2f,%.2f,%.2f)", p.point.x, p.point.y, p.point.z));
-//                    if (i < points.length - 1) sb.append(" -> ");
-//                }
-//                LOGGER.atInfo().log(sb.toString());
-//            }
-            float rawDy = points[points.length - 1].point.y - points[0].point.y;
-            boolean isSlope = Math.abs(rawDy) > 0.1f;
+    private boolean snapToRailAt(TickScratch scratch, RailWorldView rails, double entityX, double entityY, double entityZ,
+                                 int blockX, int blockY, int blockZ, double incomingDirX, double incomingDirZ, RailSnap out) {
+        scratch.snapProbes++;
+        try {
+            // Everything that only depends on the blocks (switch origin, effective rotation,
+            // slope direction, world-space segments, connected edges) is compiled once per cell
+            RailCell cell = RailCellCache.forView(rails).get(blockX, blockY, blockZ);
+            if (cell == null) return false;
+            scratch.probeFoundCell = true;
 
             float dirX, dirY, dirZ;
             double snapX, snapY, snapZ;
 
-            // Compute effective rotation for flat rails BEFORE snapping
-            // This is needed both for snapping AND for edge detection
-            int effectiveRotation = 0;
-            boolean looksLikeCorner = false;
-            boolean isCornerByName = blockId != null && blockId.contains("_Corner");
-
-            if (!isSlope) {
-                looksLikeCorner = Math.abs(points[0].point.x - points[points.length-1].point.x) > 0.1
-                               && Math.abs(points[0].point.z - points[points.length-1].point.z) > 0.1;
-
-                if (looksLikeCorner || isCornerByName || isSwitchByName) {
-                    // Corners: raw points from getRailConfig are ALREADY oriented correctly
-                    // for the visual appearance, regardless of rotationIndex. No rotation needed.
-                    effectiveRotation = 0;
-                } else {
-                    // Straight flat rails: Compare raw point orientation with neighbor expectations
-                    // getRailConfig may return differently oriented points based on rotationIndex
-                    // (e.g., rot=0 gives Z-aligned, rot=1 gives X-aligned)
-                    // Only rotate if raw orientation doesn't match what neighbors expect
-
-                    // Determine raw point orientation
-                    float rawDx = Math.abs(points[points.length-1].point.x - points[0].point.x);
-                    float rawDz = Math.abs(points[points.length-1].point.z - points[0].point.z);
-                    boolean rawIsXAligned = rawDx > rawDz;
-
-                    // Determine desired orientation from neighbors
-                    int neighborDir = detectFlatRailDirectionFromNeighbors(world, blockX, blockY, blockZ);
-                    boolean desiredIsXAligned = (neighborDir == 1);
-
-                    // Only rotate if raw and desired don't match
-                    if (rawIsXAligned != desiredIsXAligned) {
-                        effectiveRotation = 1; // 90° rotation to fix alignment
-                    } else {
-                        effectiveRotation = 0; // No rotation needed, already correct
-                    }
-                }
-            }
+            if (cell.isSlope) {
+                dirX = cell.slopeDirX;
+                dirY = cell.slopeDirY;
+                dirZ = cell.slopeDirZ;
 
-            if (isSlope) {
-                // For slopes: detect direction from neighboring blocks since getRailConfig
-                // returns unrotated points regardless of actual block rotation
-                int downhillDir = detectSlopeDirectionFromNeighbors(world, blockX, blockY, blockZ);
-
-                // Direction vectors for downhill movement (normalized, 45° slope)
-                // 0=+Z, 1=+X, 2=-Z, 3=-X
-                switch (downhillDir) {
-                    case 0: dirX = 0; dirY = -0.707f; dirZ = 0.707f; break;
-                    case 1: dirX = 0.707f; dirY = -0.707f; dirZ = 0; break;
-                    case 2: dirX = 0; dirY = -0.707f; dirZ = -0.707f; break;
-                    case 3: dirX = -0.707f; dirY = -0.707f; dirZ = 0; break;
-                    default: dirX = 0; dirY = -0.707f; dirZ = 0.707f; break;
-                }
-
-                // Compute snap position: slope runs from high point to low point
-                // Using actual rail Y offsets (1.1 for high, 0.1 for low based on rail data)
-                double highX, highY, highZ, lowX, lowY, lowZ;
-                switch (downhillDir) {
-                    case 0: // +Z downhill
-                        highX = blockX + 0.5; highY = blockY + 1.1; highZ = blockZ + 0.0;
-                        lowX = blockX + 0.5; lowY = blockY + 0.1; lowZ = blockZ + 1.0;
-                        break;
-                    case 1: // +X downhill
-                        highX = blockX + 0.0; highY = blockY + 1.1; highZ = blockZ + 0.5;
-                        lowX = blockX + 1.0; lowY = blockY + 0.1; lowZ = blockZ + 0.5;
-                        break;
-                    case 2: // -Z downhill
-                        highX = blockX + 0.5; highY = blockY + 1.1; highZ = blockZ + 1.0;
-                        lowX = blockX + 0.5; lowY = blockY + 0.1; lowZ = blockZ + 0.0;
-                        break;
-                    case 3: // -X downhill
-                        highX = blockX + 1.0; highY = blockY + 1.1; highZ = blockZ + 0.5;
-                        lowX = blockX + 0.0; lowY = blockY + 0.1; lowZ = blockZ + 0.5;
-                        break;
-                    default:
-                        highX = blockX + 0.5; highY = blockY + 1.1; highZ = blockZ + 0.0;
-                        lowX = blockX + 0.5; lowY = blockY + 0.1; lowZ = blockZ + 1.0;
-                        break;
-                }
-
-                // Project entity onto slope segment
-                double segX = lowX - highX;
-                double segY = lowY - highY;
-                double segZ = lowZ - highZ;
+                // Project entity onto slope segment (high point to low point)
+                double highX = cell.highX, highY = cell.highY, highZ = cell.highZ;
+                double segX = cell.lowX - highX;
+                double segY = cell.lowY - highY;
+                double segZ = cell.lowZ - highZ;
                 double segLenSq = segX * segX + segY * segY + segZ * segZ;
 
                 double t = 0.5;
                 if (segLenSq > 0.0001) {
-                    t = ((entityPos.x - highX) * segX + (entityPos.y - highY) * segY + (entityPos.z - highZ) * segZ) / segLenSq;
+                    t = ((entityX - highX) * segX + (entityY - highY) * segY + (entityZ - highZ) * segZ) / segLenSq;
                 }
 
                 // If cart is past the ends of the slope, don't snap to it
                 if (t < -0.15 || t > 1.15) {
-                    return null; // Cart has moved past this slope
+                    return false; // Cart has moved past this slope
                 }
 
                 // Also check if cart's Y is significantly below the slope's low point
                 // This prevents snapping back to a slope the cart has exited
-                double minSlopeY = Math.min(highY, lowY);
-                if (entityPos.y < minSlopeY - 0.3) {
-                    return null; // Cart is below the slope
+                double minSlopeY = Math.min(highY, cell.lowY);
+                if (entityY < minSlopeY - 0.3) {
+                    return false; // Cart is below the slope
                 }
 
                 t = Math.max(0, Math.min(1, t));
@@ -1610,190 +1898,137 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
 
             } else {
                 // For flat rails (including corners): find closest segment and use its direction
-                // getRailConfig returns unrotated points, so we must rotate them based on rotationIndex
-                // rotationIndex: 0=no rotation, 1=90° CW, 2=180°, 3=270° CW
-                // effectiveRotation and looksLikeCorner already computed above
+                // Segments are already rotated and offset into world space
 
                 double bestEffectiveDistSq = Double.MAX_VALUE;
-                double bestActualDistSq = Double.MAX_VALUE;
-                snapX = entityPos.x;
-                snapY = entityPos.y;
-                snapZ = entityPos.z;
+                snapX = entityX;
+                snapY = entityY;
+                snapZ = entityZ;
                 dirX = 1;
                 dirY = 0;
                 dirZ = 0;
                 boolean foundValidSnap = false;
 
-                // Find closest point on rail segments
-                // Apply rotation transform to each point based on effectiveRotation
                 // For T-junctions and corners, prefer segments aligned with incoming direction
                 boolean hasIncomingDir = Math.abs(incomingDirX) > 0.01 || Math.abs(incomingDirZ) > 0.01;
-
-                // For multi-block footprints, use origin position; otherwise use blockX/Z
-                int baseX = isSwitchByName ? originX : blockX;
-                int baseZ = isSwitchByName ? originZ : blockZ;
-
-                // For corners, generate smooth curve points instead of using raw points
-                double[] smoothPoints = null;
-                int numSmoothPoints = 0;
-                if (looksLikeCorner || isCornerByName) {
-                    smoothPoints = generateSmoothCurvePoints(points, CURVE_SMOOTHING_POINTS);
-                    numSmoothPoints = smoothPoints.length / 3;
+                boolean isSwitch = cell.isSwitch;
+
+                // Skip if cart is past this segment (allow small tolerance)
+                // For switches, use larger tolerance because rotation can offset entry points
+                double stMinTolerance = isSwitch ? -3.0 : -0.2;
+                double stMaxTolerance = isSwitch ? 3.0 : 1.2;
+
+                // Corners: the curve table's grid says which segment is nearest, so only
+                // that one and its neighbours are tested (all of them if none of those fits well)
+                int firstSeg = 0;
+                int endSeg = cell.segmentCount;
+                if (cell.corner != null) {
+                    int nearest = cell.corner.nearestSegment(entityX - blockX, entityZ - blockZ);
+                    firstSeg = Math.max(0, nearest - 1);
+                    endSeg = Math.min(cell.segmentCount, nearest + 2);
                 }
 
-                // Use smooth points for corners, raw points for everything else
-                int segmentCount = (smoothPoints != null && numSmoothPoints > 1) ? (numSmoothPoints - 1) : (points.length - 1);
-
-                for (int i = 0; i < segmentCount; i++) {
-                    double[] rot1, rot2;
-                    double py1, py2;
-
-                    if (smoothPoints != null && numSmoothPoints > 1) {
-                        // Use smooth curve points for corners
-                        rot1 = rotatePoint(smoothPoints[i * 3], smoothPoints[i * 3 + 2], effectiveRotation);
-                        rot2 = rotatePoint(smoothPoints[(i + 1) * 3], smoothPoints[(i + 1) * 3 + 2], effectiveRotation);
-                        py1 = smoothPoints[i * 3 + 1];
-                        py2 = smoothPoints[(i + 1) * 3 + 1];
-                    } else {
-                        // Use raw points for non-corners
-                        rot1 = rotatePoint(points[i].point.x, points[i].point.z, effectiveRotation);
-                        rot2 = rotatePoint(points[i + 1].point.x, points[i + 1].point.z, effectiveRotation);
-                        py1 = points[i].point.y;
-                        py2 = points[i + 1].point.y;
-                    }
-
-                    double px1 = baseX + rot1[0] + switchRotCorrX;
-                    double wy1 = blockY + py1;  // World Y coordinate
-                    double pz1 = baseZ + rot1[1] + switchRotCorrZ;
-                    double px2 = baseX + rot2[0] + switchRotCorrX;
-                    double wy2 = blockY + py2;  // World Y coordinate
-                    double pz2 = baseZ + rot2[1] + switchRotCorrZ;
-
-                    double sX = px2 - px1;
-                    double sY = wy2 - wy1;
-                    double sZ = pz2 - pz1;
-                    double sLenSq = sX * sX + sY * sY + sZ * sZ;
-
-                    if (sLenSq < 0.0001) continue;
-
-                    // Debug: log world positions for switch segments
-                    if (isSwitchByName && i == 0) {
-//                        LOGGER.atInfo().log("[SwitchDebug] Segment %d world: (%.2f,%.2f) -> (%.2f,%.2f), base=(%d,%d), rot=%d, entity=(%.2f,%.2f)",
-//                            i, px1, pz1, px2, pz2, baseX, baseZ, effectiveRotation, entityPos.x, entityPos.z);
-                    }
-
-                    double st = ((entityPos.x - px1) * sX + (entityPos.y - wy1) * sY + (entityPos.z - pz1) * sZ) / sLenSq;
-
-                    // Skip if cart is past this segment (allow small tolerance)
-                    // For switches, use larger tolerance because rotation can offset entry points
-                    double stMinTolerance = isSwitchByName ? -3.0 : -0.2;
-                    double stMaxTolerance = isSwitchByName ? 3.0 : 1.2;
-                    if (st < stMinTolerance || st > stMaxTolerance) continue;
-
-                    st = Math.max(0, Math.min(1, st));
-
-                    double cX = px1 + st * sX;
-                    double cY = wy1 + st * sY;
-                    double cZ = pz1 + st * sZ;
-
-                    double ddx = cX - entityPos.x;
-                    double ddy = cY - entityPos.y;
-                    double ddz = cZ - entityPos.z;
-                    double distSq = ddx * ddx + ddy * ddy + ddz * ddz;
-
-                    // For T-junctions, SKIP perpendicular segments entirely (not just penalize)
-                    // This ensures the cart follows the intended path through the T-junction
-                    if (isTByName && hasIncomingDir) {
-                        double segLen = Math.sqrt(sX * sX + sZ * sZ);
-                        if (segLen > 0.01) {
-                            double segNormX = sX / segLen;
-                            double segNormZ = sZ / segLen;
-                            double alignDot = Math.abs(incomingDirX * segNormX + incomingDirZ * segNormZ);
-                            // Skip perpendicular segments entirely for T-junctions
-                            if (alignDot < 0.3) {
-                                continue;
-                            }
+                double[] segs = cell.segments;
+                while (true) {
+                    for (int i = firstSeg; i < endSeg; i++) {
+                        int o = i * RailCell.SEG_STRIDE;
+                        double px1 = segs[o + RailCell.SEG_X];
+                        double wy1 = segs[o + RailCell.SEG_Y];
+                        double pz1 = segs[o + RailCell.SEG_Z];
+                        double sX = segs[o + RailCell.SEG_DX];
+                        double sY = segs[o + RailCell.SEG_DY];
+                        double sZ = segs[o + RailCell.SEG_DZ];
+                        double sLenSq = segs[o + RailCell.SEG_LEN_SQ];
+
+                        double st = ((entityX - px1) * sX + (entityY - wy1) * sY + (entityZ - pz1) * sZ) / sLenSq;
+                        if (st < stMinTolerance || st > stMaxTolerance) continue;
+
+                        st = Math.max(0, Math.min(1, st));
+
+                        double cX = px1 + st * sX;
+                        double cY = wy1 + st * sY;
+                        double cZ = pz1 + st * sZ;
+
+                        double ddx = cX - entityX;
+                        double ddy = cY - entityY;
+                        double ddz = cZ - entityZ;
+                        double distSq = ddx * ddx + ddy * ddy + ddz * ddz;
+
+                        boolean hasHorizontal = segs[o + RailCell.SEG_HLEN] > 0.01;
+                        double alignDot = hasHorizontal
+                            ? Math.abs(incomingDirX * segs[o + RailCell.SEG_HNX] + incomingDirZ * segs[o + RailCell.SEG_HNZ])
+                            : 1.0;
+
+                        // For T-junctions, SKIP perpendicular segments entirely (not just penalize)
+                        // This ensures the cart follows the intended path through the T-junction
+                        if (cell.isTJunction && hasIncomingDir && hasHorizontal && alignDot < 0.3) {
+                            continue;
                         }
-                    }
 
-                    // For corners, add penalty for perpendicular segments (but don't skip, as corners need more flexibility)
-                    // Skip this penalty for switch blocks - they have multi-segment curves that need full flexibility
-                    double effectiveDistSq = distSq;
-                    if (looksLikeCorner && hasIncomingDir && !isSwitchByName) {
-                        double segLen = Math.sqrt(sX * sX + sZ * sZ);
-                        if (segLen > 0.01) {
-                            double segNormX = sX / segLen;
-                            double segNormZ = sZ / segLen;
-                            double alignDot = Math.abs(incomingDirX * segNormX + incomingDirZ * segNormZ);
-                            if (alignDot < 0.5) {
-                                effectiveDistSq += 5.0; // Large penalty for perpendicular/misaligned
-                            }
+                        // For corners, add penalty for perpendicular segments (but don't skip, as corners need more flexibility)
+                        // Skip this penalty for switch blocks - they have multi-segment curves that need full flexibility
+                        double effectiveDistSq = distSq;
+                        if (cell.looksLikeCorner && hasIncomingDir && !isSwitch && hasHorizontal && alignDot < 0.5) {
+                            effectiveDistSq += MISALIGNED_PENALTY; // Large penalty for perpendicular/misaligned
                         }
-                    }
 
-                    if (effectiveDistSq < bestEffectiveDistSq) {
-                        bestEffectiveDistSq = effectiveDistSq;
-                        bestActualDistSq = distSq; // Store the actual geometric distance
-                        snapX = cX;
-                        snapY = cY;
-                        snapZ = cZ;
-                        foundValidSnap = true;
-
-                        // Calculate direction from THIS segment (important for corners!)
-                        double segLen = Math.sqrt(sLenSq);
-                        float segDirX = (float) (sX / segLen);
-                        float segDirY = (float) (sY / segLen);
-                        float segDirZ = (float) (sZ / segLen);
-
-                        // For switch blocks: check if cart's incoming direction is opposite to segment
-                        // If so, flip the direction to match cart's movement
-                        if (isSwitchByName && hasIncomingDir) {
-                            double dot = incomingDirX * segDirX + incomingDirZ * segDirZ;
-                            if (dot < 0) {
-                                // Cart is moving opposite to segment direction - flip it
-                                segDirX = -segDirX;
-                                segDirY = -segDirY;
-                                segDirZ = -segDirZ;
-                            }
-                        }
+                        if (effectiveDistSq < bestEffectiveDistSq) {
+                            bestEffectiveDistSq = effectiveDistSq;
+                            snapX = cX;
+                            snapY = cY;
+                            snapZ = cZ;
+                            foundValidSnap = true;
 
-                        dirX = segDirX;
-                        dirY = segDirY;
-                        dirZ = segDirZ;
+                            // Calculate direction from THIS segment (important for corners!)
+                            double segLen = segs[o + RailCell.SEG_LEN];
+                            float segDirX = (float) (sX / segLen);
+                            float segDirY = (float) (sY / segLen);
+                            float segDirZ = (float) (sZ / segLen);
+
+                            // For switch blocks: check if cart's incoming direction is opposite to segment
+                            // If so, flip the direction to match cart's movement
+                            if (isSwitch && hasIncomingDir) {
+                                double dot = incomingDirX * segDirX + incomingDirZ * segDirZ;
+                                if (dot < 0) {
+                                    segDirX = -segDirX;
+                                    segDirY = -segDirY;
+                                    segDirZ = -segDirZ;
+                                }
+                            }
 
-                        if (isSwitchByName) {
-//                            LOGGER.atInfo().log("[SwitchDebug] Segment %d selected: snap=(%.2f,%.2f,%.2f), dir=(%.2f,%.2f,%.2f), dist=%.3f, st=%.2f",
-//                                i, snapX, snapY, snapZ, dirX, dirY, dirZ, Math.sqrt(distSq), st);
+                            dirX = segDirX;
+                            dirY = segDirY;
+                            dirZ = segDirZ;
                         }
                     }
-                }
-
-                if (isSwitchByName && !foundValidSnap) {
-//                    LOGGER.atWarning().log("[SwitchDebug] NO VALID SNAP at entity pos (%.2f,%.2f,%.2f), incoming dir (%.2f,%.2f)",
-//                        entityPos.x, entityPos.y, entityPos.z, incomingDirX, incomingDirZ);
+                    // A penalised (misaligned) best may lose to a segment further along
+                    boolean settled = foundValidSnap && bestEffectiveDistSq < MISALIGNED_PENALTY;
+                    if (settled || (firstSeg == 0 && endSeg == cell.segmentCount)) break;
+                    firstSeg = 0;
+                    endSeg = cell.segmentCount;
                 }
 
                 // If no valid snap found on segments, check if we should still snap for T-junctions
                 // T-junctions may only have one segment in getRailConfig (e.g., E-W bar), but cart
                 // may approach from perpendicular direction (N-S). In this case, snap to center.
                 if (!foundValidSnap) {
-                    if (isTByName) {
+                    if (cell.isTJunction) {
                         // For T-junctions with no aligned segment (approaching perpendicular),
                         // DON'T snap to center - keep entity's X/Z position but use rail Y.
                         // Snapping to center would pull the cart backward every tick!
                         double centerX = blockX + 0.5;
                         double centerZ = blockZ + 0.5;
                         double centerY = blockY + 0.1; // Rail height
-                        double toCenterX = centerX - entityPos.x;
-                        double toCenterZ = centerZ - entityPos.z;
+                        double toCenterX = centerX - entityX;
+                        double toCenterZ = centerZ - entityZ;
                         double toCenterDistSq = toCenterX * toCenterX + toCenterZ * toCenterZ;
 
                         // Accept if within ~1 block of center
                         if (toCenterDistSq < 1.5) {
                             // Keep entity's X/Z, only adjust Y to rail height
-                            snapX = entityPos.x;
+                            snapX = entityX;
                             snapY = centerY;
-                            snapZ = entityPos.z;
+                            snapZ = entityZ;
                             // Direction will be determined by edge logic in tick method
                             dirX = (float) incomingDirX;
                             dirY = 0;
@@ -1803,7 +2038,7 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
                     }
 
                     if (!foundValidSnap) {
-                        return null;
+                        return false;
                     }
                 }
 
@@ -1811,375 +2046,56 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
                 // The edge-based logic will determine proper exit direction
             }
 
-            double distDx = snapX - entityPos.x;
-            double distDy = snapY - entityPos.y;
-            double distDz = snapZ - entityPos.z;
+            double distDx = snapX - entityX;
+            double distDy = snapY - entityY;
+            double distDz = snapZ - entityZ;
             double distSq = distDx * distDx + distDy * distDy + distDz * distDz;
 
-            // Detect rail type and connected edges using BLOCK ID and RAIL POINTS
-            // NOT neighbor detection - a neighboring rail doesn't mean connection!
-            boolean cornerFlag = false;
-            boolean tJunctionFlag = false;
-            boolean[] connectedEdges = new boolean[4]; // [WEST, EAST, SOUTH, NORTH]
-
-            if (!isSlope) {
-                // Determine rail type from block ID
-                // isCornerByName already computed above
-
-                if (isTByName) {
-                    // T-JUNCTION: Use rotation-based edges
-                    // Based on in-game verification:
-                    // Rotation 0: stem SOUTH, bar E-W, closed NORTH
-                    // Rotation 1: stem EAST, bar N-S, closed WEST
-                    // Rotation 2: stem NORTH, bar E-W, closed SOUTH
-                    // Rotation 3: stem WEST, bar N-S, closed EAST
-                    tJunctionFlag = true;
-                    switch (rotationIndex) {
-                        case 0:
-                            connectedEdges[EDGE_SOUTH] = true;
-                            connectedEdges[EDGE_EAST] = true;
-                            connectedEdges[EDGE_WEST] = true;
-                            break;
-                        case 1:
-                            connectedEdges[EDGE_EAST] = true;
-                            connectedEdges[EDGE_NORTH] = true;
-                            connectedEdges[EDGE_SOUTH] = true;
-                            break;
-                        case 2:
-                            connectedEdges[EDGE_NORTH] = true;
-                            connectedEdges[EDGE_EAST] = true;
-                            connectedEdges[EDGE_WEST] = true;
-                            break;
-                        case 3:
-                            connectedEdges[EDGE_WEST] = true;
-                            connectedEdges[EDGE_NORTH] = true;
-                            connectedEdges[EDGE_SOUTH] = true;
-                            break;
-                    }
-                } else if (isCornerByName || looksLikeCorner) {
-                    // CORNER: Detected by block ID containing "_Corner" OR by geometry
-                    // (endpoints not aligned on either axis = corner shape)
-                    // Rail points are in block-local coords (0-1), endpoints tell us which edges connect
-                    // Apply effectiveRotation to points if rotationIndex was 0
-                    cornerFlag = true;
-                    RailPoint firstPt = points[0];
-                    RailPoint lastPt = points[points.length - 1];
-
-                    // Apply rotation to get actual edge positions
-                    double[] rotFirst = rotatePoint(firstPt.point.x, firstPt.point.z, effectiveRotation);
-                    double[] rotLast = rotatePoint(lastPt.point.x, lastPt.point.z, effectiveRotation);
-
-                    // Determine which edge each endpoint is at (using rotated coordinates)
-                    if (isSwitchByName) {
-                        // For 2x2 footprint switches, apply rotation correction and scale
-                        // to 0-1 range so getEdgeFromPoint works correctly
-                        float f0x = (float)((rotFirst[0] + switchRotCorrX) / 2.0);
-                        float f0z = (float)((rotFirst[1] + switchRotCorrZ) / 2.0);
-                        float f1x = (float)((rotLast[0] + switchRotCorrX) / 2.0);
-                        float f1z = (float)((rotLast[1] + switchRotCorrZ) / 2.0);
-                        connectedEdges[getEdgeFromPoint(f0x, f0z)] = true;
-                        connectedEdges[getEdgeFromPoint(f1x, f1z)] = true;
-                    } else {
-                        connectedEdges[getEdgeFromPoint((float)rotFirst[0], (float)rotFirst[1])] = true;
-                        connectedEdges[getEdgeFromPoint((float)rotLast[0], (float)rotLast[1])] = true;
-                    }
-                } else {
-                    // STRAIGHT RAIL: Determine edges from rail point endpoints
-                    // A straight rail connects two opposite edges
-                    // IMPORTANT: Apply effectiveRotation to points if rotationIndex was 0!
-                    RailPoint firstPt = points[0];
-                    RailPoint lastPt = points[points.length - 1];
-
-                    // Apply rotation to get actual edge positions
-                    double[] rotFirst = rotatePoint(firstPt.point.x, firstPt.point.z, effectiveRotation);
-                    double[] rotLast = rotatePoint(lastPt.point.x, lastPt.point.z, effectiveRotation);
-
-                    connectedEdges[getEdgeFromPoint((float)rotFirst[0], (float)rotFirst[1])] = true;
-                    connectedEdges[getEdgeFromPoint((float)rotLast[0], (float)rotLast[1])] = true;
-                }
-            }
-
-            return new RailSnap(snapX, snapY, snapZ, dirX, dirY, dirZ, distSq, blockX, blockY, blockZ, isSlope, cornerFlag, tJunctionFlag, isAccelByName, isSwitchByName, connectedEdges);
+            out.set(snapX, snapY, snapZ, dirX, dirY, dirZ, distSq, blockX, blockY, blockZ,
+                cell.isSlope, cell.isCorner, cell.isTJunction && !cell.isSlope, cell.isAccelerator, cell.isSwitch, cell.connectedEdges);
+            return true;
 
         } catch (Exception e) {
-            return null;
-        }
-    }
-
-    /**
-     * Detect slope direction by examining neighboring blocks.
-     * Returns: 0=+Z downhill, 1=+X downhill, 2=-Z downhill, 3=-X downhill
-     */
-    private int detectSlopeDirectionFromNeighbors(World world, int x, int y, int z) {
-        // Check each direction for a rail or slope at Y-1 level (bottom of slope)
-        // The direction where we find a lower rail is the downhill direction
-        int[][] dirs = {{0, 1}, {1, 0}, {0, -1}, {-1, 0}}; // +Z, +X, -Z, -X
-
-        // Strategy 1: Look for rail at Y-1 in each direction (bottom connection)
-        for (int i = 0; i < 4; i++) {
-            int nx = x + dirs[i][0];
-            int nz = z + dirs[i][1];
-            BlockType belowType = world.getBlockType(nx, y - 1, nz);
-            if (belowType != null) {
-                RailConfig rail = belowType.getRailConfig(0);
-                if (rail != null && rail.points != null && rail.points.length >= 2) {
-                    return i; // Found rail below in this direction = downhill
-                }
-            }
-        }
-
-        // Strategy 2: Look for slope rail at Y-1 in each direction (continuing slope)
-        for (int i = 0; i < 4; i++) {
-            int nx = x + dirs[i][0];
-            int nz = z + dirs[i][1];
-            BlockType adjType = world.getBlockType(nx, y - 1, nz);
-            if (adjType != null) {
-                RailConfig rail = adjType.getRailConfig(0);
-                if (rail != null && rail.points != null && rail.points.length >= 2) {
-                    float yDiff = Math.abs(rail.points[0].point.y - rail.points[rail.points.length - 1].point.y);
-                    if (yDiff > 0.1f) { // It's a slope
-                        return i;
-                    }
-                }
-            }
-        }
-
-        // Strategy 3: Look for flat rail at same Y level - flat connects to slope's LOW point
-        // So the downhill direction is TOWARDS the flat rail (same direction i)
-        for (int i = 0; i < 4; i++) {
-            int nx = x + dirs[i][0];
-            int nz = z + dirs[i][1];
-            BlockType adjType = world.getBlockType(nx, y, nz);
-            if (adjType != null) {
-                RailConfig rail = adjType.getRailConfig(0);
-                if (rail != null && rail.points != null && rail.points.length >= 2) {
-                    float yDiff = Math.abs(rail.points[0].point.y - rail.points[rail.points.length - 1].point.y);
-                    if (yDiff < 0.1f) { // It's flat
-                        return i; // Downhill direction is towards the flat rail
-                    }
-                }
-            }
-        }
-
-        // Strategy 4: Look for slope at Y+1 level (connecting from above at high point)
-        // The adjacent slope's low point connects to our high point, so downhill is opposite
-        for (int i = 0; i < 4; i++) {
-            int nx = x + dirs[i][0];
-            int nz = z + dirs[i][1];
-            BlockType aboveType = world.getBlockType(nx, y + 1, nz);
-            if (aboveType != null) {
-                RailConfig rail = aboveType.getRailConfig(0);
-                if (rail != null && rail.points != null && rail.points.length >= 2) {
-                    return (i + 2) % 4; // Opposite direction is downhill
-                }
-            }
-        }
-
-        // Default: +Z downhill
-        return 0;
-    }
-
-    /**
-     * Detect flat rail direction by examining neighboring blocks.
-     * Returns: 0=Z-aligned (no rotation), 1=X-aligned (90° rotation)
-     */
-    private int detectFlatRailDirectionFromNeighbors(World world, int x, int y, int z) {
-        // Check which directions have connecting rails
-        // If we find rails in +X or -X directions but not in +Z/-Z, rail is X-aligned (rotation 1)
-        // If we find rails in +Z or -Z directions but not in +X/-X, rail is Z-aligned (rotation 0)
-
-        boolean hasRailPosX = hasRailAt(world, x + 1, y, z) || hasRailAt(world, x + 1, y - 1, z) || hasRailAt(world, x + 1, y + 1, z);
-        boolean hasRailNegX = hasRailAt(world, x - 1, y, z) || hasRailAt(world, x - 1, y - 1, z) || hasRailAt(world, x - 1, y + 1, z);
-        boolean hasRailPosZ = hasRailAt(world, x, y, z + 1) || hasRailAt(world, x, y - 1, z + 1) || hasRailAt(world, x, y + 1, z + 1);
-        boolean hasRailNegZ = hasRailAt(world, x, y, z - 1) || hasRailAt(world, x, y - 1, z - 1) || hasRailAt(world, x, y + 1, z - 1);
-
-        boolean xAxis = hasRailPosX || hasRailNegX;
-        boolean zAxis = hasRailPosZ || hasRailNegZ;
-
-        // If X-axis connections found but no Z-axis, rail runs in X direction
-        if (xAxis && !zAxis) {
-            return 1; // 90° rotation = X-aligned
-        }
-        // If Z-axis connections found but no X-axis, rail runs in Z direction
-        if (zAxis && !xAxis) {
-            return 0; // No rotation = Z-aligned
-        }
-        // If both or neither, check for slope connections which are more reliable
-        // A slope at Y+1 or Y-1 in a direction tells us where this rail connects
-
-        // Check for slopes at each direction
-        for (int dir = 0; dir < 4; dir++) {
-            int dx = (dir == 1) ? 1 : (dir == 3) ? -1 : 0;
-            int dz = (dir == 0) ? 1 : (dir == 2) ? -1 : 0;
-
-            // Check for slope at same level connecting to us
-            BlockType adjType = world.getBlockType(x + dx, y, z + dz);
-            if (adjType != null) {
-                RailConfig adjRail = adjType.getRailConfig(0);
-                if (adjRail != null && adjRail.points != null && adjRail.points.length >= 2) {
-                    float yDiff = Math.abs(adjRail.points[0].point.y - adjRail.points[adjRail.points.length - 1].point.y);
-                    if (yDiff > 0.1f) {
-                        // This is a slope - flat rail connects to it
-                        return (dir == 1 || dir == 3) ? 1 : 0; // X-dir slopes = X-aligned rail, Z-dir slopes = Z-aligned
-                    }
-                }
-            }
-
-            // Check for slope below
-            BlockType belowType = world.getBlockType(x + dx, y - 1, z + dz);
-            if (belowType != null) {
-                RailConfig belowRail = belowType.getRailConfig(0);
-                if (belowRail != null && belowRail.points != null && belowRail.points.length >= 2) {
-                    float yDiff = Math.abs(belowRail.points[0].point.y - belowRail.points[belowRail.points.length - 1].point.y);
-                    if (yDiff > 0.1f) {
-                        return (dir == 1 || dir == 3) ? 1 : 0;
-                    }
-                }
-            }
+            return false;
         }
-
-        // Default to Z-aligned if we can't determine
-        return 0;
     }
 
     /**
-     * Check if there's a rail at the given position.
+     * Check if there's a rail at, one below or one above the given position.
      */
-    private boolean hasRailAt(World world, int x, int y, int z) {
-        BlockType blockType = world.getBlockType(x, y, z);
-        if (blockType == null) return false;
-        RailConfig rail = blockType.getRailConfig(0);
-        return rail != null && rail.points != null && rail.points.length >= 2;
-    }
-
-    /**
-     * Rotate a point around the block center (0.5, 0.5) based on rotation index.
-     * rotationIndex: 0=no rotation, 1=90° CW, 2=180°, 3=270° CW (or 90° CCW)
-     * Returns [rotatedX, rotatedZ]
-     */
-    private double[] rotatePoint(double x, double z, int rotationIndex) {
-        // Center of block is (0.5, 0.5)
-        double cx = 0.5, cz = 0.5;
-        double dx = x - cx;
-        double dz = z - cz;
-
-        double rotX, rotZ;
-        switch (rotationIndex % 4) {
-            case 0: // No rotation
-                rotX = dx;
-                rotZ = dz;
-                break;
-            case 1: // 90° clockwise: (dx, dz) -> (dz, -dx)
-                rotX = dz;
-                rotZ = -dx;
-                break;
-            case 2: // 180°: (dx, dz) -> (-dx, -dz)
-                rotX = -dx;
-                rotZ = -dz;
-                break;
-            case 3: // 270° clockwise (90° CCW): (dx, dz) -> (-dz, dx)
-                rotX = -dz;
-                rotZ = dx;
-                break;
-            default:
-                rotX = dx;
-                rotZ = dz;
-                break;
-        }
-
-        return new double[] { cx + rotX, cz + rotZ };
+    private boolean hasRailNear(RailWorldView rails, int x, int y, int z) {
+        return RailOccupancy.forView(rails).hasRailNear(x, y, z);
     }
 
     /**
-     * Generate smooth curve points for corners using quadratic Bezier interpolation.
-     * Takes the raw rail points and creates additional intermediate points for smooth curves.
-     *
-     * @param points The raw rail points from getRailConfig
-     * @param numIntermediatePoints Number of points to generate between each pair (higher = smoother)
-     * @return Array of smoothed points [x1,y1,z1, x2,y2,z2, ...]
+     * Set the cart's position in place (setPosition still marks the transform dirty for replication).
      */
-    private double[] generateSmoothCurvePoints(RailPoint[] points, int numIntermediatePoints) {
-        if (points == null || points.length < 2) {
-            return new double[0];
-        }
-
-        // For corners, we want to create a smooth arc
-        // Use quadratic Bezier: P(t) = (1-t)²P0 + 2(1-t)tP1 + t²P2
-        // where P1 is the control point (corner vertex)
-
-        if (points.length == 2) {
-            // Just 2 points - return straight line interpolation
-            int totalPoints = numIntermediatePoints + 2;
-            double[] result = new double[totalPoints * 3];
-            for (int i = 0; i < totalPoints; i++) {
-                double t = (double) i / (totalPoints - 1);
-                result[i * 3] = points[0].point.x + t * (points[1].point.x - points[0].point.x);
-                result[i * 3 + 1] = points[0].point.y + t * (points[1].point.y - points[0].point.y);
-                result[i * 3 + 2] = points[0].point.z + t * (points[1].point.z - points[0].point.z);
-            }
-            return result;
-        }
-
-        // For 3+ points (typical corner), use the middle point(s) as control points
-        // and create a smooth Bezier curve
-
-        // Find the corner vertex (usually the middle point or where direction changes)
-        int cornerIndex = points.length / 2;
-
-        // Get start, corner, and end points
-        double startX = points[0].point.x;
-        double startY = points[0].point.y;
-        double startZ = points[0].point.z;
-
-        double cornerX = points[cornerIndex].point.x;
-        double cornerY = points[cornerIndex].point.y;
-        double cornerZ = points[cornerIndex].point.z;
-
-        double endX = points[points.length - 1].point.x;
-        double endY = points[points.length - 1].point.y;
-        double endZ = points[points.length - 1].point.z;
-
-        // Generate smooth curve using quadratic Bezier
-        int totalPoints = numIntermediatePoints + 2;
-        double[] result = new double[totalPoints * 3];
-
-        for (int i = 0; i < totalPoints; i++) {
-            double t = (double) i / (totalPoints - 1);
-            double oneMinusT = 1.0 - t;
-
-            // Quadratic Bezier: B(t) = (1-t)²P0 + 2(1-t)tP1 + t²P2
-            double bx = oneMinusT * oneMinusT * startX + 2 * oneMinusT * t * cornerX + t * t * endX;
-            double by = oneMinusT * oneMinusT * startY + 2 * oneMinusT * t * cornerY + t * t * endY;
-            double bz = oneMinusT * oneMinusT * startZ + 2 * oneMinusT * t * cornerZ + t * t * endZ;
-
-            result[i * 3] = bx;
-            result[i * 3 + 1] = by;
-            result[i * 3 + 2] = bz;
-        }
-
-        return result;
+    private static void setCartPosition(TransformComponent transform, double x, double y, double z) {
+        Vector3d position = transform.getPosition();
+        position.assign(x, y, z);
+        transform.setPosition(position);
     }
 
     /**
-     * Number of intermediate points to generate for smooth curves.
-     * Higher values = smoother curves but more computation.
+     * Where a position snaps onto a rail. Mutable so the physics can reuse a few instances
+     * instead of allocating one per probe.
      */
-    private static final int CURVE_SMOOTHING_POINTS = 8;
-
-    private static class RailSnap {
-        final double x, y, z;
-        final float dirX, dirY, dirZ;
-        final double distanceSq;
-        final int blockX, blockY, blockZ;
-        final boolean isSlope;
-        final boolean isCorner;
-        final boolean isTJunction;
-        final boolean isAccelerator;
-        final boolean isSwitch;
-        // Which edges this rail connects to [WEST, EAST, SOUTH, NORTH]
-        final boolean[] connectedEdges;
-
-        RailSnap(double x, double y, double z, float dx, float dy, float dz, double distSq, int bx, int by, int bz, boolean isSlope, boolean isCorner, boolean isTJunction, boolean isAccelerator, boolean isSwitch, boolean[] connectedEdges) {
+    static final class RailSnap {
+        private static final boolean[] NO_EDGES = new boolean[4];
+
+        double x, y, z;
+        float dirX, dirY, dirZ;
+        double distanceSq;
+        int blockX, blockY, blockZ;
+        boolean isSlope;
+        boolean isCorner;
+        boolean isTJunction;
+        boolean isAccelerator;
+        boolean isSwitch;
+        // Which edges this rail connects to [WEST, EAST, SOUTH, NORTH] (the RailCell's array, read-only)
+        boolean[] connectedEdges = NO_EDGES;
+
+        void set(double x, double y, double z, float dx, float dy, float dz, double distSq, int bx, int by, int bz, boolean isSlope, boolean isCorner, boolean isTJunction, boolean isAccelerator, boolean isSwitch, boolean[] connectedEdges) {
             this.x = x;
             this.y = y;
             this.z = z;
@@ -2195,7 +2111,13 @@ public class MinecartPhysicsSystem extends EntityTickingSystem<EntityStore> {
             this.isTJunction = isTJunction;
             this.isAccelerator = isAccelerator;
             this.isSwitch = isSwitch;
-            this.connectedEdges = connectedEdges != null ? connectedEdges : new boolean[4];
+            this.connectedEdges = connectedEdges != null ? connectedEdges : NO_EDGES;
+        }
+
+        void copyFrom(RailSnap other) {
+            set(other.x, other.y, other.z, other.dirX, other.dirY, other.dirZ, other.distanceSq,
+                other.blockX, other.blockY, other.blockZ, other.isSlope, other.isCorner,
+                other.isTJunction, other.isAccelerator, other.isSwitch, other.connectedEdges);
         }
     }
 }
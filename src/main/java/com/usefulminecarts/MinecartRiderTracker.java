@@ -2,9 +2,12 @@ package com.usefulminecarts;
 
 import com.hypixel.hytale.component.Ref;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
 
 /**
  * Tracks which players are riding which minecarts.
@@ -15,27 +18,28 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public class MinecartRiderTracker {
 
-    // Map of minecart entity ID -> rider entity ref
-    private static final Map<Integer, Ref<EntityStore>> ridersByCart = new ConcurrentHashMap<>();
+    // Map of minecart entity ID -> rider entity ref. Primitive-keyed (hasRider runs for
+    // every cart every tick) and guarded by the class lock.
+    private static final Int2ObjectOpenHashMap<Ref<EntityStore>> ridersByCart = new Int2ObjectOpenHashMap<>();
 
     /**
      * Set the rider for a minecart.
      */
-    public static void setRider(int cartEntityId, Ref<EntityStore> riderRef) {
+    public static synchronized void setRider(int cartEntityId, Ref<EntityStore> riderRef) {
         ridersByCart.put(cartEntityId, riderRef);
     }
 
     /**
      * Get the rider for a minecart, or null if no rider.
      */
-    public static Ref<EntityStore> getRider(int cartEntityId) {
+    public static synchronized Ref<EntityStore> getRider(int cartEntityId) {
         return ridersByCart.get(cartEntityId);
     }
 
     /**
      * Remove the rider tracking for a minecart.
      */
-    public static void removeRider(int cartEntityId) {
+    public static synchronized void removeRider(int cartEntityId) {
         ridersByCart.remove(cartEntityId);
     }
 
@@ -43,14 +47,14 @@ public class MinecartRiderTracker {
      * Check if a minecart has a rider tracked.
      */
     public static boolean hasRider(int cartEntityId) {
-        Ref<EntityStore> rider = ridersByCart.get(cartEntityId);
+        Ref<EntityStore> rider = getRider(cartEntityId);
         return rider != null && rider.isValid();
     }
 
     /**
      * Clear all rider tracking (for cleanup on server shutdown).
      */
-    public static void clear() {
+    public static synchronized void clear() {
         ridersByCart.clear();
     }
 
@@ -58,15 +62,15 @@ public class MinecartRiderTracker {
      * Get all cart entity IDs that have riders tracked.
      * Used for cleanup on shutdown.
      */
-    public static java.util.Set<Integer> getAllCartIds() {
-        return new java.util.HashSet<>(ridersByCart.keySet());
+    public static synchronized Set<Integer> getAllCartIds() {
+        return new HashSet<>(ridersByCart.keySet());
     }
 
     /**
      * Get the underlying map for iteration during cleanup.
      * Returns a snapshot copy to avoid concurrent modification.
      */
-    public static Map<Integer, Ref<EntityStore>> getAllRiders() {
-        return new ConcurrentHashMap<>(ridersByCart);
+    public static synchronized Map<Integer, Ref<EntityStore>> getAllRiders() {
+        return new HashMap<>(ridersByCart);
     }
 }
@@ -6,6 +6,8 @@ import com.hypixel.hytale.protocol.packets.player.ClientMovement;
 import com.hypixel.hytale.server.core.io.adapter.PacketAdapters;
 import com.hypixel.hytale.server.core.io.PacketHandler;
 import com.hypixel.hytale.logger.HytaleLogger;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 
 import java.util.Map;
 import java.util.Queue;
@@ -29,14 +31,31 @@ public class MountMovementPacketFilter {
 
     private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
 
-    // Store latest physics-calculated position per cart (set by MinecartPhysicsSystem)
-    private static final Map<Integer, double[]> PHYSICS_POSITIONS = new ConcurrentHashMap<>();
+    /**
+     * A cart's physics position and rotation as of one tick. Immutable, so the network
+     * thread rewriting a packet never sees half of one tick and half of the next.
+     */
+    private static final class PhysicsState {
+        final double x, y, z;
+        final float yaw, pitch, roll;
+
+        PhysicsState(double x, double y, double z, float yaw, float pitch, float roll) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.yaw = yaw;
+            this.pitch = pitch;
+            this.roll = roll;
+        }
+    }
 
-    // Store latest physics-calculated rotation per cart (set by MinecartPhysicsSystem)
-    private static final Map<Integer, float[]> PHYSICS_ROTATIONS = new ConcurrentHashMap<>();
+    // Latest physics state per cart (set by MinecartPhysicsSystem on the world thread,
+    // read by the packet handlers on network threads; guarded by itself)
+    private static final Int2ObjectOpenHashMap<PhysicsState> PHYSICS_STATES = new Int2ObjectOpenHashMap<>();
 
-    // Rider input direction keyed by cart entity ID (1=forward, -1=backward, 0=none)
-    private static final Map<Integer, Integer> RIDER_INPUT_DIRECTION = new ConcurrentHashMap<>();
+    // Rider input direction keyed by cart entity ID (1=forward, -1=backward, missing=0;
+    // guarded by itself)
+    private static final Int2IntOpenHashMap RIDER_INPUT_DIRECTION = new Int2IntOpenHashMap();
 
     // Map PacketHandler -> cart entity ID (set when first MountMovement arrives)
     private static final Map<PacketHandler, Integer> HANDLER_CART = new ConcurrentHashMap<>();
@@ -50,7 +69,6 @@ public class MountMovementPacketFilter {
 
     // Logging throttle
     private static int mountMovementCount = 0;
-    private static int clientMovementCount = 0;
 
     /**
      * Register the packet interceptor using the lambda pattern.
@@ -83,9 +101,12 @@ public class MountMovementPacketFilter {
         HANDLER_CART.clear();
         HANDLER_WALKING.clear();
         PENDING_CARTS.clear();
-        RIDER_INPUT_DIRECTION.clear();
-        PHYSICS_POSITIONS.clear();
-        PHYSICS_ROTATIONS.clear();
+        synchronized (RIDER_INPUT_DIRECTION) {
+            RIDER_INPUT_DIRECTION.clear();
+        }
+        synchronized (PHYSICS_STATES) {
+            PHYSICS_STATES.clear();
+        }
         LOGGER.atInfo().log("[MinecartPacketInterceptor] Cleared all state on shutdown");
     }
 
@@ -94,8 +115,12 @@ public class MountMovementPacketFilter {
      * to our physics position so the vanilla handler processes OUR position.
      */
     private static void handleMountMovement(PacketHandler handler, MountMovement mm) {
+        CartEvents.MountMovementRewrite event = null;
+        if (CartEvents.MOUNT_MOVEMENT_REWRITE.isEnabled()) {
+            event = new CartEvents.MountMovementRewrite();
+            event.begin();
+        }
         mountMovementCount++;
-        boolean shouldLog = (mountMovementCount % 60 == 1);
 
         // Find which cart this handler is associated with
         Integer cartId = HANDLER_CART.get(handler);
@@ -104,30 +129,32 @@ public class MountMovementPacketFilter {
             cartId = PENDING_CARTS.poll();
             if (cartId != null) {
                 HANDLER_CART.put(handler, cartId);
-                LOGGER.atInfo().log("[MinecartPacketInterceptor] Associated handler with cart %d", cartId);
+                if (CartLog.isEnabled(CartLog.Category.PACKETS, CartLog.Level.INFO)) {
+                    CartLog.log(CartLog.Category.PACKETS, CartLog.Level.INFO, "[MinecartPacketInterceptor] Associated handler with cart %d", cartId);
+                }
             } else {
                 // No pending cart - try to find any cart with a rider that has no handler
-                for (var entry : PHYSICS_POSITIONS.entrySet()) {
-                    int cid = entry.getKey();
-                    if (MinecartRiderTracker.hasRider(cid) && !HANDLER_CART.containsValue(cid)) {
-                        cartId = cid;
-                        HANDLER_CART.put(handler, cartId);
-                        LOGGER.atInfo().log("[MinecartPacketInterceptor] Auto-associated handler with cart %d", cartId);
-                        break;
+                cartId = findUnassociatedRiddenCart();
+                if (cartId != null) {
+                    HANDLER_CART.put(handler, cartId);
+                    if (CartLog.isEnabled(CartLog.Category.PACKETS, CartLog.Level.INFO)) {
+                        CartLog.log(CartLog.Category.PACKETS, CartLog.Level.INFO, "[MinecartPacketInterceptor] Auto-associated handler with cart %d", cartId);
                     }
                 }
             }
         }
 
         if (cartId == null) {
-            if (shouldLog) {
-                LOGGER.atInfo().log("[MinecartPacketInterceptor] MountMovement #%d but no cart association found", mountMovementCount);
+            if (CartLog.sample(CartLog.Category.PACKETS, -1)) {
+                CartLog.log(CartLog.Category.PACKETS, CartLog.Level.DEBUG, "[MinecartPacketInterceptor] MountMovement #%d but no cart association found", mountMovementCount);
             }
             return;
         }
 
-        double[] physPos = PHYSICS_POSITIONS.get(cartId);
-        float[] physRot = PHYSICS_ROTATIONS.get(cartId);
+        PhysicsState phys;
+        synchronized (PHYSICS_STATES) {
+            phys = PHYSICS_STATES.get(cartId.intValue());
+        }
 
         // 1. Extract movement direction BEFORE modifying the packet
         int direction = 0;
@@ -140,9 +167,9 @@ public class MountMovementPacketFilter {
         }
 
         // Check position delta for direction (S key detection)
-        if (mm.absolutePosition != null && physPos != null) {
-            double dx = mm.absolutePosition.x - physPos[0];
-            double dz = mm.absolutePosition.z - physPos[2];
+        if (mm.absolutePosition != null && phys != null) {
+            double dx = mm.absolutePosition.x - phys.x;
+            double dz = mm.absolutePosition.z - phys.z;
             double distSq = dx * dx + dz * dz;
 
             if (distSq > 0.0001) {
@@ -158,30 +185,44 @@ public class MountMovementPacketFilter {
             }
         }
 
-        if (direction != 0) {
-            RIDER_INPUT_DIRECTION.put(cartId, direction);
-        } else {
-            // No input detected - clear any stuck input
-            RIDER_INPUT_DIRECTION.remove(cartId);
+        synchronized (RIDER_INPUT_DIRECTION) {
+            if (direction != 0) {
+                RIDER_INPUT_DIRECTION.put(cartId.intValue(), direction);
+            } else {
+                // No input detected - clear any stuck input
+                RIDER_INPUT_DIRECTION.remove(cartId.intValue());
+            }
         }
 
         // 2. Modify packet position to our physics position
         // The vanilla GamePacketHandler will process THIS position (not the client's prediction)
         // and call setPosition(), which marks the transform dirty for entity replication
-        if (physPos != null && mm.absolutePosition != null) {
-            if (shouldLog) {
-                LOGGER.atInfo().log("[MinecartPacketInterceptor] REWRITING MountMovement #%d cart %d: client=(%.2f,%.2f,%.2f) -> physics=(%.2f,%.2f,%.2f), dir=%d",
+        if (phys != null && mm.absolutePosition != null) {
+            if (CartLog.sample(CartLog.Category.PACKETS, cartId)) {
+                CartLog.log(CartLog.Category.PACKETS, CartLog.Level.DEBUG, "[MinecartPacketInterceptor] REWRITING MountMovement #%d cart %d: client=(%.2f,%.2f,%.2f) -> physics=(%.2f,%.2f,%.2f), dir=%d",
                     mountMovementCount, cartId,
                     mm.absolutePosition.x, mm.absolutePosition.y, mm.absolutePosition.z,
-                    physPos[0], physPos[1], physPos[2], direction);
+                    phys.x, phys.y, phys.z, direction);
+            }
+            if (event != null) {
+                double cx = mm.absolutePosition.x - phys.x;
+                double cy = mm.absolutePosition.y - phys.y;
+                double cz = mm.absolutePosition.z - phys.z;
+                event.correction = Math.sqrt(cx * cx + cy * cy + cz * cz);
             }
-            mm.absolutePosition.x = physPos[0];
-            mm.absolutePosition.y = physPos[1];
-            mm.absolutePosition.z = physPos[2];
+            mm.absolutePosition.x = phys.x;
+            mm.absolutePosition.y = phys.y;
+            mm.absolutePosition.z = phys.z;
         }
-        if (physRot != null && mm.bodyOrientation != null) {
-            mm.bodyOrientation.yaw = physRot[0];
-            mm.bodyOrientation.pitch = physRot[1];
+        if (phys != null && mm.bodyOrientation != null) {
+            mm.bodyOrientation.yaw = phys.yaw;
+            mm.bodyOrientation.pitch = phys.pitch;
+        }
+
+        if (event != null && phys != null && event.shouldCommit()) {
+            event.cartId = cartId;
+            event.direction = direction;
+            event.commit();
         }
     }
 
@@ -191,9 +232,6 @@ public class MountMovementPacketFilter {
      * we won't receive MountMovement packets, so we must associate from ClientMovement).
      */
     private static void handleClientMovement(PacketHandler handler, ClientMovement cm) {
-        clientMovementCount++;
-        boolean shouldLog = (clientMovementCount % 300 == 1);
-
         // Try to associate handler with a pending cart if not already associated
         Integer cartId = HANDLER_CART.get(handler);
         if (cartId == null) {
@@ -201,16 +239,16 @@ public class MountMovementPacketFilter {
             cartId = PENDING_CARTS.poll();
             if (cartId != null) {
                 HANDLER_CART.put(handler, cartId);
-                LOGGER.atInfo().log("[MinecartPacketInterceptor] Associated handler with cart %d (from ClientMovement)", cartId);
+                if (CartLog.isEnabled(CartLog.Category.PACKETS, CartLog.Level.INFO)) {
+                    CartLog.log(CartLog.Category.PACKETS, CartLog.Level.INFO, "[MinecartPacketInterceptor] Associated handler with cart %d (from ClientMovement)", cartId);
+                }
             } else {
                 // No pending cart - try to find any cart with a rider that has no handler
-                for (var entry : PHYSICS_POSITIONS.entrySet()) {
-                    int cid = entry.getKey();
-                    if (MinecartRiderTracker.hasRider(cid) && !HANDLER_CART.containsValue(cid)) {
-                        cartId = cid;
-                        HANDLER_CART.put(handler, cartId);
-                        LOGGER.atInfo().log("[MinecartPacketInterceptor] Auto-associated handler with cart %d (from ClientMovement)", cartId);
-                        break;
+                cartId = findUnassociatedRiddenCart();
+                if (cartId != null) {
+                    HANDLER_CART.put(handler, cartId);
+                    if (CartLog.isEnabled(CartLog.Category.PACKETS, CartLog.Level.INFO)) {
+                        CartLog.log(CartLog.Category.PACKETS, CartLog.Level.INFO, "[MinecartPacketInterceptor] Auto-associated handler with cart %d (from ClientMovement)", cartId);
                     }
                 }
             }
@@ -224,35 +262,59 @@ public class MountMovementPacketFilter {
             if (cartId != null) {
                 if (walking) {
                     // ClientMovement walking = W key for forward
-                    RIDER_INPUT_DIRECTION.put(cartId, 1);
-                    if (shouldLog) {
-                        LOGGER.atInfo().log("[MinecartPacketInterceptor] ClientMovement walking=true for cart %d", cartId);
+                    synchronized (RIDER_INPUT_DIRECTION) {
+                        RIDER_INPUT_DIRECTION.put(cartId.intValue(), 1);
+                    }
+                    if (CartLog.sample(CartLog.Category.PACKETS, cartId)) {
+                        CartLog.log(CartLog.Category.PACKETS, CartLog.Level.DEBUG, "[MinecartPacketInterceptor] ClientMovement walking=true for cart %d", cartId);
                     }
                 } else {
                     // No walking - clear the input so cart stops accelerating
-                    RIDER_INPUT_DIRECTION.remove(cartId);
+                    synchronized (RIDER_INPUT_DIRECTION) {
+                        RIDER_INPUT_DIRECTION.remove(cartId.intValue());
+                    }
                 }
             }
         }
     }
 
+    /**
+     * Find a cart with a rider that no handler is associated with yet.
+     * @return The cart's network ID, or null if there is none
+     */
+    private static Integer findUnassociatedRiddenCart() {
+        synchronized (PHYSICS_STATES) {
+            for (int cid : PHYSICS_STATES.keySet()) {
+                if (MinecartRiderTracker.hasRider(cid) && !HANDLER_CART.containsValue(cid)) {
+                    return cid;
+                }
+            }
+        }
+        return null;
+    }
+
     // ========== PHYSICS STATE STORAGE ==========
 
     /**
-     * Called by MinecartPhysicsSystem after calculating position and rotation.
+     * Called by MinecartPhysicsSystem after calculating position and rotation (mounted
+     * carts only). Publishes a new snapshot rather than updating the last one in place,
+     * as a packet may be rewritten from it at the same time.
      */
     public static void updatePhysicsState(int networkId, double x, double y, double z,
                                           float yaw, float pitch, float roll) {
-        PHYSICS_POSITIONS.put(networkId, new double[]{x, y, z});
-        PHYSICS_ROTATIONS.put(networkId, new float[]{yaw, pitch, roll});
+        PhysicsState state = new PhysicsState(x, y, z, yaw, pitch, roll);
+        synchronized (PHYSICS_STATES) {
+            PHYSICS_STATES.put(networkId, state);
+        }
     }
 
     /**
      * Clear stored physics state for a minecart.
      */
     public static void clearPhysicsState(int networkId) {
-        PHYSICS_POSITIONS.remove(networkId);
-        PHYSICS_ROTATIONS.remove(networkId);
+        synchronized (PHYSICS_STATES) {
+            PHYSICS_STATES.remove(networkId);
+        }
     }
 
     // ========== MOUNT/DISMOUNT TRACKING ==========
@@ -262,7 +324,9 @@ public class MountMovementPacketFilter {
      */
     public static void onMount(int cartEntityId) {
         PENDING_CARTS.add(cartEntityId);
-        LOGGER.atInfo().log("[MinecartPacketInterceptor] Cart %d queued for handler association", cartEntityId);
+        if (CartLog.isEnabled(CartLog.Category.PACKETS, CartLog.Level.INFO)) {
+            CartLog.log(CartLog.Category.PACKETS, CartLog.Level.INFO, "[MinecartPacketInterceptor] Cart %d queued for handler association", cartEntityId);
+        }
     }
 
     /**
@@ -270,8 +334,12 @@ public class MountMovementPacketFilter {
      */
     public static void onDismount(int cartEntityId) {
         HANDLER_CART.entrySet().removeIf(e -> e.getValue().equals(cartEntityId));
-        RIDER_INPUT_DIRECTION.remove(cartEntityId);
-        LOGGER.atInfo().log("[MinecartPacketInterceptor] Cart %d handler association cleared", cartEntityId);
+        synchronized (RIDER_INPUT_DIRECTION) {
+            RIDER_INPUT_DIRECTION.remove(cartEntityId);
+        }
+        if (CartLog.isEnabled(CartLog.Category.PACKETS, CartLog.Level.INFO)) {
+            CartLog.log(CartLog.Category.PACKETS, CartLog.Level.INFO, "[MinecartPacketInterceptor] Cart %d handler association cleared", cartEntityId);
+        }
     }
 
     /**
@@ -294,29 +362,37 @@ public class MountMovementPacketFilter {
      * @return 1 for forward, -1 for backward, 0 for no input
      */
     public static int consumeRiderInput(int cartEntityId) {
-        Integer dir = RIDER_INPUT_DIRECTION.remove(cartEntityId);
-        return dir != null ? dir : 0;
+        synchronized (RIDER_INPUT_DIRECTION) {
+            // Missing entries read as the default 0
+            return RIDER_INPUT_DIRECTION.remove(cartEntityId);
+        }
     }
 
     /**
      * Get simple momentum direction without consuming.
      */
     public static int getMomentumDirection(int minecartNetworkId) {
-        Integer dir = RIDER_INPUT_DIRECTION.get(minecartNetworkId);
-        return dir != null ? dir : 0;
+        synchronized (RIDER_INPUT_DIRECTION) {
+            return RIDER_INPUT_DIRECTION.get(minecartNetworkId);
+        }
     }
 
     /**
      * Clear momentum for a minecart.
      */
     public static void clearMomentum(int minecartNetworkId) {
-        RIDER_INPUT_DIRECTION.remove(minecartNetworkId);
+        synchronized (RIDER_INPUT_DIRECTION) {
+            RIDER_INPUT_DIRECTION.remove(minecartNetworkId);
+        }
     }
 
     // Legacy API compatibility
     public static MomentumData consumeMomentumInput(int minecartNetworkId) {
-        Integer dir = RIDER_INPUT_DIRECTION.remove(minecartNetworkId);
-        if (dir == null) return null;
+        int dir;
+        synchronized (RIDER_INPUT_DIRECTION) {
+            dir = RIDER_INPUT_DIRECTION.remove(minecartNetworkId);
+        }
+        if (dir == 0) return null;
         MomentumData data = new MomentumData();
         data.addMomentum(dir);
         return data;
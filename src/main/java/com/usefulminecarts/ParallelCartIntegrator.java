@@ -0,0 +1,217 @@
+package com.usefulminecarts;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Integrates riderless arc-length carts in parallel (/mc parallel).
+ *
+ * Three phases per world and tick:
+ * 1. Read - MinecartPhysicsSystem captures each cart's inputs into its ArcLengthStep
+ *    (on a copy of its track cursor) and queues it here.
+ * 2. Compute - the batch runs on a fork-join pool while the world thread waits. The
+ *    world's RailNetwork and RailCellCache are frozen meanwhile, so the workers only
+ *    read rail data that is already built. A cart that needs anything else gives up
+ *    and is integrated again on the world thread in phase 3.
+ * 3. Commit - results are applied on the world thread in entity id order.
+ *
+ * Phases 2 and 3 run from world.execute once the physics tick has queued its carts,
+ * or right away if a queued cart comes round again first.
+ *
+ * The commit writes the carts' TransformComponent and CartPhysicsComponent through
+ * store.getComponent, not through the CommandBuffer of the tick that captured the step:
+ * that buffer is gone by the time the batch has been integrated. This is safe because
+ * the commit only changes fields of components the carts already have (no structural
+ * change, which is what the buffer is for) and always runs on the world thread - the
+ * serial path also changes its cart's transform in place rather than queueing a write.
+ * The cost is that a parallel cart's new position lands after the tick that read it,
+ * one tick behind a serial cart.
+ *
+ * Carts with riders stay on the serial path: their input and the rider positioning
+ * need the result in the same tick.
+ */
+public final class ParallelCartIntegrator {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    // Below this many carts the hand-off to the pool costs more than it saves
+    private static final int MIN_PARALLEL_BATCH = 16;
+    // Carts per fork-join leaf task
+    private static final int CARTS_PER_TASK = 8;
+
+    private static final Comparator<ArcLengthStep> BY_ENTITY_ID =
+        Comparator.comparingInt(step -> step.entityId);
+
+    private static final class Batch {
+        Store<EntityStore> store;
+        final List<ArcLengthStep> steps = new ArrayList<>();
+        boolean scheduled;
+    }
+
+    // Per-world batches. A batch is only touched by its world's thread.
+    private static final Map<World, Batch> batches = new ConcurrentHashMap<>();
+
+    private static ForkJoinPool pool;
+
+    private ParallelCartIntegrator() {
+    }
+
+    /**
+     * Queue a captured step. World thread only.
+     */
+    static void submit(World world, Store<EntityStore> store, ArcLengthStep step) {
+        Batch batch = batches.computeIfAbsent(world, w -> new Batch());
+        batch.store = store;
+        step.pending = true;
+        step.needsSerial = false;
+        batch.steps.add(step);
+        if (!batch.scheduled) {
+            batch.scheduled = true;
+            world.execute(() -> {
+                // Runs after the tick, so it isn't inside the physics system's timing
+                long start = System.nanoTime();
+                flush(world);
+                TickTimings.record(TickTimings.Phase.PARALLEL_FLUSH, start);
+            });
+        }
+    }
+
+    /**
+     * Integrate and commit everything queued for a world. World thread only.
+     */
+    static void flush(World world) {
+        Batch batch = batches.get(world);
+        if (batch == null) return;
+        batch.scheduled = false;
+        List<ArcLengthStep> steps = batch.steps;
+        if (steps.isEmpty()) return;
+
+        long start = System.nanoTime();
+        try {
+            // Compute
+            RailWorldView rails = WorldRailView.of(world);
+            RailNetwork network = RailNetwork.forView(rails);
+            RailCellCache cells = RailCellCache.forView(rails);
+            network.freeze();
+            cells.freeze();
+            try {
+                if (steps.size() < MIN_PARALLEL_BATCH) {
+                    for (int i = 0; i < steps.size(); i++) {
+                        integrate(steps.get(i));
+                    }
+                } else {
+                    getPool().invoke(new IntegrateTask(steps, 0, steps.size()));
+                }
+            } finally {
+                cells.thaw();
+                network.thaw();
+            }
+            TickTimings.record(TickTimings.Phase.PARALLEL_COMPUTE, start);
+
+            // Commit
+            steps.sort(BY_ENTITY_ID);
+            for (int i = 0; i < steps.size(); i++) {
+                commit(rails, batch.store, steps.get(i));
+            }
+        } finally {
+            // If a commit threw, the rest of the batch is dropped; those carts start over next tick
+            for (int i = 0; i < steps.size(); i++) {
+                steps.get(i).pending = false;
+            }
+            steps.clear();
+        }
+    }
+
+    private static void integrate(ArcLengthStep step) {
+        try {
+            step.integrate();
+        } catch (RailCellCache.NotCachedException e) {
+            step.needsSerial = true;
+        } catch (RuntimeException e) {
+            // Redone on the world thread, where it fails (or not) the same way the serial path would
+            LOGGER.atWarning().log("[ParallelCarts] Cart %d failed on a worker: %s", step.entityId, e);
+            step.needsSerial = true;
+        }
+    }
+
+    private static void commit(RailWorldView rails, Store<EntityStore> store, ArcLengthStep step) {
+        step.pending = false;
+        Ref<EntityStore> cartRef = step.cartRef;
+        if (cartRef == null || !cartRef.isValid()) return;
+        // Bumped or re-attached since the read phase - drop the step, the next tick starts over
+        if (step.physics.trackCursor != step.original) return;
+
+        TransformComponent transform = store.getComponent(cartRef, TransformComponent.getComponentType());
+        if (transform == null) return;
+
+        if (step.needsSerial) {
+            // Needed rail data that wasn't built yet - redo it here, where it can be built
+            step.cursor = step.original.copy();
+            step.integrate();
+        }
+        MinecartPhysicsSystem.applyArcStep(step, rails, transform, false);
+    }
+
+    private static synchronized ForkJoinPool getPool() {
+        if (pool == null) {
+            int parallelism = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+            pool = new ForkJoinPool(parallelism);
+            LOGGER.atInfo().log("[ParallelCarts] Started physics pool with %d workers", parallelism);
+        }
+        return pool;
+    }
+
+    /**
+     * Drop a world's batch (the world was removed, see WorldRailView.onWorldRemoved).
+     */
+    static void remove(World world) {
+        batches.remove(world);
+    }
+
+    /**
+     * Drop all queued steps and stop the pool (plugin shutdown).
+     */
+    public static synchronized void shutdown() {
+        batches.clear();
+        if (pool != null) {
+            pool.shutdownNow();
+            pool = null;
+        }
+    }
+
+    private static final class IntegrateTask extends RecursiveAction {
+        private final List<ArcLengthStep> steps;
+        private final int from;
+        private final int to;
+
+        IntegrateTask(List<ArcLengthStep> steps, int from, int to) {
+            this.steps = steps;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= CARTS_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    integrate(steps.get(i));
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new IntegrateTask(steps, from, mid), new IntegrateTask(steps, mid, to));
+        }
+    }
+}
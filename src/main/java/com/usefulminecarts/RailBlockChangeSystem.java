@@ -0,0 +1,152 @@
+package com.usefulminecarts;
+
+import com.hypixel.hytale.component.ArchetypeChunk;
+import com.hypixel.hytale.component.CommandBuffer;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.component.query.Query;
+import com.hypixel.hytale.component.system.EntityEventSystem;
+import com.hypixel.hytale.math.vector.Vector3i;
+import com.hypixel.hytale.server.core.event.events.ecs.BreakBlockEvent;
+import com.hypixel.hytale.server.core.event.events.ecs.PlaceBlockEvent;
+import com.hypixel.hytale.server.core.event.events.ecs.UseBlockEvent;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Keeps cached rail data in step with block changes.
+ *
+ * Block place/break events fire before the block is actually changed, so the
+ * invalidation is done right away and once more on the world thread after the
+ * change has gone through (otherwise a probe in between could re-cache the old block).
+ *
+ * Register one instance of each nested system:
+ *   registerSystem(new RailBlockChangeSystem.Place());
+ *   registerSystem(new RailBlockChangeSystem.Break());
+ *   registerSystem(new RailBlockChangeSystem.Use());
+ */
+public final class RailBlockChangeSystem {
+
+    private RailBlockChangeSystem() {
+    }
+
+    /**
+     * Called for every block change that could affect rails.
+     * Also used directly by code that sets blocks without firing events (e.g. the rail wrench).
+     */
+    public static void onBlockChanged(World world, int blockX, int blockY, int blockZ) {
+        if (world == null) return;
+        // No view yet means nothing about this world's rails has been cached
+        onBlockChanged(WorldRailView.getIfPresent(world), blockX, blockY, blockZ);
+    }
+
+    /**
+     * Called for every block change in a rail world view (live or in-memory).
+     */
+    public static void onBlockChanged(RailWorldView view, int blockX, int blockY, int blockZ) {
+        if (view == null) return;
+        RailOccupancy.onBlockChanged(view, blockX, blockY, blockZ);
+        SwitchFootprintIndex.onBlockChanged(view, blockX, blockY, blockZ);
+        RailOrientationTable.onBlockChanged(view, blockX, blockY, blockZ);
+        RailCellCache.onBlockChanged(view, blockX, blockY, blockZ);
+        TrackFeatureIndex.onBlockChanged(view, blockX, blockY, blockZ);
+        RailNetwork.onBlockChanged(view, blockX, blockY, blockZ);
+        RailSearchMisses.onBlockChanged(view, blockX, blockY, blockZ);
+        CartSleepTracker.wakeAround(view, blockX, blockY, blockZ);
+    }
+
+    private static void onBlockEvent(Store<EntityStore> store, Vector3i target) {
+        if (target == null) return;
+        World world = store.getExternalData().getWorld();
+        if (world == null) return;
+
+        int x = target.x;
+        int y = target.y;
+        int z = target.z;
+        onBlockChanged(world, x, y, z);
+        world.execute(() -> onBlockChanged(world, x, y, z));
+    }
+
+    /**
+     * Invalidates rail caches when a block is placed.
+     */
+    public static class Place extends EntityEventSystem<EntityStore, PlaceBlockEvent> {
+
+        public Place() {
+            super(PlaceBlockEvent.class);
+        }
+
+        @Nonnull
+        @Override
+        public Query<EntityStore> getQuery() {
+            return Query.any();
+        }
+
+        @Override
+        public void handle(
+                int index,
+                @Nonnull ArchetypeChunk<EntityStore> archetypeChunk,
+                @Nonnull Store<EntityStore> store,
+                @Nonnull CommandBuffer<EntityStore> commandBuffer,
+                @Nonnull PlaceBlockEvent event
+        ) {
+            onBlockEvent(store, event.getTargetBlock());
+        }
+    }
+
+    /**
+     * Invalidates rail caches when a block is broken.
+     */
+    public static class Break extends EntityEventSystem<EntityStore, BreakBlockEvent> {
+
+        public Break() {
+            super(BreakBlockEvent.class);
+        }
+
+        @Nonnull
+        @Override
+        public Query<EntityStore> getQuery() {
+            return Query.any();
+        }
+
+        @Override
+        public void handle(
+                int index,
+                @Nonnull ArchetypeChunk<EntityStore> archetypeChunk,
+                @Nonnull Store<EntityStore> store,
+                @Nonnull CommandBuffer<EntityStore> commandBuffer,
+                @Nonnull BreakBlockEvent event
+        ) {
+            onBlockEvent(store, event.getTargetBlock());
+        }
+    }
+
+    /**
+     * Invalidates rail caches when a block is used - using a switch toggles its state,
+     * which swaps the block type (and its rail points) without a place or break.
+     */
+    public static class Use extends EntityEventSystem<EntityStore, UseBlockEvent.Post> {
+
+        public Use() {
+            super(UseBlockEvent.Post.class);
+        }
+
+        @Nonnull
+        @Override
+        public Query<EntityStore> getQuery() {
+            return Query.any();
+        }
+
+        @Override
+        public void handle(
+                int index,
+                @Nonnull ArchetypeChunk<EntityStore> archetypeChunk,
+                @Nonnull Store<EntityStore> store,
+                @Nonnull CommandBuffer<EntityStore> commandBuffer,
+                @Nonnull UseBlockEvent.Post event
+        ) {
+            onBlockEvent(store, event.getTargetBlock());
+        }
+    }
+}
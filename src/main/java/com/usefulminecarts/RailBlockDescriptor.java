@@ -0,0 +1,287 @@
+package com.usefulminecarts;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.protocol.RailConfig;
+import com.hypixel.hytale.protocol.RailPoint;
+import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Pre-parsed rail information for a single BlockType.
+ *
+ * The physics used to call BlockType.toString() and pick the "id=" out of it on every
+ * probe to decide whether a block is a T-junction, switch, accelerator, corner, bumper
+ * or air. All of that only depends on the BlockType itself, so it is worked out once
+ * per distinct type here and cached in an identity map.
+ *
+ * The cache is dropped whenever block assets are reloaded (see UsefulMinecartsPlugin),
+ * since a reload replaces the BlockType instances.
+ *
+ * In-memory worlds (VoxelRailWorld) build synthetic descriptors from a block ID and
+ * rail points instead, with the same classification rules.
+ *
+ * Usage:
+ *   RailBlockDescriptor desc = RailBlockDescriptor.of(world.getBlockType(x, y, z));
+ *   if (desc != null && desc.isBumper) { ... }
+ */
+public final class RailBlockDescriptor {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    /**
+     * Number of rotation indices whose rail points are resolved up front.
+     * Other indices are resolved on demand (they never appear on flat track).
+     */
+    private static final int CACHED_ROTATIONS = 4;
+
+    // BlockType -> descriptor. Replaced wholesale on write (copy-on-write) so the
+    // tick thread can read it without locking. Only grows by one entry per distinct type.
+    private static volatile Map<BlockType, RailBlockDescriptor> cache = new IdentityHashMap<>();
+
+    // The BlockType this descriptor was built from (null for synthetic descriptors)
+    public final BlockType blockType;
+
+    // Index of the block type in the engine's BlockType asset map (-1 for synthetic descriptors)
+    public final int blockIndex;
+
+    // Full block ID as shown by toString (e.g. "*Rail_State_Definitions_T"),
+    // which unlike getId() includes the state suffix
+    public final String blockId;
+
+    // Name-based flags (same rules the physics used to apply per probe)
+    public final boolean isAir;
+    public final boolean isTJunction;
+    public final boolean isAccelerator;
+    public final boolean isSwitch;
+    public final boolean isSwitchLeft;
+    public final boolean isCornerByName;
+    public final boolean isBumper;
+
+    // getRailConfig(0) has at least two points - this is what neighbour checks use
+    public final boolean hasRailConfig;
+    // getRailConfig(0) endpoints differ in height
+    public final boolean baseIsSlope;
+
+    // Would stop a minecart: not air, not a rail and not a bumper
+    public final boolean isSolid;
+
+    // Switch state for RailPathRegistry ("straight"/"left"), null if not a switch
+    public final String switchState;
+
+    // Raw rail points for a rotation index (the block type's rail config), null if none
+    private final IntFunction<RailPoint[]> railConfig;
+
+    // Rail points per rotation index, with the "try other rotations" fallback already applied
+    private final RailPoint[][] railPoints = new RailPoint[CACHED_ROTATIONS][];
+    private final boolean[] slopeByRotation = new boolean[CACHED_ROTATIONS];
+    private final boolean[] cornerShapeByRotation = new boolean[CACHED_ROTATIONS];
+    // Arc-length tables for flat corners per rotation index (null where the rail isn't a corner)
+    private final CornerCurve[] cornerCurves = new CornerCurve[CACHED_ROTATIONS];
+
+    private RailBlockDescriptor(BlockType blockType) {
+        this(blockType, blockIndexOf(blockType), blockType.toString(), extractBlockId(blockType.toString()),
+            rot -> validPoints(blockType.getRailConfig(rot)));
+    }
+
+    private RailBlockDescriptor(BlockType blockType, int blockIndex, String blockTypeName, String blockId,
+                                IntFunction<RailPoint[]> railConfig) {
+        this.blockType = blockType;
+        this.blockIndex = blockIndex;
+        this.blockId = blockId;
+        this.railConfig = railConfig;
+
+        this.isAir = blockTypeName != null && (blockTypeName.contains("Air") || blockTypeName.contains("Empty"));
+
+        String id = blockId != null ? blockId : "";
+        this.isTJunction = id.endsWith("_T");
+        this.isAccelerator = id.contains("Accel") || id.contains("_Rail_Accel");
+        this.isSwitch = id.contains("Rail_Switch") || id.contains("_Switch");
+        this.isSwitchLeft = id.contains("_Left") || id.contains("State_Definitions_Left");
+        this.isCornerByName = id.contains("_Corner");
+        this.isBumper = id.contains("Cart_Bumper") || (blockTypeName != null && blockTypeName.contains("Cart_Bumper"));
+
+        RailPoint[] basePoints = railConfig.apply(0);
+        this.hasRailConfig = basePoints != null;
+        this.baseIsSlope = basePoints != null
+            && Math.abs(basePoints[0].point.y - basePoints[basePoints.length - 1].point.y) > 0.1f;
+
+        this.isSolid = !isAir && !hasRailConfig && !isBumper;
+
+        if ("switch".equals(RailPathRegistry.getRailType(blockId))) {
+            this.switchState = id.contains("_Left") || id.contains("State_Definitions_Left") ? "left" : "straight";
+        } else {
+            this.switchState = null;
+        }
+
+        for (int rot = 0; rot < CACHED_ROTATIONS; rot++) {
+            RailPoint[] points = resolvePoints(rot);
+            railPoints[rot] = points;
+            if (points != null) {
+                RailPoint first = points[0];
+                RailPoint last = points[points.length - 1];
+                slopeByRotation[rot] = Math.abs(last.point.y - first.point.y) > 0.1f;
+                cornerShapeByRotation[rot] = Math.abs(first.point.x - last.point.x) > 0.1
+                                          && Math.abs(first.point.z - last.point.z) > 0.1;
+                if (!slopeByRotation[rot] && (cornerShapeByRotation[rot] || isCornerByName)) {
+                    cornerCurves[rot] = CornerCurve.fromRailPoints(points);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the descriptor for a block type, computing it on first use.
+     * @return The descriptor, or null if blockType is null
+     */
+    public static RailBlockDescriptor of(BlockType blockType) {
+        if (blockType == null) return null;
+        RailBlockDescriptor desc = cache.get(blockType);
+        if (desc != null) return desc;
+        return computeAndCache(blockType);
+    }
+
+    private static synchronized RailBlockDescriptor computeAndCache(BlockType blockType) {
+        RailBlockDescriptor desc = cache.get(blockType);
+        if (desc != null) return desc;
+
+        desc = new RailBlockDescriptor(blockType);
+        Map<BlockType, RailBlockDescriptor> updated = new IdentityHashMap<>(cache);
+        updated.put(blockType, desc);
+        cache = updated;
+        return desc;
+    }
+
+    /**
+     * Build a descriptor that isn't backed by a BlockType (in-memory worlds, benchmarks).
+     * Not cached: keep one instance per kind of block, since descriptors are compared
+     * by identity (e.g. to find the origin of a switch footprint).
+     *
+     * @param blockId Block ID, classified by the same name rules as real blocks
+     * @param pointsByRotation Rail points for rotation indices 0-3 (null entries, or a null
+     *                         array, for none)
+     */
+    public static RailBlockDescriptor synthetic(String blockId, RailPoint[][] pointsByRotation) {
+        return new RailBlockDescriptor(null, -1, blockId, blockId, rot -> {
+            if (pointsByRotation == null || rot < 0 || rot >= pointsByRotation.length) return null;
+            RailPoint[] points = pointsByRotation[rot];
+            return points != null && points.length >= 2 ? points : null;
+        });
+    }
+
+    /**
+     * Drop all cached descriptors. Called when block type assets are (re)loaded.
+     */
+    public static synchronized void invalidateAll() {
+        int size = cache.size();
+        cache = new IdentityHashMap<>();
+        if (size > 0) {
+            LOGGER.atInfo().log("[RailBlockDescriptor] Cleared %d cached block descriptors", size);
+        }
+    }
+
+    /**
+     * Number of block types currently cached (for diagnostics).
+     */
+    public static int getCacheSize() {
+        return cache.size();
+    }
+
+    /**
+     * Get the rail points for a rotation index.
+     * Falls back to the first rotation that has a rail config, like the physics always did.
+     * @return The points (at least 2), or null if this block has no rail config at all
+     */
+    public RailPoint[] getRailPoints(int rotationIndex) {
+        if (rotationIndex >= 0 && rotationIndex < CACHED_ROTATIONS) {
+            return railPoints[rotationIndex];
+        }
+        return resolvePoints(rotationIndex);
+    }
+
+    /**
+     * Whether the rail points for this rotation rise or fall across the block.
+     */
+    public boolean isSlopeAt(int rotationIndex) {
+        if (rotationIndex >= 0 && rotationIndex < CACHED_ROTATIONS) {
+            return slopeByRotation[rotationIndex];
+        }
+        RailPoint[] points = getRailPoints(rotationIndex);
+        return points != null && Math.abs(points[points.length - 1].point.y - points[0].point.y) > 0.1f;
+    }
+
+    /**
+     * Whether the rail endpoints for this rotation are offset on both axes (corner shape).
+     */
+    public boolean looksLikeCornerAt(int rotationIndex) {
+        if (rotationIndex >= 0 && rotationIndex < CACHED_ROTATIONS) {
+            return cornerShapeByRotation[rotationIndex];
+        }
+        RailPoint[] points = getRailPoints(rotationIndex);
+        return points != null
+            && Math.abs(points[0].point.x - points[points.length - 1].point.x) > 0.1
+            && Math.abs(points[0].point.z - points[points.length - 1].point.z) > 0.1;
+    }
+
+    /**
+     * Get the corner curve table for a rotation index.
+     * @return The table, or null if the rail isn't a flat corner at this rotation
+     */
+    public CornerCurve getCornerCurve(int rotationIndex) {
+        if (rotationIndex >= 0 && rotationIndex < CACHED_ROTATIONS) {
+            return cornerCurves[rotationIndex];
+        }
+        if (isSlopeAt(rotationIndex) || !(looksLikeCornerAt(rotationIndex) || isCornerByName)) return null;
+        return CornerCurve.fromRailPoints(getRailPoints(rotationIndex));
+    }
+
+    /**
+     * Whether this block has a rail config for any rotation.
+     */
+    public boolean isRail() {
+        return railPoints[0] != null;
+    }
+
+    // ==================== HELPERS ====================
+
+    private RailPoint[] resolvePoints(int rotationIndex) {
+        RailPoint[] points = railConfig.apply(rotationIndex);
+        if (points != null) return points;
+        for (int rot = 0; rot < 4; rot++) {
+            points = railConfig.apply(rot);
+            if (points != null) return points;
+        }
+        return null;
+    }
+
+    private static int blockIndexOf(BlockType blockType) {
+        int index = BlockType.getAssetMap().getIndex(blockType.getId());
+        return index >= 0 ? index : -1;
+    }
+
+    private static RailPoint[] validPoints(RailConfig railConfig) {
+        if (railConfig == null || railConfig.points == null || railConfig.points.length < 2) {
+            return null;
+        }
+        return railConfig.points;
+    }
+
+    /**
+     * Extract the block ID from BlockType.toString()
+     * Format: "BlockType{id=*Rail_State_Definitions_T, ...}"
+     */
+    static String extractBlockId(String blockTypeName) {
+        if (blockTypeName == null) return null;
+        int idStart = blockTypeName.indexOf("id=");
+        if (idStart < 0) return null;
+
+        idStart += 3; // Skip "id="
+        int idEnd = blockTypeName.indexOf(",", idStart);
+        if (idEnd < 0) idEnd = blockTypeName.indexOf("}", idStart);
+        if (idEnd <= idStart) return null;
+
+        return blockTypeName.substring(idStart, idEnd).trim();
+    }
+}
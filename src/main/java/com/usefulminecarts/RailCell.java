@@ -0,0 +1,557 @@
+package com.usefulminecarts;
+
+import com.hypixel.hytale.protocol.RailPoint;
+
+/**
+ * Compiled rail geometry for a single block position.
+ *
+ * Holds everything MinecartPhysicsSystem.snapToRailAt used to re-derive on every probe:
+ * switch footprint origin, effective rotation of flat rails (from neighbours), slope
+ * downhill direction and high/low endpoints, world-space segments and connected edges.
+ * Only the closest-point test against the cart position is left for the snap itself.
+ *
+ * Cells are built by RailCellCache and are immutable. A cell still depends on blocks
+ * around it, which is why RailCellCache.invalidateAround drops the whole 3x3x3 box:
+ * - a switch block's footprint origin is found from its -X, -Z and diagonal neighbours
+ *   (SwitchFootprintIndex)
+ * - the orientation of straights and slopes comes from RailOrientationTable, which
+ *   re-resolves it from the neighbours when one of them changes
+ * - the segments, corner curve and connected edges are built from that origin and
+ *   orientation, so they change with them
+ */
+public final class RailCell {
+
+    // Edge constants matching MinecartPhysicsSystem
+    static final int EDGE_WEST = 0;   // -X direction
+    static final int EDGE_EAST = 1;   // +X direction
+    static final int EDGE_SOUTH = 2;  // +Z direction
+    static final int EDGE_NORTH = 3;  // -Z direction
+
+    /**
+     * Number of intermediate points between the ends of a smoothed curve
+     * (see CornerCurve). Higher values = smoother curves but more segments to test.
+     */
+    static final int CURVE_SMOOTHING_POINTS = 8;
+
+    // Segment layout in the segments array (world space, degenerate segments dropped):
+    // start xyz, delta xyz, length squared, length, horizontal length, horizontal unit xz
+    static final int SEG_X = 0, SEG_Y = 1, SEG_Z = 2;
+    static final int SEG_DX = 3, SEG_DY = 4, SEG_DZ = 5;
+    static final int SEG_LEN_SQ = 6, SEG_LEN = 7;
+    static final int SEG_HLEN = 8, SEG_HNX = 9, SEG_HNZ = 10;
+    static final int SEG_STRIDE = 11;
+
+    /**
+     * Sentinel for "no rail at this position" so empty lookups are cached too.
+     */
+    static final RailCell EMPTY = new RailCell();
+
+    final int blockX, blockY, blockZ;
+    final RailBlockDescriptor descriptor;
+    final int rotationIndex;
+
+    final boolean isSlope;
+    final boolean isTJunction;
+    final boolean isAccelerator;
+    final boolean isSwitch;
+    // Endpoints offset on both axes (geometry check, used for the misalignment penalty)
+    final boolean looksLikeCorner;
+    // Corner by geometry or by block ID (reported on the snap)
+    final boolean isCorner;
+
+    // Footprint origin (differs from the block position only for 2x2 switches)
+    final int originX, originZ;
+
+    // Slope data: downhill direction (0=+Z, 1=+X, 2=-Z, 3=-X), unit direction and endpoints
+    final int downhillDir;
+    // Edges at the high and low end of a slope (-1 for flat rails)
+    final int slopeHighEdge, slopeLowEdge;
+    final float slopeDirX, slopeDirY, slopeDirZ;
+    final double highX, highY, highZ;
+    final double lowX, lowY, lowZ;
+
+    // Corner table the segments were built from (null for other rails and for switches,
+    // whose segments are offset to the footprint origin). Segment i = table segment i.
+    final CornerCurve corner;
+
+    // Flat rail segments, see SEG_* layout
+    final double[] segments;
+    final int segmentCount;
+
+    // Which edges this rail connects to [WEST, EAST, SOUTH, NORTH]. Shared, never modified.
+    final boolean[] connectedEdges;
+
+    private RailCell() {
+        this.blockX = 0;
+        this.blockY = 0;
+        this.blockZ = 0;
+        this.descriptor = null;
+        this.rotationIndex = 0;
+        this.isSlope = false;
+        this.isTJunction = false;
+        this.isAccelerator = false;
+        this.isSwitch = false;
+        this.looksLikeCorner = false;
+        this.isCorner = false;
+        this.originX = 0;
+        this.originZ = 0;
+        this.downhillDir = 0;
+        this.slopeHighEdge = -1;
+        this.slopeLowEdge = -1;
+        this.slopeDirX = 0;
+        this.slopeDirY = 0;
+        this.slopeDirZ = 0;
+        this.highX = 0;
+        this.highY = 0;
+        this.highZ = 0;
+        this.lowX = 0;
+        this.lowY = 0;
+        this.lowZ = 0;
+        this.corner = null;
+        this.segments = new double[0];
+        this.segmentCount = 0;
+        this.connectedEdges = new boolean[4];
+    }
+
+    private RailCell(RailWorldView view, int blockX, int blockY, int blockZ, RailBlockDescriptor desc, int rotationIndex, RailPoint[] points) {
+        this.blockX = blockX;
+        this.blockY = blockY;
+        this.blockZ = blockZ;
+        this.descriptor = desc;
+        this.rotationIndex = rotationIndex;
+        this.isTJunction = desc.isTJunction;
+        this.isAccelerator = desc.isAccelerator;
+        this.isSwitch = desc.isSwitch;
+        this.isSlope = desc.isSlopeAt(rotationIndex);
+
+        // For multi-block footprint blocks (like 2x2 switch), the rail points are relative
+        // to the footprint origin, and need a rotation correction (see SwitchFootprintIndex)
+        int originX = blockX;
+        int originZ = blockZ;
+        double switchRotCorrX = 0, switchRotCorrZ = 0;
+        if (isSwitch) {
+            SwitchFootprintIndex.Footprint footprint =
+                SwitchFootprintIndex.forView(view).get(blockX, blockY, blockZ, desc);
+            if (footprint != null) {
+                originX = footprint.originX;
+                originZ = footprint.originZ;
+                switchRotCorrX = footprint.getRotationCorrectionX();
+                switchRotCorrZ = footprint.getRotationCorrectionZ();
+            }
+        }
+
+        this.originX = originX;
+        this.originZ = originZ;
+
+        // Compute effective rotation for flat rails
+        // This is needed both for the segments AND for edge detection
+        int effectiveRotation = 0;
+        boolean cornerShape = false;
+        if (!isSlope) {
+            cornerShape = desc.looksLikeCornerAt(rotationIndex);
+
+            if (!cornerShape && !desc.isCornerByName && !isSwitch) {
+                // Straight flat rails: Compare raw point orientation with neighbor expectations
+                // getRailConfig may return differently oriented points based on rotationIndex
+                // (e.g., rot=0 gives Z-aligned, rot=1 gives X-aligned)
+                // Only rotate if raw orientation doesn't match what neighbors expect
+                float rawDx = Math.abs(points[points.length-1].point.x - points[0].point.x);
+                float rawDz = Math.abs(points[points.length-1].point.z - points[0].point.z);
+                boolean rawIsXAligned = rawDx > rawDz;
+
+                int neighborDir = RailOrientationTable.forView(view).getFlatAxis(blockX, blockY, blockZ);
+                boolean desiredIsXAligned = (neighborDir == 1);
+
+                if (rawIsXAligned != desiredIsXAligned) {
+                    effectiveRotation = 1; // 90° rotation to fix alignment
+                }
+            }
+            // Corners and switches: raw points from getRailConfig are ALREADY oriented
+            // correctly for the visual appearance, regardless of rotationIndex.
+        }
+        this.looksLikeCorner = cornerShape;
+        this.isCorner = !isSlope && !isTJunction && (desc.isCornerByName || cornerShape);
+
+        if (isSlope) {
+            // For slopes: the direction comes from neighboring blocks since getRailConfig
+            // returns unrotated points regardless of actual block rotation (resolved and
+            // kept by RailOrientationTable)
+            this.downhillDir = RailOrientationTable.forView(view).getDownhillDir(blockX, blockY, blockZ);
+
+            // Direction vectors for downhill movement (normalized, 45° slope)
+            // Endpoints use the rail heights (1.1 for high, 0.1 for low based on rail data)
+            switch (downhillDir) {
+                case 1: slopeHighEdge = EDGE_WEST; slopeLowEdge = EDGE_EAST; break;
+                case 2: slopeHighEdge = EDGE_SOUTH; slopeLowEdge = EDGE_NORTH; break;
+                case 3: slopeHighEdge = EDGE_EAST; slopeLowEdge = EDGE_WEST; break;
+                default: slopeHighEdge = EDGE_NORTH; slopeLowEdge = EDGE_SOUTH; break;
+            }
+            switch (downhillDir) {
+                case 1: // +X downhill
+                    slopeDirX = 0.707f; slopeDirY = -0.707f; slopeDirZ = 0;
+                    highX = blockX + 0.0; highY = blockY + 1.1; highZ = blockZ + 0.5;
+                    lowX = blockX + 1.0; lowY = blockY + 0.1; lowZ = blockZ + 0.5;
+                    break;
+                case 2: // -Z downhill
+                    slopeDirX = 0; slopeDirY = -0.707f; slopeDirZ = -0.707f;
+                    highX = blockX + 0.5; highY = blockY + 1.1; highZ = blockZ + 1.0;
+                    lowX = blockX + 0.5; lowY = blockY + 0.1; lowZ = blockZ + 0.0;
+                    break;
+                case 3: // -X downhill
+                    slopeDirX = -0.707f; slopeDirY = -0.707f; slopeDirZ = 0;
+                    highX = blockX + 1.0; highY = blockY + 1.1; highZ = blockZ + 0.5;
+                    lowX = blockX + 0.0; lowY = blockY + 0.1; lowZ = blockZ + 0.5;
+                    break;
+                default: // 0: +Z downhill
+                    slopeDirX = 0; slopeDirY = -0.707f; slopeDirZ = 0.707f;
+                    highX = blockX + 0.5; highY = blockY + 1.1; highZ = blockZ + 0.0;
+                    lowX = blockX + 0.5; lowY = blockY + 0.1; lowZ = blockZ + 1.0;
+                    break;
+            }
+            this.corner = null;
+            this.segments = new double[0];
+            this.segmentCount = 0;
+            // Slopes report no connected edges
+            this.connectedEdges = new boolean[4];
+            return;
+        }
+
+        this.downhillDir = 0;
+        this.slopeHighEdge = -1;
+        this.slopeLowEdge = -1;
+        this.slopeDirX = 0;
+        this.slopeDirY = 0;
+        this.slopeDirZ = 0;
+        this.highX = 0;
+        this.highY = 0;
+        this.highZ = 0;
+        this.lowX = 0;
+        this.lowY = 0;
+        this.lowZ = 0;
+
+        // For multi-block footprints, use origin position; otherwise use blockX/Z
+        int baseX = isSwitch ? originX : blockX;
+        int baseZ = isSwitch ? originZ : blockZ;
+
+        // For corners, use the descriptor's smoothed (equal arc-length) curve instead of the raw points
+        CornerCurve cornerCurve = cornerShape || desc.isCornerByName ? desc.getCornerCurve(rotationIndex) : null;
+        double[] curve;
+        if (cornerCurve != null) {
+            curve = cornerCurve.getPoints();
+        } else {
+            curve = new double[points.length * 3];
+            for (int i = 0; i < points.length; i++) {
+                curve[i * 3] = points[i].point.x;
+                curve[i * 3 + 1] = points[i].point.y;
+                curve[i * 3 + 2] = points[i].point.z;
+            }
+        }
+
+        int numPoints = curve.length / 3;
+        double[] segs = new double[Math.max(0, numPoints - 1) * SEG_STRIDE];
+        int count = 0;
+        for (int i = 0; i < numPoints - 1; i++) {
+            double[] rot1 = rotatePoint(curve[i * 3], curve[i * 3 + 2], effectiveRotation);
+            double[] rot2 = rotatePoint(curve[(i + 1) * 3], curve[(i + 1) * 3 + 2], effectiveRotation);
+
+            double px1 = baseX + rot1[0] + switchRotCorrX;
+            double wy1 = blockY + curve[i * 3 + 1];
+            double pz1 = baseZ + rot1[1] + switchRotCorrZ;
+            double sX = baseX + rot2[0] + switchRotCorrX - px1;
+            double sY = blockY + curve[(i + 1) * 3 + 1] - wy1;
+            double sZ = baseZ + rot2[1] + switchRotCorrZ - pz1;
+            double sLenSq = sX * sX + sY * sY + sZ * sZ;
+            if (sLenSq < 0.0001) continue;
+
+            double hLen = Math.sqrt(sX * sX + sZ * sZ);
+            int o = count * SEG_STRIDE;
+            segs[o + SEG_X] = px1;
+            segs[o + SEG_Y] = wy1;
+            segs[o + SEG_Z] = pz1;
+            segs[o + SEG_DX] = sX;
+            segs[o + SEG_DY] = sY;
+            segs[o + SEG_DZ] = sZ;
+            segs[o + SEG_LEN_SQ] = sLenSq;
+            segs[o + SEG_LEN] = Math.sqrt(sLenSq);
+            segs[o + SEG_HLEN] = hLen;
+            segs[o + SEG_HNX] = hLen > 0.01 ? sX / hLen : 0;
+            segs[o + SEG_HNZ] = hLen > 0.01 ? sZ / hLen : 0;
+            count++;
+        }
+        this.segments = segs;
+        this.segmentCount = count;
+        // Only usable for lookups when every table segment made it into the cell unchanged
+        this.corner = cornerCurve != null && !isSwitch && count == cornerCurve.getPointCount() - 1 ? cornerCurve : null;
+
+        // Detect connected edges using BLOCK ID and RAIL POINTS
+        // NOT neighbor detection - a neighboring rail doesn't mean connection!
+        boolean[] edges = new boolean[4];
+        if (isTJunction) {
+            // T-JUNCTION: Use rotation-based edges
+            // Based on in-game verification:
+            // Rotation 0: stem SOUTH, bar E-W, closed NORTH
+            // Rotation 1: stem EAST, bar N-S, closed WEST
+            // Rotation 2: stem NORTH, bar E-W, closed SOUTH
+            // Rotation 3: stem WEST, bar N-S, closed EAST
+            switch (rotationIndex) {
+                case 0:
+                    edges[EDGE_SOUTH] = true;
+                    edges[EDGE_EAST] = true;
+                    edges[EDGE_WEST] = true;
+                    break;
+                case 1:
+                    edges[EDGE_EAST] = true;
+                    edges[EDGE_NORTH] = true;
+                    edges[EDGE_SOUTH] = true;
+                    break;
+                case 2:
+                    edges[EDGE_NORTH] = true;
+                    edges[EDGE_EAST] = true;
+                    edges[EDGE_WEST] = true;
+                    break;
+                case 3:
+                    edges[EDGE_WEST] = true;
+                    edges[EDGE_NORTH] = true;
+                    edges[EDGE_SOUTH] = true;
+                    break;
+            }
+        } else {
+            // CORNER or STRAIGHT: endpoints (rotated by effectiveRotation) tell us which edges connect
+            RailPoint firstPt = points[0];
+            RailPoint lastPt = points[points.length - 1];
+            double[] rotFirst = rotatePoint(firstPt.point.x, firstPt.point.z, effectiveRotation);
+            double[] rotLast = rotatePoint(lastPt.point.x, lastPt.point.z, effectiveRotation);
+
+            if (isCorner && isSwitch) {
+                // For 2x2 footprint switches, apply rotation correction and scale
+                // to 0-1 range so getEdgeFromPoint works correctly
+                edges[getEdgeFromPoint((float)((rotFirst[0] + switchRotCorrX) / 2.0), (float)((rotFirst[1] + switchRotCorrZ) / 2.0))] = true;
+                edges[getEdgeFromPoint((float)((rotLast[0] + switchRotCorrX) / 2.0), (float)((rotLast[1] + switchRotCorrZ) / 2.0))] = true;
+            } else {
+                edges[getEdgeFromPoint((float)rotFirst[0], (float)rotFirst[1])] = true;
+                edges[getEdgeFromPoint((float)rotLast[0], (float)rotLast[1])] = true;
+            }
+        }
+        this.connectedEdges = edges;
+    }
+
+    /**
+     * Compile the rail cell at a position.
+     * @return The compiled cell, or EMPTY if there is no rail there
+     */
+    static RailCell compile(RailWorldView view, int blockX, int blockY, int blockZ) {
+        RailBlockDescriptor desc = view.getBlock(blockX, blockY, blockZ);
+        if (desc == null) return EMPTY;
+
+        int rotationIndex = view.getRotationIndex(blockX, blockY, blockZ);
+        RailPoint[] points = desc.getRailPoints(rotationIndex);
+        if (points == null) return EMPTY;
+
+        return new RailCell(view, blockX, blockY, blockZ, desc, rotationIndex, points);
+    }
+
+    boolean isEmpty() {
+        return this == EMPTY;
+    }
+
+    /**
+     * Whether track leaves this cell through the given edge.
+     * Unlike connectedEdges (which the physics leaves empty for slopes), this
+     * includes the high and low ends of slopes.
+     */
+    boolean linksEdge(int edge) {
+        if (isSlope) {
+            return edge == slopeHighEdge || edge == slopeLowEdge;
+        }
+        return connectedEdges[edge];
+    }
+
+    /**
+     * World Y of the track where it crosses the given edge.
+     * Two cells only join if their heights match at the shared edge.
+     */
+    double portHeight(int edge) {
+        if (isSlope && edge == slopeHighEdge) {
+            return highY;
+        }
+        return blockY + 0.1;
+    }
+
+    // ==================== GEOMETRY HELPERS ====================
+
+    /**
+     * Detect slope direction by examining neighboring blocks.
+     * Returns: 0=+Z downhill, 1=+X downhill, 2=-Z downhill, 3=-X downhill,
+     * or -1 if no neighbour decides it (see RailOrientationTable)
+     */
+    static int detectSlopeDirectionFromNeighbors(RailWorldView view, int x, int y, int z) {
+        // Check each direction for a rail or slope at Y-1 level (bottom of slope)
+        // The direction where we find a lower rail is the downhill direction
+        int[][] dirs = {{0, 1}, {1, 0}, {0, -1}, {-1, 0}}; // +Z, +X, -Z, -X
+
+        // Strategy 1: Look for rail at Y-1 in each direction (bottom connection)
+        for (int i = 0; i < 4; i++) {
+            int nx = x + dirs[i][0];
+            int nz = z + dirs[i][1];
+            if (hasRailAt(view, nx, y - 1, nz)) {
+                return i; // Found rail below in this direction = downhill
+            }
+        }
+
+        // Strategy 2: Look for slope rail at Y-1 in each direction (continuing slope)
+        for (int i = 0; i < 4; i++) {
+            int nx = x + dirs[i][0];
+            int nz = z + dirs[i][1];
+            if (hasSlopeRailAt(view, nx, y - 1, nz)) {
+                return i;
+            }
+        }
+
+        // Strategy 3: Look for flat rail at same Y level - flat connects to slope's LOW point
+        // So the downhill direction is TOWARDS the flat rail (same direction i)
+        for (int i = 0; i < 4; i++) {
+            int nx = x + dirs[i][0];
+            int nz = z + dirs[i][1];
+            RailBlockDescriptor adj = view.getBlock(nx, y, nz);
+            if (adj != null && adj.hasRailConfig && !adj.baseIsSlope) { // It's flat
+                return i; // Downhill direction is towards the flat rail
+            }
+        }
+
+        // Strategy 4: Look for slope at Y+1 level (connecting from above at high point)
+        // The adjacent slope's low point connects to our high point, so downhill is opposite
+        for (int i = 0; i < 4; i++) {
+            int nx = x + dirs[i][0];
+            int nz = z + dirs[i][1];
+            if (hasRailAt(view, nx, y + 1, nz)) {
+                return (i + 2) % 4; // Opposite direction is downhill
+            }
+        }
+
+        // Undecided (RailOrientationTable keeps the last answer, or +Z downhill)
+        return -1;
+    }
+
+    /**
+     * Detect flat rail direction by examining neighboring blocks.
+     * Returns: 0=Z-aligned (no rotation), 1=X-aligned (90° rotation),
+     * or -1 if no neighbour decides it (see RailOrientationTable)
+     */
+    static int detectFlatRailDirectionFromNeighbors(RailWorldView view, int x, int y, int z) {
+        // Check which directions have connecting rails
+        // If we find rails in +X or -X directions but not in +Z/-Z, rail is X-aligned (rotation 1)
+        // If we find rails in +Z or -Z directions but not in +X/-X, rail is Z-aligned (rotation 0)
+
+        boolean hasRailPosX = hasRailAt(view, x + 1, y, z) || hasRailAt(view, x + 1, y - 1, z) || hasRailAt(view, x + 1, y + 1, z);
+        boolean hasRailNegX = hasRailAt(view, x - 1, y, z) || hasRailAt(view, x - 1, y - 1, z) || hasRailAt(view, x - 1, y + 1, z);
+        boolean hasRailPosZ = hasRailAt(view, x, y, z + 1) || hasRailAt(view, x, y - 1, z + 1) || hasRailAt(view, x, y + 1, z + 1);
+        boolean hasRailNegZ = hasRailAt(view, x, y, z - 1) || hasRailAt(view, x, y - 1, z - 1) || hasRailAt(view, x, y + 1, z - 1);
+
+        boolean xAxis = hasRailPosX || hasRailNegX;
+        boolean zAxis = hasRailPosZ || hasRailNegZ;
+
+        // If X-axis connections found but no Z-axis, rail runs in X direction
+        if (xAxis && !zAxis) {
+            return 1; // 90° rotation = X-aligned
+        }
+        // If Z-axis connections found but no X-axis, rail runs in Z direction
+        if (zAxis && !xAxis) {
+            return 0; // No rotation = Z-aligned
+        }
+        // If both or neither, check for slope connections which are more reliable
+        // A slope at Y+1 or Y-1 in a direction tells us where this rail connects
+
+        // Check for slopes at each direction
+        for (int dir = 0; dir < 4; dir++) {
+            int dx = (dir == 1) ? 1 : (dir == 3) ? -1 : 0;
+            int dz = (dir == 0) ? 1 : (dir == 2) ? -1 : 0;
+
+            // Check for slope at same level connecting to us
+            if (hasSlopeRailAt(view, x + dx, y, z + dz)) {
+                // This is a slope - flat rail connects to it
+                return (dir == 1 || dir == 3) ? 1 : 0; // X-dir slopes = X-aligned rail, Z-dir slopes = Z-aligned
+            }
+
+            // Check for slope below
+            if (hasSlopeRailAt(view, x + dx, y - 1, z + dz)) {
+                return (dir == 1 || dir == 3) ? 1 : 0;
+            }
+        }
+
+        // Undecided (RailOrientationTable keeps the last answer, or Z-aligned)
+        return -1;
+    }
+
+    /**
+     * Check if there's a rail at the given position.
+     */
+    static boolean hasRailAt(RailWorldView view, int x, int y, int z) {
+        return RailOccupancy.forView(view).hasRail(x, y, z);
+    }
+
+    /**
+     * Check if there's a sloped rail (endpoints at different heights) at the given position.
+     */
+    static boolean hasSlopeRailAt(RailWorldView view, int x, int y, int z) {
+        RailBlockDescriptor desc = view.getBlock(x, y, z);
+        return desc != null && desc.baseIsSlope;
+    }
+
+    // Determine which edge a rail point is at based on block-local coordinates (0-1 range)
+    // NORTH = -Z, SOUTH = +Z
+    // x ≈ 0 → WEST (-X edge), x ≈ 1 → EAST (+X edge)
+    // z ≈ 0 → NORTH (-Z edge), z ≈ 1 → SOUTH (+Z edge)
+    static int getEdgeFromPoint(float x, float z) {
+        // Check which coordinate is closest to an edge (0 or 1)
+        float distWest = x;           // distance to x=0 (WEST edge, -X side)
+        float distEast = 1.0f - x;    // distance to x=1 (EAST edge, +X side)
+        float distNorth = z;          // distance to z=0 (NORTH edge, -Z side)
+        float distSouth = 1.0f - z;   // distance to z=1 (SOUTH edge, +Z side)
+
+        // Find the minimum distance to determine which edge
+        float minDist = Math.min(Math.min(distWest, distEast), Math.min(distNorth, distSouth));
+
+        if (minDist == distWest) return EDGE_WEST;
+        if (minDist == distEast) return EDGE_EAST;
+        if (minDist == distNorth) return EDGE_NORTH;
+        return EDGE_SOUTH;
+    }
+
+    /**
+     * Rotate a point around the block center (0.5, 0.5) based on rotation index.
+     * rotationIndex: 0=no rotation, 1=90° CW, 2=180°, 3=270° CW (or 90° CCW)
+     * Returns [rotatedX, rotatedZ]
+     */
+    static double[] rotatePoint(double x, double z, int rotationIndex) {
+        // Center of block is (0.5, 0.5)
+        double cx = 0.5, cz = 0.5;
+        double dx = x - cx;
+        double dz = z - cz;
+
+        double rotX, rotZ;
+        switch (rotationIndex % 4) {
+            case 0: // No rotation
+                rotX = dx;
+                rotZ = dz;
+                break;
+            case 1: // 90° clockwise: (dx, dz) -> (dz, -dx)
+                rotX = dz;
+                rotZ = -dx;
+                break;
+            case 2: // 180°: (dx, dz) -> (-dx, -dz)
+                rotX = -dx;
+                rotZ = -dz;
+                break;
+            case 3: // 270° clockwise (90° CCW): (dx, dz) -> (-dz, dx)
+                rotX = -dz;
+                rotZ = dx;
+                break;
+            default:
+                rotX = dx;
+                rotZ = dz;
+                break;
+        }
+
+        return new double[] { cx + rotX, cz + rotZ };
+    }
+}
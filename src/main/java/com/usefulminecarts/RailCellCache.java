@@ -0,0 +1,160 @@
+package com.usefulminecarts;
+
+import com.hypixel.hytale.server.core.universe.world.World;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-world cache of compiled RailCells, stored sparsely per chunk.
+ *
+ * Cells are keyed by chunk index and then by packed local coordinate, and
+ * positions without a rail are cached as RailCell.EMPTY so repeated probes of
+ * air around the track are just as cheap.
+ *
+ * Chunks are kept in a ChunkStore: if a chunk was unloaded and loaded again, its cells
+ * are thrown away on the next lookup.
+ * Block changes drop the changed cell and its neighbours (see RailBlockChangeSystem).
+ *
+ * Only accessed from the owning world's thread, except while frozen (see freeze()).
+ */
+public final class RailCellCache {
+
+    /**
+     * Thrown by lookups on a frozen cache or network that would have to read the world.
+     * Preallocated - it is control flow for ParallelCartIntegrator, not an error.
+     */
+    static final class NotCachedException extends RuntimeException {
+        static final NotCachedException INSTANCE = new NotCachedException();
+
+        private NotCachedException() {
+            super("Rail data not cached", null, false, false);
+        }
+    }
+
+    private static final Map<RailWorldView, RailCellCache> caches = new ConcurrentHashMap<>();
+
+    private final RailWorldView view;
+    // Packed local position (ChunkStore.packLocal) -> cell
+    private final ChunkStore<Int2ObjectOpenHashMap<RailCell>> chunks;
+    // Set by the world thread around a parallel phase, while it waits for the workers
+    private boolean frozen;
+
+    private RailCellCache(RailWorldView view) {
+        this.view = view;
+        this.chunks = new ChunkStore<>(view, Int2ObjectOpenHashMap::new);
+    }
+
+    /**
+     * Get the cell cache for a world, creating it on first use.
+     */
+    public static RailCellCache forWorld(World world) {
+        return forView(WorldRailView.of(world));
+    }
+
+    /**
+     * Get the cell cache for a rail world view, creating it on first use.
+     */
+    public static RailCellCache forView(RailWorldView view) {
+        return caches.computeIfAbsent(view, RailCellCache::new);
+    }
+
+    /**
+     * Drop the cache for every world (plugin shutdown / asset reload).
+     */
+    public static void clearAll() {
+        caches.clear();
+    }
+
+    /**
+     * Drop the cache for one world (the world was removed, see WorldRailView.onWorldRemoved).
+     */
+    static void remove(RailWorldView view) {
+        caches.remove(view);
+    }
+
+    /**
+     * Get the compiled rail cell at a block position.
+     * @return The cell, or null if there is no rail there or the chunk isn't loaded
+     */
+    public RailCell get(int blockX, int blockY, int blockZ) {
+        int key = ChunkStore.packLocal(blockX, blockY, blockZ);
+        if (frozen) {
+            return getCached(blockX, blockZ, key);
+        }
+        Int2ObjectOpenHashMap<RailCell> cells = chunks.get(blockX, blockZ);
+        if (cells == null) return null;
+
+        RailCell cell = cells.get(key);
+        if (cell == null) {
+            cell = RailCell.compile(view, blockX, blockY, blockZ);
+            cells.put(key, cell);
+        }
+        return cell.isEmpty() ? null : cell;
+    }
+
+    private RailCell getCached(int blockX, int blockZ, int key) {
+        Int2ObjectOpenHashMap<RailCell> cells = chunks.getIfPresent(blockX, blockZ);
+        RailCell cell = cells != null ? cells.get(key) : null;
+        if (cell == null) throw NotCachedException.INSTANCE;
+        return cell.isEmpty() ? null : cell;
+    }
+
+    /**
+     * Make the cache read-only so it can be shared by worker threads: lookups only see
+     * what is already cached and throw NotCachedException for anything else.
+     * The world thread must not touch the cache (or block changes) until thaw().
+     */
+    void freeze() {
+        frozen = true;
+    }
+
+    void thaw() {
+        frozen = false;
+    }
+
+    /**
+     * Drop the cell at a position and every cell whose compiled data could depend on it
+     * (the surrounding 3x3x3 box: neighbour direction checks, slope detection and switch
+     * footprint origins all look one block away).
+     */
+    public void invalidateAround(int blockX, int blockY, int blockZ) {
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                int x = blockX + dx;
+                int z = blockZ + dz;
+                Int2ObjectOpenHashMap<RailCell> cells = chunks.getIfPresent(x, z);
+                if (cells == null) continue;
+                for (int dy = -1; dy <= 1; dy++) {
+                    cells.remove(ChunkStore.packLocal(x, blockY + dy, z));
+                }
+            }
+        }
+    }
+
+    /**
+     * Drop every cached cell for this world.
+     */
+    public void clear() {
+        chunks.clear();
+    }
+
+    /**
+     * Number of cached cells (including empty ones) for diagnostics.
+     */
+    public int size() {
+        return chunks.sum(Int2ObjectOpenHashMap::size);
+    }
+
+    /**
+     * Invalidate around a changed block in the given world, if a cache exists for it.
+     */
+    public static void onBlockChanged(RailWorldView view, int blockX, int blockY, int blockZ) {
+        if (view == null) return;
+        RailCellCache cache = caches.get(view);
+        if (cache != null) {
+            cache.invalidateAround(blockX, blockY, blockZ);
+        }
+    }
+}
@@ -9,9 +9,7 @@ import com.hypixel.hytale.component.system.tick.EntityTickingSystem;
 import com.hypixel.hytale.logger.HytaleLogger;
 import com.hypixel.hytale.math.util.ChunkUtil;
 import com.hypixel.hytale.math.vector.Vector3i;
-import com.hypixel.hytale.protocol.RailConfig;
 import com.hypixel.hytale.protocol.RailPoint;
-import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
 import com.hypixel.hytale.server.core.entity.EntityUtils;
 import com.hypixel.hytale.server.core.entity.entities.Player;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
@@ -61,6 +59,13 @@ public class RailDebugSystem extends EntityTickingSystem<EntityStore> {
     @Override
     public void tick(float dt, int index, @Nonnull ArchetypeChunk<EntityStore> archetypeChunk,
                      @Nonnull Store<EntityStore> store, @Nonnull CommandBuffer<EntityStore> commandBuffer) {
+        long start = System.nanoTime();
+        tickPlayer(dt, index, archetypeChunk, store, commandBuffer);
+        TickTimings.record(TickTimings.Phase.RAIL_DEBUG, start);
+    }
+
+    private void tickPlayer(float dt, int index, @Nonnull ArchetypeChunk<EntityStore> archetypeChunk,
+                            @Nonnull Store<EntityStore> store, @Nonnull CommandBuffer<EntityStore> commandBuffer) {
         final Holder<EntityStore> holder = EntityUtils.toHolder(index, archetypeChunk);
         final Player player = holder.getComponent(Player.getComponentType());
         final PlayerRef playerRef = holder.getComponent(PlayerRef.getComponentType());
@@ -94,46 +99,33 @@ public class RailDebugSystem extends EntityTickingSystem<EntityStore> {
         int blockZ = targetPos.z;
 
         // Get block info
-        BlockType blockType = world.getBlockType(blockX, blockY, blockZ);
-        if (blockType == null) {
+        RailWorldView rails = WorldRailView.of(world);
+        RailBlockDescriptor desc = rails.getBlock(blockX, blockY, blockZ);
+        if (desc == null) {
             LOGGER.atInfo().log("[RailDebug] Player %s: No block at (%d, %d, %d)", playerUuid, blockX, blockY, blockZ);
             return;
         }
 
-        String blockTypeName = blockType.toString();
-        int rotationIndex = world.getBlockRotationIndex(blockX, blockY, blockZ);
+        int rotationIndex = rails.getRotationIndex(blockX, blockY, blockZ);
 
         LOGGER.atInfo().log("========== RAIL DEBUG INFO ==========");
         LOGGER.atInfo().log("[RailDebug] Block Position: (%d, %d, %d)", blockX, blockY, blockZ);
-//        LOGGER.atInfo().log("[RailDebug] Block Type: %s", blockTypeName);
         LOGGER.atInfo().log("[RailDebug] Rotation Index: %d", rotationIndex);
 
-        // Extract block ID for type detection
-        String blockId = extractBlockId(blockTypeName);
-        boolean isTJunction = blockId != null && blockId.endsWith("_T");
+        // Block ID for type detection
+        String blockId = desc.blockId;
+        boolean isTJunction = desc.isTJunction;
         LOGGER.atInfo().log("[RailDebug] Block ID: %s", blockId);
         LOGGER.atInfo().log("[RailDebug] Is T-Junction (by name): %b", isTJunction);
 
-        // Get rail config
-        RailConfig railConfig = blockType.getRailConfig(rotationIndex);
-        if (railConfig == null || railConfig.points == null || railConfig.points.length < 2) {
-            // Try other rotations
-            for (int rot = 0; rot < 4; rot++) {
-                railConfig = blockType.getRailConfig(rot);
-                if (railConfig != null && railConfig.points != null && railConfig.points.length >= 2) {
-                    LOGGER.atInfo().log("[RailDebug] Found rail config at rotation %d (not %d)", rot, rotationIndex);
-                    break;
-                }
-            }
-        }
-
-        if (railConfig == null || railConfig.points == null || railConfig.points.length < 2) {
+        // Get rail points (falls back to the first rotation that has a rail config)
+        RailPoint[] points = desc.getRailPoints(rotationIndex);
+        if (points == null) {
             LOGGER.atInfo().log("[RailDebug] NOT A RAIL BLOCK (no rail config found)");
             LOGGER.atInfo().log("==========================================");
             return;
         }
 
-        RailPoint[] points = railConfig.points;
         LOGGER.atInfo().log("[RailDebug] Rail Points Count: %d", points.length);
 
         // Log each rail point
@@ -155,18 +147,18 @@ public class RailDebugSystem extends EntityTickingSystem<EntityStore> {
 
         // Check neighboring rails
         // Standard: NORTH = -Z, SOUTH = +Z
-        boolean hasWest = hasRailAt(world, blockX - 1, blockY, blockZ)
-                       || hasRailAt(world, blockX - 1, blockY - 1, blockZ)
-                       || hasRailAt(world, blockX - 1, blockY + 1, blockZ);
-        boolean hasEast = hasRailAt(world, blockX + 1, blockY, blockZ)
-                       || hasRailAt(world, blockX + 1, blockY - 1, blockZ)
-                       || hasRailAt(world, blockX + 1, blockY + 1, blockZ);
-        boolean hasSouth = hasRailAt(world, blockX, blockY, blockZ + 1)
-                        || hasRailAt(world, blockX, blockY - 1, blockZ + 1)
-                        || hasRailAt(world, blockX, blockY + 1, blockZ + 1);
-        boolean hasNorth = hasRailAt(world, blockX, blockY, blockZ - 1)
-                        || hasRailAt(world, blockX, blockY - 1, blockZ - 1)
-                        || hasRailAt(world, blockX, blockY + 1, blockZ - 1);
+        boolean hasWest = hasRailAt(rails, blockX - 1, blockY, blockZ)
+                       || hasRailAt(rails, blockX - 1, blockY - 1, blockZ)
+                       || hasRailAt(rails, blockX - 1, blockY + 1, blockZ);
+        boolean hasEast = hasRailAt(rails, blockX + 1, blockY, blockZ)
+                       || hasRailAt(rails, blockX + 1, blockY - 1, blockZ)
+                       || hasRailAt(rails, blockX + 1, blockY + 1, blockZ);
+        boolean hasSouth = hasRailAt(rails, blockX, blockY, blockZ + 1)
+                        || hasRailAt(rails, blockX, blockY - 1, blockZ + 1)
+                        || hasRailAt(rails, blockX, blockY + 1, blockZ + 1);
+        boolean hasNorth = hasRailAt(rails, blockX, blockY, blockZ - 1)
+                        || hasRailAt(rails, blockX, blockY - 1, blockZ - 1)
+                        || hasRailAt(rails, blockX, blockY + 1, blockZ - 1);
 
         LOGGER.atInfo().log("[RailDebug] Connected Edges:");
         LOGGER.atInfo().log("[RailDebug]   WEST (-X): %b", hasWest);
@@ -179,7 +171,7 @@ public class RailDebugSystem extends EntityTickingSystem<EntityStore> {
 
         // Determine junction type using BLOCK ID and GEOMETRY (not neighbor count!)
         // This matches what MinecartPhysicsSystem uses for actual rail navigation
-        boolean isCornerByName = blockId != null && blockId.contains("_Corner");
+        boolean isCornerByName = desc.isCornerByName;
         String junctionType = "STRAIGHT";
         if (isTJunction) {
             junctionType = "T-JUNCTION";
@@ -226,53 +218,31 @@ public class RailDebugSystem extends EntityTickingSystem<EntityStore> {
         // Log neighbor block info
         // Standard: NORTH = -Z, SOUTH = +Z
         LOGGER.atInfo().log("[RailDebug] Neighbor Blocks:");
-        logNeighborRail(world, blockX - 1, blockY, blockZ, "WEST (-X)");
-        logNeighborRail(world, blockX + 1, blockY, blockZ, "EAST (+X)");
-        logNeighborRail(world, blockX, blockY, blockZ + 1, "SOUTH (+Z)");
-        logNeighborRail(world, blockX, blockY, blockZ - 1, "NORTH (-Z)");
+        logNeighborRail(rails, blockX - 1, blockY, blockZ, "WEST (-X)");
+        logNeighborRail(rails, blockX + 1, blockY, blockZ, "EAST (+X)");
+        logNeighborRail(rails, blockX, blockY, blockZ + 1, "SOUTH (+Z)");
+        logNeighborRail(rails, blockX, blockY, blockZ - 1, "NORTH (-Z)");
 
         LOGGER.atInfo().log("==========================================");
     }
 
-    private String extractBlockId(String blockTypeName) {
-        if (blockTypeName == null) return null;
-        int idStart = blockTypeName.indexOf("id=");
-        if (idStart >= 0) {
-            idStart += 3;
-            int idEnd = blockTypeName.indexOf(",", idStart);
-            if (idEnd < 0) idEnd = blockTypeName.indexOf("}", idStart);
-            if (idEnd > idStart) {
-                return blockTypeName.substring(idStart, idEnd).trim();
-            }
-        }
-        return null;
+    private boolean hasRailAt(RailWorldView rails, int x, int y, int z) {
+        RailBlockDescriptor desc = rails.getBlock(x, y, z);
+        return desc != null && desc.hasRailConfig;
     }
 
-    private boolean hasRailAt(World world, int x, int y, int z) {
-        BlockType blockType = world.getBlockType(x, y, z);
-        if (blockType == null) return false;
-        RailConfig rail = blockType.getRailConfig(0);
-        return rail != null && rail.points != null && rail.points.length >= 2;
-    }
-
-    private void logNeighborRail(World world, int x, int y, int z, String direction) {
-        BlockType blockType = world.getBlockType(x, y, z);
-        if (blockType == null) {
+    private void logNeighborRail(RailWorldView rails, int x, int y, int z, String direction) {
+        RailBlockDescriptor desc = rails.getBlock(x, y, z);
+        if (desc == null) {
             LOGGER.atInfo().log("[RailDebug]   %s: (no block)", direction);
             return;
         }
 
-        String blockId = extractBlockId(blockType.toString());
-        int rotIdx = world.getBlockRotationIndex(x, y, z);
-        RailConfig rail = blockType.getRailConfig(rotIdx);
-        boolean isRail = rail != null && rail.points != null && rail.points.length >= 2;
-
-        if (isRail) {
-            float yDiff = Math.abs(rail.points[rail.points.length - 1].point.y - rail.points[0].point.y);
-            boolean isSlope = yDiff > 0.1f;
-            LOGGER.atInfo().log("[RailDebug]   %s: RAIL - %s, rot=%d, slope=%b", direction, blockId, rotIdx, isSlope);
+        int rotIdx = rails.getRotationIndex(x, y, z);
+        if (desc.getRailPoints(rotIdx) != null) {
+            LOGGER.atInfo().log("[RailDebug]   %s: RAIL - %s, rot=%d, slope=%b", direction, desc.blockId, rotIdx, desc.isSlopeAt(rotIdx));
         } else {
-            LOGGER.atInfo().log("[RailDebug]   %s: %s (not a rail)", direction, blockId);
+            LOGGER.atInfo().log("[RailDebug]   %s: %s (not a rail)", direction, desc.blockId);
         }
     }
 
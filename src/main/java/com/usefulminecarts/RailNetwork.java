@@ -0,0 +1,695 @@
+package com.usefulminecarts;
+
+import com.hypixel.hytale.server.core.universe.world.World;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Graph view of the track in a world.
+ *
+ * Contiguous runs of straight, slope, accelerator and corner cells are collapsed
+ * into Segments (a polyline with two ends). T-junctions and 2x2 switches become
+ * Nodes with typed Ports, and so do bumpers at the end of a run.
+ *
+ * The graph is built lazily from compiled RailCells: the first query that touches a
+ * position builds the element containing it. Element ids are never reused. Links
+ * between elements are stored as positions and resolved on demand, so a block change
+ * only has to drop the elements near it (see onBlockChanged) and everything else
+ * stays valid.
+ *
+ * Connectivity comes from the cells (the same edges the physics uses), not from the
+ * RailPathDefinition tables, whose rotated edge lookup doesn't match in-game rotation.
+ *
+ * Only accessed from the owning world's thread, except while frozen (see freeze()).
+ */
+public final class RailNetwork {
+
+    private static final Map<RailWorldView, RailNetwork> networks = new ConcurrentHashMap<>();
+
+    // Longest run walked in one direction before a segment is cut (guards huge loops)
+    private static final int MAX_SEGMENT_CELLS = 4096;
+
+    // Port heights must match this closely for two cells to join
+    private static final double PORT_HEIGHT_TOLERANCE = 0.25;
+
+    // Horizontal offsets per edge [WEST, EAST, SOUTH, NORTH]
+    private static final int[] EDGE_DX = {-1, 1, 0, 0};
+    private static final int[] EDGE_DZ = {0, 0, 1, -1};
+
+    // Vertical order to look for a neighbour across an edge
+    private static final int[] NEIGHBOUR_DY = {0, -1, 1};
+
+    /**
+     * Node kinds.
+     */
+    public enum NodeType {
+        T_JUNCTION,
+        SWITCH,
+        BUMPER
+    }
+
+    /**
+     * Port kinds.
+     * T-junctions have one STEM and two BAR ports; switch ports are all SWITCH;
+     * a bumper has a single BUFFER port facing the track.
+     */
+    public enum PortType {
+        STEM,
+        BAR,
+        SWITCH,
+        BUFFER
+    }
+
+    /**
+     * A run of cells between two nodes / open ends.
+     */
+    public static final class Segment {
+        public final int id;
+        // Cell positions in travel order (packed with packPos)
+        final long[] cells;
+        // Polyline through the cells in the same order, xyz triples
+        final double[] points;
+        // Index into points (in points, not doubles) where each cell's part starts
+        final int[] cellPointStart;
+        // Arc length from the start of the polyline to each point
+        final double[] arcLength;
+        public final double length;
+        // True if the run closes on itself with no nodes
+        public final boolean closed;
+        // Edge leaving the first/last cell at each end
+        public final int startEdge, endEdge;
+        // Position just past each end (the neighbouring node cell / bumper block), or NONE if open
+        final long startNeighbour, endNeighbour;
+
+        Segment(int id, long[] cells, double[] points, int[] cellPointStart, double[] arcLength, boolean closed,
+                int startEdge, int endEdge, long startNeighbour, long endNeighbour) {
+            this.id = id;
+            this.cells = cells;
+            this.points = points;
+            this.cellPointStart = cellPointStart;
+            this.arcLength = arcLength;
+            this.length = arcLength.length > 0 ? arcLength[arcLength.length - 1] : 0;
+            this.closed = closed;
+            this.startEdge = startEdge;
+            this.endEdge = endEdge;
+            this.startNeighbour = startNeighbour;
+            this.endNeighbour = endNeighbour;
+        }
+
+        public int getCellCount() {
+            return cells.length;
+        }
+
+        public int getPointCount() {
+            return points.length / 3;
+        }
+
+        /**
+         * Index into cells of the cell that owns the polyline piece from point
+         * {@code piece} to point {@code piece + 1}.
+         */
+        int cellIndexAtPiece(int piece) {
+            int lo = 0, hi = cellPointStart.length - 1;
+            while (lo < hi) {
+                int mid = (lo + hi + 1) >>> 1;
+                if (cellPointStart[mid] <= piece + 1) lo = mid;
+                else hi = mid - 1;
+            }
+            return lo;
+        }
+    }
+
+    /**
+     * A junction (T or switch) or a bumper.
+     */
+    public static final class Node {
+        public final int id;
+        public final NodeType type;
+        // Representative block (origin for switches)
+        public final int blockX, blockY, blockZ;
+        // Cells covered by the node (packed positions)
+        final long[] cells;
+        public final List<Port> ports;
+
+        Node(int id, NodeType type, int blockX, int blockY, int blockZ, long[] cells, List<Port> ports) {
+            this.id = id;
+            this.type = type;
+            this.blockX = blockX;
+            this.blockY = blockY;
+            this.blockZ = blockZ;
+            this.cells = cells;
+            this.ports = ports;
+        }
+    }
+
+    /**
+     * A connection point on a node: which cell and edge the track leaves through.
+     */
+    public static final class Port {
+        public final PortType type;
+        public final int edge;
+        // Node cell the port belongs to and the cell on the far side (packed positions)
+        final long cell;
+        final long neighbour;
+
+        Port(PortType type, int edge, long cell, long neighbour) {
+            this.type = type;
+            this.edge = edge;
+            this.cell = cell;
+            this.neighbour = neighbour;
+        }
+    }
+
+    static final long NONE = Long.MIN_VALUE;
+
+    private final RailWorldView view;
+    private final RailCellCache cells;
+
+    // Position -> element id. Segment ids are positive, node ids negative.
+    private final Long2IntOpenHashMap elementByPos = new Long2IntOpenHashMap();
+    private final Int2ObjectOpenHashMap<Segment> segments = new Int2ObjectOpenHashMap<>();
+    private final Int2ObjectOpenHashMap<Node> nodes = new Int2ObjectOpenHashMap<>();
+    private int nextId = 1;
+    // Read-only while the world thread waits on a parallel phase (see RailCellCache.freeze)
+    private boolean frozen;
+
+    private RailNetwork(RailWorldView view) {
+        this.view = view;
+        this.cells = RailCellCache.forView(view);
+    }
+
+    /**
+     * Get the network for a world, creating it on first use.
+     */
+    public static RailNetwork forWorld(World world) {
+        return forView(WorldRailView.of(world));
+    }
+
+    /**
+     * Get the network for a rail world view, creating it on first use.
+     */
+    public static RailNetwork forView(RailWorldView view) {
+        return networks.computeIfAbsent(view, RailNetwork::new);
+    }
+
+    /**
+     * Drop every world's network (plugin shutdown / asset reload).
+     */
+    public static void clearAll() {
+        networks.clear();
+    }
+
+    /**
+     * Drop the network for one world (the world was removed, see WorldRailView.onWorldRemoved).
+     */
+    static void remove(RailWorldView view) {
+        networks.remove(view);
+    }
+
+    /**
+     * Drop the network elements around a changed block in the given world, if one exists.
+     */
+    public static void onBlockChanged(RailWorldView view, int blockX, int blockY, int blockZ) {
+        if (view == null) return;
+        RailNetwork network = networks.get(view);
+        if (network != null) {
+            network.invalidateAround(blockX, blockY, blockZ);
+        }
+    }
+
+    // ==================== QUERIES ====================
+
+    /**
+     * Get the segment running through a block, building it if needed.
+     * @return The segment, or null if the block is not part of a segment
+     */
+    public Segment getSegmentAt(int blockX, int blockY, int blockZ) {
+        int id = elementAt(blockX, blockY, blockZ);
+        return id > 0 ? segments.get(id) : null;
+    }
+
+    /**
+     * Get the node covering a block (junction, switch or bumper), building it if needed.
+     * @return The node, or null if the block is not part of a node
+     */
+    public Node getNodeAt(int blockX, int blockY, int blockZ) {
+        int id = elementAt(blockX, blockY, blockZ);
+        return id < 0 ? nodes.get(-id) : null;
+    }
+
+    /**
+     * Get an already built segment by id.
+     */
+    public Segment getSegment(int segmentId) {
+        return segments.get(segmentId);
+    }
+
+    /**
+     * Get an already built node by id.
+     */
+    public Node getNode(int nodeId) {
+        return nodes.get(nodeId);
+    }
+
+    /**
+     * Get the node at one end of a segment.
+     * @param atEnd false for the start, true for the end
+     * @return The node, or null for an open end or a closed loop
+     */
+    public Node getEndNode(Segment segment, boolean atEnd) {
+        long pos = atEnd ? segment.endNeighbour : segment.startNeighbour;
+        if (pos == NONE) return null;
+        return getNodeAt(unpackX(pos), unpackY(pos), unpackZ(pos));
+    }
+
+    /**
+     * Get the segment attached to a node port.
+     * @return The segment, or null if the port leads straight into another node
+     */
+    public Segment getPortSegment(Port port) {
+        if (port.neighbour == NONE) return null;
+        return getSegmentAt(unpackX(port.neighbour), unpackY(port.neighbour), unpackZ(port.neighbour));
+    }
+
+    /**
+     * Number of built segments.
+     */
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Number of built nodes.
+     */
+    public int getNodeCount() {
+        return nodes.size();
+    }
+
+    /**
+     * Make the network read-only for worker threads: lookups of elements that aren't
+     * built yet throw RailCellCache.NotCachedException instead of building them.
+     */
+    void freeze() {
+        frozen = true;
+    }
+
+    void thaw() {
+        frozen = false;
+    }
+
+    // ==================== BUILDING ====================
+
+    private int elementAt(int x, int y, int z) {
+        long pos = packPos(x, y, z);
+        int id = elementByPos.get(pos);
+        if (id != 0) return id;
+        if (frozen) throw RailCellCache.NotCachedException.INSTANCE;
+
+        RailCell cell = cells.get(x, y, z);
+        if (cell == null) {
+            RailBlockDescriptor desc = view.getBlock(x, y, z);
+            if (desc != null && desc.isBumper) {
+                return buildBumper(x, y, z);
+            }
+            return 0;
+        }
+        if (isNodeCell(cell)) {
+            return buildJunction(cell);
+        }
+        return buildSegment(cell);
+    }
+
+    private static boolean isNodeCell(RailCell cell) {
+        return cell.isTJunction || cell.isSwitch;
+    }
+
+    /**
+     * Find the cell on the other side of an edge that joins back to this one.
+     * Node cells are accepted on any matching height (their edge data is coarse);
+     * track cells must link the opposite edge.
+     */
+    private RailCell linkedNeighbour(RailCell cell, int edge) {
+        int opposite = oppositeEdge(edge);
+        double height = cell.portHeight(edge);
+        int nx = cell.blockX + EDGE_DX[edge];
+        int nz = cell.blockZ + EDGE_DZ[edge];
+        for (int dy : NEIGHBOUR_DY) {
+            RailCell other = cells.get(nx, cell.blockY + dy, nz);
+            if (other == null) continue;
+            if (Math.abs(other.portHeight(opposite) - height) > PORT_HEIGHT_TOLERANCE) continue;
+            if (isNodeCell(other) && !other.isTJunction) return other;
+            if (other.linksEdge(opposite)) return other;
+        }
+        return null;
+    }
+
+    private int buildSegment(RailCell start) {
+        int[] edges = linkedEdges(start);
+        int backEdge = edges[0];
+        int frontEdge = edges[1];
+
+        // Walk forward and backward from the start cell
+        List<RailCell> forward = new ArrayList<>();
+        long[] frontEnd = new long[1];
+        int[] frontExit = new int[1];
+        boolean closed = walk(start, frontEdge, forward, frontEnd, frontExit);
+
+        List<RailCell> backward = new ArrayList<>();
+        long[] backEnd = {NONE};
+        int[] backExit = {backEdge};
+        if (!closed) {
+            walk(start, backEdge, backward, backEnd, backExit);
+        }
+
+        // Assemble in travel order: reversed backward run, start, forward run
+        List<RailCell> run = new ArrayList<>(backward.size() + 1 + forward.size());
+        for (int i = backward.size() - 1; i >= 0; i--) run.add(backward.get(i));
+        run.add(start);
+        run.addAll(forward);
+
+        // Entry edge for each cell (where the previous cell joins it)
+        int[] entry = new int[run.size()];
+        entry[0] = backExit[0];
+        for (int i = 1; i < run.size(); i++) {
+            RailCell prev = run.get(i - 1);
+            RailCell cur = run.get(i);
+            entry[i] = edgeTowards(cur, prev);
+        }
+
+        int id = nextId++;
+        long[] packed = new long[run.size()];
+        int[] cellPointStart = new int[run.size()];
+        List<double[]> polyline = new ArrayList<>();
+        for (int i = 0; i < run.size(); i++) {
+            RailCell c = run.get(i);
+            packed[i] = packPos(c.blockX, c.blockY, c.blockZ);
+            cellPointStart[i] = polyline.size();
+            appendCellPoints(c, entry[i], polyline, i > 0);
+        }
+
+        double[] points = new double[polyline.size() * 3];
+        double[] arcLength = new double[polyline.size()];
+        double length = 0;
+        for (int i = 0; i < polyline.size(); i++) {
+            double[] p = polyline.get(i);
+            points[i * 3] = p[0];
+            points[i * 3 + 1] = p[1];
+            points[i * 3 + 2] = p[2];
+            if (i > 0) {
+                double[] q = polyline.get(i - 1);
+                double dx = p[0] - q[0], dy = p[1] - q[1], dz = p[2] - q[2];
+                length += Math.sqrt(dx * dx + dy * dy + dz * dz);
+            }
+            arcLength[i] = length;
+        }
+
+        int endEdge = closed ? frontEdge : frontExit[0];
+        Segment segment = new Segment(id, packed, points, cellPointStart, arcLength, closed,
+            backExit[0], endEdge, closed ? NONE : backEnd[0], closed ? NONE : frontEnd[0]);
+        segments.put(id, segment);
+        for (long pos : packed) {
+            elementByPos.put(pos, id);
+        }
+        return id;
+    }
+
+    /**
+     * Walk from a cell through an edge, collecting track cells until a node, a bumper,
+     * an open end or the start cell is reached.
+     * @param endOut   Receives the position just past the run (node cell or bumper), or NONE
+     * @param exitOut  Receives the edge leaving the last collected cell (or the start cell)
+     * @return True if the walk came back round to the start (closed loop)
+     */
+    private boolean walk(RailCell start, int edge, List<RailCell> out, long[] endOut, int[] exitOut) {
+        RailCell cur = start;
+        int exit = edge;
+        endOut[0] = NONE;
+        for (int steps = 0; steps < MAX_SEGMENT_CELLS; steps++) {
+            exitOut[0] = exit;
+            RailCell next = linkedNeighbour(cur, exit);
+            if (next == null) {
+                // Open end or bumper
+                int bx = cur.blockX + EDGE_DX[exit];
+                int bz = cur.blockZ + EDGE_DZ[exit];
+                RailBlockDescriptor desc = view.getBlock(bx, cur.blockY, bz);
+                if (desc != null && desc.isBumper) {
+                    endOut[0] = packPos(bx, cur.blockY, bz);
+                }
+                return false;
+            }
+            if (next == start) {
+                return true;
+            }
+            if (isNodeCell(next)) {
+                endOut[0] = packPos(next.blockX, next.blockY, next.blockZ);
+                return false;
+            }
+            out.add(next);
+            int in = edgeTowards(next, cur);
+            exit = otherEdge(next, in);
+            if (exit < 0) {
+                exitOut[0] = in;
+                return false;
+            }
+            cur = next;
+        }
+        return false;
+    }
+
+    private int buildJunction(RailCell cell) {
+        int id = nextId++;
+        List<Port> ports = new ArrayList<>();
+        long[] covered;
+        NodeType type;
+        if (cell.isTJunction) {
+            type = NodeType.T_JUNCTION;
+            covered = new long[]{packPos(cell.blockX, cell.blockY, cell.blockZ)};
+            // Stem is opposite the one closed edge
+            int closedEdge = -1;
+            for (int e = 0; e < 4; e++) {
+                if (!cell.connectedEdges[e]) closedEdge = e;
+            }
+            int stemEdge = closedEdge >= 0 ? oppositeEdge(closedEdge) : -1;
+            for (int e = 0; e < 4; e++) {
+                if (!cell.connectedEdges[e]) continue;
+                ports.add(new Port(e == stemEdge ? PortType.STEM : PortType.BAR, e,
+                    covered[0], neighbourPos(cell, e)));
+            }
+        } else {
+            type = NodeType.SWITCH;
+            // Gather the footprint: every switch cell sharing this origin
+            List<RailCell> footprint = new ArrayList<>();
+            ArrayDeque<RailCell> queue = new ArrayDeque<>();
+            queue.add(cell);
+            while (!queue.isEmpty() && footprint.size() < 16) {
+                RailCell c = queue.poll();
+                if (footprint.contains(c)) continue;
+                footprint.add(c);
+                for (int e = 0; e < 4; e++) {
+                    RailCell n = cells.get(c.blockX + EDGE_DX[e], c.blockY, c.blockZ + EDGE_DZ[e]);
+                    if (n != null && n.isSwitch && n.descriptor == cell.descriptor
+                            && n.originX == cell.originX && n.originZ == cell.originZ && !footprint.contains(n)) {
+                        queue.add(n);
+                    }
+                }
+            }
+            covered = new long[footprint.size()];
+            for (int i = 0; i < footprint.size(); i++) {
+                RailCell c = footprint.get(i);
+                covered[i] = packPos(c.blockX, c.blockY, c.blockZ);
+            }
+            // Ports: perimeter edges where track outside the footprint joins back
+            for (RailCell c : footprint) {
+                for (int e = 0; e < 4; e++) {
+                    long outside = packPos(c.blockX + EDGE_DX[e], c.blockY, c.blockZ + EDGE_DZ[e]);
+                    if (contains(covered, outside)) continue;
+                    RailCell n = linkedNeighbour(c, e);
+                    if (n == null || (n.isSwitch && n.descriptor == cell.descriptor)) continue;
+                    ports.add(new Port(PortType.SWITCH, e, packPos(c.blockX, c.blockY, c.blockZ),
+                        packPos(n.blockX, n.blockY, n.blockZ)));
+                }
+            }
+        }
+
+        Node node = new Node(id, type, cell.originX, cell.blockY, cell.originZ, covered, ports);
+        nodes.put(id, node);
+        for (long pos : covered) {
+            elementByPos.put(pos, -id);
+        }
+        return -id;
+    }
+
+    private int buildBumper(int x, int y, int z) {
+        int id = nextId++;
+        long pos = packPos(x, y, z);
+        List<Port> ports = new ArrayList<>();
+        // The buffer faces whichever neighbouring track runs into it
+        for (int e = 0; e < 4; e++) {
+            int nx = x + EDGE_DX[e];
+            int nz = z + EDGE_DZ[e];
+            RailCell n = cells.get(nx, y, nz);
+            if (n != null && n.linksEdge(oppositeEdge(e))) {
+                ports.add(new Port(PortType.BUFFER, e, pos, packPos(nx, y, nz)));
+            }
+        }
+        Node node = new Node(id, NodeType.BUMPER, x, y, z, new long[]{pos}, ports);
+        nodes.put(id, node);
+        elementByPos.put(pos, -id);
+        return -id;
+    }
+
+    // ==================== INVALIDATION ====================
+
+    /**
+     * Drop every element that covers a block in the 3x3x3 box around a change
+     * (the same box RailCellCache drops, since those cells may now compile differently).
+     */
+    public void invalidateAround(int blockX, int blockY, int blockZ) {
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dz = -1; dz <= 1; dz++) {
+                    int id = elementByPos.get(packPos(blockX + dx, blockY + dy, blockZ + dz));
+                    if (id != 0) removeElement(id);
+                }
+            }
+        }
+    }
+
+    private void removeElement(int id) {
+        long[] covered;
+        if (id > 0) {
+            Segment segment = segments.remove(id);
+            if (segment == null) return;
+            covered = segment.cells;
+        } else {
+            Node node = nodes.remove(-id);
+            if (node == null) return;
+            covered = node.cells;
+        }
+        for (long pos : covered) {
+            if (elementByPos.get(pos) == id) {
+                elementByPos.remove(pos);
+            }
+        }
+    }
+
+    // ==================== HELPERS ====================
+
+    private int[] linkedEdges(RailCell cell) {
+        int first = -1, second = -1;
+        for (int e = 0; e < 4; e++) {
+            if (!cell.linksEdge(e)) continue;
+            if (first < 0) first = e;
+            else if (second < 0) second = e;
+        }
+        if (first < 0) first = RailCell.EDGE_WEST;
+        if (second < 0) second = oppositeEdge(first);
+        return new int[]{first, second};
+    }
+
+    // The linked edge of a two-ended cell that isn't the one we came in through
+    private static int otherEdge(RailCell cell, int in) {
+        for (int e = 0; e < 4; e++) {
+            if (e != in && cell.linksEdge(e)) return e;
+        }
+        return -1;
+    }
+
+    // Edge of "cell" that faces the horizontally adjacent "other"
+    private static int edgeTowards(RailCell cell, RailCell other) {
+        int dx = other.blockX - cell.blockX;
+        int dz = other.blockZ - cell.blockZ;
+        if (dx < 0) return RailCell.EDGE_WEST;
+        if (dx > 0) return RailCell.EDGE_EAST;
+        if (dz > 0) return RailCell.EDGE_SOUTH;
+        return RailCell.EDGE_NORTH;
+    }
+
+    private long neighbourPos(RailCell cell, int edge) {
+        RailCell n = linkedNeighbour(cell, edge);
+        return n != null ? packPos(n.blockX, n.blockY, n.blockZ) : NONE;
+    }
+
+    /**
+     * Append a cell's track points, oriented so they run away from the entry edge.
+     * @param skipFirst Drop the first point (it coincides with the previous cell's last)
+     */
+    private static void appendCellPoints(RailCell cell, int entryEdge, List<double[]> out, boolean skipFirst) {
+        List<double[]> pts = new ArrayList<>();
+        if (cell.isSlope) {
+            pts.add(new double[]{cell.highX, cell.highY, cell.highZ});
+            pts.add(new double[]{cell.lowX, cell.lowY, cell.lowZ});
+        } else {
+            double[] segs = cell.segments;
+            for (int i = 0; i < cell.segmentCount; i++) {
+                int o = i * RailCell.SEG_STRIDE;
+                if (i == 0) {
+                    pts.add(new double[]{segs[o + RailCell.SEG_X], segs[o + RailCell.SEG_Y], segs[o + RailCell.SEG_Z]});
+                }
+                pts.add(new double[]{
+                    segs[o + RailCell.SEG_X] + segs[o + RailCell.SEG_DX],
+                    segs[o + RailCell.SEG_Y] + segs[o + RailCell.SEG_DY],
+                    segs[o + RailCell.SEG_Z] + segs[o + RailCell.SEG_DZ]});
+            }
+        }
+        if (pts.isEmpty()) {
+            pts.add(new double[]{cell.blockX + 0.5, cell.blockY + 0.1, cell.blockZ + 0.5});
+        }
+
+        // Reverse if the last point is nearer the entry edge than the first
+        double ex = cell.blockX + 0.5 + EDGE_DX[entryEdge] * 0.5;
+        double ez = cell.blockZ + 0.5 + EDGE_DZ[entryEdge] * 0.5;
+        double[] first = pts.get(0);
+        double[] last = pts.get(pts.size() - 1);
+        double dFirst = (first[0] - ex) * (first[0] - ex) + (first[2] - ez) * (first[2] - ez);
+        double dLast = (last[0] - ex) * (last[0] - ex) + (last[2] - ez) * (last[2] - ez);
+        if (dLast < dFirst) {
+            Collections.reverse(pts);
+        }
+
+        for (int i = skipFirst ? 1 : 0; i < pts.size(); i++) {
+            out.add(pts.get(i));
+        }
+    }
+
+    private static boolean contains(long[] values, long value) {
+        for (long v : values) {
+            if (v == value) return true;
+        }
+        return false;
+    }
+
+    static int oppositeEdge(int edge) {
+        switch (edge) {
+            case RailCell.EDGE_WEST: return RailCell.EDGE_EAST;
+            case RailCell.EDGE_EAST: return RailCell.EDGE_WEST;
+            case RailCell.EDGE_SOUTH: return RailCell.EDGE_NORTH;
+            case RailCell.EDGE_NORTH: return RailCell.EDGE_SOUTH;
+            default: return edge;
+        }
+    }
+
+    // Block positions packed as 26 bits X, 26 bits Z, 12 bits Y
+    static long packPos(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+    }
+
+    static int unpackX(long pos) {
+        return (int) (pos >> 38);
+    }
+
+    static int unpackY(long pos) {
+        return (int) (pos << 52 >> 52);
+    }
+
+    static int unpackZ(long pos) {
+        return (int) (pos << 26 >> 38);
+    }
+}
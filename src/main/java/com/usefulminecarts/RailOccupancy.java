@@ -0,0 +1,163 @@
+package com.usefulminecarts;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-world "has rail" and "blocks a cart" bits, one bitset pair per 16-block-high
+ * section of a chunk column.
+ *
+ * The substep loop asks these two questions several times per block boundary (rail
+ * above, at and below the next block; is it solid). Each answer is a bit test here
+ * instead of a block type lookup and a descriptor lookup.
+ *
+ * Bits are filled per block on first use - a third bitset marks which blocks are known -
+ * so touching a section doesn't read all of its blocks. Sections are kept per chunk in a
+ * ChunkStore, so a chunk's sections are thrown away once the chunk was unloaded and loaded again, and a block
+ * change clears that block's bits (see RailBlockChangeSystem).
+ *
+ * Only accessed from the owning world's thread.
+ */
+public final class RailOccupancy {
+
+    private static final Map<RailWorldView, RailOccupancy> occupancies = new ConcurrentHashMap<>();
+
+    private static final int SECTION_WORDS = ChunkStore.SECTION_BLOCKS / 64;
+
+    private final RailWorldView view;
+    // Section Y (blockY >> 4) -> section
+    private final ChunkStore<Int2ObjectOpenHashMap<Section>> chunks;
+
+    private static final class Section {
+        final long[] known = new long[SECTION_WORDS];
+        final long[] rail = new long[SECTION_WORDS];
+        final long[] solid = new long[SECTION_WORDS];
+    }
+
+    private RailOccupancy(RailWorldView view) {
+        this.view = view;
+        this.chunks = new ChunkStore<>(view, Int2ObjectOpenHashMap::new);
+    }
+
+    /**
+     * Get the occupancy bits for a rail world view, creating them on first use.
+     */
+    public static RailOccupancy forView(RailWorldView view) {
+        return occupancies.computeIfAbsent(view, RailOccupancy::new);
+    }
+
+    /**
+     * Drop the bits for every world (plugin shutdown / asset reload).
+     */
+    public static void clearAll() {
+        occupancies.clear();
+    }
+
+    /**
+     * Drop the bits for one world (the world was removed, see WorldRailView.onWorldRemoved).
+     */
+    static void remove(RailWorldView view) {
+        occupancies.remove(view);
+    }
+
+    /**
+     * Whether the block at a position has a rail config (RailBlockDescriptor.hasRailConfig).
+     * False if its chunk isn't loaded.
+     */
+    public boolean hasRail(int x, int y, int z) {
+        Section section = section(x, y, z);
+        if (section == null) return false;
+        int bit = ChunkStore.sectionIndex(x, y, z);
+        if (!isKnown(section, bit) && !load(section, bit, x, y, z)) return false;
+        return (section.rail[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    /**
+     * Whether there is a rail at, one below or one above a position - where track
+     * continuing from this height can be.
+     */
+    public boolean hasRailNear(int x, int y, int z) {
+        return hasRail(x, y, z) || hasRail(x, y - 1, z) || hasRail(x, y + 1, z);
+    }
+
+    /**
+     * Whether the block at a position would stop a cart (RailBlockDescriptor.isSolid).
+     * False if its chunk isn't loaded.
+     */
+    public boolean blocksCart(int x, int y, int z) {
+        Section section = section(x, y, z);
+        if (section == null) return false;
+        int bit = ChunkStore.sectionIndex(x, y, z);
+        if (!isKnown(section, bit) && !load(section, bit, x, y, z)) return false;
+        return (section.solid[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    private Section section(int x, int y, int z) {
+        Int2ObjectOpenHashMap<Section> sections = chunks.get(x, z);
+        if (sections == null) return null;
+
+        int sectionY = y >> 4;
+        Section section = sections.get(sectionY);
+        if (section == null) {
+            section = new Section();
+            sections.put(sectionY, section);
+        }
+        return section;
+    }
+
+    private static boolean isKnown(Section section, int bit) {
+        return (section.known[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    /**
+     * Read the block and set its bits.
+     * @return False if there is no block type there (nothing is recorded, both answers are false)
+     */
+    private boolean load(Section section, int bit, int x, int y, int z) {
+        RailBlockDescriptor desc = view.getBlock(x, y, z);
+        if (desc == null) return false;
+
+        int word = bit >>> 6;
+        long mask = 1L << bit;
+        if (desc.hasRailConfig) section.rail[word] |= mask;
+        if (desc.isSolid) section.solid[word] |= mask;
+        section.known[word] |= mask;
+        return true;
+    }
+
+    /**
+     * Forget the bits of one block (rail and solidity only depend on the block itself).
+     */
+    public void invalidate(int x, int y, int z) {
+        Int2ObjectOpenHashMap<Section> sections = chunks.getIfPresent(x, z);
+        if (sections == null) return;
+        Section section = sections.get(y >> 4);
+        if (section == null) return;
+
+        int bit = ChunkStore.sectionIndex(x, y, z);
+        long clear = ~(1L << bit);
+        section.known[bit >>> 6] &= clear;
+        section.rail[bit >>> 6] &= clear;
+        section.solid[bit >>> 6] &= clear;
+    }
+
+    /**
+     * Number of sections with bits, for diagnostics.
+     */
+    public int size() {
+        return chunks.sum(Int2ObjectOpenHashMap::size);
+    }
+
+    /**
+     * Forget a changed block in the given world, if bits exist for it.
+     */
+    public static void onBlockChanged(RailWorldView view, int blockX, int blockY, int blockZ) {
+        if (view == null) return;
+        RailOccupancy occupancy = occupancies.get(view);
+        if (occupancy != null) {
+            occupancy.invalidate(blockX, blockY, blockZ);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.usefulminecarts;
+
+import it.unimi.dsi.fastutil.ints.Int2ByteOpenHashMap;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-world side table of the orientation worked out from neighbours for rails whose
+ * block rotation can't be trusted: the axis of flat straights (getRailConfig's points
+ * don't follow the rotation) and the downhill direction of slopes.
+ *
+ * An orientation is resolved when a rail or one of its neighbours is placed, broken or
+ * toggled (see RailBlockChangeSystem), and on first lookup for track that was already in
+ * a chunk when it loaded. RailCell reads it from here instead of looking at neighbours.
+ *
+ * Resolving keeps the stored orientation when the neighbours no longer decide it - e.g.
+ * a rail now has track on both axes, or none - so editing track around a rail doesn't
+ * flip it to the default. Entries are kept per chunk in a ChunkStore, so a chunk's entries
+ * are thrown away once the chunk was unloaded and loaded again.
+ *
+ * Only accessed from the owning world's thread.
+ */
+public final class RailOrientationTable {
+
+    private static final Map<RailWorldView, RailOrientationTable> tables = new ConcurrentHashMap<>();
+
+    // Entry: kind in bits 2-3, orientation in bits 0-1
+    private static final int KIND_NONE = 0;
+    private static final int KIND_FLAT = 1;
+    private static final int KIND_SLOPE = 2;
+    private static final byte MISSING = -1;
+
+    private final RailWorldView view;
+    // Packed local position (ChunkStore.packLocal) -> entry
+    private final ChunkStore<Int2ByteOpenHashMap> chunks;
+
+    private RailOrientationTable(RailWorldView view) {
+        this.view = view;
+        this.chunks = new ChunkStore<>(view, () -> {
+            Int2ByteOpenHashMap entries = new Int2ByteOpenHashMap();
+            entries.defaultReturnValue(MISSING);
+            return entries;
+        });
+    }
+
+    /**
+     * Get the table for a rail world view, creating it on first use.
+     */
+    public static RailOrientationTable forView(RailWorldView view) {
+        return tables.computeIfAbsent(view, RailOrientationTable::new);
+    }
+
+    /**
+     * Drop the table for every world (plugin shutdown / asset reload).
+     */
+    public static void clearAll() {
+        tables.clear();
+    }
+
+    /**
+     * Drop the table for one world (the world was removed, see WorldRailView.onWorldRemoved).
+     */
+    static void remove(RailWorldView view) {
+        tables.remove(view);
+    }
+
+    /**
+     * Axis of the flat straight rail at a position.
+     * @return 0 = Z-aligned (no rotation), 1 = X-aligned (90° rotation)
+     */
+    public int getFlatAxis(int x, int y, int z) {
+        return lookup(KIND_FLAT, x, y, z);
+    }
+
+    /**
+     * Downhill direction of the slope at a position.
+     * @return 0 = +Z, 1 = +X, 2 = -Z, 3 = -X
+     */
+    public int getDownhillDir(int x, int y, int z) {
+        return lookup(KIND_SLOPE, x, y, z);
+    }
+
+    private int lookup(int kind, int x, int y, int z) {
+        Int2ByteOpenHashMap entries = chunks.get(x, z);
+        if (entries == null) {
+            // Chunk not loaded: nothing to keep, just look at the neighbours
+            return orientationOf(resolve(kind, x, y, z, MISSING));
+        }
+
+        int key = ChunkStore.packLocal(x, y, z);
+        byte code = entries.get(key);
+        if (code == MISSING || kindOf(code) != kind) {
+            // First lookup, or the block changed without an event
+            code = resolve(kind, x, y, z, code);
+            entries.put(key, code);
+        }
+        return orientationOf(code);
+    }
+
+    /**
+     * Work out an orientation from the neighbours.
+     * @param previous The stored entry (MISSING if none), kept if the neighbours don't decide
+     */
+    private byte resolve(int kind, int x, int y, int z, byte previous) {
+        int orientation = kind == KIND_SLOPE
+            ? RailCell.detectSlopeDirectionFromNeighbors(view, x, y, z)
+            : RailCell.detectFlatRailDirectionFromNeighbors(view, x, y, z);
+        if (orientation < 0) {
+            orientation = previous != MISSING && kindOf(previous) == kind ? orientationOf(previous) : 0;
+        }
+        return (byte) (kind << 2 | orientation);
+    }
+
+    /**
+     * Which orientation a block needs, from its descriptor and rotation.
+     */
+    private static int kindFor(RailBlockDescriptor desc, int rotationIndex) {
+        if (desc == null || desc.getRailPoints(rotationIndex) == null) return KIND_NONE;
+        if (desc.isSlopeAt(rotationIndex)) return KIND_SLOPE;
+        if (desc.looksLikeCornerAt(rotationIndex) || desc.isCornerByName || desc.isSwitch) return KIND_NONE;
+        return KIND_FLAT;
+    }
+
+    /**
+     * Resolve the rails at and around a changed position again (the 3x3x3 box - both
+     * detectors look one block away). Entries not looked up yet are left for their first
+     * lookup.
+     */
+    public void resolveAround(int blockX, int blockY, int blockZ) {
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                int x = blockX + dx;
+                int z = blockZ + dz;
+                Int2ByteOpenHashMap entries = chunks.getIfPresent(x, z);
+                if (entries == null) continue;
+                for (int dy = -1; dy <= 1; dy++) {
+                    int y = blockY + dy;
+                    int key = ChunkStore.packLocal(x, y, z);
+                    byte previous = entries.get(key);
+                    if (previous == MISSING) continue;
+
+                    int kind = kindFor(view.getBlock(x, y, z), view.getRotationIndex(x, y, z));
+                    if (kind == KIND_NONE) {
+                        entries.remove(key);
+                    } else {
+                        entries.put(key, resolve(kind, x, y, z, previous));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Number of stored orientations, for diagnostics.
+     */
+    public int size() {
+        return chunks.sum(Int2ByteOpenHashMap::size);
+    }
+
+    /**
+     * Resolve around a changed block in the given world, if a table exists for it.
+     */
+    public static void onBlockChanged(RailWorldView view, int blockX, int blockY, int blockZ) {
+        if (view == null) return;
+        RailOrientationTable table = tables.get(view);
+        if (table != null) {
+            table.resolveAround(blockX, blockY, blockZ);
+        }
+    }
+
+    private static int kindOf(byte code) {
+        return (code >> 2) & 3;
+    }
+
+    private static int orientationOf(byte code) {
+        return code & 3;
+    }
+}
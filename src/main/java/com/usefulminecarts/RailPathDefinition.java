@@ -1,13 +1,19 @@
 package com.usefulminecarts;
 
+import org.bson.BsonArray;
+import org.bson.BsonBoolean;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Defines the paths a minecart can take through a rail block.
  *
+ * Definitions are loaded from JSON by RailPathRegistry (see fromJson).
+ *
  * Each rail type has one or more paths defined by:
  * - Entry edge (NORTH, SOUTH, EAST, WEST)
  * - Exit edge
@@ -20,6 +26,11 @@ import java.util.Map;
  * - (0, 0) is the WEST-NORTH corner
  * - (1, 1) is the EAST-SOUTH corner
  * - Y is height above block base
+ *
+ * Everything a lookup needs is baked when paths are added: each path holds its points
+ * for all four rotations as flat arrays, and the definition resolves
+ * [rotation][entryEdge][stateIndex] to a path, so the physics and snap code only index
+ * arrays.
  */
 public class RailPathDefinition {
 
@@ -29,6 +40,16 @@ public class RailPathDefinition {
     public static final int EDGE_SOUTH = 2;  // +Z direction
     public static final int EDGE_NORTH = 3;  // -Z direction
 
+    // Switch/junction states, as indices into the path lookup (see stateIndex)
+    public static final int STATE_NONE = 0;  // No state, or one no path is conditioned on - the default path
+    public static final int STATE_STRAIGHT = 1;
+    public static final int STATE_LEFT = 2;
+    public static final int STATE_RIGHT = 3;
+    private static final int STATE_COUNT = 4;
+
+    // Segments shorter than this are skipped when snapping
+    static final double MIN_SEGMENT_LENGTH = 0.01;
+
     /**
      * A single path through a rail, from entry to exit.
      */
@@ -39,25 +60,89 @@ public class RailPathDefinition {
         public final boolean isDefault;  // True if this is the default path (for switches)
         public final String stateCondition;  // Block state that activates this path (e.g., "left", "right")
 
+        // Per rotation: the points as xyz triples, and the unit direction of each segment
+        // (point i to i + 1) as xyz triples
+        private final double[][] rotatedCoords = new double[4][];
+        private final double[][] rotatedDirs = new double[4][];
+        private final List<List<PathPoint>> rotatedPoints = new ArrayList<>(4);
+        // Segment lengths (the same for every rotation); 0 for a degenerate segment
+        private final double[] segmentLengths;
+
         public RailPath(int entryEdge, int exitEdge, List<PathPoint> points, boolean isDefault, String stateCondition) {
             this.entryEdge = entryEdge;
             this.exitEdge = exitEdge;
             this.points = points;
             this.isDefault = isDefault;
             this.stateCondition = stateCondition;
+
+            int n = points.size();
+            segmentLengths = new double[Math.max(0, n - 1)];
+            for (int rot = 0; rot < 4; rot++) {
+                PathPoint[] rotated = new PathPoint[n];
+                double[] coords = new double[n * 3];
+                for (int i = 0; i < n; i++) {
+                    PathPoint p = points.get(i).rotate(rot);
+                    rotated[i] = p;
+                    coords[i * 3] = p.x;
+                    coords[i * 3 + 1] = p.y;
+                    coords[i * 3 + 2] = p.z;
+                }
+
+                double[] dirs = new double[segmentLengths.length * 3];
+                for (int i = 0; i < segmentLengths.length; i++) {
+                    double sX = coords[i * 3 + 3] - coords[i * 3];
+                    double sY = coords[i * 3 + 4] - coords[i * 3 + 1];
+                    double sZ = coords[i * 3 + 5] - coords[i * 3 + 2];
+                    double len = Math.sqrt(sX * sX + sY * sY + sZ * sZ);
+                    if (len < MIN_SEGMENT_LENGTH) {
+                        // Degenerate: zero direction and length, skipped by snapping
+                        len = 0;
+                    } else {
+                        dirs[i * 3] = sX / len;
+                        dirs[i * 3 + 1] = sY / len;
+                        dirs[i * 3 + 2] = sZ / len;
+                    }
+                    segmentLengths[i] = len;
+                }
+
+                rotatedCoords[rot] = coords;
+                rotatedDirs[rot] = dirs;
+                rotatedPoints.add(List.of(rotated));
+            }
         }
 
         /**
          * Get the path points transformed for a specific block rotation.
          * @param rotationIndex 0=none, 1=90°CW, 2=180°, 3=270°CW
-         * @return Rotated path points
+         * @return Rotated path points (baked - an unmodifiable shared list)
          */
         public List<PathPoint> getRotatedPoints(int rotationIndex) {
-            List<PathPoint> rotated = new ArrayList<>(points.size());
-            for (PathPoint p : points) {
-                rotated.add(p.rotate(rotationIndex));
-            }
-            return rotated;
+            return rotatedPoints.get(rotationIndex & 3);
+        }
+
+        /**
+         * The rotated points as block-local xyz triples. Shared - don't modify.
+         */
+        public double[] getRotatedCoords(int rotationIndex) {
+            return rotatedCoords[rotationIndex & 3];
+        }
+
+        /**
+         * Unit direction of each segment after rotation, as xyz triples. Shared - don't modify.
+         */
+        public double[] getSegmentDirs(int rotationIndex) {
+            return rotatedDirs[rotationIndex & 3];
+        }
+
+        /**
+         * Length of each segment (0 for a degenerate one). Shared - don't modify.
+         */
+        public double[] getSegmentLengths() {
+            return segmentLengths;
+        }
+
+        public int getPointCount() {
+            return points.size();
         }
 
         /**
@@ -125,27 +210,91 @@ public class RailPathDefinition {
     // Rail type identifier (e.g., "straight", "corner", "t_junction", "switch")
     private final String railType;
 
-    // All paths for this rail type, indexed by entry edge
-    // Map<entryEdge, List<RailPath>> - multiple paths possible from same entry (for switches)
-    private final Map<Integer, List<RailPath>> pathsByEntry = new HashMap<>();
+    // All paths for this rail type, indexed by (unrotated) entry edge
+    // Multiple paths possible from same entry (for switches)
+    private final List<List<RailPath>> pathsByEntry = new ArrayList<>(4);
+
+    // Resolved path per [rotation][entryEdge][stateIndex] (null if nothing enters from that edge)
+    private final RailPath[][][] lookup = new RailPath[4][4][STATE_COUNT];
 
     // Which edges this rail connects to (for quick lookup)
     private final boolean[] connectedEdges = new boolean[4];
 
     public RailPathDefinition(String railType) {
         this.railType = railType;
+        for (int edge = 0; edge < 4; edge++) {
+            pathsByEntry.add(new ArrayList<>());
+        }
     }
 
     /**
      * Add a path to this rail definition.
      */
     public RailPathDefinition addPath(RailPath path) {
-        pathsByEntry.computeIfAbsent(path.entryEdge, k -> new ArrayList<>()).add(path);
+        pathsByEntry.get(path.entryEdge).add(path);
         connectedEdges[path.entryEdge] = true;
         connectedEdges[path.exitEdge] = true;
+        bakeLookup();
         return this;
     }
 
+    // Re-resolve every [rotation][entryEdge][state] slot (definitions are built once, at startup)
+    private void bakeLookup() {
+        for (int rot = 0; rot < 4; rot++) {
+            for (int edge = 0; edge < 4; edge++) {
+                // Reverse-rotate the entry edge to find the base paths
+                List<RailPath> paths = pathsByEntry.get((edge - rot + 4) % 4);
+                RailPath defaultPath = null;
+                if (!paths.isEmpty()) {
+                    defaultPath = paths.get(0);  // First if no default marked
+                    for (RailPath path : paths) {
+                        if (path.isDefault) {
+                            defaultPath = path;
+                            break;
+                        }
+                    }
+                }
+
+                RailPath[] byState = lookup[rot][edge];
+                byState[STATE_NONE] = defaultPath;
+                for (int state = STATE_STRAIGHT; state < STATE_COUNT; state++) {
+                    byState[state] = defaultPath;
+                    for (RailPath path : paths) {
+                        if (stateIndex(path.stateCondition) == state) {
+                            byState[state] = path;
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Lookup index of a block state ("straight", "left", "right"); STATE_NONE for null
+     * or anything else.
+     */
+    public static int stateIndex(String state) {
+        if (state == null) return STATE_NONE;
+        switch (state) {
+            case "straight": return STATE_STRAIGHT;
+            case "left": return STATE_LEFT;
+            case "right": return STATE_RIGHT;
+            default: return STATE_NONE;
+        }
+    }
+
+    /**
+     * Get the path from an entry edge for a block state index.
+     * @param entryEdge The edge the cart is entering from (0-3)
+     * @param rotationIndex Block rotation (0-3)
+     * @param stateIndex From stateIndex(); the default path if no path has that state
+     * @return The path, or null if no path from that edge
+     */
+    public RailPath getPath(int entryEdge, int rotationIndex, int stateIndex) {
+        return lookup[rotationIndex & 3][entryEdge][stateIndex];
+    }
+
     /**
      * Get the default path from an entry edge (considering rotation).
      * @param entryEdge The edge the cart is entering from
@@ -153,15 +302,7 @@ public class RailPathDefinition {
      * @return The default path, or null if no path from that edge
      */
     public RailPath getDefaultPath(int entryEdge, int rotationIndex) {
-        // Reverse-rotate the entry edge to find the base path
-        int baseEntry = (entryEdge - rotationIndex + 4) % 4;
-        List<RailPath> paths = pathsByEntry.get(baseEntry);
-        if (paths == null || paths.isEmpty()) return null;
-
-        for (RailPath path : paths) {
-            if (path.isDefault) return path;
-        }
-        return paths.get(0);  // Return first if no default marked
+        return getPath(entryEdge, rotationIndex, STATE_NONE);
     }
 
     /**
@@ -172,16 +313,7 @@ public class RailPathDefinition {
      * @return The matching path, or default if not found
      */
     public RailPath getPathByState(int entryEdge, int rotationIndex, String stateCondition) {
-        int baseEntry = (entryEdge - rotationIndex + 4) % 4;
-        List<RailPath> paths = pathsByEntry.get(baseEntry);
-        if (paths == null || paths.isEmpty()) return null;
-
-        for (RailPath path : paths) {
-            if (stateCondition != null && stateCondition.equals(path.stateCondition)) {
-                return path;
-            }
-        }
-        return getDefaultPath(entryEdge, rotationIndex);
+        return getPath(entryEdge, rotationIndex, stateIndex(stateCondition));
     }
 
     /**
@@ -189,7 +321,7 @@ public class RailPathDefinition {
      */
     public List<RailPath> getAllPaths(int entryEdge, int rotationIndex) {
         int baseEntry = (entryEdge - rotationIndex + 4) % 4;
-        return pathsByEntry.getOrDefault(baseEntry, List.of());
+        return pathsByEntry.get(baseEntry);
     }
 
     /**
@@ -204,196 +336,114 @@ public class RailPathDefinition {
         return railType;
     }
 
-    // ==================== STATIC BUILDERS ====================
+    // ==================== LOADING ====================
 
     /**
-     * Create a straight rail path definition.
-     * Default orientation: NORTH-SOUTH (Z-axis)
+     * Build a definition from its JSON form (see rail_definitions.json):
+     *
+     *   { "Paths": [ { "Entry": "SOUTH", "Exit": "EAST", "Default": true, "State": "left",
+     *                  "Points": [[x, y, z], ...]                       (or)
+     *                  "Curve": { "Start": [..], "Control": [..], "End": [..], "Points": 8 },
+     *                  "Reverse": true } ] }                            (or { "Default": .., "State": .. })
+     *
+     * "Reverse" also adds the path run backwards, from Exit to Entry; an object overrides
+     * Default/State for the reversed path. Paths are added in file order, which decides
+     * the default when none is marked.
+     *
+     * @throws IllegalArgumentException If the definition is malformed
      */
-    public static RailPathDefinition createStraight() {
-        RailPathDefinition def = new RailPathDefinition("straight");
-
-        // Path from NORTH to SOUTH
-        List<PathPoint> northToSouth = List.of(
-            new PathPoint(0.5, 0.1, 0.0),   // Entry at north edge
-            new PathPoint(0.5, 0.1, 0.25),
-            new PathPoint(0.5, 0.1, 0.5),   // Center
-            new PathPoint(0.5, 0.1, 0.75),
-            new PathPoint(0.5, 0.1, 1.0)    // Exit at south edge
-        );
-        def.addPath(new RailPath(EDGE_NORTH, EDGE_SOUTH, northToSouth, true, null));
-
-        // Path from SOUTH to NORTH (reverse)
-        List<PathPoint> southToNorth = List.of(
-            new PathPoint(0.5, 0.1, 1.0),
-            new PathPoint(0.5, 0.1, 0.75),
-            new PathPoint(0.5, 0.1, 0.5),
-            new PathPoint(0.5, 0.1, 0.25),
-            new PathPoint(0.5, 0.1, 0.0)
-        );
-        def.addPath(new RailPath(EDGE_SOUTH, EDGE_NORTH, southToNorth, true, null));
-
-        return def;
-    }
-
-    /**
-     * Create a corner rail path definition.
-     * Default orientation: SOUTH to EAST (turns right when coming from south)
-     */
-    public static RailPathDefinition createCorner() {
-        RailPathDefinition def = new RailPathDefinition("corner");
-
-        // Smooth curve from SOUTH to EAST using quadratic bezier points
-        List<PathPoint> southToEast = generateSmoothCorner(
-            0.5, 0.1, 1.0,   // Entry: south edge center
-            0.5, 0.1, 0.5,   // Control: block center
-            1.0, 0.1, 0.5,   // Exit: east edge center
-            8  // Number of points
-        );
-        def.addPath(new RailPath(EDGE_SOUTH, EDGE_EAST, southToEast, true, null));
-
-        // Reverse: EAST to SOUTH
-        List<PathPoint> eastToSouth = new ArrayList<>(southToEast);
-        java.util.Collections.reverse(eastToSouth);
-        def.addPath(new RailPath(EDGE_EAST, EDGE_SOUTH, eastToSouth, true, null));
-
-        return def;
-    }
-
-    /**
-     * Create a T-junction rail path definition.
-     * Default orientation: Bar runs EAST-WEST, stem goes SOUTH
-     */
-    public static RailPathDefinition createTJunction() {
-        RailPathDefinition def = new RailPathDefinition("t_junction");
-
-        // Straight through paths (bar)
-        List<PathPoint> westToEast = List.of(
-            new PathPoint(0.0, 0.1, 0.5),
-            new PathPoint(0.25, 0.1, 0.5),
-            new PathPoint(0.5, 0.1, 0.5),
-            new PathPoint(0.75, 0.1, 0.5),
-            new PathPoint(1.0, 0.1, 0.5)
-        );
-        def.addPath(new RailPath(EDGE_WEST, EDGE_EAST, westToEast, true, null));
-
-        List<PathPoint> eastToWest = new ArrayList<>(westToEast);
-        java.util.Collections.reverse(eastToWest);
-        def.addPath(new RailPath(EDGE_EAST, EDGE_WEST, eastToWest, true, null));
-
-        // Stem paths (curves)
-        List<PathPoint> southToWest = generateSmoothCorner(
-            0.5, 0.1, 1.0,
-            0.5, 0.1, 0.5,
-            0.0, 0.1, 0.5,
-            6
-        );
-        def.addPath(new RailPath(EDGE_SOUTH, EDGE_WEST, southToWest, true, null));
-
-        List<PathPoint> southToEast = generateSmoothCorner(
-            0.5, 0.1, 1.0,
-            0.5, 0.1, 0.5,
-            1.0, 0.1, 0.5,
-            6
-        );
-        def.addPath(new RailPath(EDGE_SOUTH, EDGE_EAST, southToEast, false, "right"));
-
-        // Reverse stem paths
-        List<PathPoint> westToSouth = new ArrayList<>(southToWest);
-        java.util.Collections.reverse(westToSouth);
-        def.addPath(new RailPath(EDGE_WEST, EDGE_SOUTH, westToSouth, true, null));
-
-        List<PathPoint> eastToSouth = new ArrayList<>(southToEast);
-        java.util.Collections.reverse(eastToSouth);
-        def.addPath(new RailPath(EDGE_EAST, EDGE_SOUTH, eastToSouth, false, "left"));
-
+    public static RailPathDefinition fromJson(String railType, BsonDocument json) {
+        RailPathDefinition def = new RailPathDefinition(railType);
+        if (!json.isArray("Paths")) {
+            throw new IllegalArgumentException("'" + railType + "' has no Paths array");
+        }
+        for (BsonValue value : json.getArray("Paths")) {
+            if (!value.isDocument()) {
+                throw new IllegalArgumentException("'" + railType + "' has a path that isn't an object");
+            }
+            BsonDocument pathJson = value.asDocument();
+            int entry = parseEdge(pathJson, "Entry", railType);
+            int exit = parseEdge(pathJson, "Exit", railType);
+            boolean isDefault = pathJson.getBoolean("Default", BsonBoolean.FALSE).getValue();
+            String state = pathJson.isString("State") ? pathJson.getString("State").getValue() : null;
+            List<PathPoint> points = parsePoints(pathJson, railType);
+
+            def.addPath(new RailPath(entry, exit, points, isDefault, state));
+
+            BsonValue reverse = pathJson.get("Reverse");
+            if (reverse == null || (reverse.isBoolean() && !reverse.asBoolean().getValue())) continue;
+            boolean reverseDefault = isDefault;
+            String reverseState = state;
+            if (reverse.isDocument()) {
+                BsonDocument overrides = reverse.asDocument();
+                reverseDefault = overrides.getBoolean("Default", BsonBoolean.valueOf(isDefault)).getValue();
+                if (overrides.containsKey("State")) {
+                    reverseState = overrides.isString("State") ? overrides.getString("State").getValue() : null;
+                }
+            }
+            List<PathPoint> reversed = new ArrayList<>(points);
+            Collections.reverse(reversed);
+            def.addPath(new RailPath(exit, entry, List.copyOf(reversed), reverseDefault, reverseState));
+        }
         return def;
     }
 
-    /**
-     * Create a switch rail path definition.
-     * Default orientation: Entry from SOUTH, can go NORTH (straight) or EAST (turned)
-     */
-    public static RailPathDefinition createSwitch() {
-        RailPathDefinition def = new RailPathDefinition("switch");
-
-        // Straight path (default): SOUTH to NORTH
-        List<PathPoint> southToNorth = List.of(
-            new PathPoint(0.5, 0.1, 1.0),
-            new PathPoint(0.5, 0.1, 0.75),
-            new PathPoint(0.5, 0.1, 0.5),
-            new PathPoint(0.5, 0.1, 0.25),
-            new PathPoint(0.5, 0.1, 0.0)
-        );
-        def.addPath(new RailPath(EDGE_SOUTH, EDGE_NORTH, southToNorth, true, "straight"));
-
-        // Turned path: SOUTH to EAST
-        List<PathPoint> southToEast = generateSmoothCorner(
-            0.5, 0.1, 1.0,
-            0.5, 0.1, 0.5,
-            1.0, 0.1, 0.5,
-            8
-        );
-        def.addPath(new RailPath(EDGE_SOUTH, EDGE_EAST, southToEast, false, "left"));
-
-        // Reverse paths
-        List<PathPoint> northToSouth = new ArrayList<>(southToNorth);
-        java.util.Collections.reverse(northToSouth);
-        def.addPath(new RailPath(EDGE_NORTH, EDGE_SOUTH, northToSouth, true, "straight"));
-
-        List<PathPoint> eastToSouth = new ArrayList<>(southToEast);
-        java.util.Collections.reverse(eastToSouth);
-        def.addPath(new RailPath(EDGE_EAST, EDGE_SOUTH, eastToSouth, false, "left"));
-
-        return def;
+    private static int parseEdge(BsonDocument json, String key, String railType) {
+        String name = json.isString(key) ? json.getString(key).getValue() : "";
+        switch (name) {
+            case "WEST": return EDGE_WEST;
+            case "EAST": return EDGE_EAST;
+            case "SOUTH": return EDGE_SOUTH;
+            case "NORTH": return EDGE_NORTH;
+            default:
+                throw new IllegalArgumentException("'" + railType + "' path has no valid " + key
+                    + " edge (NORTH, SOUTH, EAST or WEST): '" + name + "'");
+        }
     }
 
-    /**
-     * Create a slope rail path definition.
-     * Default orientation: Rises from SOUTH (low) to NORTH (high)
-     */
-    public static RailPathDefinition createSlope() {
-        RailPathDefinition def = new RailPathDefinition("slope");
-
-        // Going uphill: SOUTH to NORTH
-        List<PathPoint> southToNorth = List.of(
-            new PathPoint(0.5, 0.1, 1.0),   // Low end at south
-            new PathPoint(0.5, 0.35, 0.75),
-            new PathPoint(0.5, 0.6, 0.5),   // Middle
-            new PathPoint(0.5, 0.85, 0.25),
-            new PathPoint(0.5, 1.1, 0.0)    // High end at north
-        );
-        def.addPath(new RailPath(EDGE_SOUTH, EDGE_NORTH, southToNorth, true, null));
-
-        // Going downhill: NORTH to SOUTH
-        List<PathPoint> northToSouth = new ArrayList<>(southToNorth);
-        java.util.Collections.reverse(northToSouth);
-        def.addPath(new RailPath(EDGE_NORTH, EDGE_SOUTH, northToSouth, true, null));
-
-        return def;
+    private static List<PathPoint> parsePoints(BsonDocument json, String railType) {
+        List<PathPoint> points;
+        if (json.isArray("Points")) {
+            points = new ArrayList<>();
+            for (BsonValue point : json.getArray("Points")) {
+                points.add(parsePoint(point, railType));
+            }
+        } else if (json.isDocument("Curve")) {
+            BsonDocument curve = json.getDocument("Curve");
+            PathPoint start = parsePoint(curve.get("Start"), railType);
+            PathPoint control = parsePoint(curve.get("Control"), railType);
+            PathPoint end = parsePoint(curve.get("End"), railType);
+            int numPoints = curve.isNumber("Points") ? curve.getNumber("Points").intValue() : 8;
+            if (numPoints < 2) {
+                throw new IllegalArgumentException("'" + railType + "' curve needs at least 2 points");
+            }
+            points = generateSmoothCorner(
+                start.x, start.y, start.z,
+                control.x, control.y, control.z,
+                end.x, end.y, end.z,
+                numPoints);
+        } else {
+            throw new IllegalArgumentException("'" + railType + "' path has neither Points nor Curve");
+        }
+        if (points.size() < 2) {
+            throw new IllegalArgumentException("'" + railType + "' path needs at least 2 points");
+        }
+        return List.copyOf(points);
     }
 
-    /**
-     * Create an accelerator rail path definition.
-     * Same as straight but marked differently for boost logic.
-     */
-    public static RailPathDefinition createAccelerator() {
-        RailPathDefinition def = new RailPathDefinition("accelerator");
-
-        List<PathPoint> northToSouth = List.of(
-            new PathPoint(0.5, 0.1, 0.0),
-            new PathPoint(0.5, 0.1, 0.25),
-            new PathPoint(0.5, 0.1, 0.5),
-            new PathPoint(0.5, 0.1, 0.75),
-            new PathPoint(0.5, 0.1, 1.0)
-        );
-        def.addPath(new RailPath(EDGE_NORTH, EDGE_SOUTH, northToSouth, true, null));
-
-        List<PathPoint> southToNorth = new ArrayList<>(northToSouth);
-        java.util.Collections.reverse(southToNorth);
-        def.addPath(new RailPath(EDGE_SOUTH, EDGE_NORTH, southToNorth, true, null));
-
-        return def;
+    private static PathPoint parsePoint(BsonValue value, String railType) {
+        if (value == null || !value.isArray() || value.asArray().size() != 3) {
+            throw new IllegalArgumentException("'" + railType + "' has a point that isn't [x, y, z]");
+        }
+        BsonArray xyz = value.asArray();
+        for (BsonValue v : xyz) {
+            if (!v.isNumber()) {
+                throw new IllegalArgumentException("'" + railType + "' has a non-numeric coordinate");
+            }
+        }
+        return new PathPoint(xyz.get(0).asNumber().doubleValue(),
+            xyz.get(1).asNumber().doubleValue(),
+            xyz.get(2).asNumber().doubleValue());
     }
 
     // ==================== HELPER METHODS ====================
@@ -2,9 +2,18 @@ package com.usefulminecarts;
 
 import com.hypixel.hytale.logger.HytaleLogger;
 import com.hypixel.hytale.math.vector.Vector3d;
-import com.hypixel.hytale.server.core.universe.world.World;
-
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -15,91 +24,253 @@ import java.util.Map;
  * Maps block IDs to their path definitions, allowing the physics system
  * and rendering system to query paths for any rail type.
  *
+ * Definitions, and which blocks use them, come from rail_definitions.json (bundled
+ * with the plugin; a copy in mods/UsefulMinecarts/Data overrides it), so a new rail
+ * kind needs no code. A block ID resolves by exact match first, then by the ordered
+ * "contains" patterns, then to the fallback definition. That string work happens once
+ * per block type: the result is kept in a table indexed by the engine's block index,
+ * so the per-block lookup is a single array read.
+ *
  * Usage:
- *   RailPathDefinition def = RailPathRegistry.getDefinition(blockId);
+ *   RailPathDefinition def = RailPathRegistry.getDefinition(desc);
  *   RailPath path = def.getDefaultPath(entryEdge, rotationIndex);
- *   List<PathPoint> points = path.getRotatedPoints(rotationIndex);
+ *   double[] points = path.getRotatedCoords(rotationIndex);  // xyz triples, block-local
  */
 public class RailPathRegistry {
 
     private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
 
-    // Map of block ID patterns to path definitions
-    // Uses pattern matching (contains) for flexibility
-    private static final Map<String, RailPathDefinition> definitions = new HashMap<>();
-
-    // Pre-built standard definitions
-    private static final RailPathDefinition STRAIGHT = RailPathDefinition.createStraight();
-    private static final RailPathDefinition CORNER = RailPathDefinition.createCorner();
-    private static final RailPathDefinition T_JUNCTION = RailPathDefinition.createTJunction();
-    private static final RailPathDefinition SWITCH = RailPathDefinition.createSwitch();
-    private static final RailPathDefinition SLOPE = RailPathDefinition.createSlope();
-    private static final RailPathDefinition ACCELERATOR = RailPathDefinition.createAccelerator();
-
-    // Initialize with standard mappings
-    static {
-        // Register patterns for block ID matching
-        // Order matters - more specific patterns should be checked first
-        registerPattern("_Corner", CORNER);
-        registerPattern("_T", T_JUNCTION);
-        registerPattern("_Switch", SWITCH);
-        registerPattern("Slope", SLOPE);
-        registerPattern("Accel", ACCELERATOR);
-        // Default straight rail (no special suffix)
-        registerPattern("Rail", STRAIGHT);
-
-        LOGGER.atInfo().log("[RailPathRegistry] Initialized with %d rail type definitions", definitions.size());
+    private static final String BUNDLED_RESOURCE = "/rail_definitions.json";
+    private static final String OVERRIDE_DIR = "mods/UsefulMinecarts/Data";
+    private static final String OVERRIDE_FILE = "rail_definitions.json";
+
+    /**
+     * One loaded rail_definitions.json. Never modified once published - changes build a
+     * new one - so the tick thread reads it without locking.
+     */
+    private static final class Definitions {
+        // Definition name -> definition
+        final Map<String, RailPathDefinition> byName;
+        // Exact block ID -> definition
+        final Map<String, RailPathDefinition> byBlockId;
+        // Checked in order when there is no exact match (block ID contains the key)
+        final List<Map.Entry<String, RailPathDefinition>> patterns;
+        // Rails that match nothing else
+        final RailPathDefinition fallback;
+
+        Definitions(Map<String, RailPathDefinition> byName, Map<String, RailPathDefinition> byBlockId,
+                    List<Map.Entry<String, RailPathDefinition>> patterns, RailPathDefinition fallback) {
+            this.byName = byName;
+            this.byBlockId = byBlockId;
+            this.patterns = patterns;
+            this.fallback = fallback;
+        }
+    }
+
+    private static volatile Definitions definitions = parse(readBundled(), BUNDLED_RESOURCE);
+
+    // Engine block index -> definition, filled on first lookup of each block type.
+    // Replaced wholesale on write (copy-on-write) like the descriptor cache.
+    private static volatile RailPathDefinition[] byBlockIndex = new RailPathDefinition[0];
+
+    /**
+     * Load the rail definitions: the override file if there is one, else the bundled
+     * resource. A broken override is logged and the bundled definitions are kept.
+     */
+    public static synchronized void load() {
+        Path overridePath = Paths.get(OVERRIDE_DIR, OVERRIDE_FILE);
+        Definitions loaded;
+        if (Files.exists(overridePath)) {
+            try {
+                loaded = parse(Files.readString(overridePath, StandardCharsets.UTF_8), overridePath.toString());
+            } catch (IOException | RuntimeException e) {
+                LOGGER.atSevere().log("[RailPathRegistry] Could not load %s, using bundled definitions: %s",
+                    overridePath, e.getMessage());
+                loaded = parse(readBundled(), BUNDLED_RESOURCE);
+            }
+        } else {
+            loaded = parse(readBundled(), BUNDLED_RESOURCE);
+        }
+        definitions = loaded;
+        byBlockIndex = new RailPathDefinition[0];
+        LOGGER.atInfo().log("[RailPathRegistry] Loaded %d rail definitions, %d block IDs, %d patterns",
+            loaded.byName.size(), loaded.byBlockId.size(), loaded.patterns.size());
+    }
+
+    private static String readBundled() {
+        try (InputStream in = RailPathRegistry.class.getResourceAsStream(BUNDLED_RESOURCE)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing plugin resource " + BUNDLED_RESOURCE);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read plugin resource " + BUNDLED_RESOURCE, e);
+        }
+    }
+
+    /**
+     * Parse a rail_definitions.json.
+     * @throws IllegalArgumentException If it is malformed or refers to unknown definitions
+     */
+    private static Definitions parse(String json, String source) {
+        BsonDocument root;
+        try {
+            root = BsonDocument.parse(json);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException(source + " is not valid JSON: " + e.getMessage(), e);
+        }
+        if (!root.isDocument("Definitions")) {
+            throw new IllegalArgumentException(source + " has no Definitions object");
+        }
+
+        Map<String, RailPathDefinition> byName = new HashMap<>();
+        for (Map.Entry<String, BsonValue> entry : root.getDocument("Definitions").entrySet()) {
+            if (!entry.getValue().isDocument()) {
+                throw new IllegalArgumentException(source + ": definition '" + entry.getKey() + "' isn't an object");
+            }
+            byName.put(entry.getKey(), RailPathDefinition.fromJson(entry.getKey(), entry.getValue().asDocument()));
+        }
+
+        Map<String, RailPathDefinition> byBlockId = new HashMap<>();
+        if (root.isDocument("Blocks")) {
+            for (Map.Entry<String, BsonValue> entry : root.getDocument("Blocks").entrySet()) {
+                byBlockId.put(entry.getKey(), named(byName, entry.getValue(), source));
+            }
+        }
+
+        List<Map.Entry<String, RailPathDefinition>> patterns = new ArrayList<>();
+        if (root.isArray("Patterns")) {
+            for (BsonValue value : root.getArray("Patterns")) {
+                if (!value.isDocument() || !value.asDocument().isString("Contains")) {
+                    throw new IllegalArgumentException(source + ": each pattern needs a Contains string");
+                }
+                BsonDocument pattern = value.asDocument();
+                patterns.add(new AbstractMap.SimpleImmutableEntry<>(
+                    pattern.getString("Contains").getValue(), named(byName, pattern.get("Definition"), source)));
+            }
+        }
+
+        RailPathDefinition fallback = named(byName, root.get("Fallback"), source);
+        return new Definitions(byName, byBlockId, List.copyOf(patterns), fallback);
+    }
+
+    private static RailPathDefinition named(Map<String, RailPathDefinition> byName, BsonValue name, String source) {
+        if (name == null || !name.isString()) {
+            throw new IllegalArgumentException(source + ": expected a definition name, got " + name);
+        }
+        RailPathDefinition def = byName.get(name.asString().getValue());
+        if (def == null) {
+            throw new IllegalArgumentException(source + ": unknown definition '" + name.asString().getValue() + "'");
+        }
+        return def;
     }
 
     /**
-     * Register a pattern-to-definition mapping.
+     * Register a pattern-to-definition mapping, checked before the loaded patterns.
      */
-    public static void registerPattern(String pattern, RailPathDefinition definition) {
-        definitions.put(pattern, definition);
+    public static synchronized void registerPattern(String pattern, RailPathDefinition definition) {
+        Definitions current = definitions;
+        List<Map.Entry<String, RailPathDefinition>> patterns = new ArrayList<>(current.patterns.size() + 1);
+        patterns.add(new AbstractMap.SimpleImmutableEntry<>(pattern, definition));
+        patterns.addAll(current.patterns);
+        definitions = new Definitions(current.byName, current.byBlockId, List.copyOf(patterns), current.fallback);
+        byBlockIndex = new RailPathDefinition[0];
     }
 
     /**
-     * Get the path definition for a block ID.
+     * Get a loaded definition by name (e.g. "corner").
+     * @return The definition, or null if there is none with that name
+     */
+    public static RailPathDefinition getNamedDefinition(String name) {
+        return definitions.byName.get(name);
+    }
+
+    /**
+     * Get the path definition for a block ID (string matching - prefer the descriptor
+     * overload on hot paths).
      * @param blockId The block type ID (e.g., "UsefulMinecarts_Rail_Corner")
-     * @return The matching definition, or STRAIGHT as fallback
+     * @return The matching definition, or the fallback (straight)
      */
     public static RailPathDefinition getDefinition(String blockId) {
-        if (blockId == null) return STRAIGHT;
+        Definitions defs = definitions;
+        if (blockId == null) return defs.fallback;
+        RailPathDefinition def = defs.byBlockId.get(blockId);
+        if (def != null) return def;
+        for (Map.Entry<String, RailPathDefinition> pattern : defs.patterns) {
+            if (blockId.contains(pattern.getKey())) return pattern.getValue();
+        }
+        return defs.fallback;
+    }
 
-        // Check patterns in order of specificity
-        if (blockId.contains("_Corner")) return CORNER;
-        if (blockId.contains("_T")) return T_JUNCTION;
-        if (blockId.contains("_Switch") || blockId.contains("Switch")) return SWITCH;
-        if (blockId.contains("Slope")) return SLOPE;
-        if (blockId.contains("Accel")) return ACCELERATOR;
+    /**
+     * Get the path definition for a block descriptor - one array read once the block
+     * type has been seen.
+     * @return The matching definition, or the fallback (straight)
+     */
+    public static RailPathDefinition getDefinition(RailBlockDescriptor desc) {
+        if (desc == null) return definitions.fallback;
+        if (desc.blockIndex < 0) return getDefinition(desc.blockId);  // Synthetic, no engine index
+        return getDefinition(desc.blockIndex, desc.blockId);
+    }
 
-        // Default to straight rail
-        return STRAIGHT;
+    /**
+     * Get the path definition by the engine's block index.
+     * @param blockIndex Index in the BlockType asset map
+     * @param blockId The block's ID, used to resolve it the first time
+     */
+    public static RailPathDefinition getDefinition(int blockIndex, String blockId) {
+        if (blockIndex < 0) return getDefinition(blockId);
+        RailPathDefinition[] table = byBlockIndex;
+        if (blockIndex < table.length) {
+            RailPathDefinition def = table[blockIndex];
+            if (def != null) return def;
+        }
+        return resolveAndCache(blockIndex, blockId);
+    }
+
+    private static synchronized RailPathDefinition resolveAndCache(int blockIndex, String blockId) {
+        RailPathDefinition[] table = byBlockIndex;
+        if (blockIndex < table.length && table[blockIndex] != null) return table[blockIndex];
+
+        RailPathDefinition def = getDefinition(blockId);
+        RailPathDefinition[] updated = Arrays.copyOf(table, Math.max(table.length, blockIndex + 1));
+        updated[blockIndex] = def;
+        byBlockIndex = updated;
+        return def;
+    }
+
+    /**
+     * Forget resolved block indices. Called when block type assets are (re)loaded, since
+     * the engine may renumber block types.
+     */
+    public static synchronized void clearBlockIndex() {
+        byBlockIndex = new RailPathDefinition[0];
     }
 
     /**
      * Determine the rail type string from block ID.
      */
     public static String getRailType(String blockId) {
-        if (blockId == null) return "straight";
-        if (blockId.contains("_Corner")) return "corner";
-        if (blockId.contains("_T")) return "t_junction";
-        if (blockId.contains("_Switch") || blockId.contains("Switch")) return "switch";
-        if (blockId.contains("Slope")) return "slope";
-        if (blockId.contains("Accel")) return "accelerator";
-        return "straight";
+        return getDefinition(blockId).getRailType();
+    }
+
+    /**
+     * Determine the rail type string from a block descriptor.
+     */
+    public static String getRailType(RailBlockDescriptor desc) {
+        return getDefinition(desc).getRailType();
     }
 
     /**
      * Get the current state of a switch/junction block.
-     * @param world The world
+     * @param rails Rail view of the world
      * @param blockX Block X coordinate
      * @param blockY Block Y coordinate
      * @param blockZ Block Z coordinate
      * @param blockId The block ID
      * @return State string ("straight", "left", etc.) or null for non-switches
      */
-    public static String getBlockState(World world, int blockX, int blockY, int blockZ, String blockId) {
+    public static String getBlockState(RailWorldView rails, int blockX, int blockY, int blockZ, String blockId) {
         if (blockId == null) return null;
 
         // Check if it's a switch by block ID
@@ -114,10 +285,19 @@ public class RailPathRegistry {
         return null;  // Not a stateful block
     }
 
+    /**
+     * Get the current state of a switch/junction block from its descriptor.
+     * @return State string ("straight", "left", etc.) or null for non-switches
+     */
+    public static String getBlockState(RailBlockDescriptor desc) {
+        if (desc == null) return null;
+        return desc.switchState;
+    }
+
     /**
      * Get world-space path points for a rail at a specific position.
      *
-     * @param world The world
+     * @param rails Rail view of the world
      * @param blockX Block X coordinate
      * @param blockY Block Y coordinate
      * @param blockZ Block Z coordinate
@@ -126,10 +306,10 @@ public class RailPathRegistry {
      * @param entryEdge Edge the cart enters from (or -1 for all paths)
      * @return List of world-space points forming the path(s)
      */
-    public static List<Vector3d[]> getWorldPaths(World world, int blockX, int blockY, int blockZ,
+    public static List<Vector3d[]> getWorldPaths(RailWorldView rails, int blockX, int blockY, int blockZ,
                                                   String blockId, int rotationIndex, int entryEdge) {
         RailPathDefinition def = getDefinition(blockId);
-        String state = getBlockState(world, blockX, blockY, blockZ, blockId);
+        String state = getBlockState(rails, blockX, blockY, blockZ, blockId);
 
         List<Vector3d[]> worldPaths = new ArrayList<>();
 
@@ -164,21 +344,23 @@ public class RailPathRegistry {
      */
     private static Vector3d[] pathToWorld(RailPathDefinition.RailPath path, int rotationIndex,
                                           int blockX, int blockY, int blockZ) {
-        List<RailPathDefinition.PathPoint> points = path.getRotatedPoints(rotationIndex);
-        Vector3d[] worldPoints = new Vector3d[points.size()];
+        double[] coords = path.getRotatedCoords(rotationIndex);
+        Vector3d[] worldPoints = new Vector3d[coords.length / 3];
 
-        for (int i = 0; i < points.size(); i++) {
-            RailPathDefinition.PathPoint p = points.get(i);
+        for (int i = 0; i < worldPoints.length; i++) {
             worldPoints[i] = new Vector3d(
-                blockX + p.x,
-                blockY + p.y,
-                blockZ + p.z
+                blockX + coords[i * 3],
+                blockY + coords[i * 3 + 1],
+                blockZ + coords[i * 3 + 2]
             );
         }
 
         return worldPoints;
     }
 
+    // Length of the snapToPath result: snap xyz, direction xyz, distance squared
+    public static final int SNAP_RESULT_SIZE = 7;
+
     /**
      * Find the closest point on any path to a given position.
      * Returns [snapX, snapY, snapZ, dirX, dirY, dirZ, distanceSq]
@@ -188,61 +370,72 @@ public class RailPathRegistry {
                                        int blockX, int blockY, int blockZ,
                                        double incomingDirX, double incomingDirZ,
                                        String blockState) {
-        RailPathDefinition def = getDefinition(blockId);
+        double[] result = new double[SNAP_RESULT_SIZE];
+        if (!snapToPath(entityX, entityY, entityZ, getDefinition(blockId), rotationIndex,
+                blockX, blockY, blockZ, incomingDirX, incomingDirZ,
+                RailPathDefinition.stateIndex(blockState), result)) {
+            return null;
+        }
+        return result;
+    }
 
+    /**
+     * snapToPath without allocating: walks the definition's baked arrays and writes
+     * [snapX, snapY, snapZ, dirX, dirY, dirZ, distanceSq] into out.
+     *
+     * @param stateIndex From RailPathDefinition.stateIndex()
+     * @param out At least SNAP_RESULT_SIZE long
+     * @return False (out untouched) if the rail has no path from either side
+     */
+    public static boolean snapToPath(double entityX, double entityY, double entityZ,
+                                     RailPathDefinition def, int rotationIndex,
+                                     int blockX, int blockY, int blockZ,
+                                     double incomingDirX, double incomingDirZ,
+                                     int stateIndex, double[] out) {
         // Determine entry edge from incoming direction
         int entryEdge = getEntryEdgeFromDirection(incomingDirX, incomingDirZ);
 
         // Get the appropriate path
-        RailPathDefinition.RailPath path = (blockState != null)
-            ? def.getPathByState(entryEdge, rotationIndex, blockState)
-            : def.getDefaultPath(entryEdge, rotationIndex);
-
+        RailPathDefinition.RailPath path = def.getPath(entryEdge, rotationIndex, stateIndex);
         if (path == null) {
             // Try opposite direction if no path found
-            entryEdge = (entryEdge + 2) % 4;
-            path = (blockState != null)
-                ? def.getPathByState(entryEdge, rotationIndex, blockState)
-                : def.getDefaultPath(entryEdge, rotationIndex);
+            path = def.getPath((entryEdge + 2) % 4, rotationIndex, stateIndex);
         }
+        if (path == null) return false;
 
-        if (path == null) return null;
+        double[] coords = path.getRotatedCoords(rotationIndex);
+        double[] dirs = path.getSegmentDirs(rotationIndex);
+        double[] lengths = path.getSegmentLengths();
 
-        List<RailPathDefinition.PathPoint> points = path.getRotatedPoints(rotationIndex);
+        // Work block-local, so the loop doesn't add the block position per point
+        double localX = entityX - blockX;
+        double localY = entityY - blockY;
+        double localZ = entityZ - blockZ;
 
         // Find closest segment
         double bestDistSq = Double.MAX_VALUE;
-        double snapX = entityX, snapY = entityY, snapZ = entityZ;
+        double snapX = localX, snapY = localY, snapZ = localZ;
         double dirX = 0, dirY = 0, dirZ = 1;
 
-        for (int i = 0; i < points.size() - 1; i++) {
-            RailPathDefinition.PathPoint p1 = points.get(i);
-            RailPathDefinition.PathPoint p2 = points.get(i + 1);
+        for (int i = 0; i < lengths.length; i++) {
+            double len = lengths[i];
+            if (len == 0) continue;
 
-            double px1 = blockX + p1.x;
-            double py1 = blockY + p1.y;
-            double pz1 = blockZ + p1.z;
-            double px2 = blockX + p2.x;
-            double py2 = blockY + p2.y;
-            double pz2 = blockZ + p2.z;
+            int p = i * 3;
+            double dX = dirs[p], dY = dirs[p + 1], dZ = dirs[p + 2];
+            double px = coords[p], py = coords[p + 1], pz = coords[p + 2];
 
-            double sX = px2 - px1;
-            double sY = py2 - py1;
-            double sZ = pz2 - pz1;
-            double sLenSq = sX * sX + sY * sY + sZ * sZ;
+            // Distance along the segment, clamped to its ends
+            double t = (localX - px) * dX + (localY - py) * dY + (localZ - pz) * dZ;
+            t = Math.max(0, Math.min(len, t));
 
-            if (sLenSq < 0.0001) continue;
+            double cX = px + t * dX;
+            double cY = py + t * dY;
+            double cZ = pz + t * dZ;
 
-            double t = ((entityX - px1) * sX + (entityY - py1) * sY + (entityZ - pz1) * sZ) / sLenSq;
-            t = Math.max(0, Math.min(1, t));
-
-            double cX = px1 + t * sX;
-            double cY = py1 + t * sY;
-            double cZ = pz1 + t * sZ;
-
-            double dx = cX - entityX;
-            double dy = cY - entityY;
-            double dz = cZ - entityZ;
+            double dx = cX - localX;
+            double dy = cY - localY;
+            double dz = cZ - localZ;
             double distSq = dx * dx + dy * dy + dz * dz;
 
             if (distSq < bestDistSq) {
@@ -250,15 +443,20 @@ public class RailPathRegistry {
                 snapX = cX;
                 snapY = cY;
                 snapZ = cZ;
-
-                double segLen = Math.sqrt(sLenSq);
-                dirX = sX / segLen;
-                dirY = sY / segLen;
-                dirZ = sZ / segLen;
+                dirX = dX;
+                dirY = dY;
+                dirZ = dZ;
             }
         }
 
-        return new double[] { snapX, snapY, snapZ, dirX, dirY, dirZ, bestDistSq };
+        out[0] = blockX + snapX;
+        out[1] = blockY + snapY;
+        out[2] = blockZ + snapZ;
+        out[3] = dirX;
+        out[4] = dirY;
+        out[5] = dirZ;
+        out[6] = bestDistSq;
+        return true;
     }
 
     /**
@@ -280,10 +478,10 @@ public class RailPathRegistry {
      * Get all path points for a rail block (for debug rendering).
      * Returns paths with their active/inactive state for color coding.
      */
-    public static List<DebugPath> getDebugPaths(World world, int blockX, int blockY, int blockZ,
+    public static List<DebugPath> getDebugPaths(RailWorldView rails, int blockX, int blockY, int blockZ,
                                                  String blockId, int rotationIndex) {
         RailPathDefinition def = getDefinition(blockId);
-        String state = getBlockState(world, blockX, blockY, blockZ, blockId);
+        String state = getBlockState(rails, blockX, blockY, blockZ, blockId);
 
         List<DebugPath> debugPaths = new ArrayList<>();
 
@@ -305,14 +503,8 @@ public class RailPathRegistry {
                             || (state != null && state.equals(path.stateCondition))
                             || (state == null && path.isDefault);
 
-            List<RailPathDefinition.PathPoint> points = path.getRotatedPoints(rotationIndex);
-            Vector3d[] worldPoints = new Vector3d[points.size()];
-            for (int i = 0; i < points.size(); i++) {
-                RailPathDefinition.PathPoint p = points.get(i);
-                worldPoints[i] = new Vector3d(blockX + p.x, blockY + p.y, blockZ + p.z);
-            }
-
-            debugPaths.add(new DebugPath(worldPoints, isActive, path.stateCondition));
+            debugPaths.add(new DebugPath(pathToWorld(path, rotationIndex, blockX, blockY, blockZ),
+                isActive, path.stateCondition));
         }
 
         return debugPaths;
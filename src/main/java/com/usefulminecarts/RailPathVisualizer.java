@@ -8,9 +8,7 @@ import com.hypixel.hytale.component.query.Query;
 import com.hypixel.hytale.component.system.tick.EntityTickingSystem;
 import com.hypixel.hytale.logger.HytaleLogger;
 import com.hypixel.hytale.math.vector.Vector3d;
-import com.hypixel.hytale.protocol.RailConfig;
 import com.hypixel.hytale.protocol.RailPoint;
-import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
 import com.hypixel.hytale.server.core.entity.entities.Player;
 import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
@@ -46,6 +44,9 @@ public class RailPathVisualizer extends EntityTickingSystem<EntityStore> {
     // Update interval (ticks) - spawn particles periodically
     private static final int UPDATE_INTERVAL = 20;  // ~1.5 times per second at 30fps
 
+    // How far /mc pathinfo looks for the next track feature in each direction
+    private static final int FEATURE_SEARCH_BLOCKS = 16;
+
     // Particle system to use for path markers
     private static final String PATH_PARTICLE_SYSTEM = "RailPath_Marker";
 
@@ -76,6 +77,18 @@ public class RailPathVisualizer extends EntityTickingSystem<EntityStore> {
             @Nonnull ArchetypeChunk<EntityStore> archetypeChunk,
             @Nonnull Store<EntityStore> store,
             @Nonnull CommandBuffer<EntityStore> commandBuffer
+    ) {
+        long start = System.nanoTime();
+        tickPlayer(dt, index, archetypeChunk, store, commandBuffer);
+        TickTimings.record(TickTimings.Phase.PATH_VISUALIZER, start);
+    }
+
+    private void tickPlayer(
+            float dt,
+            int index,
+            @Nonnull ArchetypeChunk<EntityStore> archetypeChunk,
+            @Nonnull Store<EntityStore> store,
+            @Nonnull CommandBuffer<EntityStore> commandBuffer
     ) {
         tickCount++;
         if (tickCount % UPDATE_INTERVAL != 0) return;
@@ -101,6 +114,8 @@ public class RailPathVisualizer extends EntityTickingSystem<EntityStore> {
         // Get world
         World world = store.getExternalData().getWorld();
         if (world == null) return;
+        RailWorldView rails = WorldRailView.of(world);
+        SwitchFootprintIndex footprints = SwitchFootprintIndex.forView(rails);
 
         long now = System.currentTimeMillis();
         int particleCount = 0;
@@ -113,10 +128,10 @@ public class RailPathVisualizer extends EntityTickingSystem<EntityStore> {
                     int by = centerY + dy;
                     int bz = centerZ + dz;
 
-                    BlockType blockType = world.getBlockType(bx, by, bz);
-                    if (blockType == null) continue;
+                    RailBlockDescriptor desc = rails.getBlock(bx, by, bz);
+                    if (desc == null) continue;
 
-                    String blockId = blockType.getId();
+                    String blockId = desc.blockId;
                     if (blockId == null || !blockId.contains("Rail")) continue;
 
                     // Check cooldown for this block
@@ -127,67 +142,31 @@ public class RailPathVisualizer extends EntityTickingSystem<EntityStore> {
                     }
 
                     // This is a rail block
-                    int rotationIndex = world.getBlockRotationIndex(bx, by, bz);
-
-                    // Get rail config directly from block type (this is the authoritative source)
-                    RailConfig railConfig = blockType.getRailConfig(rotationIndex);
-                    if (railConfig == null || railConfig.points == null || railConfig.points.length < 2) {
-                        // Try other rotations if current doesn't have config
-                        for (int rot = 0; rot < 4; rot++) {
-                            railConfig = blockType.getRailConfig(rot);
-                            if (railConfig != null && railConfig.points != null && railConfig.points.length >= 2) {
-                                break;
-                            }
-                        }
-                    }
+                    int rotationIndex = rails.getRotationIndex(bx, by, bz);
 
-                    if (railConfig == null || railConfig.points == null || railConfig.points.length < 2) {
+                    // Rail points come from the block type (falls back to other rotations if needed)
+                    RailPoint[] points = desc.getRailPoints(rotationIndex);
+                    if (points == null) {
                         continue;
                     }
 
-                    // Check if this is a switch (2x2 footprint) and find origin block
-                    boolean isSwitch = blockId.contains("Rail_Switch") || blockId.contains("_Switch");
+                    // Switches (2x2 footprint): points are relative to the footprint origin
                     int originX = bx;
                     int originZ = bz;
-
-                    if (isSwitch) {
-                        // Find origin of 2x2 footprint (same logic as MinecartPhysicsSystem)
-                        String currentBlockType = blockType.toString();
-
-                        BlockType checkXMinus = world.getBlockType(bx - 1, by, bz);
-                        if (checkXMinus != null) {
-                            String xMinusType = checkXMinus.toString();
-                            if (xMinusType != null && xMinusType.equals(currentBlockType)) {
-                                originX = bx - 1;
-                            }
-                        }
-
-                        BlockType checkZMinus = world.getBlockType(originX, by, bz - 1);
-                        if (checkZMinus != null) {
-                            String zMinusType = checkZMinus.toString();
-                            if (zMinusType != null && zMinusType.equals(currentBlockType)) {
-                                originZ = bz - 1;
-                            }
-                        }
-
+                    double switchRotCorrX = 0, switchRotCorrZ = 0;
+                    SwitchFootprintIndex.Footprint footprint = footprints.get(bx, by, bz, desc);
+                    if (footprint != null) {
                         // Only visualize from origin block to avoid duplicate particles
-                        if (bx != originX || bz != originZ) {
+                        if (!footprint.isOrigin(bx, bz)) {
                             continue;
                         }
-                    }
-
-                    // Rotation correction for 2x2 footprint switches
-                    double switchRotCorrX = 0, switchRotCorrZ = 0;
-                    if (isSwitch && rotationIndex > 0) {
-                        switch (rotationIndex % 4) {
-                            case 1: switchRotCorrZ = 1.0; break;
-                            case 2: switchRotCorrX = 1.0; switchRotCorrZ = 1.0; break;
-                            case 3: switchRotCorrX = 1.0; break;
-                        }
+                        originX = footprint.originX;
+                        originZ = footprint.originZ;
+                        switchRotCorrX = footprint.getRotationCorrectionX();
+                        switchRotCorrZ = footprint.getRotationCorrectionZ();
                     }
 
                     // Spawn particles along actual rail points
-                    RailPoint[] points = railConfig.points;
                     for (int i = 0; i < points.length; i++) {
                         // Only spawn every other point for performance
                         if (i % 2 == 0) {
@@ -256,48 +235,48 @@ public class RailPathVisualizer extends EntityTickingSystem<EntityStore> {
     /**
      * Get path info for a specific block (for /mc pathinfo command).
      */
-    public static String getPathInfoForBlock(World world, int blockX, int blockY, int blockZ) {
-        BlockType blockType = world.getBlockType(blockX, blockY, blockZ);
-        if (blockType == null) {
+    public static String getPathInfoForBlock(RailWorldView rails, int blockX, int blockY, int blockZ) {
+        RailBlockDescriptor desc = rails.getBlock(blockX, blockY, blockZ);
+        if (desc == null) {
             return "No block at position";
         }
 
-        String blockId = blockType.getId();
+        String blockId = desc.blockId;
         if (blockId == null || !blockId.contains("Rail")) {
             return "Not a rail block: " + blockId;
         }
 
-        int rotationIndex = world.getBlockRotationIndex(blockX, blockY, blockZ);
+        int rotationIndex = rails.getRotationIndex(blockX, blockY, blockZ);
         String railType = RailPathRegistry.getRailType(blockId);
-        boolean isSwitch = blockId.contains("Rail_Switch") || blockId.contains("_Switch");
+        SwitchFootprintIndex.Footprint footprint =
+            SwitchFootprintIndex.forView(rails).get(blockX, blockY, blockZ, desc);
 
         StringBuilder info = new StringBuilder();
         info.append("=== Rail Path Info ===\n");
         info.append(String.format("Block: %s\n", blockId));
         info.append(String.format("Type: %s\n", railType));
         info.append(String.format("Rotation: %d\n", rotationIndex));
-        info.append(String.format("Is Switch: %b\n", isSwitch));
-
-        // Get actual rail config from block type
-        RailConfig railConfig = blockType.getRailConfig(rotationIndex);
-        if (railConfig == null || railConfig.points == null || railConfig.points.length < 2) {
-            for (int rot = 0; rot < 4; rot++) {
-                railConfig = blockType.getRailConfig(rot);
-                if (railConfig != null && railConfig.points != null && railConfig.points.length >= 2) {
-                    info.append(String.format("(Found config at rotation %d)\n", rot));
-                    break;
-                }
-            }
+        info.append(String.format("Is Switch: %b\n", footprint != null));
+        if (footprint != null) {
+            info.append(String.format("Switch: %s-handed, state %s, footprint origin (%d, %d, %d)\n",
+                footprint.rightHanded ? "right" : "left", footprint.state,
+                footprint.originX, footprint.originY, footprint.originZ));
+        }
+        CornerCurve corner = desc.getCornerCurve(rotationIndex);
+        if (corner != null) {
+            info.append(String.format("Corner curve: %.3f blocks, %d samples, max curvature %.2f\n",
+                corner.getLength(), corner.getPointCount(), corner.getMaxCurvature()));
         }
 
-        if (railConfig == null || railConfig.points == null || railConfig.points.length < 2) {
+        // Actual rail points from the block type (falls back to other rotations if needed)
+        RailPoint[] points = desc.getRailPoints(rotationIndex);
+        if (points == null) {
             info.append("\nNo rail config found!\n");
             return info.toString();
         }
 
-        info.append(String.format("\nRail Points: %d\n", railConfig.points.length));
+        info.append(String.format("\nRail Points: %d\n", points.length));
 
-        RailPoint[] points = railConfig.points;
         RailPoint first = points[0];
         RailPoint last = points[points.length - 1];
         info.append(String.format("  Entry: (%.2f, %.2f, %.2f)\n", first.point.x, first.point.y, first.point.z));
@@ -316,6 +295,44 @@ public class RailPathVisualizer extends EntityTickingSystem<EntityStore> {
         info.append("\nPath (top-down):\n");
         info.append(getAsciiPath(worldPoints, blockX, blockZ));
 
+        // Where this block sits in the compiled track graph
+        RailNetwork network = RailNetwork.forView(rails);
+        RailNetwork.Segment segment = network.getSegmentAt(blockX, blockY, blockZ);
+        if (segment != null) {
+            RailNetwork.Node startNode = network.getEndNode(segment, false);
+            RailNetwork.Node endNode = network.getEndNode(segment, true);
+            info.append(String.format("\nSegment #%d: %d cells, %.1f blocks long%s\n",
+                segment.id, segment.getCellCount(), segment.length, segment.closed ? " (loop)" : ""));
+            info.append(String.format("  Ends: %s / %s\n",
+                startNode != null ? startNode.type + " #" + startNode.id : "open",
+                endNode != null ? endNode.type + " #" + endNode.id : "open"));
+        } else {
+            RailNetwork.Node node = network.getNodeAt(blockX, blockY, blockZ);
+            if (node != null) {
+                info.append(String.format("\nNode #%d: %s, %d ports\n", node.id, node.type, node.ports.size()));
+                for (RailNetwork.Port port : node.ports) {
+                    RailNetwork.Segment portSegment = network.getPortSegment(port);
+                    info.append(String.format("  %s %s -> %s\n", port.type, RailPathDefinition.getEdgeName(port.edge),
+                        portSegment != null ? "segment #" + portSegment.id : "none"));
+                }
+            }
+        }
+
+        // Nearest bumper / accelerator / slope / switch along each direction
+        TrackFeatureIndex features = TrackFeatureIndex.forView(rails);
+        TrackFeatureIndex.Feature feature = new TrackFeatureIndex.Feature();
+        info.append(String.format("\nFeatures within %d blocks:\n", FEATURE_SEARCH_BLOCKS));
+        for (int edge = 0; edge < 4; edge++) {
+            if (features.findNext(blockX, blockY, blockZ, edge, FEATURE_SEARCH_BLOCKS, TrackFeatureIndex.MASK_ALL, feature)) {
+                info.append(String.format("  %s: %s at (%d, %d, %d), %d blocks%s\n",
+                    RailPathDefinition.getEdgeName(edge), TrackFeatureIndex.getKindName(feature.kind),
+                    feature.x, feature.y, feature.z, feature.distance,
+                    feature.edge >= 0 ? ", edge " + RailPathDefinition.getEdgeName(feature.edge) : ""));
+            } else {
+                info.append(String.format("  %s: none\n", RailPathDefinition.getEdgeName(edge)));
+            }
+        }
+
         return info.toString();
     }
 
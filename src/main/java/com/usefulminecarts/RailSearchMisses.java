@@ -0,0 +1,99 @@
+package com.usefulminecarts;
+
+import com.hypixel.hytale.server.core.universe.world.World;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-world set of blocks that a rail search started from this tick and found no rail
+ * anywhere in reach (the 5x4x5 box MinecartPhysicsSystem.findBestRailSnapWithDirection
+ * looks at).
+ *
+ * Derailed carts tend to end up in the same few blocks, and each of them runs the same
+ * search of about a hundred blocks. The first search from a block records the miss here,
+ * and every later search from that block in the same tick - by any cart - is answered
+ * with one set lookup.
+ *
+ * Only a box with no rail in it at all is recorded, because whether a nearby rail is
+ * close enough depends on where in the block the cart is. Entries last one tick: the
+ * set is cleared after the tick that filled it (world.execute) and on any block change
+ * in the world (see RailBlockChangeSystem). An in-memory view has no ticks, so nothing
+ * is recorded for it.
+ *
+ * Only accessed from the owning world's thread.
+ */
+public final class RailSearchMisses {
+
+    private static final Map<RailWorldView, RailSearchMisses> sets = new ConcurrentHashMap<>();
+
+    // World to schedule the end-of-tick clear on, null for in-memory views
+    private final World world;
+    // Search centres (RailNetwork.packPos) with no rail in reach
+    private final LongOpenHashSet blocks = new LongOpenHashSet();
+    // Scheduled after a tick that recorded a miss (kept so scheduling doesn't allocate)
+    private final Runnable endTick = this::endTick;
+    private boolean clearScheduled;
+
+    private RailSearchMisses(RailWorldView view) {
+        this.world = view instanceof WorldRailView worldView ? worldView.getWorld() : null;
+    }
+
+    /**
+     * Get the set for a rail world view, creating it on first use.
+     */
+    public static RailSearchMisses forView(RailWorldView view) {
+        return sets.computeIfAbsent(view, RailSearchMisses::new);
+    }
+
+    /**
+     * Drop the set for every world (plugin shutdown / asset reload).
+     */
+    public static void clearAll() {
+        sets.clear();
+    }
+
+    /**
+     * Drop the set for one world (the world was removed, see WorldRailView.onWorldRemoved).
+     */
+    static void remove(RailWorldView view) {
+        sets.remove(view);
+    }
+
+    /**
+     * Whether a search from this block already found no rail this tick.
+     */
+    public boolean contains(int blockX, int blockY, int blockZ) {
+        return !blocks.isEmpty() && blocks.contains(RailNetwork.packPos(blockX, blockY, blockZ));
+    }
+
+    /**
+     * Record that a search from this block found no rail in reach.
+     */
+    public void add(int blockX, int blockY, int blockZ) {
+        if (world == null) return;
+        blocks.add(RailNetwork.packPos(blockX, blockY, blockZ));
+        if (!clearScheduled) {
+            clearScheduled = true;
+            world.execute(endTick);
+        }
+    }
+
+    private void endTick() {
+        clearScheduled = false;
+        blocks.clear();
+    }
+
+    /**
+     * Forget this tick's misses in the given world after a block change (a rail may
+     * now be in reach), if a set exists for it.
+     */
+    public static void onBlockChanged(RailWorldView view, int blockX, int blockY, int blockZ) {
+        if (view == null) return;
+        RailSearchMisses misses = sets.get(view);
+        if (misses != null) {
+            misses.blocks.clear();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.usefulminecarts;
+
+/**
+ * The part of a world the rail physics reads: which block is where, how it is rotated,
+ * and whether the chunk around it is loaded.
+ *
+ * Rail cells, the rail network, track cursors and the snap code only go through this,
+ * so they can run against a live World (WorldRailView) or against an in-memory layout
+ * (VoxelRailWorld) for benchmarks and offline simulation.
+ *
+ * Implementations are compared by identity - per-world caches are keyed on the view,
+ * so a world must always be represented by the same instance.
+ */
+public interface RailWorldView {
+
+    /**
+     * Get the descriptor of the block at a position.
+     * @return The descriptor, or null if there is no block type there (e.g. chunk not loaded)
+     */
+    RailBlockDescriptor getBlock(int x, int y, int z);
+
+    /**
+     * Get the rotation index (0-3 for flat rotations) of the block at a position.
+     */
+    int getRotationIndex(int x, int y, int z);
+
+    /**
+     * Get a token for the loaded chunk with this index (see ChunkUtil.indexChunkFromBlock).
+     * Caches compare it by identity to notice a chunk being unloaded and loaded again.
+     * @return The token, or null if the chunk isn't in memory
+     */
+    Object getChunkIfInMemory(long chunkIndex);
+
+    /**
+     * Start a pass of reads (one cart tick): until endPass(), the view may look each
+     * chunk up once and reuse it. Call from the world's thread, and always end the pass.
+     */
+    default void beginPass() {
+    }
+
+    /**
+     * End the pass started by beginPass().
+     * @return How many chunk lookups went to the world during the pass (0 if not counted)
+     */
+    default int endPass() {
+        return 0;
+    }
+}
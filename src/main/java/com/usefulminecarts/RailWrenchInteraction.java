@@ -34,8 +34,12 @@ public class RailWrenchInteraction extends SimpleBlockInteraction {
     public static final BuilderCodec<RailWrenchInteraction> CODEC =
         BuilderCodec.builder(RailWrenchInteraction.class, RailWrenchInteraction::new, SimpleBlockInteraction.CODEC).build();
 
-    // Block update flag (same as TNT plugin uses)
-    private static final int BLOCK_UPDATE = 256;
+    // World.setBlock settings: block update (same as TNT plugin uses)
+    static final int BLOCK_UPDATE = 256;
+
+    // WorldChunk.setBlock settings for rewriting a block in place with a new rotation
+    // (also used by StressTest to place rotated rails)
+    static final int ROTATE_SETTINGS = 157;
 
     public RailWrenchInteraction() {
         super();
@@ -113,8 +117,9 @@ public class RailWrenchInteraction extends SimpleBlockInteraction {
                         blockType,
                         newRotation,
                         0,
-                        157
+                        ROTATE_SETTINGS
                     );
+                    RailBlockChangeSystem.onBlockChanged(world, pos.x, pos.y, pos.z);
 
                     int newRot = world.getBlockRotationIndex(pos.x, pos.y, pos.z);
                     LOGGER.atInfo().log("Rotated block from %d to %d, actual=%d, success=%b", rotation, newRotation, newRot, success);
@@ -225,6 +230,7 @@ public class RailWrenchInteraction extends SimpleBlockInteraction {
                 pos.x, pos.y, pos.z, newBlockId);
 
             world.setBlock(pos.x, pos.y, pos.z, newBlockId, BLOCK_UPDATE);
+            RailBlockChangeSystem.onBlockChanged(world, pos.x, pos.y, pos.z);
 
             LOGGER.atInfo().log("[RailWrench] Block set successfully!");
 
@@ -0,0 +1,426 @@
+package com.usefulminecarts;
+
+import com.hypixel.hytale.builtin.mounts.minecart.MinecartComponent;
+import com.hypixel.hytale.component.AddReason;
+import com.hypixel.hytale.component.Holder;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.RemoveReason;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.math.vector.Vector3f;
+import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
+import com.hypixel.hytale.server.core.asset.type.model.config.Model;
+import com.hypixel.hytale.server.core.asset.type.model.config.ModelAsset;
+import com.hypixel.hytale.server.core.entity.UUIDComponent;
+import com.hypixel.hytale.server.core.modules.entity.component.BoundingBox;
+import com.hypixel.hytale.server.core.modules.entity.component.ModelComponent;
+import com.hypixel.hytale.server.core.modules.entity.component.PersistentModel;
+import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
+import com.hypixel.hytale.server.core.modules.entity.tracker.NetworkId;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.chunk.WorldChunk;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-game load test: /mc stress <carts> [layout] builds a closed test track next to the
+ * player, spawns carts on it with random speeds and measures plugin time per server tick
+ * for RUN_TICKS ticks. /mc stress clear removes the track and the carts again.
+ *
+ * Plugin time per tick is the sum of all system timings recorded by TickTimings during
+ * that tick. Tick boundaries are taken from one of the test's carts (the pacer): every
+ * time it is ticked again, a server tick has passed. If the pacer is removed, the next
+ * test cart to tick takes over.
+ *
+ * Each world can have one test. Its state is only touched on that world's thread, except
+ * for the volatile progress fields the status report reads. Network ids are handed out
+ * per world, so cart hooks look the test up by world before matching ids; timings
+ * recorded on other threads (other worlds) are ignored.
+ */
+public final class StressTest {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    public static final int RUN_TICKS = 600;
+    public static final int MAX_CARTS = 1000;
+
+    private static final String EMPTY = "Empty";
+    private static final String SUPPORT = "Rock_Stone";
+    private static final String RAIL = "Rail";
+    private static final String RAIL_SLOPE = "*Rail_State_Definitions_Slope";
+    private static final String RAIL_CORNER = "*Rail_State_Definitions_Corner_Right";
+    private static final String ACCEL = "UsefulMinecarts_Rail_Accel";
+    private static final String SWITCH = "UsefulMinecarts_Rail_Switch";
+    private static final String BUMPER = "UsefulMinecarts_Cart_Bumper";
+
+    // Corner rotations by the two edges they join, with rotation 0 joining south and east
+    private static final int CORNER_SE = 0;
+    private static final int CORNER_NE = 1;
+    private static final int CORNER_NW = 2;
+    private static final int CORNER_SW = 3;
+
+    /**
+     * Test tracks. Both are a WIDTH x LENGTH loop; LOOP adds a hill, accelerators and a
+     * switch with a spur that ends in a bumper.
+     */
+    public enum Layout {
+        LOOP,
+        FLAT;
+
+        public static Layout parse(String name) {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private static final int WIDTH = 12;
+    private static final int LENGTH = 32;
+    // Carts don't collide with each other, so several can share a rail block
+    private static final int CARTS_PER_RAIL = 8;
+
+    private record Placement(int x, int y, int z, String blockId, int rotation) {
+    }
+
+    /**
+     * The test set up in one world. Touched on that world's thread only, apart from the
+     * volatile fields.
+     */
+    private static final class Test {
+        final World world;
+        final List<Placement> placements = new ArrayList<>();
+        final List<Ref<EntityStore>> carts = new ArrayList<>();
+        final IntOpenHashSet cartIds = new IntOpenHashSet();
+
+        // Measurement
+        volatile boolean running;
+        final TimingHistogram tickTimes = new TimingHistogram();
+        int pacerId = -1;
+        volatile int measuredTicks;
+        volatile int cartCount;
+        long tickNanos;
+
+        Test(World world) {
+            this.world = world;
+        }
+    }
+
+    private static final Map<World, Test> tests = new ConcurrentHashMap<>();
+    // Tests measuring right now, so the per-tick hooks cost nothing otherwise
+    private static final AtomicInteger runningCount = new AtomicInteger();
+    // Test of the world whose thread this is, while it measures (for addPluginNanos)
+    private static final ThreadLocal<Test> measuring = new ThreadLocal<>();
+    private static volatile String lastReport = "No stress test has run yet";
+
+    private StressTest() {
+    }
+
+    public static boolean isRunning() {
+        return runningCount.get() > 0;
+    }
+
+    /**
+     * Build the test track with its south-west corner at the origin and start the run.
+     * Call on the world's thread.
+     *
+     * @return A message for the player
+     */
+    public static String start(World target, int originX, int originY, int originZ, int cartCount, Layout layout) {
+        if (tests.containsKey(target)) {
+            return "A stress test is already set up in this world - use /mc stress clear first";
+        }
+
+        List<Placement> track = buildTrack(originX, originY, originZ, layout);
+        RailWorldView view = WorldRailView.of(target);
+        for (Placement p : track) {
+            RailBlockDescriptor desc = view.getBlock(p.x, p.y, p.z);
+            if (desc == null || !desc.isAir) {
+                return String.format("Area not empty at (%d, %d, %d) - find a flat open space", p.x, p.y, p.z);
+            }
+        }
+
+        Test test = new Test(target);
+        tests.put(target, test);
+        for (Placement p : track) {
+            placeBlock(target, p);
+            test.placements.add(p);
+        }
+
+        List<Placement> route = new ArrayList<>();
+        for (Placement p : track) {
+            if (p.blockId.equals(RAIL) || p.blockId.equals(ACCEL)) {
+                route.add(p);
+            }
+        }
+
+        Store<EntityStore> store = target.getEntityStore().getStore();
+        Random random = new Random(cartCount);
+        int spawned = Math.min(cartCount, route.size() * CARTS_PER_RAIL);
+        for (int i = 0; i < spawned; i++) {
+            Placement p = route.get(i % route.size());
+            spawnCart(test, store, p, i / route.size(), random);
+        }
+
+        test.cartCount = test.carts.size();
+        test.running = true;
+        measuring.set(test);
+        runningCount.incrementAndGet();
+
+        LOGGER.atInfo().log("[StressTest] Started: %d carts on a %s track at (%d, %d, %d)",
+            spawned, layout, originX, originY, originZ);
+        String capped = spawned < cartCount ? " (capped at " + CARTS_PER_RAIL + " per rail)" : "";
+        return String.format("Stress test started: %d carts%s, measuring %d ticks. Use /mc stress status for the result.",
+            spawned, capped, RUN_TICKS);
+    }
+
+    /**
+     * Remove the test track and carts of a world. Call on that world's thread.
+     *
+     * @return A message for the player
+     */
+    public static String clear(World target) {
+        Test test = tests.get(target);
+        if (test == null) {
+            return "No stress test to clear in this world";
+        }
+        if (test.running) {
+            finish(test, "cleared early");
+        }
+
+        Store<EntityStore> store = target.getEntityStore().getStore();
+        for (Ref<EntityStore> ref : test.carts) {
+            if (ref.isValid()) {
+                store.removeEntity(ref, RemoveReason.REMOVE);
+            }
+        }
+        int cartCount = test.carts.size();
+        for (int i = test.placements.size() - 1; i >= 0; i--) {
+            Placement p = test.placements.get(i);
+            target.setBlock(p.x, p.y, p.z, EMPTY, RailWrenchInteraction.BLOCK_UPDATE);
+            RailBlockChangeSystem.onBlockChanged(target, p.x, p.y, p.z);
+        }
+        int blockCount = test.placements.size();
+
+        tests.remove(target);
+        return String.format("Removed %d carts and %d blocks", cartCount, blockCount);
+    }
+
+    /**
+     * Whether a test is set up in a world.
+     */
+    public static boolean hasTest(World target) {
+        return tests.containsKey(target);
+    }
+
+    /**
+     * Drop the test of a world that was removed (its carts and blocks went with it).
+     */
+    static void onWorldRemoved(World target) {
+        Test test = tests.remove(target);
+        if (test != null && test.running) {
+            test.running = false;
+            runningCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Called by MinecartPhysicsSystem after each cart tick while a test runs.
+     */
+    static void onCartTick(World target, int entityId) {
+        Test test = tests.get(target);
+        if (test == null || !test.running || !test.cartIds.contains(entityId)) return;
+        if (test.pacerId < 0) {
+            test.pacerId = entityId;
+            test.tickNanos = 0;
+            return;
+        }
+        if (entityId != test.pacerId) return;
+
+        test.tickTimes.record(test.tickNanos);
+        test.tickNanos = 0;
+        if (++test.measuredTicks >= RUN_TICKS) {
+            finish(test, "finished");
+        }
+    }
+
+    /**
+     * Called by CartRemovalSystem when a cart is removed. Losing the pacer would stall
+     * the measurement, so the next test cart to tick is elected instead (the tick in
+     * progress is dropped).
+     */
+    static void onCartRemoved(World target, int entityId) {
+        Test test = tests.get(target);
+        if (test == null || !test.cartIds.remove(entityId)) return;
+        test.cartCount = test.cartIds.size();
+        if (entityId == test.pacerId) {
+            test.pacerId = -1;
+        }
+    }
+
+    /**
+     * Called by TickTimings with each system timing while a test runs.
+     */
+    static void addPluginNanos(long nanos) {
+        // Systems in other worlds tick on their own threads and don't count
+        Test test = measuring.get();
+        if (test == null) return;
+        test.tickNanos += nanos;
+    }
+
+    /**
+     * Result of the last run, or progress of the running one in a world.
+     */
+    public static String getReport(World target) {
+        Test test = target != null ? tests.get(target) : null;
+        if (test != null && test.running) {
+            return String.format("Stress test running: %d of %d ticks measured, %d carts",
+                test.measuredTicks, RUN_TICKS, test.cartCount);
+        }
+        return lastReport;
+    }
+
+    private static void finish(Test test, String how) {
+        test.running = false;
+        measuring.remove();
+        runningCount.decrementAndGet();
+        lastReport = String.format("Stress test %s: %d carts, %d ticks, plugin time per tick p50 %.2fms / p99 %.2fms / max %.2fms",
+            how, test.cartCount, test.measuredTicks,
+            test.tickTimes.getPercentile(50) / 1e6, test.tickTimes.getPercentile(99) / 1e6, test.tickTimes.getMax() / 1e6);
+        LOGGER.atInfo().log("[StressTest] %s", lastReport);
+    }
+
+    /**
+     * Lay out the track. The loop runs along the edges of a WIDTH x LENGTH rectangle
+     * (x to the east, z to the north from the origin).
+     */
+    private static List<Placement> buildTrack(int x0, int y, int z0, Layout layout) {
+        List<Placement> track = new ArrayList<>();
+        int x1 = x0 + WIDTH - 1;
+        int zn = z0 - (LENGTH - 1);
+
+        track.add(new Placement(x0, y, z0, RAIL_CORNER, CORNER_NE));
+        track.add(new Placement(x1, y, z0, RAIL_CORNER, CORNER_NW));
+        track.add(new Placement(x1, y, zn, RAIL_CORNER, CORNER_SW));
+        track.add(new Placement(x0, y, zn, RAIL_CORNER, CORNER_SE));
+
+        // South and north sides run east-west
+        for (int x = x0 + 1; x < x1; x++) {
+            track.add(new Placement(x, y, z0, RAIL, 1));
+            track.add(new Placement(x, y, zn, RAIL, 1));
+        }
+
+        // West side: straight, or a hill up one block and down again
+        int hillStart = z0 - 8;
+        for (int z = z0 - 1; z > zn; z--) {
+            if (layout == Layout.LOOP && z <= hillStart && z > hillStart - 6) {
+                int step = hillStart - z;
+                if (step == 0) {
+                    track.add(new Placement(x0, y, z, RAIL_SLOPE, 0));
+                } else if (step == 5) {
+                    track.add(new Placement(x0, y, z, RAIL_SLOPE, 2));
+                } else {
+                    track.add(new Placement(x0, y, z, SUPPORT, 0));
+                    track.add(new Placement(x0, y + 1, z, RAIL, 0));
+                }
+            } else {
+                track.add(new Placement(x0, y, z, RAIL, 0));
+            }
+        }
+
+        // East side: accelerators in the middle, a switch near the north end with a
+        // spur heading east into a bumper
+        int switchZ = zn + 4;
+        for (int z = z0 - 1; z > zn; z--) {
+            if (layout == Layout.LOOP && (z == switchZ || z == switchZ - 1)) {
+                continue;
+            }
+            boolean accel = layout == Layout.LOOP && z <= z0 - 10 && z > z0 - 14;
+            track.add(new Placement(x1, y, z, accel ? ACCEL : RAIL, 0));
+        }
+        if (layout == Layout.LOOP) {
+            // 2x2 switch footprint over x1..x1+1 and switchZ-1..switchZ, straight route
+            // along the loop. All four blocks are placed explicitly, the way
+            // SwitchFootprintIndex expects to find them (same type, origin at the minimum
+            // X/Z), rather than relying on the placement to fill in the footprint - and so
+            // clear() removes all four again.
+            for (int dz = 0; dz < 2; dz++) {
+                for (int dx = 0; dx < 2; dx++) {
+                    track.add(new Placement(x1 + dx, y, switchZ - dz, SWITCH, 0));
+                }
+            }
+            // The spur leaves the footprint's east edge on its north row
+            for (int x = x1 + 2; x < x1 + 6; x++) {
+                track.add(new Placement(x, y, switchZ - 1, RAIL, 1));
+            }
+            track.add(new Placement(x1 + 6, y, switchZ - 1, BUMPER, 3));
+        }
+        return track;
+    }
+
+    private static void placeBlock(World target, Placement p) {
+        target.setBlock(p.x, p.y, p.z, p.blockId, RailWrenchInteraction.BLOCK_UPDATE);
+        if (p.rotation != 0) {
+            // Same as RailWrenchInteraction.rotateRail: rewrite the block with a rotation
+            Object chunk = target.getChunkIfInMemory(ChunkUtil.indexChunkFromBlock(p.x, p.z));
+            BlockType blockType = target.getBlockType(p.x, p.y, p.z);
+            if (chunk instanceof WorldChunk worldChunk && blockType != null) {
+                worldChunk.setBlock(p.x, p.y, p.z, target.getBlock(p.x, p.y, p.z), blockType, p.rotation, 0,
+                    RailWrenchInteraction.ROTATE_SETTINGS);
+            }
+        }
+        RailBlockChangeSystem.onBlockChanged(target, p.x, p.y, p.z);
+    }
+
+    /**
+     * Spawn a riderless cart in one of the CARTS_PER_RAIL slots of a rail block, heading
+     * along the rail at a random speed.
+     * Built like a placed Rail_Kart: minecart component, model, physics state.
+     */
+    private static void spawnCart(Test test, Store<EntityStore> store, Placement rail, int slot, Random random) {
+        boolean alongX = rail.rotation == 1;
+        double along = (slot + 0.5) / CARTS_PER_RAIL;
+        Vector3d position = new Vector3d(
+            rail.x + (alongX ? along : 0.5), rail.y + 0.1, rail.z + (alongX ? 0.5 : along));
+        double sign = random.nextBoolean() ? 1 : -1;
+        double dirX = alongX ? sign : 0;
+        double dirZ = alongX ? 0 : sign;
+        float yaw = (float) Math.atan2(-dirX, dirZ);
+
+        Holder<EntityStore> holder = EntityStore.REGISTRY.newHolder();
+        holder.addComponent(TransformComponent.getComponentType(),
+            new TransformComponent(position, new Vector3f(0, yaw, 0)));
+        holder.ensureComponent(UUIDComponent.getComponentType());
+        holder.addComponent(MinecartComponent.getComponentType(), new MinecartComponent());
+
+        int networkId = store.getExternalData().takeNextNetworkId();
+        holder.addComponent(NetworkId.getComponentType(), new NetworkId(networkId));
+
+        ModelAsset modelAsset = (ModelAsset) ModelAsset.getAssetMap().getAsset("Minecart");
+        if (modelAsset != null) {
+            Model model = Model.createScaledModel(modelAsset, 1.0f);
+            holder.addComponent(PersistentModel.getComponentType(), new PersistentModel(model.toReference()));
+            holder.addComponent(ModelComponent.getComponentType(), new ModelComponent(model));
+            holder.addComponent(BoundingBox.getComponentType(), new BoundingBox(model.getBoundingBox()));
+        }
+
+        CartPhysicsComponent physics = new CartPhysicsComponent();
+        physics.velocity = MinecartConfig.getMaxSpeed() * (0.25 + 0.75 * random.nextDouble());
+        physics.setWorldDirection(dirX, dirZ);
+        physics.setFacingYaw(yaw);
+        holder.addComponent(CartPhysicsComponent.getComponentType(), physics);
+
+        Ref<EntityStore> ref = store.addEntity(holder, AddReason.SPAWN);
+        if (ref != null) {
+            test.carts.add(ref);
+            test.cartIds.add(networkId);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.usefulminecarts;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-world index of 2x2 switch footprints: for each switch block, the footprint's
+ * origin (minimum X/Z corner), rotation, handedness and current state.
+ *
+ * Finding the origin means reading up to three neighbouring blocks. The rail cells, the
+ * path visualizer and /mc pathinfo all resolve it through here instead, so it happens
+ * once per switch block rather than once per caller.
+ *
+ * Stored per chunk in a ChunkStore: a chunk's entries are filled as its switches are
+ * first looked up and thrown away once the chunk was unloaded and loaded again. Placing,
+ * breaking or toggling a block drops the entries around it (see RailBlockChangeSystem).
+ * Each entry also remembers the descriptor it was built for, and a lookup with a
+ * different one (a change that fired no event) rebuilds it.
+ *
+ * Only accessed from the owning world's thread.
+ */
+public final class SwitchFootprintIndex {
+
+    private static final Map<RailWorldView, SwitchFootprintIndex> indexes = new ConcurrentHashMap<>();
+
+    /**
+     * Where a switch block's 2x2 footprint is and how it is set.
+     */
+    public static final class Footprint {
+        // Minimum X/Z corner of the footprint (rail points are relative to it)
+        public final int originX, originY, originZ;
+        // Rotation index of the switch block
+        public final int rotationIndex;
+        // Diverging track goes to the right (Rail_Switch_Right) rather than the left
+        public final boolean rightHanded;
+        // "straight" or "left", as RailPathRegistry.getBlockState
+        public final String state;
+        // The block type this was worked out for
+        final RailBlockDescriptor descriptor;
+
+        Footprint(int originX, int originY, int originZ, int rotationIndex, RailBlockDescriptor descriptor) {
+            this.originX = originX;
+            this.originY = originY;
+            this.originZ = originZ;
+            this.rotationIndex = rotationIndex;
+            this.descriptor = descriptor;
+            this.rightHanded = descriptor.blockId != null && descriptor.blockId.contains("_Right");
+            this.state = descriptor.switchState;
+        }
+
+        /**
+         * Whether the block at a position is this footprint's origin block.
+         */
+        public boolean isOrigin(int blockX, int blockZ) {
+            return blockX == originX && blockZ == originZ;
+        }
+
+        /**
+         * Offset to add to rotated rail points on X. The engine rotates rail points around
+         * (0.5, 0.5), the single-block center, but a 2x2 footprint turns around (1.0, 1.0).
+         */
+        public double getRotationCorrectionX() {
+            int rot = rotationIndex % 4;
+            return rot == 2 || rot == 3 ? 1.0 : 0.0;
+        }
+
+        /**
+         * Offset to add to rotated rail points on Z (see getRotationCorrectionX).
+         */
+        public double getRotationCorrectionZ() {
+            int rot = rotationIndex % 4;
+            return rot == 1 || rot == 2 ? 1.0 : 0.0;
+        }
+    }
+
+    private final RailWorldView view;
+    // Packed local position (ChunkStore.packLocal) -> footprint
+    private final ChunkStore<Int2ObjectOpenHashMap<Footprint>> chunks;
+
+    private SwitchFootprintIndex(RailWorldView view) {
+        this.view = view;
+        this.chunks = new ChunkStore<>(view, Int2ObjectOpenHashMap::new);
+    }
+
+    /**
+     * Get the index for a rail world view, creating it on first use.
+     */
+    public static SwitchFootprintIndex forView(RailWorldView view) {
+        return indexes.computeIfAbsent(view, SwitchFootprintIndex::new);
+    }
+
+    /**
+     * Drop the index for every world (plugin shutdown / asset reload).
+     */
+    public static void clearAll() {
+        indexes.clear();
+    }
+
+    /**
+     * Drop the index for one world (the world was removed, see WorldRailView.onWorldRemoved).
+     */
+    static void remove(RailWorldView view) {
+        indexes.remove(view);
+    }
+
+    /**
+     * Get the footprint of the switch at a block position.
+     *
+     * @param desc The descriptor of the block there (the caller has already read it)
+     * @return The footprint, or null if the block isn't a switch or its chunk isn't loaded
+     */
+    public Footprint get(int blockX, int blockY, int blockZ, RailBlockDescriptor desc) {
+        if (desc == null || !desc.isSwitch) return null;
+
+        Int2ObjectOpenHashMap<Footprint> footprints = chunks.get(blockX, blockZ);
+        if (footprints == null) return null;
+
+        int key = ChunkStore.packLocal(blockX, blockY, blockZ);
+        Footprint footprint = footprints.get(key);
+        if (footprint != null && footprint.descriptor == desc) {
+            return footprint;
+        }
+        if (footprint != null) {
+            // Changed without an event: the neighbours' origins may have moved too
+            invalidateAround(blockX, blockY, blockZ);
+        }
+
+        footprint = resolve(blockX, blockY, blockZ, desc);
+        footprints.put(key, footprint);
+        return footprint;
+    }
+
+    private Footprint resolve(int blockX, int blockY, int blockZ, RailBlockDescriptor desc) {
+        // The origin is the minimum X and Z that has the SAME block type (exact match).
+        // Same descriptor instance means the exact same block type (e.g., both
+        // "Rail_Switch_Left" or both "Rail_Switch_Right"), so adjacent switches
+        // aren't confused with each other.
+        int originX = blockX;
+        int originZ = blockZ;
+        if (view.getBlock(blockX - 1, blockY, blockZ) == desc) {
+            originX = blockX - 1;
+        }
+        if (view.getBlock(blockX, blockY, blockZ - 1) == desc) {
+            originZ = blockZ - 1;
+        }
+        // Also check diagonal -X-Z if we found either (must also match)
+        if (originX != blockX || originZ != blockZ) {
+            RailBlockDescriptor diagDesc = view.getBlock(originX, blockY, originZ);
+            if (diagDesc != null && diagDesc != desc) {
+                // Diagonal doesn't match - reset to current block as origin
+                originX = blockX;
+                originZ = blockZ;
+            }
+        }
+        return new Footprint(originX, blockY, originZ, view.getRotationIndex(blockX, blockY, blockZ), desc);
+    }
+
+    /**
+     * Drop the entries at and next to a position (a footprint origin looks one block
+     * away on -X, -Z and the diagonal, so the surrounding 3x3 on that layer covers it).
+     */
+    public void invalidateAround(int blockX, int blockY, int blockZ) {
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                int x = blockX + dx;
+                int z = blockZ + dz;
+                Int2ObjectOpenHashMap<Footprint> footprints = chunks.getIfPresent(x, z);
+                if (footprints != null) {
+                    footprints.remove(ChunkStore.packLocal(x, blockY, z));
+                }
+            }
+        }
+    }
+
+    /**
+     * Number of indexed switch blocks, for diagnostics.
+     */
+    public int size() {
+        return chunks.sum(Int2ObjectOpenHashMap::size);
+    }
+
+    /**
+     * Invalidate around a changed block in the given world, if an index exists for it.
+     */
+    public static void onBlockChanged(RailWorldView view, int blockX, int blockY, int blockZ) {
+        if (view == null) return;
+        SwitchFootprintIndex index = indexes.get(view);
+        if (index != null) {
+            index.invalidateAround(blockX, blockY, blockZ);
+        }
+    }
+}
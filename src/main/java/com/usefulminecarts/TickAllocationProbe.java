@@ -0,0 +1,103 @@
+package com.usefulminecarts;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures how many bytes the cart physics tick allocates.
+ *
+ * Started with /mc allocprobe. For the next N cart ticks, MinecartPhysicsSystem reads the
+ * ticking thread's allocated-bytes counter before and after each tick. The steady-state
+ * tick should allocate nothing, so any non-zero average here is a regression
+ * (logging ticks excepted - debug logging still formats its arguments). TickAllocationTest
+ * checks the spatial physics part of the tick (moveOnRails) headlessly.
+ */
+public final class TickAllocationProbe {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    public static final int DEFAULT_TICKS = 600;
+
+    // Null if the JVM can't count per-thread allocations
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+
+    private static volatile int remainingTicks;
+    private static long measuredTicks;
+    private static long allocatingTicks;
+    private static long totalBytes;
+    private static long maxBytes;
+    private static volatile String lastReport = "No allocation probe has run yet";
+
+    private TickAllocationProbe() {
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported()) {
+            bean.setThreadAllocatedMemoryEnabled(true);
+            return bean;
+        }
+        return null;
+    }
+
+    public static boolean isSupported() {
+        return THREADS != null;
+    }
+
+    /**
+     * Start measuring the next cart ticks.
+     *
+     * @return False if a probe is already running or the JVM can't measure allocations
+     */
+    public static synchronized boolean start(int ticks) {
+        if (THREADS == null || remainingTicks > 0) return false;
+        measuredTicks = 0;
+        allocatingTicks = 0;
+        totalBytes = 0;
+        maxBytes = 0;
+        remainingTicks = Math.max(1, ticks);
+        return true;
+    }
+
+    public static boolean isRunning() {
+        return remainingTicks > 0;
+    }
+
+    /**
+     * Read the current thread's allocation counter before a tick.
+     */
+    static long begin() {
+        return THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Record one tick, given the counter read by begin().
+     */
+    static void end(long allocatedBefore) {
+        long bytes = THREADS.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        synchronized (TickAllocationProbe.class) {
+            if (remainingTicks <= 0) return;
+            measuredTicks++;
+            totalBytes += bytes;
+            if (bytes > 0) allocatingTicks++;
+            if (bytes > maxBytes) maxBytes = bytes;
+            if (--remainingTicks == 0) {
+                lastReport = String.format("Allocation probe: %d cart ticks, avg %.1f B/tick, max %d B, %d ticks allocated",
+                    measuredTicks, (double) totalBytes / measuredTicks, maxBytes, allocatingTicks);
+                LOGGER.atInfo().log("[AllocProbe] %s", lastReport);
+            }
+        }
+    }
+
+    /**
+     * Result of the last finished probe, or progress of the running one.
+     */
+    public static synchronized String getReport() {
+        if (remainingTicks > 0) {
+            return String.format("Allocation probe running: %d cart ticks measured, %d to go",
+                measuredTicks, remainingTicks);
+        }
+        return lastReport;
+    }
+}
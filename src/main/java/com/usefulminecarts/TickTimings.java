@@ -0,0 +1,131 @@
+package com.usefulminecarts;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tick time spent in the plugin, per ECS system and per phase of the cart physics tick.
+ *
+ * Always on - recording is two System.nanoTime() calls and a histogram increment - so
+ * when a server tick stalls, /mc perf shows whether (and where) the plugin was to blame.
+ * /mc perf reset starts a fresh measurement window.
+ */
+public final class TickTimings {
+
+    /**
+     * What is timed. System phases cover a whole tick()/handle() call; physics phases
+     * are the parts of one spatial cart tick (they don't add up to the physics system
+     * time - early returns and the arc-length path skip some of them).
+     */
+    public enum Phase {
+        MOUNT_INPUT(true, "MountInputBlocker"),
+        PHYSICS(true, "MinecartPhysics"),
+        RIDING(true, "CustomMinecartRiding"),
+        PATH_VISUALIZER(true, "RailPathVisualizer"),
+        RAIL_DEBUG(true, "RailDebug"),
+        CHEST_CART_DEATH(true, "ChestCartDeath"),
+        PARALLEL_FLUSH(true, "ParallelCartIntegrator"),
+        PHYSICS_INPUT(false, "  physics: input"),
+        PHYSICS_ARC_STEP(false, "  physics: arc-length step"),
+        PHYSICS_SNAP(false, "  physics: initial snap"),
+        PHYSICS_SUBSTEPS(false, "  physics: substep loop"),
+        PHYSICS_OBSTACLES(false, "  physics: bumper/solid checks"),
+        PHYSICS_PUBLISH(false, "  physics: state publish"),
+        PARALLEL_COMPUTE(false, "  parallel: worker compute");
+
+        // Whole-system timing (phases inside the physics tick overlap these)
+        private final boolean system;
+        private final String label;
+
+        Phase(boolean system, String label) {
+            this.system = system;
+            this.label = label;
+        }
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+    private static final TimingHistogram[] histograms = new TimingHistogram[PHASES.length];
+    static {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new TimingHistogram();
+        }
+    }
+
+    private static final AtomicLong cartTicks = new AtomicLong();
+    private static volatile long windowStart = System.nanoTime();
+
+    private TickTimings() {
+    }
+
+    /**
+     * Record a phase that started at startNanos (from System.nanoTime()).
+     *
+     * @return The current time, so consecutive phases can chain without another nanoTime()
+     */
+    public static long record(Phase phase, long startNanos) {
+        long now = System.nanoTime();
+        recordNanos(phase, now - startNanos);
+        return now;
+    }
+
+    /**
+     * Record a duration measured by the caller.
+     */
+    public static void recordNanos(Phase phase, long nanos) {
+        histograms[phase.ordinal()].record(nanos);
+        if (phase.system && StressTest.isRunning()) {
+            StressTest.addPluginNanos(nanos);
+        }
+    }
+
+    /**
+     * Count one awake cart ticked by the physics system (sleeping carts, and ticks
+     * skipped during shutdown, aren't counted).
+     */
+    public static void countCartTick() {
+        cartTicks.incrementAndGet();
+    }
+
+    /**
+     * Clear all histograms and start a new measurement window.
+     */
+    public static void reset() {
+        for (TimingHistogram histogram : histograms) {
+            histogram.reset();
+        }
+        cartTicks.set(0);
+        windowStart = System.nanoTime();
+    }
+
+    /**
+     * One line per phase that recorded anything, plus a summary line.
+     */
+    public static List<String> getReport() {
+        double seconds = Math.max(1e-9, (System.nanoTime() - windowStart) / 1e9);
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("Tick timings over %.0fs: %.1f awake cart ticks/s (p50 / p99 / max, count)",
+            seconds, cartTicks.get() / seconds));
+        for (Phase phase : PHASES) {
+            TimingHistogram histogram = histograms[phase.ordinal()];
+            long count = histogram.getCount();
+            if (count == 0) continue;
+            lines.add(String.format("%s: %s / %s / %s, %d",
+                phase.label,
+                formatNanos(histogram.getPercentile(50)),
+                formatNanos(histogram.getPercentile(99)),
+                formatNanos(histogram.getMax()),
+                count));
+        }
+        if (lines.size() == 1) {
+            lines.add("Nothing recorded yet");
+        }
+        return lines;
+    }
+
+    private static String formatNanos(long nanos) {
+        if (nanos < 1_000) return nanos + "ns";
+        if (nanos < 1_000_000) return String.format("%.1fus", nanos / 1e3);
+        return String.format("%.2fms", nanos / 1e6);
+    }
+}
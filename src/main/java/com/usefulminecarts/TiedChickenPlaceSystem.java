@@ -63,45 +63,56 @@ public class TiedChickenPlaceSystem extends SimpleBlockInteraction {
         // Check if the target block is a rail
         BlockType blockType = world.getBlockType(targetPos.x, targetPos.y, targetPos.z);
         if (blockType == null) {
-            LOGGER.atInfo().log("[TiedChicken] No block type at (%d, %d, %d)", targetPos.x, targetPos.y, targetPos.z);
+            if (CartLog.isEnabled(CartLog.Category.CHICKEN, CartLog.Level.DEBUG)) {
+                CartLog.log(CartLog.Category.CHICKEN, CartLog.Level.DEBUG, "[TiedChicken] No block type at (%d, %d, %d)", targetPos.x, targetPos.y, targetPos.z);
+            }
             return;
         }
 
         String blockId = blockType.getId();
         if (!blockId.contains("Rail")) {
-            LOGGER.atInfo().log("[TiedChicken] Block '%s' is not a rail, skipping", blockId);
+            if (CartLog.isEnabled(CartLog.Category.CHICKEN, CartLog.Level.DEBUG)) {
+                CartLog.log(CartLog.Category.CHICKEN, CartLog.Level.DEBUG, "[TiedChicken] Block '%s' is not a rail, skipping", blockId);
+            }
             return;
         }
 
-        // === LOG ALL CRATE METADATA ===
-        String itemId = heldItem.getItemId();
-        LOGGER.atInfo().log("[TiedChicken] === CAPTURE CRATE METADATA ===");
-        LOGGER.atInfo().log("[TiedChicken] ItemId: %s", itemId);
-        LOGGER.atInfo().log("[TiedChicken] Quantity: %d", heldItem.getQuantity());
-        LOGGER.atInfo().log("[TiedChicken] Durability: %.2f / %.2f", heldItem.getDurability(), heldItem.getMaxDurability());
-        LOGGER.atInfo().log("[TiedChicken] IsBroken: %b, IsUnbreakable: %b", heldItem.isBroken(), heldItem.isUnbreakable());
-        LOGGER.atInfo().log("[TiedChicken] BlockKey: %s", heldItem.getBlockKey());
-
         BsonDocument metadata = heldItem.getMetadata();
-        if (metadata != null) {
-            LOGGER.atInfo().log("[TiedChicken] Metadata: %s", metadata.toJson());
-        } else {
-            LOGGER.atInfo().log("[TiedChicken] Metadata: null");
-        }
 
-        try {
-            LOGGER.atInfo().log("[TiedChicken] Item toString: %s", heldItem.toString());
-        } catch (Exception e) {
-            LOGGER.atInfo().log("[TiedChicken] Could not toString item: %s", e.getMessage());
-        }
+        // Dump the crate item (its metadata format isn't documented)
+        if (CartLog.isEnabled(CartLog.Category.CHICKEN, CartLog.Level.DEBUG)) {
+            String itemId = heldItem.getItemId();
+            CartLog.log(CartLog.Category.CHICKEN, CartLog.Level.DEBUG, "[TiedChicken] === CAPTURE CRATE METADATA ===");
+            CartLog.log(CartLog.Category.CHICKEN, CartLog.Level.DEBUG, "[TiedChicken] ItemId: %s", itemId);
+            CartLog.log(CartLog.Category.CHICKEN, CartLog.Level.DEBUG, "[TiedChicken] Quantity: %d", heldItem.getQuantity());
+            CartLog.log(CartLog.Category.CHICKEN, CartLog.Level.DEBUG, "[TiedChicken] Durability: %.2f / %.2f", heldItem.getDurability(), heldItem.getMaxDurability());
+            CartLog.log(CartLog.Category.CHICKEN, CartLog.Level.DEBUG, "[TiedChicken] IsBroken: %b, IsUnbreakable: %b", heldItem.isBroken(), heldItem.isUnbreakable());
+            CartLog.log(CartLog.Category.CHICKEN, CartLog.Level.DEBUG, "[TiedChicken] BlockKey: %s", heldItem.getBlockKey());
+
+            if (metadata != null) {
+                CartLog.log(CartLog.Category.CHICKEN, CartLog.Level.DEBUG, "[TiedChicken] Metadata: %s", metadata.toJson());
+            } else {
+                CartLog.log(CartLog.Category.CHICKEN, CartLog.Level.DEBUG, "[TiedChicken] Metadata: null");
+            }
 
-        LOGGER.atInfo().log("[TiedChicken] === END METADATA ===");
-        LOGGER.atInfo().log("[TiedChicken] Target rail '%s' at (%d, %d, %d)", blockId, targetPos.x, targetPos.y, targetPos.z);
+            try {
+                CartLog.log(CartLog.Category.CHICKEN, CartLog.Level.DEBUG, "[TiedChicken] Item toString: %s", heldItem.toString());
+            } catch (Exception e) {
+                CartLog.log(CartLog.Category.CHICKEN, CartLog.Level.DEBUG, "[TiedChicken] Could not toString item: %s", e.getMessage());
+            }
+
+            CartLog.log(CartLog.Category.CHICKEN, CartLog.Level.DEBUG, "[TiedChicken] === END METADATA ===");
+        }
+        if (CartLog.isEnabled(CartLog.Category.CHICKEN, CartLog.Level.INFO)) {
+            CartLog.log(CartLog.Category.CHICKEN, CartLog.Level.INFO, "[TiedChicken] Target rail '%s' at (%d, %d, %d)", blockId, targetPos.x, targetPos.y, targetPos.z);
+        }
 
         // Check if the crate has a captured chicken
         boolean hasCapturedEntity = metadata != null && metadata.containsKey("CapturedEntity");
         if (!hasCapturedEntity) {
-            LOGGER.atInfo().log("[TiedChicken] Crate is empty (no CapturedEntity metadata), skipping");
+            if (CartLog.isEnabled(CartLog.Category.CHICKEN, CartLog.Level.DEBUG)) {
+                CartLog.log(CartLog.Category.CHICKEN, CartLog.Level.DEBUG, "[TiedChicken] Crate is empty (no CapturedEntity metadata), skipping");
+            }
             return;
         }
 
@@ -129,12 +140,16 @@ public class TiedChickenPlaceSystem extends SimpleBlockInteraction {
             try {
                 ModelAsset modelAsset = (ModelAsset) ModelAsset.getAssetMap().getAsset("Chicken_Tied");
                 if (modelAsset == null) {
-                    LOGGER.atWarning().log("[TiedChicken] Could not find 'Chicken_Tied' model asset, trying fallback...");
+                    if (CartLog.isEnabled(CartLog.Category.CHICKEN, CartLog.Level.WARN)) {
+                        CartLog.log(CartLog.Category.CHICKEN, CartLog.Level.WARN, "[TiedChicken] Could not find 'Chicken_Tied' model asset, trying fallback...");
+                    }
                     modelAsset = (ModelAsset) ModelAsset.getAssetMap().getAsset("Chicken");
                 }
                 if (modelAsset == null) {
                     modelAsset = ModelAsset.DEBUG;
-                    LOGGER.atWarning().log("[TiedChicken] Using DEBUG model as fallback");
+                    if (CartLog.isEnabled(CartLog.Category.CHICKEN, CartLog.Level.WARN)) {
+                        CartLog.log(CartLog.Category.CHICKEN, CartLog.Level.WARN, "[TiedChicken] Using DEBUG model as fallback");
+                    }
                 }
 
                 Model model = Model.createScaledModel(modelAsset, 0.7f);
@@ -152,7 +167,9 @@ public class TiedChickenPlaceSystem extends SimpleBlockInteraction {
                     new BoundingBox(model.getBoundingBox())
                 );
 
-                LOGGER.atInfo().log("[TiedChicken] Created entity with model");
+                if (CartLog.isEnabled(CartLog.Category.CHICKEN, CartLog.Level.INFO)) {
+                    CartLog.log(CartLog.Category.CHICKEN, CartLog.Level.INFO, "[TiedChicken] Created entity with model");
+                }
             } catch (Exception e) {
                 LOGGER.atSevere().log("[TiedChicken] Failed to set up model: %s", e.getMessage());
                 e.printStackTrace();
@@ -177,11 +194,17 @@ public class TiedChickenPlaceSystem extends SimpleBlockInteraction {
                         ItemStack newItem = heldItem.withMetadata(null);
                         context.setHeldItem(newItem);
 
-                        LOGGER.atInfo().log("[TiedChicken] Cleared crate metadata (now empty crate)");
+                        if (CartLog.isEnabled(CartLog.Category.CHICKEN, CartLog.Level.INFO)) {
+                            CartLog.log(CartLog.Category.CHICKEN, CartLog.Level.INFO, "[TiedChicken] Cleared crate metadata (now empty crate)");
+                        }
                     } catch (Exception e) {
-                        LOGGER.atWarning().log("[TiedChicken] Could not clear crate metadata: %s", e.getMessage());
+                        if (CartLog.isEnabled(CartLog.Category.CHICKEN, CartLog.Level.WARN)) {
+                            CartLog.log(CartLog.Category.CHICKEN, CartLog.Level.WARN, "[TiedChicken] Could not clear crate metadata: %s", e.getMessage());
+                        }
+                    }
+                    if (CartLog.isEnabled(CartLog.Category.CHICKEN, CartLog.Level.INFO)) {
+                        CartLog.log(CartLog.Category.CHICKEN, CartLog.Level.INFO, "[TiedChicken] Spawned tied chicken NPC successfully");
                     }
-                    LOGGER.atInfo().log("[TiedChicken] Spawned tied chicken NPC successfully");
                 }
             });
 
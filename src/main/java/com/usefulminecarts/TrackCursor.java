@@ -0,0 +1,613 @@
+package com.usefulminecarts;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+
+/**
+ * A cart's place on the track as (segment, arc length, direction).
+ *
+ * Used by the arc-length physics mode: instead of stepping through space and
+ * re-snapping to the nearest rail every 0.4 blocks, the cart advances s along the
+ * polyline of a RailNetwork segment. Running off a segment end hops through the
+ * node there - straight on (or the first turn) at a T-junction, along the switch's
+ * current path at a switch, back the other way at a bumper.
+ *
+ * Spatial lookup is only used to attach a cart to a segment (placement, bump or
+ * after the track under it changed). A cursor is tied to one RailNetwork instance;
+ * once that network drops the element the cursor is on, it is no longer valid and
+ * the cart has to be attached again.
+ *
+ * Only used by one thread at a time: the owning world's thread, or a worker of
+ * ParallelCartIntegrator while the network and cell cache are frozen.
+ */
+public final class TrackCursor {
+
+    /**
+     * Why advance() stopped short of the requested distance.
+     */
+    enum Stop {
+        // Moved the full distance
+        NONE,
+        // Open end or dead-end junction - cart is parked at the end
+        END_OF_TRACK,
+        // Bounced off a bumper - direction is already reversed
+        BUMPER,
+        // Reached track the graph can't carry the cart through (e.g. trailing the
+        // inactive branch of a switch) - the caller should fall back to spatial snapping
+        DETACHED
+    }
+
+    // Max squared distance between the cart and the track when attaching
+    private static final double ATTACH_MAX_DIST_SQ = 1.5;
+
+    // Max squared distance between the cart and the cursor before the cursor is dropped
+    private static final double DRIFT_MAX_DIST_SQ = 1.0;
+
+    // How far from a bumper's edge the cart turns round (same as the spatial physics)
+    private static final double BUMPER_OFFSET = 0.1;
+
+    // Speed kept when bouncing off a bumper
+    private static final double BUMPER_RESTITUTION = 0.95;
+
+    // How close a switch path end has to be to a footprint edge to count as a port
+    private static final double SWITCH_PORT_DIST_SQ = 0.35 * 0.35;
+
+    // Guards against spinning through zero-length elements
+    private static final int MAX_HOPS_PER_ADVANCE = 8;
+
+    // Horizontal offsets per edge [WEST, EAST, SOUTH, NORTH]
+    private static final int[] EDGE_DX = {-1, 1, 0, 0};
+    private static final int[] EDGE_DZ = {0, 0, 1, -1};
+
+    private final RailWorldView view;
+    private final RailNetwork network;
+    private final RailCellCache cells;
+
+    // Element being ridden: a segment, or a node while crossing it
+    private RailNetwork.Segment segment;
+    private RailNetwork.Node node;
+    // Ports a node crossing enters and leaves through (exit may be null for a dead end)
+    private RailNetwork.Port entryPort, exitPort;
+
+    // Polyline being ridden and the arc length at each of its points
+    private double[] points;
+    private double[] arcLength;
+    private double length;
+
+    double s;
+    // +1 towards the last point, -1 towards the first
+    int direction = 1;
+
+    // Position and unit tangent (in travel direction) at s - updated after every move
+    double x, y, z;
+    double tx, ty, tz;
+    private int piece;
+
+    // Product of accelerator boosts and corner friction picked up by the last advance()
+    double speedFactor = 1.0;
+    // Blocks (RailNetwork.packPos) entered by the last advance(). Sleeping carts in them are
+    // woken when the step is applied on the world thread - advance() may run on a worker.
+    final LongArrayList enteredCells = new LongArrayList();
+
+    private TrackCursor(RailWorldView view) {
+        this(view, RailNetwork.forView(view), RailCellCache.forView(view));
+    }
+
+    private TrackCursor(RailWorldView view, RailNetwork network, RailCellCache cells) {
+        this.view = view;
+        this.network = network;
+        this.cells = cells;
+    }
+
+    /**
+     * Independent copy of this cursor (the polylines are shared, they are never modified).
+     */
+    TrackCursor copy() {
+        TrackCursor copy = new TrackCursor(view, network, cells);
+        copy.segment = segment;
+        copy.node = node;
+        copy.entryPort = entryPort;
+        copy.exitPort = exitPort;
+        copy.points = points;
+        copy.arcLength = arcLength;
+        copy.length = length;
+        copy.s = s;
+        copy.direction = direction;
+        copy.x = x;
+        copy.y = y;
+        copy.z = z;
+        copy.tx = tx;
+        copy.ty = ty;
+        copy.tz = tz;
+        copy.piece = piece;
+        copy.speedFactor = speedFactor;
+        return copy;
+    }
+
+    /**
+     * Attach a cart to the segment under it.
+     * @param dirX  Horizontal direction the cart should travel in (0,0 for "either")
+     * @return The cursor, or null if there is no segment within reach (no rail, or the
+     *         cart is standing on a junction/switch)
+     */
+    static TrackCursor attach(RailWorldView view, double px, double py, double pz, double dirX, double dirZ) {
+        int blockX = (int) Math.floor(px);
+        int blockY = (int) Math.floor(py);
+        int blockZ = (int) Math.floor(pz);
+
+        TrackCursor cursor = new TrackCursor(view);
+        for (int dy : new int[]{0, -1, 1}) {
+            RailNetwork.Segment seg = cursor.network.getSegmentAt(blockX, blockY + dy, blockZ);
+            if (seg == null) continue;
+            long cellPos = RailNetwork.packPos(blockX, blockY + dy, blockZ);
+            if (cursor.attachToSegment(seg, cellPos, px, py, pz, dirX, dirZ)) {
+                return cursor;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Whether this cursor still describes where the cart is: the element it rides
+     * hasn't been rebuilt and the cart hasn't been moved away by something else.
+     */
+    boolean isValidFor(RailWorldView view, double px, double py, double pz) {
+        if (RailNetwork.forView(view) != network) return false;
+        if (segment != null) {
+            if (network.getSegment(segment.id) != segment) return false;
+        } else if (node == null || network.getNode(node.id) != node) {
+            return false;
+        }
+        double dx = px - x, dy = py - y, dz = pz - z;
+        return dx * dx + dy * dy + dz * dz <= DRIFT_MAX_DIST_SQ;
+    }
+
+    /**
+     * Turn the cart round in place.
+     */
+    void reverse() {
+        direction = -direction;
+        tx = -tx;
+        ty = -ty;
+        tz = -tz;
+    }
+
+    /**
+     * Id of the segment being ridden, or 0 while crossing a node.
+     */
+    int getSegmentId() {
+        return segment != null ? segment.id : 0;
+    }
+
+    /**
+     * Length of the element being ridden.
+     */
+    double getLength() {
+        return length;
+    }
+
+    /**
+     * The compiled cell under the cursor, or null while crossing a node.
+     */
+    RailCell getCurrentCell() {
+        if (segment == null) return null;
+        return cellAt(segment.cells[segment.cellIndexAtPiece(piece)]);
+    }
+
+    /**
+     * Move along the track. Distance is always forward (in the current direction).
+     * speedFactor is reset and collects the boosts and friction of cells entered on the way.
+     * @return Why the move stopped, or NONE if the full distance was covered
+     */
+    Stop advance(double distance) {
+        speedFactor = 1.0;
+        enteredCells.clear();
+        double remaining = Math.max(0, distance);
+
+        for (int hops = 0; hops <= MAX_HOPS_PER_ADVANCE; hops++) {
+            double target = s + direction * remaining;
+            if (target >= 0 && target <= length) {
+                moveTo(target);
+                return Stop.NONE;
+            }
+
+            // Runs off this element - use up what's left of it and hop
+            double end = direction > 0 ? length : 0;
+            remaining -= Math.abs(end - s);
+            moveTo(end);
+
+            Stop stop = hop();
+            if (stop != Stop.NONE) {
+                locate();
+                return stop;
+            }
+        }
+        locate();
+        return Stop.NONE;
+    }
+
+    // ==================== MOVEMENT ====================
+
+    /**
+     * Move to a new s on the current element, entering any cells passed on the way.
+     */
+    private void moveTo(double target) {
+        int fromCell = segment != null ? segment.cellIndexAtPiece(piece) : -1;
+        s = target;
+        locate();
+        if (segment != null) {
+            int toCell = segment.cellIndexAtPiece(piece);
+            for (int c = fromCell; c != toCell; ) {
+                c += toCell > c ? 1 : -1;
+                enterCell(segment.cells[c]);
+            }
+        }
+    }
+
+    /**
+     * Leave the current element through the end the cart is at.
+     */
+    private Stop hop() {
+        if (segment != null) {
+            boolean atEnd = direction > 0;
+            if (segment.closed) {
+                s = atEnd ? 0 : length;
+                locate();
+                enterCell(segment.cells[atEnd ? 0 : segment.cells.length - 1]);
+                return Stop.NONE;
+            }
+
+            RailNetwork.Node next = network.getEndNode(segment, atEnd);
+            if (next == null) {
+                return Stop.END_OF_TRACK;
+            }
+            if (next.type == RailNetwork.NodeType.BUMPER) {
+                return bounce();
+            }
+            long fromCell = segment.cells[atEnd ? segment.cells.length - 1 : 0];
+            return enterNode(next, fromCell);
+        }
+
+        // Crossing a node - leave through whichever port is ahead
+        RailNetwork.Port port = direction > 0 ? exitPort : entryPort;
+        if (port == null) {
+            return Stop.END_OF_TRACK;
+        }
+        return leaveThrough(port);
+    }
+
+    private Stop bounce() {
+        reverse();
+        s = direction > 0 ? Math.min(length, BUMPER_OFFSET) : Math.max(0, length - BUMPER_OFFSET);
+        speedFactor *= BUMPER_RESTITUTION;
+        return Stop.BUMPER;
+    }
+
+    /**
+     * Leave a node through a port onto whatever is attached there.
+     */
+    private Stop leaveThrough(RailNetwork.Port port) {
+        if (port.neighbour == RailNetwork.NONE) {
+            return Stop.END_OF_TRACK;
+        }
+
+        RailNetwork.Segment seg = network.getPortSegment(port);
+        if (seg != null) {
+            return enterSegment(seg, port) ? Stop.NONE : Stop.DETACHED;
+        }
+
+        RailNetwork.Node next = network.getNodeAt(
+            RailNetwork.unpackX(port.neighbour), RailNetwork.unpackY(port.neighbour), RailNetwork.unpackZ(port.neighbour));
+        if (next == null) {
+            return Stop.END_OF_TRACK;
+        }
+        if (next.type == RailNetwork.NodeType.BUMPER) {
+            return bounce();
+        }
+        return enterNode(next, port.cell);
+    }
+
+    /**
+     * Get on a segment at the end that joins the given port.
+     */
+    private boolean enterSegment(RailNetwork.Segment seg, RailNetwork.Port port) {
+        if (seg.cells[0] == port.neighbour && seg.startNeighbour == port.cell) {
+            ride(seg, 0, 1);
+        } else if (seg.cells[seg.cells.length - 1] == port.neighbour && seg.endNeighbour == port.cell) {
+            ride(seg, seg.length, -1);
+        } else {
+            // Links don't line up (segment rebuilt differently) - attach by position instead
+            return attachToSegment(seg, port.neighbour, x, y, z, tx, tz);
+        }
+        enterCell(port.neighbour);
+        return true;
+    }
+
+    private void ride(RailNetwork.Segment seg, double startS, int dir) {
+        segment = seg;
+        node = null;
+        entryPort = null;
+        exitPort = null;
+        points = seg.points;
+        arcLength = seg.arcLength;
+        length = seg.length;
+        s = startS;
+        direction = dir;
+        locate();
+    }
+
+    /**
+     * Start crossing a junction or switch, coming from the given cell.
+     */
+    private Stop enterNode(RailNetwork.Node next, long fromCell) {
+        RailNetwork.Port entry = null;
+        for (RailNetwork.Port p : next.ports) {
+            if (p.neighbour == fromCell) {
+                entry = p;
+                break;
+            }
+        }
+        if (entry == null) {
+            return Stop.DETACHED;
+        }
+
+        if (next.type == RailNetwork.NodeType.T_JUNCTION) {
+            return crossJunction(next, entry);
+        }
+        return crossSwitch(next, entry);
+    }
+
+    /**
+     * T-junction: straight on if possible, otherwise right, otherwise left
+     * (the same preference the spatial physics has).
+     */
+    private Stop crossJunction(RailNetwork.Node junction, RailNetwork.Port entry) {
+        int straight = RailNetwork.oppositeEdge(entry.edge);
+        RailNetwork.Port exit = findPort(junction, straight);
+        if (exit == null) {
+            exit = findPort(junction, turnRight(straight));
+            if (exit == null) {
+                exit = findPort(junction, turnLeft(straight));
+            }
+            if (exit != null) {
+                speedFactor *= MinecartConfig.getCornerFriction();
+            }
+        }
+        if (exit == null) {
+            return Stop.END_OF_TRACK;
+        }
+
+        // Entry edge -> centre -> exit edge, curved for turns
+        double cx = junction.blockX + 0.5;
+        double cy = junction.blockY + 0.1;
+        double cz = junction.blockZ + 0.5;
+        double ax = cx + EDGE_DX[entry.edge] * 0.5, az = cz + EDGE_DZ[entry.edge] * 0.5;
+        double bx = cx + EDGE_DX[exit.edge] * 0.5, bz = cz + EDGE_DZ[exit.edge] * 0.5;
+
+        double[] path;
+        if (exit.edge == straight) {
+            path = new double[]{ax, cy, az, bx, cy, bz};
+        } else {
+            // Shared turn table (block-local), moved to this junction
+            double[] turn = CornerCurve.turn(entry.edge, exit.edge).getPoints();
+            path = new double[turn.length];
+            for (int i = 0; i < turn.length; i += 3) {
+                path[i] = junction.blockX + turn[i];
+                path[i + 1] = cy;
+                path[i + 2] = junction.blockZ + turn[i + 2];
+            }
+        }
+        cross(junction, entry, exit, path);
+        return Stop.NONE;
+    }
+
+    /**
+     * Switch: the block state already holds only the active path, so follow that from
+     * the end the cart came in at. Coming in anywhere else (trailing the other branch)
+     * is left to the spatial physics.
+     */
+    private Stop crossSwitch(RailNetwork.Node sw, RailNetwork.Port entry) {
+        RailCell cell = cellAt(entry.cell);
+        if (cell == null || cell.segmentCount == 0) {
+            return Stop.DETACHED;
+        }
+
+        double[] segs = cell.segments;
+        double[] path = new double[(cell.segmentCount + 1) * 3];
+        path[0] = segs[RailCell.SEG_X];
+        path[1] = segs[RailCell.SEG_Y];
+        path[2] = segs[RailCell.SEG_Z];
+        for (int i = 0; i < cell.segmentCount; i++) {
+            int o = i * RailCell.SEG_STRIDE;
+            path[(i + 1) * 3] = segs[o + RailCell.SEG_X] + segs[o + RailCell.SEG_DX];
+            path[(i + 1) * 3 + 1] = segs[o + RailCell.SEG_Y] + segs[o + RailCell.SEG_DY];
+            path[(i + 1) * 3 + 2] = segs[o + RailCell.SEG_Z] + segs[o + RailCell.SEG_DZ];
+        }
+
+        int last = path.length - 3;
+        if (portDistSq(entry, path, last) < portDistSq(entry, path, 0)) {
+            reversePath(path);
+        }
+        if (portDistSq(entry, path, 0) > SWITCH_PORT_DIST_SQ) {
+            return Stop.DETACHED;
+        }
+
+        RailNetwork.Port exit = null;
+        for (RailNetwork.Port p : sw.ports) {
+            if (p != entry && portDistSq(p, path, last) <= SWITCH_PORT_DIST_SQ) {
+                exit = p;
+                break;
+            }
+        }
+        cross(sw, entry, exit, path);
+        return Stop.NONE;
+    }
+
+    private void cross(RailNetwork.Node crossing, RailNetwork.Port entry, RailNetwork.Port exit, double[] path) {
+        segment = null;
+        node = crossing;
+        entryPort = entry;
+        exitPort = exit;
+        points = path;
+        arcLength = arcLengths(path);
+        length = arcLength[arcLength.length - 1];
+        s = 0;
+        direction = 1;
+        locate();
+    }
+
+    // ==================== ATTACHING ====================
+
+    /**
+     * Put the cursor at the point of a segment closest to a position, looking only at
+     * the pieces around the given cell.
+     */
+    private boolean attachToSegment(RailNetwork.Segment seg, long cellPos,
+                                    double px, double py, double pz, double dirX, double dirZ) {
+        int cellIndex = -1;
+        for (int i = 0; i < seg.cells.length; i++) {
+            if (seg.cells[i] == cellPos) {
+                cellIndex = i;
+                break;
+            }
+        }
+        if (cellIndex < 0) return false;
+
+        int pointCount = seg.points.length / 3;
+        int firstPiece = Math.max(0, seg.cellPointStart[cellIndex] - 1);
+        int lastPiece = cellIndex + 1 < seg.cellPointStart.length
+            ? seg.cellPointStart[cellIndex + 1] : pointCount - 1;
+        lastPiece = Math.min(lastPiece, pointCount - 2);
+
+        double bestDistSq = Double.MAX_VALUE;
+        double bestS = 0;
+        double[] pts = seg.points;
+        for (int k = firstPiece; k <= lastPiece; k++) {
+            int a = k * 3, b = a + 3;
+            double dx = pts[b] - pts[a], dy = pts[b + 1] - pts[a + 1], dz = pts[b + 2] - pts[a + 2];
+            double lenSq = dx * dx + dy * dy + dz * dz;
+            double t = lenSq > 0 ? ((px - pts[a]) * dx + (py - pts[a + 1]) * dy + (pz - pts[a + 2]) * dz) / lenSq : 0;
+            t = Math.max(0, Math.min(1, t));
+            double cx = pts[a] + dx * t - px, cy = pts[a + 1] + dy * t - py, cz = pts[a + 2] + dz * t - pz;
+            double distSq = cx * cx + cy * cy + cz * cz;
+            if (distSq < bestDistSq) {
+                bestDistSq = distSq;
+                bestS = seg.arcLength[k] + (seg.arcLength[k + 1] - seg.arcLength[k]) * t;
+            }
+        }
+        if (bestDistSq > ATTACH_MAX_DIST_SQ) return false;
+
+        ride(seg, bestS, 1);
+        if (tx * dirX + tz * dirZ < 0) {
+            reverse();
+        }
+        return true;
+    }
+
+    // ==================== HELPERS ====================
+
+    /**
+     * Work out position and tangent at s.
+     */
+    private void locate() {
+        int count = arcLength.length;
+        if (count < 2) {
+            piece = 0;
+            x = points[0];
+            y = points[1];
+            z = points[2];
+            return;
+        }
+
+        int lo = 0, hi = count - 2;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (arcLength[mid] <= s) lo = mid;
+            else hi = mid - 1;
+        }
+        piece = lo;
+
+        int a = lo * 3, b = a + 3;
+        double dx = points[b] - points[a], dy = points[b + 1] - points[a + 1], dz = points[b + 2] - points[a + 2];
+        double len = arcLength[lo + 1] - arcLength[lo];
+        double t = len > 0 ? Math.max(0, Math.min(1, (s - arcLength[lo]) / len)) : 0;
+        x = points[a] + dx * t;
+        y = points[a + 1] + dy * t;
+        z = points[a + 2] + dz * t;
+        if (len > 0) {
+            tx = dx / len * direction;
+            ty = dy / len * direction;
+            tz = dz / len * direction;
+        }
+    }
+
+    private void enterCell(long pos) {
+        enteredCells.add(pos);
+        RailCell cell = cellAt(pos);
+        if (cell == null) return;
+        if (cell.isAccelerator) {
+            speedFactor *= MinecartConfig.getAcceleratorBoost();
+        }
+        if (cell.isCorner) {
+            speedFactor *= MinecartConfig.getCornerFriction();
+        }
+    }
+
+    private RailCell cellAt(long pos) {
+        return cells.get(RailNetwork.unpackX(pos), RailNetwork.unpackY(pos), RailNetwork.unpackZ(pos));
+    }
+
+    private static RailNetwork.Port findPort(RailNetwork.Node junction, int edge) {
+        for (RailNetwork.Port p : junction.ports) {
+            if (p.edge == edge && p.neighbour != RailNetwork.NONE) return p;
+        }
+        return null;
+    }
+
+    // Horizontal distance from a port's edge midpoint to a path point
+    private static double portDistSq(RailNetwork.Port port, double[] path, int offset) {
+        double ex = RailNetwork.unpackX(port.cell) + 0.5 + EDGE_DX[port.edge] * 0.5;
+        double ez = RailNetwork.unpackZ(port.cell) + 0.5 + EDGE_DZ[port.edge] * 0.5;
+        double dx = path[offset] - ex, dz = path[offset + 2] - ez;
+        return dx * dx + dz * dz;
+    }
+
+    private static void reversePath(double[] path) {
+        for (int i = 0, j = path.length - 3; i < j; i += 3, j -= 3) {
+            for (int k = 0; k < 3; k++) {
+                double tmp = path[i + k];
+                path[i + k] = path[j + k];
+                path[j + k] = tmp;
+            }
+        }
+    }
+
+    private static double[] arcLengths(double[] path) {
+        double[] arc = new double[path.length / 3];
+        for (int i = 1; i < arc.length; i++) {
+            int a = (i - 1) * 3, b = i * 3;
+            double dx = path[b] - path[a], dy = path[b + 1] - path[a + 1], dz = path[b + 2] - path[a + 2];
+            arc[i] = arc[i - 1] + Math.sqrt(dx * dx + dy * dy + dz * dz);
+        }
+        return arc;
+    }
+
+    private static int turnRight(int edge) {
+        switch (edge) {
+            case RailCell.EDGE_NORTH: return RailCell.EDGE_EAST;
+            case RailCell.EDGE_EAST: return RailCell.EDGE_SOUTH;
+            case RailCell.EDGE_SOUTH: return RailCell.EDGE_WEST;
+            case RailCell.EDGE_WEST: return RailCell.EDGE_NORTH;
+            default: return edge;
+        }
+    }
+
+    private static int turnLeft(int edge) {
+        switch (edge) {
+            case RailCell.EDGE_NORTH: return RailCell.EDGE_WEST;
+            case RailCell.EDGE_WEST: return RailCell.EDGE_SOUTH;
+            case RailCell.EDGE_SOUTH: return RailCell.EDGE_EAST;
+            case RailCell.EDGE_EAST: return RailCell.EDGE_NORTH;
+            default: return edge;
+        }
+    }
+}
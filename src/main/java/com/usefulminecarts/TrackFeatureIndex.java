@@ -0,0 +1,256 @@
+package com.usefulminecarts;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-world index of special track features: bumpers (and the edge they block),
+ * accelerators, slopes (and their downhill edge) and switches.
+ *
+ * Each 16-block-high section of a chunk column keeps one byte per block - the feature kind and its edge -
+ * filled on first use of that block, so asking "what is here" again never touches the
+ * world. findNext() walks a straight line through those bytes to answer "next feature
+ * this way within N blocks". Switch footprint origins come from SwitchFootprintIndex.
+ *
+ * Sections are kept per chunk in a ChunkStore, so a chunk's sections are thrown away once
+ * the chunk was unloaded and loaded again, and a block change clears the 3x3x3 around it (a slope's
+ * downhill edge is worked out from its neighbours) - see RailBlockChangeSystem.
+ *
+ * Only accessed from the owning world's thread.
+ */
+public final class TrackFeatureIndex {
+
+    // Feature kinds (low 3 bits of a block's code)
+    public static final int NONE = 0;
+    public static final int BUMPER = 1;
+    public static final int ACCELERATOR = 2;
+    public static final int SLOPE = 3;
+    public static final int SWITCH = 4;
+
+    // Masks for findNext
+    public static final int MASK_BUMPER = 1 << BUMPER;
+    public static final int MASK_ACCELERATOR = 1 << ACCELERATOR;
+    public static final int MASK_SLOPE = 1 << SLOPE;
+    public static final int MASK_SWITCH = 1 << SWITCH;
+    public static final int MASK_ALL = MASK_BUMPER | MASK_ACCELERATOR | MASK_SLOPE | MASK_SWITCH;
+
+    // Code layout: kind in bits 0-2, edge in bits 3-4 (bumper: blocked edge, slope: low edge)
+    private static final int KIND_MASK = 0x7;
+    private static final int EDGE_SHIFT = 3;
+    private static final byte UNKNOWN = -1;
+
+    private static final Map<RailWorldView, TrackFeatureIndex> indexes = new ConcurrentHashMap<>();
+
+    /**
+     * A feature found by findNext (reused by the caller, like RailSnap).
+     */
+    public static final class Feature {
+        public int x, y, z;
+        public int kind;
+        // Bumper: the edge it blocks. Slope: its low (downhill) edge. Otherwise -1.
+        public int edge;
+        // Blocks walked from the start position
+        public int distance;
+    }
+
+    private final RailWorldView view;
+    // Section Y (blockY >> 4) -> one code per block
+    private final ChunkStore<Int2ObjectOpenHashMap<byte[]>> chunks;
+
+    private TrackFeatureIndex(RailWorldView view) {
+        this.view = view;
+        this.chunks = new ChunkStore<>(view, Int2ObjectOpenHashMap::new);
+    }
+
+    /**
+     * Get the feature index for a rail world view, creating it on first use.
+     */
+    public static TrackFeatureIndex forView(RailWorldView view) {
+        return indexes.computeIfAbsent(view, TrackFeatureIndex::new);
+    }
+
+    /**
+     * Drop the index for every world (plugin shutdown / asset reload).
+     */
+    public static void clearAll() {
+        indexes.clear();
+    }
+
+    /**
+     * Drop the index for one world (the world was removed, see WorldRailView.onWorldRemoved).
+     */
+    static void remove(RailWorldView view) {
+        indexes.remove(view);
+    }
+
+    /**
+     * Get the feature kind at a position (NONE if there is none or the chunk isn't loaded).
+     */
+    public int getKind(int x, int y, int z) {
+        return code(x, y, z) & KIND_MASK;
+    }
+
+    /**
+     * Get the edge a bumper at this position blocks.
+     * @return The edge, or -1 if there is no bumper here
+     */
+    public int getBumperEdge(int x, int y, int z) {
+        int code = code(x, y, z);
+        return (code & KIND_MASK) == BUMPER ? code >>> EDGE_SHIFT : -1;
+    }
+
+    /**
+     * Find the nearest feature in a straight line from a position (exclusive).
+     *
+     * Each step moves one block towards the edge and checks the same height, one above and
+     * one below (track changes height on slopes). The walk follows the track's height and
+     * stops where the track ends.
+     *
+     * @param edge Direction to walk (EDGE_* constant)
+     * @param maxBlocks How many blocks to walk at most
+     * @param kindMask Which kinds to report (MASK_* constants)
+     * @param out Receives the feature
+     * @return False if nothing matched before the track ended or maxBlocks was reached
+     */
+    public boolean findNext(int x, int y, int z, int edge, int maxBlocks, int kindMask, Feature out) {
+        int dx = 0, dz = 0;
+        switch (edge) {
+            case RailPathDefinition.EDGE_WEST: dx = -1; break;
+            case RailPathDefinition.EDGE_EAST: dx = 1; break;
+            case RailPathDefinition.EDGE_SOUTH: dz = 1; break;
+            case RailPathDefinition.EDGE_NORTH: dz = -1; break;
+            default: return false;
+        }
+
+        RailOccupancy occupancy = RailOccupancy.forView(view);
+        for (int step = 1; step <= maxBlocks; step++) {
+            x += dx;
+            z += dz;
+
+            for (int dy = 0; dy <= 2; dy++) {
+                // Same height first, then above, then below
+                int checkY = dy == 0 ? y : (dy == 1 ? y + 1 : y - 1);
+                int code = code(x, checkY, z);
+                int kind = code & KIND_MASK;
+                if (kind != NONE && (kindMask & (1 << kind)) != 0) {
+                    out.x = x;
+                    out.y = checkY;
+                    out.z = z;
+                    out.kind = kind;
+                    out.edge = kind == BUMPER || kind == SLOPE ? code >>> EDGE_SHIFT : -1;
+                    out.distance = step;
+                    return true;
+                }
+            }
+
+            // Follow the track's height; stop where it ends
+            if (occupancy.hasRail(x, y, z)) continue;
+            if (occupancy.hasRail(x, y + 1, z)) {
+                y++;
+            } else if (occupancy.hasRail(x, y - 1, z)) {
+                y--;
+            } else {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private int code(int x, int y, int z) {
+        Int2ObjectOpenHashMap<byte[]> sections = chunks.get(x, z);
+        if (sections == null) return NONE;
+
+        int sectionY = y >> 4;
+        byte[] codes = sections.get(sectionY);
+        if (codes == null) {
+            codes = new byte[ChunkStore.SECTION_BLOCKS];
+            Arrays.fill(codes, UNKNOWN);
+            sections.put(sectionY, codes);
+        }
+
+        int index = ChunkStore.sectionIndex(x, y, z);
+        byte code = codes[index];
+        if (code == UNKNOWN) {
+            RailBlockDescriptor desc = view.getBlock(x, y, z);
+            if (desc == null) return NONE;  // Nothing there yet - don't record it
+            code = (byte) classify(desc, x, y, z);
+            codes[index] = code;
+        }
+        return code;
+    }
+
+    private int classify(RailBlockDescriptor desc, int x, int y, int z) {
+        if (desc.isBumper) {
+            return BUMPER | bumperBlockedEdge(view.getRotationIndex(x, y, z)) << EDGE_SHIFT;
+        }
+        if (!desc.hasRailConfig) return NONE;
+
+        RailCell cell = RailCellCache.forView(view).get(x, y, z);
+        if (cell == null) return NONE;
+        if (cell.isSlope) return SLOPE | cell.slopeLowEdge << EDGE_SHIFT;
+        if (cell.isAccelerator) return ACCELERATOR;
+        if (cell.isSwitch) return SWITCH;
+        return NONE;
+    }
+
+    /**
+     * Edge a bumper blocks for its rotation index.
+     * Default (rot 0): bumper wall faces north, blocks carts moving south (+Z).
+     * The bumper is placed at the END of a track, facing the incoming carts.
+     */
+    static int bumperBlockedEdge(int rotationIndex) {
+        switch (rotationIndex % 4) {
+            case 1: return RailPathDefinition.EDGE_EAST;   // Wall faces west, blocks +X movement
+            case 2: return RailPathDefinition.EDGE_NORTH;  // Wall faces south, blocks -Z movement
+            case 3: return RailPathDefinition.EDGE_WEST;   // Wall faces east, blocks -X movement
+            default: return RailPathDefinition.EDGE_SOUTH; // Wall faces north, blocks +Z movement
+        }
+    }
+
+    /**
+     * Forget the features at and around a position (the 3x3x3 box, like RailCellCache).
+     */
+    public void invalidateAround(int blockX, int blockY, int blockZ) {
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                int x = blockX + dx;
+                int z = blockZ + dz;
+                Int2ObjectOpenHashMap<byte[]> sections = chunks.getIfPresent(x, z);
+                if (sections == null) continue;
+                for (int dy = -1; dy <= 1; dy++) {
+                    byte[] codes = sections.get((blockY + dy) >> 4);
+                    if (codes != null) {
+                        codes[ChunkStore.sectionIndex(x, blockY + dy, z)] = UNKNOWN;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Invalidate around a changed block in the given world, if an index exists for it.
+     */
+    public static void onBlockChanged(RailWorldView view, int blockX, int blockY, int blockZ) {
+        if (view == null) return;
+        TrackFeatureIndex index = indexes.get(view);
+        if (index != null) {
+            index.invalidateAround(blockX, blockY, blockZ);
+        }
+    }
+
+    /**
+     * Name of a feature kind, for diagnostics.
+     */
+    public static String getKindName(int kind) {
+        switch (kind) {
+            case BUMPER: return "bumper";
+            case ACCELERATOR: return "accelerator";
+            case SLOPE: return "slope";
+            case SWITCH: return "switch";
+            default: return "none";
+        }
+    }
+}
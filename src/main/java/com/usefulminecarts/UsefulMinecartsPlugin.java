@@ -1,8 +1,11 @@
 package com.usefulminecarts;
 
+import com.hypixel.hytale.assetstore.event.LoadedAssetsEvent;
+import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
 import com.hypixel.hytale.server.core.modules.interaction.interaction.config.Interaction;
 import com.hypixel.hytale.server.core.plugin.JavaPlugin;
 import com.hypixel.hytale.server.core.plugin.JavaPluginInit;
+import com.hypixel.hytale.server.core.universe.world.events.RemoveWorldEvent;
 
 import javax.annotation.Nonnull;
 
@@ -56,6 +59,7 @@ public class UsefulMinecartsPlugin extends JavaPlugin {
 
         // Load physics configuration from file
         MinecartConfig.load();
+        RailPathRegistry.load();
 
         // Register our custom rider component (for server-authoritative riding)
         var riderComponentType = this.getEntityStoreRegistry()
@@ -63,6 +67,12 @@ public class UsefulMinecartsPlugin extends JavaPlugin {
         CustomMinecartRiderComponent.setComponentType(riderComponentType);
         getLogger().atInfo().log("[UsefulMinecarts] Registered CustomMinecartRiderComponent");
 
+        // Register the cart physics component (velocity/direction saved with the cart)
+        var physicsComponentType = this.getEntityStoreRegistry()
+            .registerComponent(CartPhysicsComponent.class, "CartPhysics", CartPhysicsComponent.CODEC);
+        CartPhysicsComponent.setComponentType(physicsComponentType);
+        getLogger().atInfo().log("[UsefulMinecarts] Registered CartPhysicsComponent");
+
         // Register our custom interaction types
         var interactions = this.getCodecRegistry(Interaction.CODEC);
         interactions.register("UsefulMinecartsOpenChestCart", OpenChestCartInteraction.class, OpenChestCartInteraction.CODEC);
@@ -76,6 +86,24 @@ public class UsefulMinecartsPlugin extends JavaPlugin {
         this.getCommandRegistry().registerCommand(new MinecartCommands());
         getLogger().atInfo().log("[MinecartCommands] Registered /minecart command (aliases: /mc, /cart)");
 
+        // Block type assets are replaced on (re)load, so cached rail descriptors must be dropped
+        this.getEventRegistry().register(LoadedAssetsEvent.class, BlockType.class,
+            event -> {
+                RailBlockDescriptor.invalidateAll();
+                RailPathRegistry.clearBlockIndex();
+                RailOccupancy.clearAll();
+                SwitchFootprintIndex.clearAll();
+                RailOrientationTable.clearAll();
+                RailCellCache.clearAll();
+                TrackFeatureIndex.clearAll();
+                RailNetwork.clearAll();
+                RailSearchMisses.clearAll();
+            });
+
+        // Per-world rail caches would otherwise keep a removed world alive
+        this.getEventRegistry().registerGlobal(RemoveWorldEvent.class,
+            event -> WorldRailView.onWorldRemoved(event.getWorld()));
+
         // Initialize storage (just sets up directory, no loading)
         ChestMinecartStorage.init();
 
@@ -101,6 +129,14 @@ public class UsefulMinecartsPlugin extends JavaPlugin {
         // Register the custom minecart riding system (positions riders on carts)
         this.getEntityStoreRegistry().registerSystem(new CustomMinecartRidingSystem());
 
+        // Drop per-cart tracking when a cart is removed (network ids are reused)
+        this.getEntityStoreRegistry().registerSystem(new CartRemovalSystem());
+
+        // Keep compiled rail cells in step with block place/break
+        this.getEntityStoreRegistry().registerSystem(new RailBlockChangeSystem.Place());
+        this.getEntityStoreRegistry().registerSystem(new RailBlockChangeSystem.Break());
+        this.getEntityStoreRegistry().registerSystem(new RailBlockChangeSystem.Use());
+
         // Register the rail path visualizer for debugging
         this.getEntityStoreRegistry().registerSystem(new RailPathVisualizer());
 
@@ -123,15 +159,28 @@ public class UsefulMinecartsPlugin extends JavaPlugin {
         // This must happen before the server starts removing player entities
         getLogger().atInfo().log("[UsefulMinecarts] Clearing rider tracking data...");
         MinecartRiderTracker.clear();
+        CartSleepTracker.clearAll();
+        ParallelCartIntegrator.shutdown();
         CustomMinecartRidingSystem.clearAllTracking();
         MinecartMountInputBlocker.clearAll();
         RailPathVisualizer.disableAll();
+        RailBlockDescriptor.invalidateAll();
+        RailOccupancy.clearAll();
+        SwitchFootprintIndex.clearAll();
+        RailOrientationTable.clearAll();
+        RailCellCache.clearAll();
+        TrackFeatureIndex.clearAll();
+        RailNetwork.clearAll();
+        RailSearchMisses.clearAll();
+        WorldRailView.clearAll();
 
         if (mountMovementFilter != null) {
             mountMovementFilter.unregister();
         }
         ChestMinecartStorage.saveToFile();
         MinecartConfig.save();
+        // Flush queued diagnostics last, after everything above has logged
+        CartLog.shutdown();
         super.shutdown();
     }
 }
@@ -0,0 +1,175 @@
+package com.usefulminecarts;
+
+import com.hypixel.hytale.protocol.RailPoint;
+import com.hypixel.hytale.protocol.Vector3f;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+
+import java.util.Locale;
+
+/**
+ * In-memory RailWorldView: a sparse grid of rail blocks, so the rail physics can be
+ * benchmarked, fuzzed and profiled without a running server.
+ *
+ * Only the blocks the physics cares about are modelled (see Kind). Positions that were
+ * never set read as air and every chunk counts as loaded. Setting a block goes through
+ * RailBlockChangeSystem like a block change in a live world, so cached cells, network
+ * elements and sleeping carts around it are updated.
+ *
+ * Layouts can be loaded from text, one block per line:
+ *   x y z kind [rotation]
+ * where kind is a Kind name (straight, corner, slope, t, switch, switch_left, accel,
+ * bumper, solid, air) and rotation defaults to 0. Blank lines and # comments are skipped.
+ *
+ * Like a World, it is not thread-safe: only one thread may use it at a time.
+ */
+public final class VoxelRailWorld implements RailWorldView {
+
+    /**
+     * Kinds of block the grid can hold. Rail points are block-local (0-1, 0-2 for the
+     * 2x2 switch footprint) at rotation 0 and rotated like the engine's rail configs.
+     */
+    public enum Kind {
+        AIR("Empty", null),
+        SOLID("Rock_Stone", null),
+        BUMPER("UsefulMinecarts_Cart_Bumper", null),
+        STRAIGHT("Rail", new double[][] {{0.5, 0.1, 0.0}, {0.5, 0.1, 1.0}}),
+        CORNER("Rail_State_Definitions_Corner", new double[][] {{0.5, 0.1, 1.0}, {0.5, 0.1, 0.5}, {1.0, 0.1, 0.5}}),
+        // Slope rail configs are not rotated - the physics works out the direction from neighbours
+        SLOPE("Rail_State_Definitions_Slope", new double[][] {{0.5, 0.1, 1.0}, {0.5, 1.1, 0.0}}),
+        T("Rail_State_Definitions_T", new double[][] {{0.0, 0.1, 0.5}, {1.0, 0.1, 0.5}}),
+        SWITCH("UsefulMinecarts_Rail_Switch", new double[][] {{0.5, 0.1, 2.0}, {0.5, 0.1, 0.0}}),
+        SWITCH_LEFT("UsefulMinecarts_Rail_Switch_Left", new double[][] {{0.5, 0.1, 2.0}, {0.5, 0.1, 1.0}, {2.0, 0.1, 0.5}}),
+        ACCEL("UsefulMinecarts_Rail_Accel", new double[][] {{0.5, 0.1, 0.0}, {0.5, 0.1, 1.0}});
+
+        public final String blockId;
+        private final RailBlockDescriptor descriptor;
+
+        Kind(String blockId, double[][] basePoints) {
+            this.blockId = blockId;
+            this.descriptor = RailBlockDescriptor.synthetic(blockId,
+                basePoints != null ? rotations(basePoints, !blockId.contains("Slope")) : null);
+        }
+
+        public RailBlockDescriptor getDescriptor() {
+            return descriptor;
+        }
+
+        /**
+         * Parse a kind name as used in layouts (case-insensitive).
+         * @throws IllegalArgumentException for an unknown name
+         */
+        public static Kind parse(String name) {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        }
+
+        private static RailPoint[][] rotations(double[][] basePoints, boolean rotate) {
+            RailPoint[][] byRotation = new RailPoint[4][];
+            for (int rot = 0; rot < 4; rot++) {
+                RailPoint[] points = new RailPoint[basePoints.length];
+                for (int i = 0; i < basePoints.length; i++) {
+                    double[] p = basePoints[i];
+                    double[] xz = RailCell.rotatePoint(p[0], p[2], rotate ? rot : 0);
+                    RailPoint point = new RailPoint();
+                    point.point = new Vector3f((float) xz[0], (float) p[1], (float) xz[1]);
+                    points[i] = point;
+                }
+                byRotation[rot] = points;
+            }
+            return byRotation;
+        }
+    }
+
+    // Every chunk is loaded and never replaced, so they all share one token
+    private static final Object LOADED_CHUNK = new Object();
+
+    private static final Kind[] KINDS = Kind.values();
+
+    // Packed position (RailNetwork.packPos) -> kind ordinal << 2 | rotation
+    private final Long2IntOpenHashMap blocks = new Long2IntOpenHashMap();
+
+    public VoxelRailWorld() {
+        blocks.defaultReturnValue(-1);
+    }
+
+    /**
+     * Build a world from a text layout (see class doc).
+     * @throws IllegalArgumentException if a line can't be parsed
+     */
+    public static VoxelRailWorld fromLayout(String layout) {
+        VoxelRailWorld world = new VoxelRailWorld();
+        world.load(layout);
+        return world;
+    }
+
+    /**
+     * Add the blocks of a text layout (see class doc) to this world.
+     * @throws IllegalArgumentException if a line can't be parsed
+     */
+    public void load(String layout) {
+        String[] lines = layout.split("\n");
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i].trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+
+            String[] parts = line.split("\\s+");
+            if (parts.length < 4 || parts.length > 5) {
+                throw new IllegalArgumentException("Layout line " + (i + 1) + ": expected 'x y z kind [rotation]': " + line);
+            }
+            try {
+                int x = Integer.parseInt(parts[0]);
+                int y = Integer.parseInt(parts[1]);
+                int z = Integer.parseInt(parts[2]);
+                Kind kind = Kind.parse(parts[3]);
+                int rotation = parts.length == 5 ? Integer.parseInt(parts[4]) : 0;
+                setBlock(x, y, z, kind, rotation);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Layout line " + (i + 1) + ": " + e.getMessage() + ": " + line, e);
+            }
+        }
+    }
+
+    /**
+     * Set the block at a position.
+     * @param rotation Rotation index 0-3
+     */
+    public void setBlock(int x, int y, int z, Kind kind, int rotation) {
+        long pos = RailNetwork.packPos(x, y, z);
+        if (kind == Kind.AIR) {
+            blocks.remove(pos);
+        } else {
+            blocks.put(pos, kind.ordinal() << 2 | (rotation & 3));
+        }
+        RailBlockChangeSystem.onBlockChanged(this, x, y, z);
+    }
+
+    /**
+     * Get the kind of block at a position (AIR if never set).
+     */
+    public Kind getKind(int x, int y, int z) {
+        int value = blocks.get(RailNetwork.packPos(x, y, z));
+        return value < 0 ? Kind.AIR : KINDS[value >> 2];
+    }
+
+    /**
+     * Number of non-air blocks.
+     */
+    public int size() {
+        return blocks.size();
+    }
+
+    @Override
+    public RailBlockDescriptor getBlock(int x, int y, int z) {
+        return getKind(x, y, z).descriptor;
+    }
+
+    @Override
+    public int getRotationIndex(int x, int y, int z) {
+        int value = blocks.get(RailNetwork.packPos(x, y, z));
+        return value < 0 ? 0 : value & 3;
+    }
+
+    @Override
+    public Object getChunkIfInMemory(long chunkIndex) {
+        return LOADED_CHUNK;
+    }
+}
@@ -0,0 +1,109 @@
+package com.usefulminecarts;
+
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.chunk.WorldChunk;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * RailWorldView over a live Hytale World.
+ *
+ * There is one view per world (see of()), so the caches keyed on the view line up
+ * with the world. Reads go straight to the world, or during a pass (one cart tick) to
+ * the chunks its BlockNeighbourhood already looked up - call from the world's thread.
+ */
+public final class WorldRailView implements RailWorldView {
+
+    private static final Map<World, WorldRailView> views = new ConcurrentHashMap<>();
+
+    private final World world;
+    private final BlockNeighbourhood neighbourhood;
+
+    private WorldRailView(World world) {
+        this.world = world;
+        this.neighbourhood = new BlockNeighbourhood(world);
+    }
+
+    /**
+     * Get the view for a world, creating it on first use.
+     */
+    public static WorldRailView of(World world) {
+        return views.computeIfAbsent(world, WorldRailView::new);
+    }
+
+    /**
+     * Get the view for a world if one was created.
+     * @return The view, or null if nothing has looked at this world's rails yet
+     */
+    public static WorldRailView getIfPresent(World world) {
+        return views.get(world);
+    }
+
+    /**
+     * Drop all views (plugin shutdown).
+     */
+    public static void clearAll() {
+        views.clear();
+    }
+
+    /**
+     * Drop a removed world's view and everything kept per view for it, so an unloaded
+     * world isn't held onto by the rail caches.
+     */
+    public static void onWorldRemoved(World world) {
+        ParallelCartIntegrator.remove(world);
+        StressTest.onWorldRemoved(world);
+        WorldRailView view = views.remove(world);
+        if (view == null) return;
+        RailOccupancy.remove(view);
+        SwitchFootprintIndex.remove(view);
+        RailOrientationTable.remove(view);
+        RailCellCache.remove(view);
+        TrackFeatureIndex.remove(view);
+        RailNetwork.remove(view);
+        RailSearchMisses.remove(view);
+        CartSleepTracker.remove(view);
+    }
+
+    public World getWorld() {
+        return world;
+    }
+
+    @Override
+    public RailBlockDescriptor getBlock(int x, int y, int z) {
+        if (neighbourhood.isOpen()) {
+            WorldChunk chunk = neighbourhood.chunk(ChunkUtil.indexChunkFromBlock(x, z));
+            return chunk != null ? RailBlockDescriptor.of(chunk.getBlockType(x, y, z)) : null;
+        }
+        return RailBlockDescriptor.of(world.getBlockType(x, y, z));
+    }
+
+    @Override
+    public int getRotationIndex(int x, int y, int z) {
+        if (neighbourhood.isOpen()) {
+            WorldChunk chunk = neighbourhood.chunk(ChunkUtil.indexChunkFromBlock(x, z));
+            return chunk != null ? chunk.getBlockRotationIndex(x, y, z) : 0;
+        }
+        return world.getBlockRotationIndex(x, y, z);
+    }
+
+    @Override
+    public Object getChunkIfInMemory(long chunkIndex) {
+        if (neighbourhood.isOpen()) {
+            return neighbourhood.chunk(chunkIndex);
+        }
+        return world.getChunkIfInMemory(chunkIndex);
+    }
+
+    @Override
+    public void beginPass() {
+        neighbourhood.open();
+    }
+
+    @Override
+    public int endPass() {
+        return neighbourhood.close();
+    }
+}
@@ -0,0 +1,106 @@
+package com.usefulminecarts;
+
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.math.vector.Vector3f;
+import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A cart driven through a corner must leave it on the corner's other edge. Corners are
+ * snapped against CornerCurve's equal arc-length samples rather than the old Bezier
+ * points, so this pins down that every rotation still joins the edges it names.
+ *
+ * Each rotation gets a VoxelRailWorld with the corner at the origin and six straights
+ * off each of its two edges. A riderless cart runs in from one arm, both ways round,
+ * and after enough ticks to clear the corner it has to be on the other arm's centre
+ * line, heading away from the corner.
+ */
+class CornerExitTest {
+
+    private static final float DT = 1f / 30f;
+    // Forced every tick so friction never stops the cart
+    private static final double SPEED = 8.0;
+    // Straights on each arm, and the arm block the cart starts in
+    private static final int ARM_LENGTH = 6;
+    private static final int START_BLOCK = 5;
+    // About 8 blocks: 4.5 to the corner, the corner itself, and over 2 blocks out
+    private static final int TICKS = 30;
+    // How far off an arm's centre line the cart may end up
+    private static final double CENTRE_TOLERANCE = 0.05;
+    private static final int FIRST_ENTITY_ID = 2000;
+
+    // Edges each corner rotation joins, as {dx, dz} (rotation 0 joins south and east,
+    // the rest turn clockwise from it like RailCell.rotatePoint)
+    private static final int[][][] CORNER_EDGES = {
+        {{0, 1}, {1, 0}},
+        {{1, 0}, {0, -1}},
+        {{0, -1}, {-1, 0}},
+        {{-1, 0}, {0, 1}}
+    };
+
+    @Test
+    void cartLeavesEachCornerRotationOnItsOtherEdge() {
+        MinecartPhysicsSystem system = new MinecartPhysicsSystem();
+        int entityId = FIRST_ENTITY_ID;
+        for (int rotation = 0; rotation < 4; rotation++) {
+            int[][] edges = CORNER_EDGES[rotation];
+            VoxelRailWorld world = VoxelRailWorld.fromLayout(corner(rotation, edges));
+            runThrough(system, world, entityId++, rotation, edges[0], edges[1]);
+            runThrough(system, world, entityId++, rotation, edges[1], edges[0]);
+        }
+    }
+
+    private static void runThrough(MinecartPhysicsSystem system, VoxelRailWorld world, int entityId,
+                                   int rotation, int[] entry, int[] exit) {
+        String name = "corner " + rotation + " entered from " + edgeName(entry);
+
+        // Start in the middle of the entry arm, heading for the corner
+        TransformComponent transform = new TransformComponent(
+            new Vector3d(entry[0] * START_BLOCK + 0.5, 0.1, entry[1] * START_BLOCK + 0.5), new Vector3f());
+        CartPhysicsComponent physics = new CartPhysicsComponent();
+        physics.setWorldDirection(-entry[0], -entry[1]);
+
+        for (int tick = 0; tick < TICKS; tick++) {
+            physics.velocity = SPEED;
+            world.beginPass();
+            boolean moved = system.moveOnRails(MinecartPhysicsSystem.scratch(), world, physics, entityId,
+                transform, false, false, false, 0, 1, DT, System.nanoTime(), false, false);
+            world.endPass();
+            assertTrue(moved, name + ": cart stopped on tick " + tick);
+        }
+
+        // Past the corner block along the exit edge, and on the exit arm's centre line
+        Vector3d position = transform.getPosition();
+        double along = (position.x - 0.5) * exit[0] + (position.z - 0.5) * exit[1];
+        double across = exit[0] != 0 ? position.z - 0.5 : position.x - 0.5;
+        assertTrue(along > 1.5, name + ": expected to leave " + edgeName(exit) + ", ended at " + position);
+        assertEquals(0.0, across, CENTRE_TOLERANCE, name + ": off the " + edgeName(exit) + " arm at " + position);
+
+        double heading = physics.worldDirX * exit[0] + physics.worldDirZ * exit[1];
+        assertTrue(heading > 0.99, name + ": not heading " + edgeName(exit)
+            + ", direction (" + physics.worldDirX + ", " + physics.worldDirZ + ")");
+    }
+
+    // The corner at the origin, with ARM_LENGTH straights off each of its edges
+    private static String corner(int rotation, int[][] edges) {
+        StringBuilder layout = new StringBuilder("0 0 0 corner ").append(rotation).append('\n');
+        for (int[] edge : edges) {
+            // Straights run north-south at rotation 0, east-west at rotation 1
+            int straightRotation = edge[0] != 0 ? 1 : 0;
+            for (int i = 1; i <= ARM_LENGTH; i++) {
+                layout.append(edge[0] * i).append(" 0 ").append(edge[1] * i)
+                    .append(" straight ").append(straightRotation).append('\n');
+            }
+        }
+        return layout.toString();
+    }
+
+    private static String edgeName(int[] edge) {
+        if (edge[0] > 0) return "east";
+        if (edge[0] < 0) return "west";
+        return edge[1] > 0 ? "south" : "north";
+    }
+}
@@ -0,0 +1,184 @@
+package com.usefulminecarts;
+
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.math.vector.Vector3f;
+import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * The spatial physics of a cart tick (MinecartPhysicsSystem.moveOnRails) must not
+ * allocate once warmed up. This covers the snap, sweep and per-world caches, not the
+ * whole tick: the ECS part of tickCart (component lookups, the sleep check, the
+ * CommandBuffer) needs a live entity store and is left to /mc allocprobe
+ * (TickAllocationProbe) on a running server.
+ *
+ * Riderless carts run over VoxelRailWorld layouts (straight, corners, slopes and a
+ * switch footprint in both states), asking the rider trackers for input the way
+ * tickCart does. The test thread's allocated-bytes counter must not move.
+ *
+ * Left out, as they allocate by design:
+ * - DEBUG/INFO logging formats its arguments (CartLog stays at its WARN default here)
+ * - mounted carts publish to the rider side, which needs a live entity store
+ * - arc-length mode allocates a TrackCursor whenever a cart is attached again
+ * - a cart's first pass over a block fills the per-world caches (done in the warm-up)
+ */
+class TickAllocationTest {
+
+    private static final float DT = 1f / 30f;
+    // Forced every tick so friction and slopes never stop a cart between restarts
+    private static final double SPEED = 8.0;
+    // Ticks before a cart is put back at the start of its layout (about 9 blocks)
+    private static final int RUN_TICKS = 32;
+    private static final int WARMUP_RUNS = 500;
+    private static final int MEASURED_RUNS = 50;
+    // Network ids past the Integer cache, so boxing one allocates
+    private static final int FIRST_ENTITY_ID = 1000;
+
+    private static final class Cart {
+        final VoxelRailWorld world;
+        final int entityId;
+        final double startX, startY, startZ;
+        final double dirX, dirZ;
+        final CartPhysicsComponent physics = new CartPhysicsComponent();
+        final TransformComponent transform;
+        int ticks;
+        int movedTicks;
+
+        Cart(VoxelRailWorld world, int entityId, double startX, double startY, double startZ, double dirX, double dirZ) {
+            this.world = world;
+            this.entityId = entityId;
+            this.startX = startX;
+            this.startY = startY;
+            this.startZ = startZ;
+            this.dirX = dirX;
+            this.dirZ = dirZ;
+            this.transform = new TransformComponent(new Vector3d(startX, startY, startZ), new Vector3f());
+            restart();
+        }
+
+        void restart() {
+            transform.getPosition().assign(startX, startY, startZ);
+            physics.reset();
+            physics.extendedSearchBackoff = 0;
+            physics.setWorldDirection(dirX, dirZ);
+            ticks = 0;
+        }
+    }
+
+    @Test
+    void moveOnRailsDoesNotAllocate() {
+        assumeTrue(TickAllocationProbe.isSupported(), "JVM can't count per-thread allocations");
+
+        MinecartPhysicsSystem system = new MinecartPhysicsSystem();
+        Cart[] carts = {
+            // All carts start heading north (-Z)
+            new Cart(VoxelRailWorld.fromLayout(straight()), FIRST_ENTITY_ID, 0.5, 0.1, 0.5, 0, -1),
+            new Cart(VoxelRailWorld.fromLayout(cornerChain()), FIRST_ENTITY_ID + 1, 0.5, 0.1, 2.5, 0, -1),
+            new Cart(VoxelRailWorld.fromLayout(slopeStaircase()), FIRST_ENTITY_ID + 2, 0.5, 0.1, 1.5, 0, -1),
+            new Cart(VoxelRailWorld.fromLayout(switchFootprint(false)), FIRST_ENTITY_ID + 3, 0.5, 0.1, 11.5, 0, -1),
+            new Cart(VoxelRailWorld.fromLayout(switchFootprint(true)), FIRST_ENTITY_ID + 4, 0.5, 0.1, 11.5, 0, -1)
+        };
+
+        run(system, carts, WARMUP_RUNS);
+        for (Cart cart : carts) {
+            cart.restart();
+            cart.movedTicks = 0;
+        }
+
+        long before = TickAllocationProbe.begin();
+        run(system, carts, MEASURED_RUNS);
+        long allocated = TickAllocationProbe.begin() - before;
+
+        for (Cart cart : carts) {
+            assertTrue(cart.movedTicks > 0, "cart " + cart.entityId + " never moved");
+        }
+        assertEquals(0, allocated, "bytes allocated by " + MEASURED_RUNS * RUN_TICKS * carts.length + " moveOnRails calls");
+    }
+
+    private static void run(MinecartPhysicsSystem system, Cart[] carts, int runs) {
+        for (int tick = 0; tick < runs * RUN_TICKS; tick++) {
+            for (Cart cart : carts) {
+                tick(system, cart);
+            }
+        }
+    }
+
+    private static void tick(MinecartPhysicsSystem system, Cart cart) {
+        if (cart.ticks == RUN_TICKS) {
+            cart.restart();
+        }
+        cart.ticks++;
+        cart.physics.velocity = SPEED;
+
+        // The rider lookups tickCart makes for every cart
+        boolean mounted = MinecartRiderTracker.hasRider(cart.entityId);
+        int input = MinecartMountInputBlocker.consumeRiderInput(cart.entityId);
+
+        cart.world.beginPass();
+        if (system.moveOnRails(MinecartPhysicsSystem.scratch(), cart.world, cart.physics, cart.entityId,
+                cart.transform, mounted, input > 0, input < 0, 0, 1, DT, System.nanoTime(), false, false)) {
+            cart.movedTicks++;
+        }
+        cart.world.endPass();
+    }
+
+    // 20 straights running north from z = 0
+    private static String straight() {
+        StringBuilder layout = new StringBuilder();
+        for (int z = 0; z > -20; z--) {
+            layout.append("0 0 ").append(z).append(" straight\n");
+        }
+        return layout.toString();
+    }
+
+    // A lead-in, then 32 corners turning right and left in turn (a diagonal zig-zag)
+    private static String cornerChain() {
+        StringBuilder layout = new StringBuilder("0 0 2 straight\n0 0 1 straight\n");
+        int x = 0, z = 0;
+        for (int i = 0; i < 32; i++) {
+            if ((i & 1) == 0) {
+                layout.append(x).append(" 0 ").append(z).append(" corner 0\n");
+                x++;
+            } else {
+                layout.append(x).append(" 0 ").append(z).append(" corner 2\n");
+                z--;
+            }
+        }
+        return layout.toString();
+    }
+
+    // A lead-in, then 20 slopes climbing one block per block
+    private static String slopeStaircase() {
+        StringBuilder layout = new StringBuilder("0 0 1 straight\n");
+        for (int i = 0; i < 20; i++) {
+            layout.append("0 ").append(i).append(' ').append(-i).append(" slope\n");
+        }
+        return layout.toString();
+    }
+
+    // 10 straights into a 2x2 switch footprint (origin at 0, 0) from the south, and
+    // 10 straights out of it: on north when set straight, east when set left
+    private static String switchFootprint(boolean left) {
+        String kind = left ? "switch_left" : "switch";
+        StringBuilder layout = new StringBuilder();
+        for (int z = 11; z >= 2; z--) {
+            layout.append("0 0 ").append(z).append(" straight\n");
+        }
+        layout.append("0 0 0 ").append(kind).append('\n')
+            .append("1 0 0 ").append(kind).append('\n')
+            .append("0 0 1 ").append(kind).append('\n')
+            .append("1 0 1 ").append(kind).append('\n');
+        for (int i = 2; i < 12; i++) {
+            if (left) {
+                layout.append(i).append(" 0 0 straight 1\n");
+            } else {
+                layout.append("0 0 ").append(1 - i).append(" straight\n");
+            }
+        }
+        return layout.toString();
+    }
+}